@@ -0,0 +1,121 @@
+package gov.usgs.aqcu.benchmark;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.DoubleWithDisplay;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.Qualifier;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.StatisticalDateTimeOffset;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesDataServiceResponse;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesPoint;
+
+/**
+ * Deterministic series for the benchmarks. Values are rounded to two decimals like Aquarius displays,
+ * strictly between the min and max values except at the tie points. The max and min values are
+ * repeated at the given fraction of the points, at least once each, so tie density drives how many
+ * extreme points are retained and matched.
+ */
+public class BenchmarkSeries {
+	public static final Instant START = Instant.parse("1980-01-01T06:00:00Z");
+	public static final double MAX_VALUE = 250.0D;
+	public static final double MIN_VALUE = 0.5D;
+	public static final List<String> QUALIFIER_IDENTIFIERS = Arrays.asList("ESTIMATED", "ICE", "EQUIPMENT_MALFUNCTION");
+
+	private BenchmarkSeries() {}
+
+	public static ArrayList<TimeSeriesPoint> createPoints(int count, double tieDensity, boolean isDaily, long seed) {
+		ArrayList<TimeSeriesPoint> points = new ArrayList<>(count);
+		Duration interval = isDaily ? Duration.ofDays(1) : Duration.ofMinutes(15);
+		int tieSpacing = tieDensity > 0 ? Math.max(2, (int) Math.round(1 / tieDensity)) : count;
+		for(int index = 0; index < count; index++) {
+			double value;
+			if(index % tieSpacing == tieSpacing / 2) {
+				value = MAX_VALUE;
+			} else if(index % tieSpacing == tieSpacing / 2 + 1) {
+				value = MIN_VALUE;
+			} else {
+				double noise = (mix(seed * 31L + index) >>> 11) / (double) (1L << 53);
+				value = Math.round((125.0D + 100.0D * Math.sin(index / 2880.0D) + 20.0D * (noise - 0.5D)) * 100.0D) / 100.0D;
+			}
+			points.add(new TimeSeriesPoint()
+				.setTimestamp(new StatisticalDateTimeOffset()
+					.setDateTimeOffset(START.plus(interval.multipliedBy(index)))
+					.setRepresentsEndOfTimePeriod(isDaily)
+				)
+				.setValue(new DoubleWithDisplay()
+					.setDisplay(String.format(Locale.US, "%.2f", value))
+					.setNumeric(value)
+				)
+			);
+		}
+		return points;
+	}
+
+	/**
+	 * A corrected data response with the points and a qualifier over the first tenth of them.
+	 */
+	public static TimeSeriesDataServiceResponse createResponse(ArrayList<TimeSeriesPoint> points) {
+		ArrayList<Qualifier> qualifiers = new ArrayList<>();
+		if(!points.isEmpty()) {
+			qualifiers.add(new Qualifier()
+				.setIdentifier(QUALIFIER_IDENTIFIERS.get(0))
+				.setStartTime(points.get(0).getTimestamp().getDateTimeOffset())
+				.setEndTime(points.get(points.size() / 10).getTimestamp().getDateTimeOffset())
+				.setUser("benchmark")
+				.setDateApplied(START)
+			);
+		}
+		return new TimeSeriesDataServiceResponse()
+			.setPoints(points)
+			.setQualifiers(qualifiers);
+	}
+
+	/**
+	 * Points tied at the given value, as found for a series with many equal extremes.
+	 */
+	public static ArrayList<TimeSeriesPoint> createTiedPoints(int count, double value, boolean isDaily) {
+		ArrayList<TimeSeriesPoint> points = new ArrayList<>(count);
+		Duration interval = isDaily ? Duration.ofDays(1) : Duration.ofMinutes(15);
+		for(int index = 0; index < count; index++) {
+			points.add(new TimeSeriesPoint()
+				.setTimestamp(new StatisticalDateTimeOffset()
+					.setDateTimeOffset(START.plus(interval.multipliedBy(index * 7L)))
+					.setRepresentsEndOfTimePeriod(isDaily)
+				)
+				.setValue(new DoubleWithDisplay()
+					.setDisplay(String.format(Locale.US, "%.2f", value))
+					.setNumeric(value)
+				)
+			);
+		}
+		return points;
+	}
+
+	/**
+	 * Adjacent qualifiers of a day each, cycling through the qualifier identifiers.
+	 */
+	public static List<Qualifier> createQualifiers(int count) {
+		List<Qualifier> qualifiers = new ArrayList<>(count);
+		for(int index = 0; index < count; index++) {
+			qualifiers.add(new Qualifier()
+				.setIdentifier(QUALIFIER_IDENTIFIERS.get(index % QUALIFIER_IDENTIFIERS.size()))
+				.setStartTime(START.plus(Duration.ofDays(index)))
+				.setEndTime(START.plus(Duration.ofDays(index + 1)))
+				.setUser("benchmark")
+				.setDateApplied(START)
+			);
+		}
+		return qualifiers;
+	}
+
+	private static long mix(long seed) {
+		long z = seed + 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+}
@@ -0,0 +1,99 @@
+package gov.usgs.aqcu.builder;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesPoint;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import gov.usgs.aqcu.benchmark.BenchmarkSeries;
+import gov.usgs.aqcu.model.TimeSeriesMinMax;
+import gov.usgs.aqcu.parameter.RelatedPointMatchMode;
+
+/**
+ * Min/max point finding over SDK point lists and columnar series. The multiple min/max flags
+ * are found in the same pass as the extremes, so accumulateMinMax measures that sequential pass
+ * on its own, without rebuilding the extreme points.
+ * The 10M point series need a large heap, which is given to the forked JVM.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms10g", "-Xmx10g"})
+public class MinMaxBuilderServiceBenchmark {
+	@Param({"1000", "100000", "1000000", "10000000"})
+	public int points;
+
+	@Param({"0", "0.001", "0.1"})
+	public double tieDensity;
+
+	@Param({"false", "true"})
+	public boolean daily;
+
+	private MinMaxBuilderService minMaxBuilderService;
+	private ArrayList<TimeSeriesPoint> primaryPoints;
+	private ArrayList<TimeSeriesPoint> relatedPoints;
+	private ColumnarTimeSeries primarySeries;
+	private ColumnarTimeSeries relatedSeries;
+	private TimeSeriesMinMax primaryMinMax;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		minMaxBuilderService = new MinMaxBuilderService(true, 500000, 0);
+		primaryPoints = BenchmarkSeries.createPoints(points, tieDensity, daily, 1L);
+		relatedPoints = BenchmarkSeries.createPoints(points, tieDensity, daily, 2L);
+		primarySeries = ColumnarTimeSeries.fromPoints(primaryPoints);
+		relatedSeries = ColumnarTimeSeries.fromPoints(relatedPoints);
+		primaryMinMax = minMaxBuilderService.findMinMaxPoints(primaryPoints);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		minMaxBuilderService.shutdown();
+	}
+
+	@Benchmark
+	public TimeSeriesMinMax findMinMaxPoints() {
+		return minMaxBuilderService.findMinMaxPoints(primaryPoints);
+	}
+
+	@Benchmark
+	public TimeSeriesMinMax findColumnarMinMaxPoints() {
+		return minMaxBuilderService.findColumnarMinMaxPoints(primarySeries);
+	}
+
+	@Benchmark
+	public TimeSeriesMinMax findMinMaxMatchingPoints() {
+		return minMaxBuilderService.findMinMaxMatchingPoints(primaryMinMax, relatedPoints);
+	}
+
+	@Benchmark
+	public TimeSeriesMinMax findColumnarMinMaxMatchingPoints() {
+		return minMaxBuilderService.findColumnarMinMaxMatchingPoints(primaryMinMax, relatedSeries, RelatedPointMatchMode.EXACT, null);
+	}
+
+	@Benchmark
+	public void accumulateMinMax(Blackhole blackhole) {
+		MinMaxAccumulator accumulator = minMaxBuilderService.scanRange(primarySeries, 0, primarySeries.size());
+		blackhole.consume(accumulator.getMaxIndexes());
+		blackhole.consume(accumulator.getMinIndexes());
+		blackhole.consume(accumulator.isMultipleMax());
+		blackhole.consume(accumulator.isMultipleMin());
+	}
+}
@@ -0,0 +1,143 @@
+package gov.usgs.aqcu.builder;
+
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.LocationDescription;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.QualifierMetadata;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesDescription;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesPoint;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import gov.usgs.aqcu.benchmark.BenchmarkSeries;
+import gov.usgs.aqcu.cache.LocationDescriptionCache;
+import gov.usgs.aqcu.cache.QualifierMetadataCache;
+import gov.usgs.aqcu.cache.TimeSeriesDescriptionCache;
+import gov.usgs.aqcu.model.ExtremesReport;
+import gov.usgs.aqcu.parameter.ExtremesRequestParameters;
+import gov.usgs.aqcu.retrieval.LocationDescriptionListService;
+import gov.usgs.aqcu.retrieval.QualifierLookupService;
+import gov.usgs.aqcu.retrieval.TimeSeriesDataService;
+import gov.usgs.aqcu.retrieval.TimeSeriesDescriptionListService;
+
+/**
+ * A full report build for a primary and an upchain series, with the Aquarius retrieval services
+ * stubbed to return prepared responses. Retrieval runs on the calling thread, so the measurement
+ * covers the description lookups, extremes, related point matching and report conversion only.
+ * The stubs do not record invocations, so the mocks do not grow over the run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms10g", "-Xmx10g"})
+public class ReportBuilderServiceBenchmark {
+	@Param({"1000", "100000", "1000000", "10000000"})
+	public int points;
+
+	@Param({"0", "0.001", "0.1"})
+	public double tieDensity;
+
+	@Param({"false", "true"})
+	public boolean daily;
+
+	private MinMaxBuilderService minMaxBuilderService;
+	private ReportBuilderService service;
+	private ExtremesRequestParameters requestParameters;
+
+	@Setup(Level.Trial)
+	@SuppressWarnings("unchecked")
+	public void setup() {
+		LocationDescriptionListService locDescService = mock(LocationDescriptionListService.class, withSettings().stubOnly());
+		TimeSeriesDescriptionListService tsDescService = mock(TimeSeriesDescriptionListService.class, withSettings().stubOnly());
+		TimeSeriesDataService tsDataService = mock(TimeSeriesDataService.class, withSettings().stubOnly());
+		QualifierLookupService qualLookupService = mock(QualifierLookupService.class, withSettings().stubOnly());
+
+		ArrayList<TimeSeriesPoint> primaryPoints = BenchmarkSeries.createPoints(points, tieDensity, daily, 1L);
+		ArrayList<TimeSeriesPoint> upchainPoints = BenchmarkSeries.createPoints(points, tieDensity, daily, 2L);
+		given(tsDescService.getTimeSeriesDescriptionList(any(List.class))).willReturn(
+			Arrays.asList(createDescription("primaryTsId"), createDescription("upchainTsId"))
+		);
+		given(tsDataService.get(eq("primaryTsId"), any(), any(), any(), any(), any(), any())).willReturn(
+			BenchmarkSeries.createResponse(primaryPoints)
+		);
+		given(tsDataService.get(eq("upchainTsId"), any(), any(), any(), any(), any(), any())).willReturn(
+			BenchmarkSeries.createResponse(upchainPoints)
+		);
+		Map<String, QualifierMetadata> qualMetadata = new HashMap<>();
+		qualMetadata.put("ESTIMATED", new QualifierMetadata().setIdentifier("ESTIMATED"));
+		given(qualLookupService.getByQualifierList(any(List.class))).willReturn(qualMetadata);
+		given(locDescService.getByLocationIdentifier(any(String.class))).willReturn(
+			new LocationDescription()
+				.setIdentifier("loc1")
+				.setUniqueId("loc1")
+				.setName("loc1")
+		);
+
+		minMaxBuilderService = new MinMaxBuilderService(true, 500000, 0);
+		service = new ReportBuilderService(
+			new LocationDescriptionCache(locDescService, 3600, 100, new String[0], new SimpleMeterRegistry()),
+			minMaxBuilderService,
+			new TimeSeriesDescriptionCache(tsDescService, 3600, 100, false, new SimpleMeterRegistry()),
+			tsDataService,
+			new QualifierMetadataCache(qualLookupService, 3600, 3600, 100, new SimpleMeterRegistry())
+		);
+
+		ZoneOffset zoneOffset = ZoneOffset.ofHours(-6);
+		requestParameters = new ExtremesRequestParameters();
+		requestParameters.setStartDate(LocalDate.from(BenchmarkSeries.START.atOffset(zoneOffset)));
+		requestParameters.setEndDate(LocalDate.from(primaryPoints.get(primaryPoints.size() - 1)
+			.getTimestamp().getDateTimeOffset().atOffset(zoneOffset)));
+		requestParameters.setPrimaryTimeseriesIdentifier("primaryTsId");
+		requestParameters.setUpchainTimeseriesIdentifier("upchainTsId");
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		minMaxBuilderService.shutdown();
+	}
+
+	@Benchmark
+	public ExtremesReport buildReport() {
+		return service.buildReport(requestParameters, "benchmark");
+	}
+
+	private TimeSeriesDescription createDescription(String uniqueId) {
+		return new TimeSeriesDescription()
+			.setUniqueId(uniqueId)
+			.setUtcOffset(-6.0D)
+			.setLocationIdentifier("loc1")
+			.setIdentifier(uniqueId)
+			.setParameter(uniqueId + "-param")
+			.setUnit(uniqueId + "-unit")
+			.setComputationPeriodIdentifier(daily ? "Daily" : "realtime");
+	}
+}
@@ -0,0 +1,177 @@
+package gov.usgs.aqcu.builder;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.LocationDescription;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.Qualifier;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.QualifierMetadata;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesDescription;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesPoint;
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import gov.usgs.aqcu.benchmark.BenchmarkSeries;
+import gov.usgs.aqcu.config.WebMvcConfig;
+import gov.usgs.aqcu.model.ExtremesMinMax;
+import gov.usgs.aqcu.model.ExtremesPoint;
+import gov.usgs.aqcu.model.ExtremesQualifier;
+import gov.usgs.aqcu.model.ExtremesReport;
+import gov.usgs.aqcu.model.ExtremesReportMetadata;
+import gov.usgs.aqcu.parameter.ExtremesRequestParameters;
+
+/**
+ * Mapping of min/max points and qualifiers to the report model, and serialization of the report
+ * with the Gson bean used by the controller, both to a String as sent to the renderer and streamed
+ * as the raw data response is. The report has a primary, upchain and derived series, each with the
+ * given number of tied max and min points, related points and qualifiers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReportSerializationBenchmark {
+	private static final ZoneOffset ZONE_OFFSET = ZoneOffset.ofHours(-6);
+
+	@Param({"1", "100", "5000"})
+	public int tiedPoints;
+
+	@Param({"10", "1000"})
+	public int qualifiers;
+
+	@Param({"false", "true"})
+	public boolean daily;
+
+	private ReportBuilderService service;
+	private Gson gson;
+	private List<TimeSeriesPoint> maxPoints;
+	private List<Qualifier> qualifierList;
+	private ExtremesReport report;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		service = new ReportBuilderService(null, null, null, null, null);
+		gson = new WebMvcConfig().gson();
+		maxPoints = BenchmarkSeries.createTiedPoints(tiedPoints, BenchmarkSeries.MAX_VALUE, daily);
+		qualifierList = BenchmarkSeries.createQualifiers(qualifiers);
+
+		report = new ExtremesReport();
+		report.setPrimary(createMinMax(true, daily, ReportBuilderService.UPCHAIN_RELATED_KEY));
+		report.setUpchain(createMinMax(false, daily, ReportBuilderService.PRIMARY_RELATED_KEY));
+		report.setDv(createMinMax(false, true, null));
+		report.setReportMetadata(createMetadata());
+	}
+
+	@Benchmark
+	public List<ExtremesPoint> getExtremesPoints() {
+		return service.getExtremesPoints(maxPoints, daily, ZONE_OFFSET);
+	}
+
+	@Benchmark
+	public List<ExtremesQualifier> getExtremesQualifiers() {
+		return service.getExtremesQualifiers(qualifierList, daily, ZONE_OFFSET);
+	}
+
+	@Benchmark
+	public String toJson() {
+		return gson.toJson(report, ExtremesReport.class);
+	}
+
+	@Benchmark
+	public void toJsonStream() throws IOException {
+		try (JsonWriter jsonWriter = new JsonWriter(new DiscardingWriter())) {
+			gson.toJson(report, ExtremesReport.class, jsonWriter);
+		}
+	}
+
+	private ExtremesMinMax createMinMax(boolean multiple, boolean isDaily, String relatedKey) {
+		ExtremesMinMax minMax = new ExtremesMinMax();
+		minMax.setMaxPoints(service.getExtremesPoints(
+			BenchmarkSeries.createTiedPoints(tiedPoints, BenchmarkSeries.MAX_VALUE, isDaily), isDaily, ZONE_OFFSET));
+		minMax.setMultipleMaxFlag(multiple && tiedPoints > 1);
+		minMax.setMinPoints(service.getExtremesPoints(
+			BenchmarkSeries.createTiedPoints(tiedPoints, BenchmarkSeries.MIN_VALUE, isDaily), isDaily, ZONE_OFFSET));
+		minMax.setMultipleMinFlag(multiple && tiedPoints > 1);
+		if(relatedKey != null) {
+			minMax.setMaxRelatedPoints(service.getExtremesPoints(
+				BenchmarkSeries.createTiedPoints(tiedPoints, 125.25D, isDaily), isDaily, ZONE_OFFSET), relatedKey);
+			minMax.setMinRelatedPoints(service.getExtremesPoints(
+				BenchmarkSeries.createTiedPoints(tiedPoints, 1.75D, isDaily), isDaily, ZONE_OFFSET), relatedKey);
+		}
+		minMax.setQualifiers(service.getExtremesQualifiers(qualifierList, isDaily, ZONE_OFFSET));
+		return minMax;
+	}
+
+	private ExtremesReportMetadata createMetadata() {
+		ExtremesRequestParameters requestParameters = new ExtremesRequestParameters();
+		requestParameters.setStartDate(LocalDate.parse("1980-01-01"));
+		requestParameters.setEndDate(LocalDate.parse("2019-12-31"));
+		requestParameters.setPrimaryTimeseriesIdentifier("primaryTsId");
+		requestParameters.setUpchainTimeseriesIdentifier("upchainTsId");
+		requestParameters.setDerivedTimeseriesIdentifier("derivedTsId");
+
+		Map<String, TimeSeriesDescription> descriptions = new HashMap<>();
+		descriptions.put("primaryTsId", createDescription("primaryTsId", daily));
+		descriptions.put("upchainTsId", createDescription("upchainTsId", daily));
+		descriptions.put("derivedTsId", createDescription("derivedTsId", true));
+		Map<String, QualifierMetadata> qualifierMetadata = new HashMap<>();
+		for(String identifier : BenchmarkSeries.QUALIFIER_IDENTIFIERS) {
+			qualifierMetadata.put(identifier, new QualifierMetadata()
+				.setIdentifier(identifier)
+				.setCode(identifier.substring(0, 3))
+				.setDisplayName(identifier.toLowerCase()));
+		}
+		return service.getReportMetadata(requestParameters, descriptions, descriptions.get("primaryTsId"), "benchmark",
+			CompletableFuture.completedFuture(new LocationDescription()
+				.setIdentifier("loc1")
+				.setUniqueId("loc1")
+				.setName("loc1")),
+			CompletableFuture.completedFuture(qualifierMetadata));
+	}
+
+	private TimeSeriesDescription createDescription(String uniqueId, boolean isDaily) {
+		return new TimeSeriesDescription()
+			.setUniqueId(uniqueId)
+			.setUtcOffset(-6.0D)
+			.setLocationIdentifier("loc1")
+			.setIdentifier(uniqueId)
+			.setParameter(uniqueId + "-param")
+			.setUnit(uniqueId + "-unit")
+			.setComputationIdentifier(isDaily ? "Mean" : "Instantaneous")
+			.setComputationPeriodIdentifier(isDaily ? "Daily" : "Points");
+	}
+
+	private static class DiscardingWriter extends Writer {
+		@Override
+		public void write(char[] buffer, int offset, int length) {}
+
+		@Override
+		public void flush() {}
+
+		@Override
+		public void close() {}
+	}
+}
@@ -1,6 +1,13 @@
 package gov.usgs.aqcu;
 
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+
+import javax.servlet.http.HttpServletResponse;
+
 import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -15,7 +22,7 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 
 import gov.usgs.aqcu.builder.ReportBuilderService;
-import gov.usgs.aqcu.client.JavaToRClient;
+import gov.usgs.aqcu.cache.RenderedReportCache;
 import gov.usgs.aqcu.model.ExtremesReport;
 import gov.usgs.aqcu.parameter.ExtremesRequestParameters;
 
@@ -26,15 +33,15 @@ public class Controller {
 
 	private Gson gson;
 	private ReportBuilderService reportBuilderService;
-	private JavaToRClient javaToRClient;
+	private RenderedReportCache renderedReportCache;
 
 	@Autowired
 	public Controller(
 			ReportBuilderService reportBuilderService,
-		JavaToRClient javaToRClient,
+		RenderedReportCache renderedReportCache,
 		Gson gson) {
 		this.reportBuilderService = reportBuilderService;
-		this.javaToRClient = javaToRClient;
+		this.renderedReportCache = renderedReportCache;
 		this.gson = gson;
 	}
 
@@ -42,14 +49,20 @@ public class Controller {
 	public ResponseEntity<?> getReport(@Validated ExtremesRequestParameters requestParameters) throws Exception {
 		String requestingUser = getRequestingUser();
 		ExtremesReport report = reportBuilderService.buildReport(requestParameters, requestingUser);
-		byte[] reportHtml = javaToRClient.render(requestingUser, "extremes", gson.toJson(report, ExtremesReport.class));
+		byte[] reportHtml = renderedReportCache.render(requestingUser, "extremes", gson.toJson(report, ExtremesReport.class));
 		return new ResponseEntity<byte[]>(reportHtml, new HttpHeaders(), HttpStatus.OK);
 	}
 	
 	@GetMapping(value="/rawData", produces={MediaType.APPLICATION_JSON_VALUE})
-	public ResponseEntity<String> getReportRawData(@Validated ExtremesRequestParameters requestParameters) throws Exception {
+	public void getReportRawData(@Validated ExtremesRequestParameters requestParameters, HttpServletResponse response) throws Exception {
 		ExtremesReport report = reportBuilderService.buildReport(requestParameters, getRequestingUser());
-		return new ResponseEntity<String>(gson.toJson(report), new HttpHeaders(), HttpStatus.OK);
+		response.setStatus(HttpStatus.OK.value());
+		response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+		//Serialize directly to the response on the request thread rather than materializing the full JSON String.
+		//A failure after the response is committed propagates, so the container aborts the response instead of completing a truncated body.
+		JsonWriter jsonWriter = gson.newJsonWriter(new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8)));
+		gson.toJson(report, ExtremesReport.class, jsonWriter);
+		jsonWriter.flush();
 	}
 
 	String getRequestingUser() {
@@ -0,0 +1,522 @@
+package gov.usgs.aqcu.builder;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.DoubleWithDisplay;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.Qualifier;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.StatisticalDateTimeOffset;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesDataServiceResponse;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesPoint;
+
+/**
+ * Compact column-oriented copy of a retrieved time series.
+ * Each point is held as an epoch millisecond, a double value, the display value encoded as an exact
+ * decimal (unscaled long and scale) and a byte of flags, rather than as SDK point objects.
+ * Sub-millisecond timestamps and display values that are not plain decimals are stored separately,
+ * and only when they occur, so getPoint returns a point equal in content to the one that was copied.
+ * 
+ * A series can be viewed over a sub-range of its points without copying them. Views of an indexed
+ * series share its range min/max index, so min/max over any view is answered from the index.
+ */
+public class ColumnarTimeSeries implements MinMaxSeries {
+	private static final byte NO_TIMESTAMP = 1;
+	private static final byte NO_VALUE = 1 << 1;
+	private static final byte NO_NUMERIC = 1 << 2;
+	private static final byte END_OF_PERIOD = 1 << 3;
+	private static final byte END_OF_PERIOD_NULL = 1 << 4;
+	private static final byte DISPLAY_EXCEPTION = 1 << 5;
+
+	private final int offset;
+	private final int size;
+	private final long[] epochMillis;
+	private int[] subMilliNanos;
+	private final double[] values;
+	private final long[] displayUnscaled;
+	private final byte[] displayScales;
+	private final byte[] flags;
+	private Map<Integer, String> displayExceptions;
+	private List<Qualifier> qualifiers = new ArrayList<>();
+	private RangeMinMaxIndex rangeIndex;
+
+	private ColumnarTimeSeries(int size) {
+		this.offset = 0;
+		this.size = size;
+		this.epochMillis = new long[size];
+		this.values = new double[size];
+		this.displayUnscaled = new long[size];
+		this.displayScales = new byte[size];
+		this.flags = new byte[size];
+	}
+
+	private ColumnarTimeSeries(ColumnarTimeSeries source, int offset, int size) {
+		this.offset = offset;
+		this.size = size;
+		this.epochMillis = source.epochMillis;
+		this.subMilliNanos = source.subMilliNanos;
+		this.values = source.values;
+		this.displayUnscaled = source.displayUnscaled;
+		this.displayScales = source.displayScales;
+		this.flags = source.flags;
+		this.displayExceptions = source.displayExceptions;
+		this.qualifiers = source.qualifiers;
+		this.rangeIndex = source.rangeIndex;
+	}
+
+	public static ColumnarTimeSeries fromPoints(List<TimeSeriesPoint> points) {
+		ColumnarTimeSeries result = new ColumnarTimeSeries(points != null ? points.size() : 0);
+		if(points != null) {
+			int index = 0;
+			for(TimeSeriesPoint point : points) {
+				result.set(index++, point);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns null for a null response, so callers can treat a missing series as before.
+	 */
+	public static ColumnarTimeSeries fromResponse(TimeSeriesDataServiceResponse response) {
+		if(response == null) {
+			return null;
+		}
+		ColumnarTimeSeries result = fromPoints(response.getPoints());
+		if(response.getQualifiers() != null) {
+			result.qualifiers = response.getQualifiers();
+		}
+		return result;
+	}
+
+	/**
+	 * Writes the points and qualifiers of this series, or of this view of it, as a binary segment.
+	 * Each column is written in turn, so a segment takes 26 bytes per point plus any sub-millisecond
+	 * timestamps and display values that are not plain decimals.
+	 */
+	public void writeTo(DataOutput out) throws IOException {
+		out.writeInt(size);
+		for(int i = offset; i < offset + size; i++) {
+			out.writeLong(epochMillis[i]);
+		}
+		for(int i = offset; i < offset + size; i++) {
+			out.writeDouble(values[i]);
+		}
+		for(int i = offset; i < offset + size; i++) {
+			out.writeLong(displayUnscaled[i]);
+		}
+		out.write(displayScales, offset, size);
+		out.write(flags, offset, size);
+
+		out.writeBoolean(subMilliNanos != null);
+		if(subMilliNanos != null) {
+			for(int i = offset; i < offset + size; i++) {
+				out.writeInt(subMilliNanos[i]);
+			}
+		}
+
+		List<Integer> exceptionIndexes = new ArrayList<>();
+		for(int i = offset; i < offset + size; i++) {
+			if(hasFlag(i, DISPLAY_EXCEPTION)) {
+				exceptionIndexes.add(i);
+			}
+		}
+		out.writeInt(exceptionIndexes.size());
+		for(int index : exceptionIndexes) {
+			out.writeInt(index - offset);
+			writeString(out, displayExceptions.get(index));
+		}
+
+		out.writeInt(qualifiers.size());
+		for(Qualifier qualifier : qualifiers) {
+			writeString(out, qualifier.getIdentifier());
+			writeString(out, qualifier.getStartTime() != null ? qualifier.getStartTime().toString() : null);
+			writeString(out, qualifier.getEndTime() != null ? qualifier.getEndTime().toString() : null);
+			writeString(out, qualifier.getUser());
+			writeString(out, qualifier.getDateApplied() != null ? qualifier.getDateApplied().toString() : null);
+		}
+	}
+
+	/**
+	 * Reads a series written by writeTo.
+	 */
+	public static ColumnarTimeSeries readFrom(DataInput in) throws IOException {
+		int size = in.readInt();
+		if(size < 0) {
+			throw new IOException("Invalid segment size " + size);
+		}
+		ColumnarTimeSeries result = new ColumnarTimeSeries(size);
+		for(int i = 0; i < size; i++) {
+			result.epochMillis[i] = in.readLong();
+		}
+		for(int i = 0; i < size; i++) {
+			result.values[i] = in.readDouble();
+		}
+		for(int i = 0; i < size; i++) {
+			result.displayUnscaled[i] = in.readLong();
+		}
+		in.readFully(result.displayScales);
+		in.readFully(result.flags);
+
+		if(in.readBoolean()) {
+			result.subMilliNanos = new int[size];
+			for(int i = 0; i < size; i++) {
+				result.subMilliNanos[i] = in.readInt();
+			}
+		}
+
+		int exceptionCount = in.readInt();
+		if(exceptionCount > 0) {
+			result.displayExceptions = new HashMap<>();
+			for(int i = 0; i < exceptionCount; i++) {
+				result.displayExceptions.put(in.readInt(), readString(in));
+			}
+		}
+
+		int qualifierCount = in.readInt();
+		for(int i = 0; i < qualifierCount; i++) {
+			String identifier = readString(in);
+			String startTime = readString(in);
+			String endTime = readString(in);
+			String user = readString(in);
+			String dateApplied = readString(in);
+			result.qualifiers.add(new Qualifier()
+				.setIdentifier(identifier)
+				.setStartTime(startTime != null ? Instant.parse(startTime) : null)
+				.setEndTime(endTime != null ? Instant.parse(endTime) : null)
+				.setUser(user)
+				.setDateApplied(dateApplied != null ? Instant.parse(dateApplied) : null)
+			);
+		}
+		return result;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public List<Qualifier> getQualifiers() {
+		return qualifiers;
+	}
+
+	/**
+	 * The numeric value of the point, or NaN when the point has no numeric value.
+	 */
+	@Override
+	public double getValue(int index) {
+		return values[offset + index];
+	}
+
+	public Instant getTime(int index) {
+		return getBaseTime(offset + index);
+	}
+
+	public long getEpochMilli(int index) {
+		return epochMillis[offset + index];
+	}
+
+	@Override
+	public boolean hasSameTime(int index, int otherIndex) {
+		int base = offset + index;
+		int otherBase = offset + otherIndex;
+		if(hasFlag(base, NO_TIMESTAMP) || hasFlag(otherBase, NO_TIMESTAMP)) {
+			return hasFlag(base, NO_TIMESTAMP) && hasFlag(otherBase, NO_TIMESTAMP);
+		}
+		return epochMillis[base] == epochMillis[otherBase]
+			&& (subMilliNanos == null || subMilliNanos[base] == subMilliNanos[otherBase]);
+	}
+
+	@Override
+	public boolean hasSameDisplay(int index, int otherIndex) {
+		int base = offset + index;
+		int otherBase = offset + otherIndex;
+		if(hasFlag(base, DISPLAY_EXCEPTION) || hasFlag(otherBase, DISPLAY_EXCEPTION)) {
+			return Objects.equals(getBaseDisplay(base), getBaseDisplay(otherBase));
+		}
+		return displayUnscaled[base] == displayUnscaled[otherBase] && displayScales[base] == displayScales[otherBase];
+	}
+
+	public String getDisplay(int index) {
+		return getBaseDisplay(offset + index);
+	}
+
+	/**
+	 * Rebuilds the SDK point at the given index.
+	 */
+	public TimeSeriesPoint getPoint(int index) {
+		int base = offset + index;
+		TimeSeriesPoint point = new TimeSeriesPoint();
+		if(!hasFlag(base, NO_TIMESTAMP)) {
+			point.setTimestamp(new StatisticalDateTimeOffset()
+				.setDateTimeOffset(getBaseTime(base))
+				.setRepresentsEndOfTimePeriod(hasFlag(base, END_OF_PERIOD_NULL) ? null : hasFlag(base, END_OF_PERIOD))
+			);
+		}
+		if(!hasFlag(base, NO_VALUE)) {
+			point.setValue(new DoubleWithDisplay()
+				.setNumeric(hasFlag(base, NO_NUMERIC) ? null : values[base])
+				.setDisplay(getBaseDisplay(base))
+			);
+		}
+		return point;
+	}
+
+	public List<TimeSeriesPoint> getPoints(int[] indexes) {
+		List<TimeSeriesPoint> result = new ArrayList<>(indexes.length);
+		for(int index : indexes) {
+			result.add(getPoint(index));
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the index of the first point at or after the given time, or the size of the series
+	 * when every point is before it. The points must be ordered by time.
+	 */
+	public int getStartIndex(Instant time) {
+		return findIndex(time, false);
+	}
+
+	/**
+	 * Returns the index of the first point after the given time, or the size of the series
+	 * when every point is at or before it. The points must be ordered by time.
+	 */
+	public int getEndIndex(Instant time) {
+		return findIndex(time, true);
+	}
+
+	/**
+	 * A view of the points from the start index, inclusive, to the end index, exclusive.
+	 */
+	public ColumnarTimeSeries subSeries(int startIndex, int endIndex) {
+		if(startIndex < 0 || endIndex > size || startIndex > endIndex) {
+			throw new IndexOutOfBoundsException("Invalid range " + startIndex + " to " + endIndex + " of " + size + " points");
+		}
+		return new ColumnarTimeSeries(this, offset + startIndex, endIndex - startIndex);
+	}
+
+	/**
+	 * A view of the points from the start time through the end time, inclusive, with only the
+	 * qualifiers that overlap that period.
+	 */
+	public ColumnarTimeSeries subSeries(Instant startTime, Instant endTime) {
+		ColumnarTimeSeries result = subSeries(getStartIndex(startTime), Math.max(getStartIndex(startTime), getEndIndex(endTime)));
+		result.qualifiers = qualifiers.stream()
+			.filter(q -> (q.getStartTime() == null || !q.getStartTime().isAfter(endTime))
+				&& (q.getEndTime() == null || !q.getEndTime().isBefore(startTime)))
+			.collect(Collectors.toList());
+		return result;
+	}
+
+	/**
+	 * Returns this series, compacted, with a range min/max index built over its points, shared by
+	 * every view taken from it.
+	 */
+	public ColumnarTimeSeries indexed() {
+		ColumnarTimeSeries base = compact();
+		base = new ColumnarTimeSeries(base, 0, base.size);
+		base.rangeIndex = new RangeMinMaxIndex(base);
+		return base;
+	}
+
+	/**
+	 * Returns this series, or a copy of only its points when it is a view of a larger series,
+	 * so holding it does not keep the points outside the view reachable.
+	 */
+	public ColumnarTimeSeries compact() {
+		if(offset == 0 && size == epochMillis.length) {
+			return this;
+		}
+		ColumnarTimeSeries result = new ColumnarTimeSeries(size);
+		System.arraycopy(epochMillis, offset, result.epochMillis, 0, size);
+		System.arraycopy(values, offset, result.values, 0, size);
+		System.arraycopy(displayUnscaled, offset, result.displayUnscaled, 0, size);
+		System.arraycopy(displayScales, offset, result.displayScales, 0, size);
+		System.arraycopy(flags, offset, result.flags, 0, size);
+		if(subMilliNanos != null) {
+			result.subMilliNanos = Arrays.copyOfRange(subMilliNanos, offset, offset + size);
+		}
+		if(displayExceptions != null) {
+			result.displayExceptions = new HashMap<>();
+			for(Map.Entry<Integer, String> entry : displayExceptions.entrySet()) {
+				if(entry.getKey() >= offset && entry.getKey() < offset + size) {
+					result.displayExceptions.put(entry.getKey() - offset, entry.getValue());
+				}
+			}
+		}
+		result.qualifiers = qualifiers;
+		return result;
+	}
+
+	public boolean isIndexed() {
+		return rangeIndex != null;
+	}
+
+	RangeMinMaxIndex getRangeIndex() {
+		return rangeIndex;
+	}
+
+	int getOffset() {
+		return offset;
+	}
+
+	private int findIndex(Instant time, boolean after) {
+		long epochMilli = time.toEpochMilli();
+		int nanos = time.getNano() % 1_000_000;
+		int low = 0;
+		int high = size;
+		while(low < high) {
+			int mid = (low + high) >>> 1;
+			int base = offset + mid;
+			int compare = Long.compare(epochMillis[base], epochMilli);
+			if(compare == 0) {
+				compare = Integer.compare(subMilliNanos != null ? subMilliNanos[base] : 0, nanos);
+			}
+			if(compare < 0 || (after && compare == 0)) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	private Instant getBaseTime(int base) {
+		if(hasFlag(base, NO_TIMESTAMP)) {
+			return null;
+		}
+		Instant time = Instant.ofEpochMilli(epochMillis[base]);
+		return subMilliNanos != null ? time.plusNanos(subMilliNanos[base]) : time;
+	}
+
+	private String getBaseDisplay(int base) {
+		if(hasFlag(base, DISPLAY_EXCEPTION)) {
+			return displayExceptions.get(base);
+		}
+		return BigDecimal.valueOf(displayUnscaled[base], displayScales[base]).toPlainString();
+	}
+
+	private static void writeString(DataOutput out, String value) throws IOException {
+		out.writeBoolean(value != null);
+		if(value != null) {
+			out.writeUTF(value);
+		}
+	}
+
+	private static String readString(DataInput in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+
+	private boolean hasFlag(int base, byte flag) {
+		return (flags[base] & flag) != 0;
+	}
+
+	private void set(int index, TimeSeriesPoint point) {
+		byte pointFlags = 0;
+
+		StatisticalDateTimeOffset timestamp = point.getTimestamp();
+		if(timestamp == null || timestamp.getDateTimeOffset() == null) {
+			pointFlags |= NO_TIMESTAMP;
+		} else {
+			Instant time = timestamp.getDateTimeOffset();
+			epochMillis[index] = time.toEpochMilli();
+			int nanos = time.getNano() % 1_000_000;
+			if(nanos != 0) {
+				if(subMilliNanos == null) {
+					subMilliNanos = new int[size];
+				}
+				subMilliNanos[index] = nanos;
+			}
+		}
+		if(timestamp != null) {
+			if(timestamp.isRepresentsEndOfTimePeriod() == null) {
+				pointFlags |= END_OF_PERIOD_NULL;
+			} else if(timestamp.isRepresentsEndOfTimePeriod()) {
+				pointFlags |= END_OF_PERIOD;
+			}
+		}
+
+		DoubleWithDisplay value = point.getValue();
+		if(value == null) {
+			pointFlags |= NO_VALUE | NO_NUMERIC;
+			values[index] = Double.NaN;
+		} else {
+			if(value.getNumeric() == null) {
+				pointFlags |= NO_NUMERIC;
+				values[index] = Double.NaN;
+			} else {
+				values[index] = value.getNumeric();
+			}
+			if(!encodeDisplay(index, value.getDisplay())) {
+				pointFlags |= DISPLAY_EXCEPTION;
+				if(displayExceptions == null) {
+					displayExceptions = new HashMap<>();
+				}
+				displayExceptions.put(index, value.getDisplay());
+			}
+		}
+		flags[index] = pointFlags;
+	}
+
+	/**
+	 * Encodes a display value that is written exactly as BigDecimal.toPlainString would write it,
+	 * e.g. "12.30" or "-0.5". Returns false for anything else, including null.
+	 */
+	private boolean encodeDisplay(int index, String display) {
+		if(display == null || display.isEmpty()) {
+			return false;
+		}
+		int position = 0;
+		boolean negative = display.charAt(0) == '-';
+		if(negative) {
+			position++;
+		}
+		int integerStart = position;
+		long unscaled = 0;
+		int scale = -1;
+		for(; position < display.length(); position++) {
+			char c = display.charAt(position);
+			if(c == '.') {
+				// Require digits on both sides of a single decimal point
+				if(scale >= 0 || position == integerStart || position == display.length() - 1) {
+					return false;
+				}
+				scale = 0;
+			} else if(c >= '0' && c <= '9') {
+				// toPlainString never writes a leading zero before another integer digit
+				if(scale < 0 && position == integerStart + 1 && display.charAt(integerStart) == '0') {
+					return false;
+				}
+				if(unscaled > (Long.MAX_VALUE - (c - '0')) / 10) {
+					return false;
+				}
+				unscaled = unscaled * 10 + (c - '0');
+				if(scale >= 0) {
+					scale++;
+				}
+			} else {
+				return false;
+			}
+		}
+		if(position == integerStart || scale > Byte.MAX_VALUE || (negative && unscaled == 0)) {
+			return false;
+		}
+		displayUnscaled[index] = negative ? -unscaled : unscaled;
+		displayScales[index] = (byte) Math.max(scale, 0);
+		return true;
+	}
+}
@@ -0,0 +1,530 @@
+package gov.usgs.aqcu.builder;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.Qualifier;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesDataServiceResponse;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesDescription;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesPoint;
+
+import gov.usgs.aqcu.cache.DailyAggregateStore;
+import gov.usgs.aqcu.cache.TimeSeriesDescriptionCache;
+import gov.usgs.aqcu.model.DailyAggregate;
+import gov.usgs.aqcu.model.DailyAggregate.AggregatePoint;
+import gov.usgs.aqcu.model.SeriesAggregates;
+import gov.usgs.aqcu.model.SeriesAggregates.AggregateQualifier;
+import gov.usgs.aqcu.model.TimeSeriesMinMax;
+import gov.usgs.aqcu.parameter.ExtremesInterval;
+import gov.usgs.aqcu.parameter.ExtremesRequestParameters;
+import gov.usgs.aqcu.retrieval.TimeSeriesDataService;
+import gov.usgs.aqcu.retrieval.WindowedTimeSeriesDataService;
+
+/**
+ * Finds the extremes of a series from persisted per-day aggregates, only retrieving the days of
+ * the report period that are not stored yet. Days are in the series' zone offset, with daily
+ * values belonging to the day they are the end of.
+ *
+ * Stored days are only reused while the series' last modified time is unchanged. It is taken from
+ * the series' current description, requested from Aquarius on every lookup rather than taken from
+ * TimeSeriesDescriptionCache, whose descriptions may be up to its ttl old, and the store is bypassed
+ * when that request fails. Aquarius reports when a series last changed but not which days changed, so when it changes the days from
+ * extremes.aggregates.revisableDays before the new last modified time onward are aggregated again,
+ * and older days are assumed unchanged. A revision of an older day, such as an approval or a
+ * correction applied to past data, is therefore not picked up until every stored day is aggregated
+ * again, which happens on the first change after extremes.aggregates.maxAgeDays since the last time.
+ * Reports can so miss a revision older than the revisable days for up to the max age. A negative
+ * number of revisable days aggregates every day again whenever the series changes, and a max age
+ * that is not positive never does so on age alone.
+ *
+ * Long periods are retrieved in windows by WindowedTimeSeriesDataService, each window reduced to its
+ * daily aggregates as soon as it is retrieved. Without a store the days are aggregated in memory for
+ * the one report, which still bounds each retrieval to a window.
+ */
+@Service
+public class DailyAggregateService {
+	private Logger log = LoggerFactory.getLogger(DailyAggregateService.class);
+
+	private DailyAggregateStore dailyAggregateStore;
+	private TimeSeriesDescriptionCache timeSeriesDescriptionCache;
+	private TimeSeriesDataService timeSeriesDataService;
+	private WindowedTimeSeriesDataService windowedTimeSeriesDataService;
+	private int revisableDays;
+	private int maxAgeDays;
+
+	public DailyAggregateService(
+		DailyAggregateStore dailyAggregateStore,
+		TimeSeriesDataService timeSeriesDataService,
+		int revisableDays) {
+		this(dailyAggregateStore, null, timeSeriesDataService, null, revisableDays, 0);
+	}
+
+	/**
+	 * Without a description cache the given descriptions are taken to be current.
+	 */
+	@Autowired
+	public DailyAggregateService(
+		DailyAggregateStore dailyAggregateStore,
+		TimeSeriesDescriptionCache timeSeriesDescriptionCache,
+		TimeSeriesDataService timeSeriesDataService,
+		WindowedTimeSeriesDataService windowedTimeSeriesDataService,
+		@Value("${extremes.aggregates.revisableDays:90}") int revisableDays,
+		@Value("${extremes.aggregates.maxAgeDays:7}") int maxAgeDays) {
+		this.dailyAggregateStore = dailyAggregateStore;
+		this.timeSeriesDescriptionCache = timeSeriesDescriptionCache;
+		this.timeSeriesDataService = timeSeriesDataService;
+		this.windowedTimeSeriesDataService = windowedTimeSeriesDataService;
+		this.revisableDays = revisableDays;
+		this.maxAgeDays = maxAgeDays;
+	}
+
+	public boolean isEnabled() {
+		return dailyAggregateStore != null && dailyAggregateStore.isEnabled();
+	}
+
+	/**
+	 * Whether the report period is long enough to be retrieved in windows.
+	 */
+	public boolean isWindowed(ExtremesRequestParameters requestParameters, ZoneOffset zoneOffset) {
+		return windowedTimeSeriesDataService != null && windowedTimeSeriesDataService.isWindowed(requestParameters, zoneOffset);
+	}
+
+	/**
+	 * Finds the min/max points, and the interval breakdown when requested, of the report period of a series.
+	 * The min/max is null when the series has no points in the period.
+	 */
+	public AggregatedExtremes findExtremes(TimeSeriesDescription description, ExtremesRequestParameters requestParameters,
+			ZoneOffset zoneOffset, Boolean isDaily) {
+		TimeSeriesDescription currentDescription = getCurrentDescription(description);
+		boolean persisted = currentDescription != null;
+		String key = getKey(description, zoneOffset, isDaily);
+		String lastModified = persisted ? String.valueOf(currentDescription.getLastModified()) : null;
+		SeriesAggregates aggregates = persisted ? dailyAggregateStore.load(key) : null;
+		if(aggregates == null) {
+			aggregates = new SeriesAggregates().setUniqueId(description.getUniqueId());
+		} else if(!lastModified.equals(aggregates.getLastModified())) {
+			discardRevisableDays(aggregates, currentDescription.getLastModified(), zoneOffset, Instant.now());
+		}
+		aggregates.setLastModified(lastModified);
+		if(aggregates.getDays().isEmpty()) {
+			aggregates.setAggregatedAt(Instant.now().toString());
+		}
+
+		LocalDate startDay = getStartDay(requestParameters, zoneOffset);
+		LocalDate endDay = getEndDay(requestParameters, zoneOffset);
+		long aggregatedDays = 0;
+		for(AggregatedWindow window : aggregateMissingDays(description, requestParameters, getMissingRuns(aggregates, startDay, endDay),
+				zoneOffset, isDaily)) {
+			aggregates.getDays().putAll(window.days);
+			addQualifiers(aggregates, window.qualifiers);
+			aggregatedDays += window.days.size();
+		}
+		if(persisted) {
+			if(aggregatedDays > 0) {
+				dailyAggregateStore.save(key, aggregates);
+			}
+			long storedDays = Math.max(0, ChronoUnit.DAYS.between(startDay, endDay) + 1 - aggregatedDays);
+			dailyAggregateStore.recordDays(storedDays, aggregatedDays);
+		}
+
+		List<DailyAggregate> days = new ArrayList<>(aggregates.getDays().subMap(startDay.toString(), true, endDay.toString(), true).values());
+		AggregatedExtremes result = new AggregatedExtremes();
+		if(days.stream().anyMatch(d -> !d.isEmpty() || d.isInvalid())) {
+			result.minMax = getMinMax(days, requestParameters.getExtremesInterval());
+			result.qualifiers = getQualifiers(aggregates, requestParameters.getQueryStartInstant(zoneOffset, isDaily),
+				requestParameters.getQueryEndInstant(zoneOffset, isDaily));
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the description the stored days of the series are checked against, or null when the
+	 * store is disabled or the current description cannot be requested.
+	 */
+	protected TimeSeriesDescription getCurrentDescription(TimeSeriesDescription description) {
+		if(!isEnabled()) {
+			return null;
+		}
+		if(timeSeriesDescriptionCache == null) {
+			return description;
+		}
+		return timeSeriesDescriptionCache.getCurrentDescription(description.getUniqueId());
+	}
+
+	/**
+	 * Retrieves the points of a series within the tolerance of any of the given points, as a single series
+	 * ordered by time. Only the days of the report period containing those points are retrieved, which is
+	 * enough to match related points as if the whole period had been retrieved.
+	 */
+	public ColumnarTimeSeries getPointsNear(TimeSeriesDescription description, ExtremesRequestParameters requestParameters,
+			ZoneOffset zoneOffset, Boolean isDaily, List<TimeSeriesPoint> points, Duration tolerance) {
+		LocalDate startDay = getStartDay(requestParameters, zoneOffset);
+		LocalDate endDay = getEndDay(requestParameters, zoneOffset);
+		Duration window = tolerance != null ? tolerance : Duration.ZERO;
+		Set<LocalDate> days = new TreeSet<>();
+		for(TimeSeriesPoint point : points) {
+			if(point.getTimestamp() == null || point.getTimestamp().getDateTimeOffset() == null) {
+				continue;
+			}
+			Instant time = point.getTimestamp().getDateTimeOffset();
+			LocalDate first = ExtremesInterval.DAY.getStart(time.minus(window), zoneOffset, isDaily);
+			LocalDate last = ExtremesInterval.DAY.getStart(time.plus(window), zoneOffset, isDaily);
+			for(LocalDate day = first.isBefore(startDay) ? startDay : first; !day.isAfter(last) && !day.isAfter(endDay); day = day.plusDays(1)) {
+				days.add(day);
+			}
+		}
+
+		List<TimeSeriesPoint> result = new ArrayList<>();
+		for(LocalDate[] run : getRuns(days)) {
+			TimeSeriesDataServiceResponse response = timeSeriesDataService.get(description.getUniqueId(),
+				requestParameters.forPeriod(run[0], run[1]), zoneOffset, isDaily, false, false, null);
+			if(response != null && response.getPoints() != null) {
+				// Like the aggregated days, only the points of the requested days are kept, so the result stays ordered
+				for(TimeSeriesPoint point : response.getPoints()) {
+					if(isWithin(point, run, zoneOffset, isDaily)) {
+						result.add(point);
+					}
+				}
+			}
+		}
+		return ColumnarTimeSeries.fromPoints(result);
+	}
+
+	/**
+	 * Retrieves and aggregates the days of each run, in windows when windowed retrieval is enabled.
+	 * Every day of a window gets an aggregate, empty when the window has no points on that day.
+	 */
+	protected List<AggregatedWindow> aggregateMissingDays(TimeSeriesDescription description, ExtremesRequestParameters requestParameters,
+			List<LocalDate[]> runs, ZoneOffset zoneOffset, Boolean isDaily) {
+		if(windowedTimeSeriesDataService == null) {
+			List<AggregatedWindow> result = new ArrayList<>();
+			for(LocalDate[] run : runs) {
+				TimeSeriesDataServiceResponse response = timeSeriesDataService.get(description.getUniqueId(),
+					requestParameters.forPeriod(run[0], run[1]), zoneOffset, isDaily, false, false, null);
+				result.add(aggregateWindow(description, response, run[0], run[1], zoneOffset, isDaily));
+			}
+			return result;
+		}
+		return windowedTimeSeriesDataService.get(description.getUniqueId(), requestParameters, runs, zoneOffset, isDaily,
+			(startDay, endDay, response) -> aggregateWindow(description, response, startDay, endDay, zoneOffset, isDaily));
+	}
+
+	protected AggregatedWindow aggregateWindow(TimeSeriesDescription description, TimeSeriesDataServiceResponse response,
+			LocalDate startDay, LocalDate endDay, ZoneOffset zoneOffset, Boolean isDaily) {
+		log.debug("Aggregate {} from {} through {}", description.getUniqueId(), startDay, endDay);
+		ColumnarTimeSeries series = ColumnarTimeSeries.fromResponse(response);
+		Map<String, DailyAggregate> days = aggregate(series, zoneOffset, isDaily);
+		AggregatedWindow result = new AggregatedWindow();
+		for(LocalDate day = startDay; !day.isAfter(endDay); day = day.plusDays(1)) {
+			DailyAggregate aggregate = days.get(day.toString());
+			result.days.put(day.toString(), aggregate != null ? aggregate : new DailyAggregate().setDate(day.toString()));
+		}
+		result.qualifiers = series.getQualifiers();
+		return result;
+	}
+
+	/**
+	 * Aggregates each day of a retrieved series, keyed by ISO-8601 date.
+	 */
+	protected Map<String, DailyAggregate> aggregate(ColumnarTimeSeries series, ZoneOffset zoneOffset, Boolean isDaily) {
+		Map<String, DailyAggregate> result = new HashMap<>();
+		boolean daily = isDaily != null && isDaily;
+		int from = 0;
+		while(from < series.size()) {
+			LocalDate day = ExtremesInterval.DAY.getStart(series.getTime(from), zoneOffset, isDaily);
+			Instant end = ExtremesInterval.DAY.getEndInstant(day, zoneOffset);
+			int to = Math.max(from + 1, daily ? series.getEndIndex(end) : series.getStartIndex(end));
+			result.put(day.toString(), aggregate(series, from, to, day));
+			from = to;
+		}
+		return result;
+	}
+
+	protected DailyAggregate aggregate(ColumnarTimeSeries series, int from, int to, LocalDate day) {
+		DailyAggregate result = new DailyAggregate()
+			.setDate(day.toString())
+			.setPointCount(to - from)
+			.setFirstTime(String.valueOf(series.getTime(from)))
+			.setLastTime(String.valueOf(series.getTime(to - 1)));
+		MinMaxAccumulator accumulator = new MinMaxAccumulator(series);
+		for(int i = from; i < to; i++) {
+			double value = series.getValue(i);
+			if(!Double.isFinite(value)) {
+				return result.setInvalid(true);
+			}
+			accumulator.accept(i, value);
+		}
+		return result
+			.setMaxValue(accumulator.getMaxValue())
+			.setMaxPoints(getAggregatePoints(series, accumulator.getMaxIndexes()))
+			.setMaxDisplayPoint(new AggregatePoint(series.getPoint(accumulator.getMaxDisplayIndex())))
+			.setMultipleMaxFlag(accumulator.isMultipleMax())
+			.setMinValue(accumulator.getMinValue())
+			.setMinPoints(getAggregatePoints(series, accumulator.getMinIndexes()))
+			.setMinDisplayPoint(new AggregatePoint(series.getPoint(accumulator.getMinDisplayIndex())))
+			.setMultipleMinFlag(accumulator.isMultipleMin());
+	}
+
+	/**
+	 * Merges the days, in order, into the same min/max a scan of their points finds. Like a scan, a day
+	 * with a point without a finite numeric value fails the whole min/max, which is then empty.
+	 */
+	protected TimeSeriesMinMax getMinMax(List<DailyAggregate> days, ExtremesInterval interval) {
+		DailyMinMaxAccumulator accumulator = new DailyMinMaxAccumulator();
+		Map<String, DailyMinMaxAccumulator> intervals = new LinkedHashMap<>();
+		for(DailyAggregate day : days) {
+			accumulator.merge(day);
+			if(interval != null && !day.isEmpty()) {
+				LocalDate start = interval.getStart(LocalDate.parse(day.getDate()));
+				intervals.computeIfAbsent(interval.getLabel(start), k -> new DailyMinMaxAccumulator()).merge(day);
+			}
+		}
+		if(accumulator.invalid) {
+			log.error("Exception in getMinMax: Infinite or NaN point value");
+			return new TimeSeriesMinMax();
+		}
+		TimeSeriesMinMax result = accumulator.getMinMax();
+		if(interval != null) {
+			Map<String, TimeSeriesMinMax> intervalMinMax = new LinkedHashMap<>();
+			for(Map.Entry<String, DailyMinMaxAccumulator> entry : intervals.entrySet()) {
+				intervalMinMax.put(entry.getKey(), entry.getValue().getMinMax());
+			}
+			result.setIntervals(intervalMinMax);
+		}
+		return result;
+	}
+
+	/**
+	 * Discards the stored days that may have changed since they were aggregated, which is every day when the
+	 * stored days are older than the max age.
+	 */
+	protected void discardRevisableDays(SeriesAggregates aggregates, Instant lastModified, ZoneOffset zoneOffset, Instant now) {
+		if(revisableDays < 0 || lastModified == null || isExpired(aggregates, now)) {
+			aggregates.getDays().clear();
+			aggregates.getQualifiers().clear();
+			return;
+		}
+		LocalDate firstRevisableDay = lastModified.atOffset(zoneOffset).toLocalDate().minusDays(revisableDays);
+		Instant firstRevisableTime = firstRevisableDay.atStartOfDay().toInstant(zoneOffset);
+		aggregates.getDays().tailMap(firstRevisableDay.toString(), true).clear();
+		aggregates.getQualifiers().removeIf(q -> q.getEndTime() == null || !Instant.parse(q.getEndTime()).isBefore(firstRevisableTime));
+	}
+
+	protected boolean isExpired(SeriesAggregates aggregates, Instant now) {
+		if(maxAgeDays <= 0) {
+			return false;
+		}
+		return aggregates.getAggregatedAt() == null
+			|| Instant.parse(aggregates.getAggregatedAt()).plus(Duration.ofDays(maxAgeDays)).isBefore(now);
+	}
+
+	protected List<LocalDate[]> getMissingRuns(SeriesAggregates aggregates, LocalDate startDay, LocalDate endDay) {
+		Set<LocalDate> missing = new TreeSet<>();
+		for(LocalDate day = startDay; !day.isAfter(endDay); day = day.plusDays(1)) {
+			if(!aggregates.getDays().containsKey(day.toString())) {
+				missing.add(day);
+			}
+		}
+		return getRuns(missing);
+	}
+
+	/**
+	 * Groups ordered days into runs of consecutive days, each the first and last day of the run.
+	 */
+	protected List<LocalDate[]> getRuns(Set<LocalDate> days) {
+		List<LocalDate[]> runs = new ArrayList<>();
+		LocalDate[] run = null;
+		for(LocalDate day : days) {
+			if(run != null && run[1].plusDays(1).equals(day)) {
+				run[1] = day;
+			} else {
+				run = new LocalDate[] { day, day };
+				runs.add(run);
+			}
+		}
+		return runs;
+	}
+
+	protected List<Qualifier> getQualifiers(SeriesAggregates aggregates, Instant startTime, Instant endTime) {
+		return aggregates.getQualifiers().stream()
+			.map(AggregateQualifier::toQualifier)
+			.filter(q -> (q.getStartTime() == null || !q.getStartTime().isAfter(endTime))
+				&& (q.getEndTime() == null || !q.getEndTime().isBefore(startTime)))
+			.collect(Collectors.toList());
+	}
+
+	protected static String getKey(TimeSeriesDescription description, ZoneOffset zoneOffset, Boolean isDaily) {
+		return String.join("|",
+			String.valueOf(description.getUniqueId()),
+			String.valueOf(zoneOffset),
+			String.valueOf(isDaily)
+		);
+	}
+
+	private LocalDate getStartDay(ExtremesRequestParameters requestParameters, ZoneOffset zoneOffset) {
+		return requestParameters.getStartInstant(zoneOffset).atOffset(zoneOffset).toLocalDate();
+	}
+
+	private LocalDate getEndDay(ExtremesRequestParameters requestParameters, ZoneOffset zoneOffset) {
+		return requestParameters.getEndInstant(zoneOffset).atOffset(zoneOffset).toLocalDate();
+	}
+
+	private boolean isWithin(TimeSeriesPoint point, LocalDate[] run, ZoneOffset zoneOffset, Boolean isDaily) {
+		if(point.getTimestamp() == null || point.getTimestamp().getDateTimeOffset() == null) {
+			return false;
+		}
+		LocalDate day = ExtremesInterval.DAY.getStart(point.getTimestamp().getDateTimeOffset(), zoneOffset, isDaily);
+		return !day.isBefore(run[0]) && !day.isAfter(run[1]);
+	}
+
+	private void addQualifiers(SeriesAggregates aggregates, List<Qualifier> qualifiers) {
+		Set<String> known = aggregates.getQualifiers().stream().map(this::getQualifierKey).collect(Collectors.toSet());
+		for(Qualifier qualifier : qualifiers) {
+			AggregateQualifier aggregateQualifier = new AggregateQualifier(qualifier);
+			if(known.add(getQualifierKey(aggregateQualifier))) {
+				aggregates.getQualifiers().add(aggregateQualifier);
+			}
+		}
+	}
+
+	private String getQualifierKey(AggregateQualifier qualifier) {
+		return String.join("|", String.valueOf(qualifier.getIdentifier()), String.valueOf(qualifier.getStartTime()),
+			String.valueOf(qualifier.getEndTime()));
+	}
+
+	private List<AggregatePoint> getAggregatePoints(ColumnarTimeSeries series, int[] indexes) {
+		List<AggregatePoint> result = new ArrayList<>(indexes.length);
+		for(int index : indexes) {
+			result.add(new AggregatePoint(series.getPoint(index)));
+		}
+		return result;
+	}
+
+	/**
+	 * The extremes found from the daily aggregates of a series.
+	 */
+	public static class AggregatedExtremes {
+		private TimeSeriesMinMax minMax;
+		private List<Qualifier> qualifiers;
+
+		public TimeSeriesMinMax getMinMax() {
+			return minMax;
+		}
+
+		public List<Qualifier> getQualifiers() {
+			return qualifiers;
+		}
+	}
+
+	/**
+	 * The daily aggregates and qualifiers of one retrieved window, the partial extremes of the period.
+	 */
+	protected static class AggregatedWindow {
+		private Map<String, DailyAggregate> days = new LinkedHashMap<>();
+		private List<Qualifier> qualifiers = new ArrayList<>();
+	}
+
+	/**
+	 * Merges daily aggregates of adjacent days, in order, the way MinMaxAccumulator merges adjacent ranges.
+	 */
+	private static class DailyMinMaxAccumulator {
+		private boolean empty = true;
+		private boolean invalid = false;
+		private double maxValue;
+		private double minValue;
+		private List<AggregatePoint> maxPoints;
+		private List<AggregatePoint> minPoints;
+		private AggregatePoint maxDisplayPoint;
+		private AggregatePoint minDisplayPoint;
+		private boolean multipleMaxFlag;
+		private boolean multipleMinFlag;
+
+		void merge(DailyAggregate day) {
+			invalid = invalid || day.isInvalid();
+			if(invalid || day.isEmpty()) {
+				return;
+			}
+			if(empty) {
+				empty = false;
+				maxValue = day.getMaxValue();
+				maxPoints = new ArrayList<>(day.getMaxPoints());
+				maxDisplayPoint = day.getMaxDisplayPoint();
+				multipleMaxFlag = day.isMultipleMaxFlag();
+				minValue = day.getMinValue();
+				minPoints = new ArrayList<>(day.getMinPoints());
+				minDisplayPoint = day.getMinDisplayPoint();
+				multipleMinFlag = day.isMultipleMinFlag();
+				return;
+			}
+
+			// Merge Max
+			boolean maxDisplayMatch = hasSameDisplay(maxDisplayPoint, day.getMaxDisplayPoint());
+			if(day.getMaxValue() > maxValue) {
+				if(!maxDisplayMatch) {
+					maxDisplayPoint = day.getMaxDisplayPoint();
+					multipleMaxFlag = day.isMultipleMaxFlag();
+				}
+				maxValue = day.getMaxValue();
+				maxPoints = new ArrayList<>(day.getMaxPoints());
+			} else if(day.getMaxValue() == maxValue) {
+				maxPoints.addAll(day.getMaxPoints());
+			}
+			if(maxDisplayMatch) {
+				multipleMaxFlag = multipleMaxFlag || day.isMultipleMaxFlag() || !hasSameTime(maxDisplayPoint, day.getMaxDisplayPoint());
+			}
+
+			// Merge Min
+			boolean minDisplayMatch = hasSameDisplay(minDisplayPoint, day.getMinDisplayPoint());
+			if(day.getMinValue() < minValue) {
+				if(!minDisplayMatch) {
+					minDisplayPoint = day.getMinDisplayPoint();
+					multipleMinFlag = day.isMultipleMinFlag();
+				}
+				minValue = day.getMinValue();
+				minPoints = new ArrayList<>(day.getMinPoints());
+			} else if(day.getMinValue() == minValue) {
+				minPoints.addAll(day.getMinPoints());
+			}
+			if(minDisplayMatch) {
+				multipleMinFlag = multipleMinFlag || day.isMultipleMinFlag() || !hasSameTime(minDisplayPoint, day.getMinDisplayPoint());
+			}
+		}
+
+		TimeSeriesMinMax getMinMax() {
+			TimeSeriesMinMax result = new TimeSeriesMinMax();
+			if(!empty && !invalid) {
+				result.setMaxPoints(maxPoints.stream().map(AggregatePoint::toPoint).collect(Collectors.toList()));
+				result.setMinPoints(minPoints.stream().map(AggregatePoint::toPoint).collect(Collectors.toList()));
+				result.setMultipleMaxFlag(multipleMaxFlag);
+				result.setMultipleMinFlag(multipleMinFlag);
+			}
+			return result;
+		}
+
+		private static boolean hasSameDisplay(AggregatePoint point, AggregatePoint other) {
+			return Objects.equals(point.getDisplay(), other.getDisplay());
+		}
+
+		private static boolean hasSameTime(AggregatePoint point, AggregatePoint other) {
+			return Objects.equals(point.getTime(), other.getTime());
+		}
+	}
+}
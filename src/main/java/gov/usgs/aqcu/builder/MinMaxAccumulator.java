@@ -0,0 +1,238 @@
+package gov.usgs.aqcu.builder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Running min/max over the primitive double values of a MinMaxSeries.
+ * Only the indices of the points tied for the current min and max are retained, so
+ * scanning a series allocates nothing beyond the occasional growth of the tie index arrays.
+ * Values are compared with the primitive double operators, which orders finite values
+ * exactly as BigDecimal.valueOf(value).compareTo(...) would.
+ * 
+ * The multiple min/max flags are tracked in the same pass: a flag is set when another point
+ * shares the display value of the first extreme point but has a different timestamp.
+ * Display values are assumed to be rounded from the numeric value, so every point that
+ * shares the display of the final extreme is seen after the display group was last started.
+ * 
+ * Accumulators over adjacent ranges of a series can be merged, which yields the same
+ * result as a single accumulator over the combined range. Accumulators that do not retain
+ * indices only summarize a range, so they can be kept for every block of a RangeMinMaxIndex.
+ */
+class MinMaxAccumulator {
+	private static final int INITIAL_CAPACITY = 8;
+
+	private final MinMaxSeries series;
+	private final boolean retainIndexes;
+	private double maxValue;
+	private double minValue;
+	private int[] maxIndexes = new int[INITIAL_CAPACITY];
+	private int[] minIndexes = new int[INITIAL_CAPACITY];
+	private int maxCount = 0;
+	private int minCount = 0;
+	// Index of the point that started the current display group of each extreme
+	private int maxDisplayIndex;
+	private int minDisplayIndex;
+	private boolean multipleMaxFlag = false;
+	private boolean multipleMinFlag = false;
+
+	public MinMaxAccumulator(MinMaxSeries series) {
+		this(series, true);
+	}
+
+	MinMaxAccumulator(MinMaxSeries series, boolean retainIndexes) {
+		this.series = series;
+		this.retainIndexes = retainIndexes;
+	}
+
+	/**
+	 * An accumulator over a view of the summarized series, starting at the given offset, with the
+	 * given tied indices of the view.
+	 */
+	MinMaxAccumulator(ColumnarTimeSeries view, int offset, MinMaxAccumulator summary, int[] maxIndexes, int[] minIndexes) {
+		this(view, true);
+		copyFrom(summary);
+		this.maxIndexes = maxIndexes;
+		this.minIndexes = minIndexes;
+		this.maxCount = maxIndexes.length;
+		this.minCount = minIndexes.length;
+		this.maxDisplayIndex -= offset;
+		this.minDisplayIndex -= offset;
+	}
+
+	public void accept(int index, double value) {
+		// Check for Max
+		if(maxCount == 0 || value > maxValue) {
+			if(maxCount == 0 || !series.hasSameDisplay(index, maxDisplayIndex)) {
+				maxDisplayIndex = index;
+				multipleMaxFlag = false;
+			}
+			maxValue = value;
+			maxCount = 0;
+			maxIndexes = append(maxIndexes, maxCount++, index);
+		} else if(value == maxValue) {
+			maxIndexes = append(maxIndexes, maxCount++, index);
+		}
+		if(!multipleMaxFlag && series.hasSameDisplay(index, maxDisplayIndex) && !series.hasSameTime(index, maxDisplayIndex)) {
+			multipleMaxFlag = true;
+		}
+
+		// Check for Min
+		if(minCount == 0 || value < minValue) {
+			if(minCount == 0 || !series.hasSameDisplay(index, minDisplayIndex)) {
+				minDisplayIndex = index;
+				multipleMinFlag = false;
+			}
+			minValue = value;
+			minCount = 0;
+			minIndexes = append(minIndexes, minCount++, index);
+		} else if(value == minValue) {
+			minIndexes = append(minIndexes, minCount++, index);
+		}
+		if(!multipleMinFlag && series.hasSameDisplay(index, minDisplayIndex) && !series.hasSameTime(index, minDisplayIndex)) {
+			multipleMinFlag = true;
+		}
+	}
+
+	/**
+	 * Merges the accumulator for the range immediately following this one into this accumulator.
+	 */
+	public void merge(MinMaxAccumulator next) {
+		if(next.isEmpty()) {
+			return;
+		}
+		if(isEmpty()) {
+			copyFrom(next);
+			return;
+		}
+
+		// Merge Max
+		boolean maxDisplayMatch = series.hasSameDisplay(maxDisplayIndex, next.maxDisplayIndex);
+		if(next.maxValue > maxValue) {
+			if(!maxDisplayMatch) {
+				maxDisplayIndex = next.maxDisplayIndex;
+				multipleMaxFlag = next.multipleMaxFlag;
+			}
+			maxValue = next.maxValue;
+			maxIndexes = Arrays.copyOf(next.maxIndexes, next.maxIndexes.length);
+			maxCount = next.maxCount;
+		} else if(next.maxValue == maxValue) {
+			maxIndexes = appendAll(maxIndexes, maxCount, next.maxIndexes, next.maxCount);
+			maxCount += next.maxCount;
+		}
+		if(maxDisplayMatch) {
+			multipleMaxFlag = multipleMaxFlag || next.multipleMaxFlag || !series.hasSameTime(maxDisplayIndex, next.maxDisplayIndex);
+		}
+
+		// Merge Min
+		boolean minDisplayMatch = series.hasSameDisplay(minDisplayIndex, next.minDisplayIndex);
+		if(next.minValue < minValue) {
+			if(!minDisplayMatch) {
+				minDisplayIndex = next.minDisplayIndex;
+				multipleMinFlag = next.multipleMinFlag;
+			}
+			minValue = next.minValue;
+			minIndexes = Arrays.copyOf(next.minIndexes, next.minIndexes.length);
+			minCount = next.minCount;
+		} else if(next.minValue == minValue) {
+			minIndexes = appendAll(minIndexes, minCount, next.minIndexes, next.minCount);
+			minCount += next.minCount;
+		}
+		if(minDisplayMatch) {
+			multipleMinFlag = multipleMinFlag || next.multipleMinFlag || !series.hasSameTime(minDisplayIndex, next.minDisplayIndex);
+		}
+	}
+
+	public boolean isEmpty() {
+		return maxCount == 0;
+	}
+
+	public double getMaxValue() {
+		return maxValue;
+	}
+
+	public double getMinValue() {
+		return minValue;
+	}
+
+	public boolean isMultipleMax() {
+		return multipleMaxFlag;
+	}
+
+	public boolean isMultipleMin() {
+		return multipleMinFlag;
+	}
+
+	public int[] getMaxIndexes() {
+		return Arrays.copyOf(maxIndexes, maxCount);
+	}
+
+	public int[] getMinIndexes() {
+		return Arrays.copyOf(minIndexes, minCount);
+	}
+
+	/**
+	 * The index of the point that started the display group of the max.
+	 */
+	int getMaxDisplayIndex() {
+		return maxDisplayIndex;
+	}
+
+	int getMinDisplayIndex() {
+		return minDisplayIndex;
+	}
+
+	public <T> List<T> getMaxPoints(List<T> points) {
+		return select(points, maxIndexes, maxCount);
+	}
+
+	public <T> List<T> getMinPoints(List<T> points) {
+		return select(points, minIndexes, minCount);
+	}
+
+	private static <T> List<T> select(List<T> points, int[] indexes, int count) {
+		List<T> result = new ArrayList<>(count);
+		for(int i = 0; i < count; i++) {
+			result.add(points.get(indexes[i]));
+		}
+		return result;
+	}
+
+	private void copyFrom(MinMaxAccumulator other) {
+		maxValue = other.maxValue;
+		minValue = other.minValue;
+		maxIndexes = Arrays.copyOf(other.maxIndexes, other.maxIndexes.length);
+		minIndexes = Arrays.copyOf(other.minIndexes, other.minIndexes.length);
+		maxCount = other.maxCount;
+		minCount = other.minCount;
+		maxDisplayIndex = other.maxDisplayIndex;
+		minDisplayIndex = other.minDisplayIndex;
+		multipleMaxFlag = other.multipleMaxFlag;
+		multipleMinFlag = other.multipleMinFlag;
+	}
+
+	private int[] appendAll(int[] indexes, int position, int[] source, int count) {
+		if(!retainIndexes) {
+			return indexes;
+		}
+		int[] result = indexes;
+		if(position + count > result.length) {
+			result = Arrays.copyOf(result, Math.max(result.length * 2, position + count));
+		}
+		System.arraycopy(source, 0, result, position, count);
+		return result;
+	}
+
+	private int[] append(int[] indexes, int position, int index) {
+		if(!retainIndexes) {
+			return indexes;
+		}
+		int[] result = indexes;
+		if(position == result.length) {
+			result = Arrays.copyOf(result, Math.max(result.length * 2, INITIAL_CAPACITY));
+		}
+		result[position] = index;
+		return result;
+	}
+}
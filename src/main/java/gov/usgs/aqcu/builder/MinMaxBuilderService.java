@@ -1,89 +1,293 @@
 package gov.usgs.aqcu.builder;
 
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntFunction;
+
+import javax.annotation.PreDestroy;
 
 import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesPoint;
 
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import gov.usgs.aqcu.model.TimeSeriesMinMax;
+import gov.usgs.aqcu.parameter.ExtremesInterval;
+import gov.usgs.aqcu.parameter.RelatedPointMatchMode;
 @Service
 public class MinMaxBuilderService {
 	private Logger log = LoggerFactory.getLogger(MinMaxBuilderService.class);
+	public static final int MIN_PARALLEL_CHUNK_SIZE = 16384;
+
+	private boolean parallelEnabled;
+	private int parallelThreshold;
+	private ForkJoinPool forkJoinPool;
+
+	public MinMaxBuilderService() {
+		this(false, Integer.MAX_VALUE, 0);
+	}
+
+	@Autowired
+	public MinMaxBuilderService(
+		@Value("${extremes.minmax.parallel.enabled:true}") boolean parallelEnabled,
+		@Value("${extremes.minmax.parallel.threshold:500000}") int parallelThreshold,
+		@Value("${extremes.minmax.parallel.parallelism:0}") int parallelism) {
+		this.parallelEnabled = parallelEnabled;
+		this.parallelThreshold = parallelThreshold;
+		if(parallelEnabled) {
+			this.forkJoinPool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+		}
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		if(forkJoinPool != null) {
+			forkJoinPool.shutdown();
+		}
+	}
 	
 	public TimeSeriesMinMax findMinMaxPoints(List<TimeSeriesPoint> points) {
         TimeSeriesMinMax result = new TimeSeriesMinMax();
-
-        List<TimeSeriesPoint> maxSet = new ArrayList<>();
-        List<TimeSeriesPoint> minSet = new ArrayList<>();
-        BigDecimal maxValue = null;
-        BigDecimal minValue = null;
         
         try {
 	        if(points != null && !points.isEmpty()) {
-	            for(TimeSeriesPoint point : points) {
-	                BigDecimal pointValue = BigDecimal.valueOf(point.getValue().getNumeric());
-	
-	                // Check for Max
-	                if(maxValue == null || pointValue.compareTo(maxValue) > 0) {
-	                    maxValue = pointValue;
-	                    maxSet = new ArrayList<>();
-	                    maxSet.add(point);
-	                } else if(pointValue.compareTo(maxValue) == 0) {
-	                    maxSet.add(point);
-	                }
-	
-	                // Check for Min
-	                if(minValue == null || pointValue.compareTo(minValue) < 0) {
-	                    minValue = pointValue;
-	                    minSet = new ArrayList<>();
-	                    minSet.add(point);
-	                } else if(pointValue.compareTo(minValue) == 0) {
-	                    minSet.add(point);
-	                }
-	            }
+	            MinMaxAccumulator accumulator = scan(new PointListSeries(points));
+	            result.setMaxPoints(accumulator.getMaxPoints(points));
+	            result.setMinPoints(accumulator.getMinPoints(points));
+	            result.setMultipleMaxFlag(accumulator.isMultipleMax());
+	            result.setMultipleMinFlag(accumulator.isMultipleMin());
 	        }
-	
-	        result.setMaxPoints(maxSet);
-	        result.setMinPoints(minSet);
         } catch (Exception e) {
         	log.error("Exception in findMinMaxPoints: ", e.getMessage());
         }
 	    return result;
         
     }
+
+    /**
+     * Finds the min/max points of a columnar series. The returned points are rebuilt from the series.
+     */
+    public TimeSeriesMinMax findColumnarMinMaxPoints(ColumnarTimeSeries series) {
+        TimeSeriesMinMax result = new TimeSeriesMinMax();
+        
+        try {
+	        if(series != null && !series.isEmpty()) {
+	            result = getMinMax(series, findMinMax(series));
+	        }
+        } catch (Exception e) {
+        	log.error("Exception in findColumnarMinMaxPoints: ", e.getMessage());
+        }
+	    return result;
+    }
+
+    /**
+     * Finds the min/max points of a columnar series and of each interval of it in a single pass over the points.
+     * Interval boundaries are in the series' zone offset, and daily values belong to the day they are the end of.
+     * The overall min/max merges the interval results, so it is the same as findColumnarMinMaxPoints.
+     */
+    public TimeSeriesMinMax findColumnarMinMaxPoints(ColumnarTimeSeries series, ExtremesInterval interval, ZoneOffset zoneOffset,
+            Boolean isDaily) {
+        if(interval == null) {
+            return findColumnarMinMaxPoints(series);
+        }
+        TimeSeriesMinMax result = new TimeSeriesMinMax();
+
+        try {
+	        if(series != null && !series.isEmpty()) {
+	            Map<String, TimeSeriesMinMax> intervals = new LinkedHashMap<>();
+	            MinMaxAccumulator accumulator = new MinMaxAccumulator(series);
+	            int from = 0;
+	            while(from < series.size()) {
+	                LocalDate start = interval.getStart(series.getTime(from), zoneOffset, isDaily);
+	                Instant end = interval.getEndInstant(start, zoneOffset);
+	                // Points are ordered by time, but always advance in case they are not
+	                int to = Math.max(from + 1, isDaily != null && isDaily ? series.getEndIndex(end) : series.getStartIndex(end));
+
+	                // Indexed series answer each interval from the index, other series are scanned once
+	                if(series.isIndexed()) {
+	                    ColumnarTimeSeries intervalSeries = series.subSeries(from, to);
+	                    intervals.put(interval.getLabel(start), getMinMax(intervalSeries, findMinMax(intervalSeries)));
+	                } else {
+	                    MinMaxAccumulator intervalAccumulator = scanRange(series, from, to);
+	                    intervals.put(interval.getLabel(start), getMinMax(series, intervalAccumulator));
+	                    accumulator.merge(intervalAccumulator);
+	                }
+	                from = to;
+	            }
+
+	            result = getMinMax(series, series.isIndexed() ? findMinMax(series) : accumulator);
+	            result.setIntervals(intervals);
+	        }
+        } catch (Exception e) {
+        	log.error("Exception in findColumnarMinMaxPoints: ", e.getMessage());
+        }
+	    return result;
+    }
+
+    /**
+     * Finds the highest and lowest events of a columnar series, most extreme first, as the max and min
+     * points of the result. No two events are within the separation of each other; see TopExtremesAccumulator.
+     */
+    public TimeSeriesMinMax findColumnarTopPoints(ColumnarTimeSeries series, int count, Duration separation) {
+        TimeSeriesMinMax result = new TimeSeriesMinMax();
+
+        try {
+	        if(series != null && !series.isEmpty() && count > 0) {
+	            TopExtremesAccumulator accumulator = new TopExtremesAccumulator(series, count,
+	                separation != null ? separation.toMillis() : 0);
+	            for(int i = 0; i < series.size(); i++) {
+	                accumulator.accept(i, getNumericValue(series, i));
+	            }
+	            result.setMaxPoints(series.getPoints(accumulator.getHighestIndexes()));
+	            result.setMinPoints(series.getPoints(accumulator.getLowestIndexes()));
+	        }
+        } catch (Exception e) {
+        	log.error("Exception in findColumnarTopPoints: ", e.getMessage());
+        }
+	    return result;
+    }
+
+    /**
+     * Returns the min/max points of a series that was streamed into the accumulator.
+     */
+    public TimeSeriesMinMax findStreamedMinMaxPoints(StreamingMinMaxAccumulator accumulator) {
+        TimeSeriesMinMax result = new TimeSeriesMinMax();
+
+        try {
+	        if(accumulator != null && !accumulator.isEmpty()) {
+	            result = accumulator.getMinMax();
+	        }
+        } catch (Exception e) {
+        	log.error("Exception in findStreamedMinMaxPoints: ", e.getMessage());
+        }
+	    return result;
+    }
+
+    /**
+     * Indexed series, and views of them, are answered from their range min/max index instead of being scanned.
+     */
+    protected MinMaxAccumulator findMinMax(ColumnarTimeSeries series) {
+        if(series.isIndexed()) {
+            return series.getRangeIndex().find(series);
+        }
+        return scan(series);
+    }
+
+    /**
+     * Scans every point of the series, in parallel chunks when the series is large enough.
+     */
+    protected MinMaxAccumulator scan(MinMaxSeries series) {
+        if(isParallel(series.size())) {
+            int chunkSize = Math.max(MIN_PARALLEL_CHUNK_SIZE, series.size() / (forkJoinPool.getParallelism() * 4));
+            return forkJoinPool.invoke(new MinMaxTask(series, 0, series.size(), chunkSize));
+        }
+        return scanRange(series, 0, series.size());
+    }
+
+    protected boolean isParallel(int size) {
+        return parallelEnabled && size >= parallelThreshold;
+    }
+
+    protected MinMaxAccumulator scanRange(MinMaxSeries series, int from, int to) {
+        MinMaxAccumulator accumulator = new MinMaxAccumulator(series);
+        for(int i = from; i < to; i++) {
+            accumulator.accept(i, getNumericValue(series, i));
+        }
+        return accumulator;
+    }
+
+    protected TimeSeriesMinMax getMinMax(ColumnarTimeSeries series, MinMaxAccumulator accumulator) {
+        TimeSeriesMinMax result = new TimeSeriesMinMax();
+        result.setMaxPoints(series.getPoints(accumulator.getMaxIndexes()));
+        result.setMinPoints(series.getPoints(accumulator.getMinIndexes()));
+        result.setMultipleMaxFlag(accumulator.isMultipleMax());
+        result.setMultipleMinFlag(accumulator.isMultipleMin());
+        return result;
+    }
+
+    protected double getNumericValue(MinMaxSeries series, int index) {
+        double value = series.getValue(index);
+
+        // Reject the same values that BigDecimal.valueOf would, and points without a numeric value
+        if(!Double.isFinite(value)) {
+            throw new NumberFormatException("Infinite or NaN point value: " + value);
+        }
+        return value;
+    }
+
+    protected Instant getTime(TimeSeriesPoint point) {
+        return point.getTimestamp() != null ? point.getTimestamp().DateTimeOffset : null;
+    }
 	
     public TimeSeriesMinMax findMinMaxMatchingPoints(TimeSeriesMinMax primaryMinMax, List<TimeSeriesPoint> relatedPoints) {
+        return findMinMaxMatchingPoints(primaryMinMax, relatedPoints, RelatedPointMatchMode.EXACT, null);
+    }
+
+    public TimeSeriesMinMax findMinMaxMatchingPoints(TimeSeriesMinMax primaryMinMax, List<TimeSeriesPoint> relatedPoints,
+            RelatedPointMatchMode matchMode, Duration tolerance) {
         TimeSeriesMinMax result = new TimeSeriesMinMax();
 
         if(primaryMinMax != null) {
-            result.setMaxPoints(findMatchingPoints(primaryMinMax.getMaxPoints(), relatedPoints));
-            result.setMinPoints(findMatchingPoints(primaryMinMax.getMinPoints(), relatedPoints));
+            result.setMaxPoints(findMatchingPoints(primaryMinMax.getMaxPoints(), relatedPoints, matchMode, tolerance));
+            result.setMinPoints(findMatchingPoints(primaryMinMax.getMinPoints(), relatedPoints, matchMode, tolerance));
         }
         
         return result;
     }
-	
+
+    /**
+     * Finds the points of a columnar related series that match the primary min/max points.
+     * The matched points are rebuilt from the series.
+     */
+    public TimeSeriesMinMax findColumnarMinMaxMatchingPoints(TimeSeriesMinMax primaryMinMax, ColumnarTimeSeries relatedSeries,
+            RelatedPointMatchMode matchMode, Duration tolerance) {
+        TimeSeriesMinMax result = new TimeSeriesMinMax();
+
+        if(primaryMinMax != null) {
+            result.setMaxPoints(findColumnarMatchingPoints(primaryMinMax.getMaxPoints(), relatedSeries, matchMode, tolerance));
+            result.setMinPoints(findColumnarMatchingPoints(primaryMinMax.getMinPoints(), relatedSeries, matchMode, tolerance));
+        }
+        
+        return result;
+    }
+
     protected List<TimeSeriesPoint> findMatchingPoints(List<TimeSeriesPoint> primaryPoints, List<TimeSeriesPoint> relatedPoints) {
+        return findMatchingPoints(primaryPoints, relatedPoints, RelatedPointMatchMode.EXACT, null);
+    }
+	
+    /**
+     * Finds the related point matching each primary point. The related points must be ordered by time,
+     * as Aquarius returns them, so each lookup is a binary search. When the related series contains
+     * duplicated timestamps the first of those points is the exact match.
+     */
+    protected List<TimeSeriesPoint> findMatchingPoints(List<TimeSeriesPoint> primaryPoints, List<TimeSeriesPoint> relatedPoints,
+            RelatedPointMatchMode matchMode, Duration tolerance) {
         List<TimeSeriesPoint> matchingPoints = new ArrayList<>();
         
         try {
 	        if(primaryPoints != null && !primaryPoints.isEmpty() && relatedPoints != null && !relatedPoints.isEmpty()) {
-	            Map<Instant, TimeSeriesPoint> relatedPointMap = pointListToMap(relatedPoints);
+	            List<TimeSeriesPoint> sortedRelatedPoints = relatedPoints instanceof RandomAccess ? relatedPoints : new ArrayList<>(relatedPoints);
 	
 	            for(TimeSeriesPoint primaryPoint : primaryPoints) {
-	                TimeSeriesPoint relatedPoint = relatedPointMap.get(primaryPoint.getTimestamp().DateTimeOffset);
-	                if(relatedPoint != null) {
-	                    matchingPoints.add(relatedPoint);
+	                Instant time = getTime(primaryPoint);
+	                if(time != null) {
+	                    int index = findRelatedPointIndex(sortedRelatedPoints, time, matchMode, tolerance);
+	                    if(index >= 0) {
+	                        matchingPoints.add(sortedRelatedPoints.get(index));
+	                    }
 	                }
 	            }
 	        }
@@ -93,15 +297,118 @@ public class MinMaxBuilderService {
         return matchingPoints;
     }
 
-    protected Map<Instant, TimeSeriesPoint> pointListToMap(List<TimeSeriesPoint> pointList) {
-    	try {
-	        if(pointList != null && !pointList.isEmpty()) {
-	            return pointList.stream().collect(Collectors.toMap(t -> t.getTimestamp().getDateTimeOffset(), t->t));
-	        } 
-    	} catch (Exception e) {
-        	log.error("Exception in pointListToMap: ", e.getMessage());
+    protected List<TimeSeriesPoint> findColumnarMatchingPoints(List<TimeSeriesPoint> primaryPoints, ColumnarTimeSeries relatedSeries,
+            RelatedPointMatchMode matchMode, Duration tolerance) {
+        List<TimeSeriesPoint> matchingPoints = new ArrayList<>();
+        
+        try {
+	        if(primaryPoints != null && !primaryPoints.isEmpty() && relatedSeries != null && !relatedSeries.isEmpty()) {
+	            for(TimeSeriesPoint primaryPoint : primaryPoints) {
+	                Instant time = getTime(primaryPoint);
+	                if(time != null) {
+	                    int index = findRelatedPointIndex(relatedSeries::getTime, relatedSeries.size(), time, matchMode, tolerance);
+	                    if(index >= 0) {
+	                        matchingPoints.add(relatedSeries.getPoint(index));
+	                    }
+	                }
+	            }
+	        }
+        } catch (Exception e) {
+        	log.error("Exception in findColumnarMatchingPoints: ", e.getMessage());
+        }
+        return matchingPoints;
+    }
+
+    /**
+     * Returns the index of the related point matching the given time, or -1 when there is none.
+     * A null tolerance does not limit NEAREST or PREVIOUS matches.
+     */
+    protected int findRelatedPointIndex(List<TimeSeriesPoint> sortedPoints, Instant time, RelatedPointMatchMode matchMode, Duration tolerance) {
+        return findRelatedPointIndex(i -> getTime(sortedPoints.get(i)), sortedPoints.size(), time, matchMode, tolerance);
+    }
+
+    private int findRelatedPointIndex(IntFunction<Instant> timeAt, int size, Instant time, RelatedPointMatchMode matchMode, Duration tolerance) {
+        int index = findPointIndex(timeAt, size, time);
+        if(index < size && time.equals(timeAt.apply(index))) {
+            return index;
+        }
+
+        int candidate = -1;
+        if(matchMode == RelatedPointMatchMode.PREVIOUS) {
+            candidate = index - 1;
+        } else if(matchMode == RelatedPointMatchMode.NEAREST) {
+            if(index == 0) {
+                candidate = 0;
+            } else if(index == size) {
+                candidate = index - 1;
+            } else {
+                Duration before = Duration.between(timeAt.apply(index - 1), time);
+                Duration after = Duration.between(time, timeAt.apply(index));
+                candidate = after.compareTo(before) < 0 ? index : index - 1;
+            }
+        }
+
+        if(candidate < 0 || candidate >= size) {
+            return -1;
+        }
+        if(tolerance != null && Duration.between(timeAt.apply(candidate), time).abs().compareTo(tolerance) > 0) {
+            return -1;
+        }
+        return candidate;
+    }
+
+    /**
+     * Returns the index of the first point at or after the given time in a list of points ordered by time,
+     * or the size of the list when every point is before it.
+     */
+    protected int findPointIndex(List<TimeSeriesPoint> sortedPoints, Instant time) {
+        return findPointIndex(i -> getTime(sortedPoints.get(i)), sortedPoints.size(), time);
+    }
+
+    private int findPointIndex(IntFunction<Instant> timeAt, int size, Instant time) {
+        int low = 0;
+        int high = size;
+        while(low < high) {
+            int mid = (low + high) >>> 1;
+            if(timeAt.apply(mid).isBefore(time)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Splits a range of points in half until it is no larger than the chunk size, then merges
+     * the chunk results left to right so tied points keep their sequential ordering.
+     */
+    private class MinMaxTask extends RecursiveTask<MinMaxAccumulator> {
+        private static final long serialVersionUID = 1L;
+        private final MinMaxSeries series;
+        private final int from;
+        private final int to;
+        private final int chunkSize;
+
+        MinMaxTask(MinMaxSeries series, int from, int to, int chunkSize) {
+            this.series = series;
+            this.from = from;
+            this.to = to;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        protected MinMaxAccumulator compute() {
+            if(to - from <= chunkSize) {
+                return scanRange(series, from, to);
+            }
+            int mid = (from + to) >>> 1;
+            MinMaxTask left = new MinMaxTask(series, from, mid, chunkSize);
+            MinMaxTask right = new MinMaxTask(series, mid, to, chunkSize);
+            right.fork();
+            MinMaxAccumulator result = left.compute();
+            result.merge(right.join());
+            return result;
         }
-	        
-        return new HashMap<>();
     }
 }
\ No newline at end of file
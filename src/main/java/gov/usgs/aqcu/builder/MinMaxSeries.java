@@ -0,0 +1,17 @@
+package gov.usgs.aqcu.builder;
+
+/**
+ * The values, display values and timestamps of a series by index, as read by MinMaxAccumulator.
+ */
+interface MinMaxSeries {
+	int size();
+
+	/**
+	 * The numeric value of the point, or NaN when the point has no numeric value.
+	 */
+	double getValue(int index);
+
+	boolean hasSameTime(int index, int otherIndex);
+
+	boolean hasSameDisplay(int index, int otherIndex);
+}
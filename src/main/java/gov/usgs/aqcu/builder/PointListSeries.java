@@ -0,0 +1,51 @@
+package gov.usgs.aqcu.builder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesPoint;
+
+/**
+ * A MinMaxSeries read directly from a list of SDK points, so finding the min/max of retrieved points
+ * does not copy them into columns first. Display values are compared as strings and timestamps as
+ * instants, and a point without a numeric value reads as NaN.
+ */
+class PointListSeries implements MinMaxSeries {
+	private final List<TimeSeriesPoint> points;
+
+	PointListSeries(List<TimeSeriesPoint> points) {
+		this.points = points instanceof RandomAccess ? points : new ArrayList<>(points);
+	}
+
+	@Override
+	public int size() {
+		return points.size();
+	}
+
+	@Override
+	public double getValue(int index) {
+		TimeSeriesPoint point = points.get(index);
+		if(point.getValue() == null || point.getValue().getNumeric() == null) {
+			return Double.NaN;
+		}
+		return point.getValue().getNumeric();
+	}
+
+	@Override
+	public boolean hasSameTime(int index, int otherIndex) {
+		TimeSeriesPoint point = points.get(index);
+		TimeSeriesPoint other = points.get(otherIndex);
+		return Objects.equals(point.getTimestamp() != null ? point.getTimestamp().getDateTimeOffset() : null,
+			other.getTimestamp() != null ? other.getTimestamp().getDateTimeOffset() : null);
+	}
+
+	@Override
+	public boolean hasSameDisplay(int index, int otherIndex) {
+		TimeSeriesPoint point = points.get(index);
+		TimeSeriesPoint other = points.get(otherIndex);
+		return Objects.equals(point.getValue() != null ? point.getValue().getDisplay() : null,
+			other.getValue() != null ? other.getValue().getDisplay() : null);
+	}
+}
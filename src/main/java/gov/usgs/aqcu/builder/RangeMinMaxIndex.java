@@ -0,0 +1,210 @@
+package gov.usgs.aqcu.builder;
+
+import java.util.Arrays;
+
+/**
+ * Segment tree of min/max summaries over fixed size blocks of a ColumnarTimeSeries, built once
+ * so the min/max of any range of the series is found without rescanning it.
+ *
+ * A range is answered by scanning the partial blocks at either end and merging, left to right,
+ * the summaries of the O(log n) tree nodes covering the whole blocks in between. The merge is
+ * the one MinMaxAccumulator uses for parallel chunks, so the value and multiple flags are the
+ * same as a scan of the range. Tied points are then collected by descending only into the nodes
+ * whose extreme equals the range extreme.
+ *
+ * Each node only summarizes its range, so the index adds a few objects per block of points.
+ */
+class RangeMinMaxIndex {
+	public static final int BLOCK_SIZE = 1024;
+
+	// The complete series, which every node and returned index refers to
+	private final ColumnarTimeSeries series;
+	private final int leafCount;
+	// Heap ordered nodes: node n has children 2n and 2n + 1, and leafCount + b is block b
+	private final MinMaxAccumulator[] nodes;
+	// Whether a node's range contains a point without a finite numeric value
+	private final boolean[] invalid;
+
+	RangeMinMaxIndex(ColumnarTimeSeries series) {
+		this.series = series;
+		int blockCount = Math.max(1, (series.size() + BLOCK_SIZE - 1) / BLOCK_SIZE);
+		this.leafCount = Integer.highestOneBit(blockCount) == blockCount ? blockCount : Integer.highestOneBit(blockCount) << 1;
+		this.nodes = new MinMaxAccumulator[leafCount * 2];
+		this.invalid = new boolean[leafCount * 2];
+
+		for(int block = 0; block < blockCount; block++) {
+			MinMaxAccumulator accumulator = new MinMaxAccumulator(series, false);
+			int end = Math.min(series.size(), (block + 1) * BLOCK_SIZE);
+			for(int i = block * BLOCK_SIZE; i < end; i++) {
+				double value = series.getValue(i);
+				if(Double.isFinite(value)) {
+					accumulator.accept(i, value);
+				} else {
+					invalid[leafCount + block] = true;
+				}
+			}
+			nodes[leafCount + block] = accumulator;
+		}
+		for(int node = leafCount - 1; node > 0; node--) {
+			MinMaxAccumulator accumulator = new MinMaxAccumulator(series, false);
+			if(nodes[node * 2] != null) {
+				accumulator.merge(nodes[node * 2]);
+			}
+			if(nodes[node * 2 + 1] != null) {
+				accumulator.merge(nodes[node * 2 + 1]);
+			}
+			nodes[node] = accumulator;
+			invalid[node] = invalid[node * 2] || invalid[node * 2 + 1];
+		}
+	}
+
+	/**
+	 * Finds the min/max of a view of the indexed series. The returned accumulator refers to the view.
+	 * @throws NumberFormatException when the view contains a point without a finite numeric value
+	 */
+	MinMaxAccumulator find(ColumnarTimeSeries view) {
+		int from = view.getOffset();
+		int to = from + view.size();
+		int[] coveringNodes = getCoveringNodes(from, to);
+		int headEnd = coveringNodes.length > 0 ? Math.min(to, getBlockStart(coveringNodes[0])) : to;
+		int tailStart = coveringNodes.length > 0 ? Math.max(headEnd, getBlockEnd(coveringNodes[coveringNodes.length - 1])) : to;
+
+		MinMaxAccumulator summary = new MinMaxAccumulator(series, false);
+		scan(summary, from, headEnd);
+		for(int node : coveringNodes) {
+			if(invalid[node]) {
+				throw new NumberFormatException("Infinite or NaN point value between points " + getBlockStart(node) + " and " + getBlockEnd(node));
+			}
+			summary.merge(nodes[node]);
+		}
+		scan(summary, tailStart, to);
+
+		if(summary.isEmpty()) {
+			return new MinMaxAccumulator(view);
+		}
+
+		IndexList maxIndexes = new IndexList(from);
+		IndexList minIndexes = new IndexList(from);
+		collectTies(from, headEnd, summary, maxIndexes, minIndexes);
+		for(int node : coveringNodes) {
+			collectTies(node, summary, maxIndexes, minIndexes);
+		}
+		collectTies(tailStart, to, summary, maxIndexes, minIndexes);
+		return new MinMaxAccumulator(view, from, summary, maxIndexes.toArray(), minIndexes.toArray());
+	}
+
+	/**
+	 * Returns, in order, the nodes covering the whole blocks within [from, to).
+	 */
+	private int[] getCoveringNodes(int from, int to) {
+		int firstBlock = (from + BLOCK_SIZE - 1) / BLOCK_SIZE;
+		int lastBlock = to / BLOCK_SIZE;
+		if(to == series.size() && to % BLOCK_SIZE != 0) {
+			// The final partial block is whole when the range reaches the end of the series
+			lastBlock++;
+		}
+		if(firstBlock >= lastBlock) {
+			return new int[0];
+		}
+
+		int[] left = new int[64];
+		int[] right = new int[64];
+		int leftCount = 0;
+		int rightCount = 0;
+		for(int low = firstBlock + leafCount, high = lastBlock + leafCount; low < high; low >>= 1, high >>= 1) {
+			if((low & 1) == 1) {
+				left[leftCount++] = low++;
+			}
+			if((high & 1) == 1) {
+				right[rightCount++] = --high;
+			}
+		}
+		int[] result = Arrays.copyOf(left, leftCount + rightCount);
+		for(int i = 0; i < rightCount; i++) {
+			result[leftCount + i] = right[rightCount - 1 - i];
+		}
+		return result;
+	}
+
+	private void collectTies(int node, MinMaxAccumulator summary, IndexList maxIndexes, IndexList minIndexes) {
+		MinMaxAccumulator accumulator = nodes[node];
+		boolean hasMax = !accumulator.isEmpty() && accumulator.getMaxValue() == summary.getMaxValue();
+		boolean hasMin = !accumulator.isEmpty() && accumulator.getMinValue() == summary.getMinValue();
+		if(!hasMax && !hasMin) {
+			return;
+		}
+		if(node >= leafCount) {
+			collectTies(getBlockStart(node), getBlockEnd(node), hasMax ? summary : null, hasMin ? summary : null, maxIndexes, minIndexes);
+		} else {
+			collectTies(node * 2, summary, maxIndexes, minIndexes);
+			collectTies(node * 2 + 1, summary, maxIndexes, minIndexes);
+		}
+	}
+
+	private void collectTies(int from, int to, MinMaxAccumulator summary, IndexList maxIndexes, IndexList minIndexes) {
+		collectTies(from, to, summary, summary, maxIndexes, minIndexes);
+	}
+
+	private void collectTies(int from, int to, MinMaxAccumulator maxSummary, MinMaxAccumulator minSummary,
+			IndexList maxIndexes, IndexList minIndexes) {
+		for(int i = from; i < to; i++) {
+			double value = series.getValue(i);
+			if(maxSummary != null && value == maxSummary.getMaxValue()) {
+				maxIndexes.add(i);
+			}
+			if(minSummary != null && value == minSummary.getMinValue()) {
+				minIndexes.add(i);
+			}
+		}
+	}
+
+	private void scan(MinMaxAccumulator accumulator, int from, int to) {
+		for(int i = from; i < to; i++) {
+			double value = series.getValue(i);
+			if(!Double.isFinite(value)) {
+				throw new NumberFormatException("Infinite or NaN point value: " + value);
+			}
+			accumulator.accept(i, value);
+		}
+	}
+
+	private int getBlockStart(int node) {
+		int start = node;
+		while(start < leafCount) {
+			start *= 2;
+		}
+		return Math.min(series.size(), (start - leafCount) * BLOCK_SIZE);
+	}
+
+	private int getBlockEnd(int node) {
+		int end = node;
+		while(end < leafCount) {
+			end = end * 2 + 1;
+		}
+		return Math.min(series.size(), (end - leafCount + 1) * BLOCK_SIZE);
+	}
+
+	/**
+	 * Growable list of indices of the series, stored relative to the start of a view.
+	 */
+	private static class IndexList {
+		private final int offset;
+		private int[] indexes = new int[8];
+		private int count = 0;
+
+		IndexList(int offset) {
+			this.offset = offset;
+		}
+
+		void add(int index) {
+			if(count == indexes.length) {
+				indexes = Arrays.copyOf(indexes, count * 2);
+			}
+			indexes[count++] = index - offset;
+		}
+
+		int[] toArray() {
+			return Arrays.copyOf(indexes, count);
+		}
+	}
+}
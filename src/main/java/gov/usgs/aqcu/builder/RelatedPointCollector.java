@@ -0,0 +1,116 @@
+package gov.usgs.aqcu.builder;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesPoint;
+
+import gov.usgs.aqcu.model.TimeSeriesMinMax;
+import gov.usgs.aqcu.parameter.RelatedPointMatchMode;
+
+/**
+ * Finds the related points matching a set of min/max points while the related series is read,
+ * so only the matches and the most recently read point are retained. The related points must
+ * arrive ordered by time, as Aquarius returns them. Matches are the same as those found by
+ * MinMaxBuilderService.findMinMaxMatchingPoints over the complete related series.
+ */
+public class RelatedPointCollector implements Consumer<TimeSeriesPoint> {
+	private final TimeSeriesMinMax primaryMinMax;
+	private final RelatedPointMatchMode matchMode;
+	private final Duration tolerance;
+	// Distinct times of the primary points, in order, and the related point matched to each
+	private final Instant[] times;
+	private final TimeSeriesPoint[] matches;
+	private int next = 0;
+	private TimeSeriesPoint previous;
+
+	public RelatedPointCollector(TimeSeriesMinMax primaryMinMax, RelatedPointMatchMode matchMode, Duration tolerance) {
+		this.primaryMinMax = primaryMinMax;
+		this.matchMode = matchMode;
+		this.tolerance = tolerance;
+		this.times = Stream.concat(primaryMinMax.getMaxPoints().stream(), primaryMinMax.getMinPoints().stream())
+			.map(RelatedPointCollector::getTime)
+			.filter(Objects::nonNull)
+			.distinct()
+			.sorted()
+			.toArray(Instant[]::new);
+		this.matches = new TimeSeriesPoint[times.length];
+	}
+
+	@Override
+	public void accept(TimeSeriesPoint point) {
+		Instant time = getTime(point);
+		if(time == null) {
+			return;
+		}
+		// Every primary time up to this point can now be resolved: the first related point at the
+		// primary time is the exact match, otherwise the previous and this point surround it
+		while(next < times.length && !time.isBefore(times[next])) {
+			matches[next] = time.equals(times[next]) ? point : findMatch(times[next], previous, point);
+			next++;
+		}
+		previous = point;
+	}
+
+	/**
+	 * The related points matching the primary min/max points, once the whole related series has been read.
+	 */
+	public TimeSeriesMinMax getMatchingMinMax() {
+		TimeSeriesPoint[] result = Arrays.copyOf(matches, matches.length);
+		for(int i = next; i < times.length; i++) {
+			result[i] = findMatch(times[i], previous, null);
+		}
+
+		TimeSeriesMinMax matchingMinMax = new TimeSeriesMinMax();
+		matchingMinMax.setMaxPoints(select(primaryMinMax.getMaxPoints(), result));
+		matchingMinMax.setMinPoints(select(primaryMinMax.getMinPoints(), result));
+		return matchingMinMax;
+	}
+
+	private List<TimeSeriesPoint> select(List<TimeSeriesPoint> primaryPoints, TimeSeriesPoint[] result) {
+		List<TimeSeriesPoint> matchingPoints = new ArrayList<>();
+		for(TimeSeriesPoint primaryPoint : primaryPoints) {
+			Instant time = getTime(primaryPoint);
+			if(time != null) {
+				TimeSeriesPoint match = result[Arrays.binarySearch(times, time)];
+				if(match != null) {
+					matchingPoints.add(match);
+				}
+			}
+		}
+		return matchingPoints;
+	}
+
+	private TimeSeriesPoint findMatch(Instant time, TimeSeriesPoint before, TimeSeriesPoint after) {
+		TimeSeriesPoint candidate = null;
+		if(matchMode == RelatedPointMatchMode.PREVIOUS) {
+			candidate = before;
+		} else if(matchMode == RelatedPointMatchMode.NEAREST) {
+			if(before == null || after == null) {
+				candidate = before != null ? before : after;
+			} else {
+				Duration beforeDistance = Duration.between(getTime(before), time);
+				Duration afterDistance = Duration.between(time, getTime(after));
+				candidate = afterDistance.compareTo(beforeDistance) < 0 ? after : before;
+			}
+		}
+
+		if(candidate == null) {
+			return null;
+		}
+		if(tolerance != null && Duration.between(getTime(candidate), time).abs().compareTo(tolerance) > 0) {
+			return null;
+		}
+		return candidate;
+	}
+
+	private static Instant getTime(TimeSeriesPoint point) {
+		return point.getTimestamp() != null ? point.getTimestamp().getDateTimeOffset() : null;
+	}
+}
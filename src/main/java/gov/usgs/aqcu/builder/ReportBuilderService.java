@@ -2,8 +2,13 @@ package gov.usgs.aqcu.builder;
 
 import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
@@ -11,11 +16,19 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.LocationDescription;
 import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.Qualifier;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.QualifierMetadata;
 import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesDataServiceResponse;
 import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesDescription;
 import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesPoint;
 
+import gov.usgs.aqcu.cache.LocationDescriptionCache;
+import gov.usgs.aqcu.cache.QualifierMetadataCache;
+import gov.usgs.aqcu.cache.TimeSeriesDataCache;
+import gov.usgs.aqcu.cache.TimeSeriesDescriptionCache;
+import gov.usgs.aqcu.builder.DailyAggregateService.AggregatedExtremes;
+import gov.usgs.aqcu.config.RetrievalExecutorConfig;
 import gov.usgs.aqcu.model.ExtremesMinMax;
 import gov.usgs.aqcu.model.ExtremesPoint;
 import gov.usgs.aqcu.model.ExtremesQualifier;
@@ -23,13 +36,14 @@ import gov.usgs.aqcu.model.ExtremesReport;
 import gov.usgs.aqcu.model.ExtremesReportMetadata;
 import gov.usgs.aqcu.model.TimeSeriesMinMax;
 import gov.usgs.aqcu.parameter.ExtremesRequestParameters;
-import gov.usgs.aqcu.retrieval.LocationDescriptionListService;
-import gov.usgs.aqcu.retrieval.QualifierLookupService;
+import gov.usgs.aqcu.parameter.RelatedPointMatchMode;
+import gov.usgs.aqcu.retrieval.StreamingTimeSeriesDataService;
 import gov.usgs.aqcu.retrieval.TimeSeriesDataService;
-import gov.usgs.aqcu.retrieval.TimeSeriesDescriptionListService;
 import gov.usgs.aqcu.util.AqcuTimeUtils;
 import gov.usgs.aqcu.util.LogExecutionTime;
 import gov.usgs.aqcu.util.TimeSeriesUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 @Service
 public class ReportBuilderService {
@@ -38,140 +52,509 @@ public class ReportBuilderService {
 	public static final String REPORT_TYPE = "extremes";
 	public static final String PRIMARY_RELATED_KEY = "relatedPrimary";
 	public static final String UPCHAIN_RELATED_KEY = "relatedUpchain";
+	public static final String COALESCED_METRIC_NAME = "extremes.report.requests";
 
-	private LocationDescriptionListService locationDescriptionListService;
+	private LocationDescriptionCache locationDescriptionCache;
 	private MinMaxBuilderService minMaxBuilderService;
-	private TimeSeriesDescriptionListService timeSeriesDescriptionListService;
+	private TimeSeriesDescriptionCache timeSeriesDescriptionCache;
 	private TimeSeriesDataService timeSeriesDataService;
-	private QualifierLookupService qualifierLookupService;
+	private StreamingTimeSeriesDataService streamingTimeSeriesDataService;
+	private TimeSeriesDataCache timeSeriesDataCache;
+	private DailyAggregateService dailyAggregateService;
+	private QualifierMetadataCache qualifierMetadataCache;
+	private Executor retrievalExecutor;
+	private RequestCoalescer<ReportData> reportCoalescer;
+
+	public ReportBuilderService(
+		LocationDescriptionCache locationDescriptionCache,
+		MinMaxBuilderService minMaxBuilderService,
+		TimeSeriesDescriptionCache timeSeriesDescriptionCache,
+		TimeSeriesDataService timeSeriesDataService,
+		QualifierMetadataCache qualifierMetadataCache) {
+		this(locationDescriptionCache, minMaxBuilderService, timeSeriesDescriptionCache,
+			timeSeriesDataService, qualifierMetadataCache, Runnable::run, new SimpleMeterRegistry());
+	}
+
+	public ReportBuilderService(
+		LocationDescriptionCache locationDescriptionCache,
+		MinMaxBuilderService minMaxBuilderService,
+		TimeSeriesDescriptionCache timeSeriesDescriptionCache,
+		TimeSeriesDataService timeSeriesDataService,
+		QualifierMetadataCache qualifierMetadataCache,
+		Executor retrievalExecutor,
+		MeterRegistry meterRegistry) {
+		this(locationDescriptionCache, minMaxBuilderService, timeSeriesDescriptionCache,
+			timeSeriesDataService, null, null, null, qualifierMetadataCache, retrievalExecutor, meterRegistry);
+	}
 
 	@Autowired
 	public ReportBuilderService(
-		LocationDescriptionListService locationDescriptionListService,
+		LocationDescriptionCache locationDescriptionCache,
 		MinMaxBuilderService minMaxBuilderService,
-		TimeSeriesDescriptionListService timeSeriesDescriptionListService,
+		TimeSeriesDescriptionCache timeSeriesDescriptionCache,
 		TimeSeriesDataService timeSeriesDataService,
-		QualifierLookupService qualifierLookupService) {
-		this.locationDescriptionListService = locationDescriptionListService;
+		StreamingTimeSeriesDataService streamingTimeSeriesDataService,
+		TimeSeriesDataCache timeSeriesDataCache,
+		DailyAggregateService dailyAggregateService,
+		QualifierMetadataCache qualifierMetadataCache,
+		@org.springframework.beans.factory.annotation.Qualifier(RetrievalExecutorConfig.RETRIEVAL_EXECUTOR) Executor retrievalExecutor,
+		MeterRegistry meterRegistry) {
+		this.locationDescriptionCache = locationDescriptionCache;
 		this.minMaxBuilderService = minMaxBuilderService;
-		this.timeSeriesDescriptionListService = timeSeriesDescriptionListService;
+		this.timeSeriesDescriptionCache = timeSeriesDescriptionCache;
 		this.timeSeriesDataService = timeSeriesDataService;
-		this.qualifierLookupService = qualifierLookupService;
+		this.streamingTimeSeriesDataService = streamingTimeSeriesDataService;
+		this.timeSeriesDataCache = timeSeriesDataCache;
+		this.dailyAggregateService = dailyAggregateService;
+		this.qualifierMetadataCache = qualifierMetadataCache;
+		this.retrievalExecutor = retrievalExecutor;
+		this.reportCoalescer = new RequestCoalescer<>(meterRegistry, COALESCED_METRIC_NAME);
 	}
 	
 	@LogExecutionTime
 	public ExtremesReport buildReport(ExtremesRequestParameters requestParameters, String requestingUser) {
-	ExtremesReport report = new ExtremesReport();
-	ExtremesMinMax primaryOutput = new ExtremesMinMax();
-	ExtremesMinMax upchainOutput = new ExtremesMinMax();
-	ExtremesMinMax derivedOutput = new ExtremesMinMax();
-	List<Qualifier> qualifiers = new ArrayList<>();
-	
+		ExtremesReport report = new ExtremesReport();
+		ReportData reportData = getReportData(requestParameters);
+
+		// Output to report
+		report.setPrimary(reportData.primary);
+		report.setUpchain(reportData.upchain);
+		report.setDv(reportData.derived);
+
+		//Report Metadata
+		report.setReportMetadata(getReportMetadata(requestParameters,
+			reportData.timeSeriesDescriptions,
+			reportData.primaryDescription,
+			requestingUser,
+			reportData.primaryLocation,
+			reportData.qualifierMetadata
+		));
+		return report;
+	}
+
+	/**
+	 * Concurrent requests for the same report share a single retrieval and computation.
+	 * Only the report metadata, which carries the requesting user, is built per caller.
+	 */
+	protected ReportData getReportData(ExtremesRequestParameters requestParameters) {
+		String reportKey;
+		try {
+			reportKey = requestParameters.getReportKey();
+		} catch (Exception e) {
+			log.debug("Unable to build report key, request will not be coalesced: ", e.getMessage());
+			return buildReportData(requestParameters);
+		}
+		return reportCoalescer.execute(reportKey, () -> buildReportData(requestParameters));
+	}
+
+	protected ReportData buildReportData(ExtremesRequestParameters requestParameters) {
 		// All TS Metadata
 		log.debug("Get time series descriptions");
 		Map<String, TimeSeriesDescription> timeSeriesDescriptions = 
-				timeSeriesDescriptionListService.getTimeSeriesDescriptionList(new ArrayList<>(requestParameters.getTsIdSet()))
-					.stream().collect(Collectors.toMap(t -> t.getUniqueId(), t -> t));
-		
-		// Primary TS Data
-		log.debug("Get primary time series description/data/min max points");
+				timeSeriesDescriptionCache.getTimeSeriesDescriptions(new ArrayList<>(requestParameters.getTsIdSet()));
 		TimeSeriesDescription primaryDescription = timeSeriesDescriptions.get(requestParameters.getPrimaryTimeseriesIdentifier());
+		TimeSeriesDescription upchainDescription = timeSeriesDescriptions.get(requestParameters.getUpchainTimeseriesIdentifier());
+		TimeSeriesDescription derivedDescription = timeSeriesDescriptions.get(requestParameters.getDerivedTimeseriesIdentifier());
+		if(primaryDescription == null) {
+			throw new IllegalArgumentException("No time series description found for primary time series "
+				+ requestParameters.getPrimaryTimeseriesIdentifier());
+		}
 		ZoneOffset primaryZoneOffset = TimeSeriesUtils.getZoneOffset(primaryDescription);
 		Boolean primaryIsDaily = TimeSeriesUtils.isDailyTimeSeries(primaryDescription);
-		
-		TimeSeriesDataServiceResponse primaryData = timeSeriesDataService
-				.get(primaryDescription.getUniqueId(), requestParameters,  primaryZoneOffset, primaryIsDaily, false, false, null);
-		
-		TimeSeriesMinMax primaryMinMax = null;
-
-		if(primaryData != null && !primaryData.getPoints().isEmpty()) {
-			primaryMinMax = minMaxBuilderService.findMinMaxPoints(primaryData.getPoints());
-			primaryOutput.setMaxPoints(getExtremesPoints(primaryMinMax.getMaxPoints(), primaryIsDaily, primaryZoneOffset));
-			primaryOutput.setMultipleMaxFlag(getMultipleMinMaxFlag(primaryMinMax.getMaxPoints().get(0),primaryData.getPoints()));
-			primaryOutput.setMinPoints(getExtremesPoints(primaryMinMax.getMinPoints(), primaryIsDaily, primaryZoneOffset));
-			primaryOutput.setMultipleMinFlag(getMultipleMinMaxFlag(primaryMinMax.getMinPoints().get(0),primaryData.getPoints()));
-			primaryOutput.setQualifiers(getExtremesQualifiers(primaryData.getQualifiers(), primaryIsDaily, primaryZoneOffset));
-			qualifiers.addAll(primaryData.getQualifiers());
-		}
 
-		// Upchain TS Data
-		log.debug("Get upchain time series description/data/min max points");
-		TimeSeriesDescription upchainDescription = timeSeriesDescriptions.get(requestParameters.getUpchainTimeseriesIdentifier());
-		TimeSeriesDataServiceResponse upchainData = null;
+		// The primary location is retrieved alongside the time series data
+		CompletableFuture<LocationDescription> primaryLocationFuture = CompletableFuture.supplyAsync(
+				() -> locationDescriptionCache.getByLocationIdentifier(primaryDescription.getLocationIdentifier()),
+				retrievalExecutor);
+
+		// Top events are found over the retrieved series, so they are not streamed or aggregated
+		SeriesExtremes extremes;
+		if(isAggregationEnabled(requestParameters, primaryZoneOffset)) {
+			extremes = findAggregatedExtremes(requestParameters, primaryDescription, upchainDescription, derivedDescription);
+		} else if(isStreamingEnabled() && !requestParameters.isTopRequested()) {
+			extremes = findStreamedExtremes(requestParameters, primaryDescription, upchainDescription, derivedDescription);
+		} else {
+			extremes = findRetrievedExtremes(requestParameters, primaryDescription, upchainDescription, derivedDescription);
+		}
 
+		log.debug("Get primary/upchain/derived time series min max points");
+		ExtremesMinMax primaryOutput = getExtremesMinMax(extremes.primaryMinMax, extremes.primaryTopMinMax,
+			extremes.primaryQualifiers, primaryIsDaily, primaryZoneOffset);
+		ExtremesMinMax upchainOutput = new ExtremesMinMax();
 		if(upchainDescription != null) {
 			ZoneOffset upchainZoneOffset = TimeSeriesUtils.getZoneOffset(upchainDescription);
 			Boolean upchainIsDaily = TimeSeriesUtils.isDailyTimeSeries(upchainDescription);
-			upchainData = timeSeriesDataService
-				.get(upchainDescription.getUniqueId(), requestParameters,  upchainZoneOffset, upchainIsDaily, false, false, null);
-			if(upchainData != null && !upchainData.getPoints().isEmpty()) {
-				TimeSeriesMinMax upchainMinMax = minMaxBuilderService.findMinMaxPoints(upchainData.getPoints());
-				upchainOutput.setMaxPoints(getExtremesPoints(upchainMinMax.getMaxPoints(), upchainIsDaily, upchainZoneOffset));
-				upchainOutput.setMultipleMaxFlag(getMultipleMinMaxFlag(upchainMinMax.getMaxPoints().get(0),upchainData.getPoints()));
-				upchainOutput.setMinPoints(getExtremesPoints(upchainMinMax.getMinPoints(), upchainIsDaily, upchainZoneOffset));
-				upchainOutput.setMultipleMinFlag(getMultipleMinMaxFlag(upchainMinMax.getMinPoints().get(0),upchainData.getPoints()));
-				upchainOutput.setQualifiers(getExtremesQualifiers(upchainData.getQualifiers(), upchainIsDaily, upchainZoneOffset));
-				qualifiers.addAll(upchainData.getQualifiers());
-
-				// Find related data
-				if(primaryMinMax != null && upchainMinMax != null) {
-					TimeSeriesMinMax relatedUpchainMinMax = minMaxBuilderService.findMinMaxMatchingPoints(primaryMinMax, upchainData.getPoints());
-					TimeSeriesMinMax relatedPrimaryMinMax = minMaxBuilderService.findMinMaxMatchingPoints(upchainMinMax, primaryData.getPoints());
-
-					primaryOutput.setMaxRelatedPoints(
-						getExtremesPoints(relatedUpchainMinMax.getMaxPoints(), upchainIsDaily, upchainZoneOffset),
-						UPCHAIN_RELATED_KEY
-					);
-					primaryOutput.setMinRelatedPoints(
-						getExtremesPoints(relatedUpchainMinMax.getMinPoints(), upchainIsDaily, upchainZoneOffset),
-						UPCHAIN_RELATED_KEY
-					);
-					upchainOutput.setMaxRelatedPoints(
-						getExtremesPoints(relatedPrimaryMinMax.getMaxPoints(), primaryIsDaily, primaryZoneOffset),
-						PRIMARY_RELATED_KEY
-					);
-					upchainOutput.setMinRelatedPoints(
-						getExtremesPoints(relatedPrimaryMinMax.getMinPoints(), primaryIsDaily, primaryZoneOffset),
-						PRIMARY_RELATED_KEY
-					);
-				}
+			upchainOutput = getExtremesMinMax(extremes.upchainMinMax, extremes.upchainTopMinMax,
+				extremes.upchainQualifiers, upchainIsDaily, upchainZoneOffset);
+
+			// Related data
+			if(extremes.upchainMinMax != null && extremes.relatedUpchainMinMax != null && extremes.relatedPrimaryMinMax != null) {
+				setRelatedPoints(primaryOutput, extremes.relatedUpchainMinMax, UPCHAIN_RELATED_KEY, upchainIsDaily, upchainZoneOffset);
+				setRelatedPoints(upchainOutput, extremes.relatedPrimaryMinMax, PRIMARY_RELATED_KEY, primaryIsDaily, primaryZoneOffset);
 			}
 		}
-		
-		// derived TS Data
-		log.debug("Get derived time series description/data/min max points");
-		TimeSeriesDescription derivedDescription = timeSeriesDescriptions.get(requestParameters.getDerivedTimeseriesIdentifier());
-		TimeSeriesDataServiceResponse derivedData = null;
+		ExtremesMinMax derivedOutput = new ExtremesMinMax();
+		if(derivedDescription != null) {
+			derivedOutput = getExtremesMinMax(extremes.derivedMinMax, extremes.derivedTopMinMax,
+				extremes.derivedQualifiers, true, TimeSeriesUtils.getZoneOffset(derivedDescription));
+		}
+
+		ReportData reportData = new ReportData();
+		reportData.primary = primaryOutput;
+		reportData.upchain = upchainOutput;
+		reportData.derived = derivedOutput;
+		reportData.timeSeriesDescriptions = timeSeriesDescriptions;
+		reportData.primaryDescription = primaryDescription;
+		reportData.primaryLocation = primaryLocationFuture;
+		reportData.qualifierMetadata = extremes.qualifierMetadata;
+		return reportData;
+	}
+
+	/**
+	 * The report output of one series' min/max, qualifiers, intervals and top events, empty when the
+	 * series has no points in the period.
+	 */
+	protected ExtremesMinMax getExtremesMinMax(TimeSeriesMinMax minMax, TimeSeriesMinMax topMinMax, List<Qualifier> qualifiers,
+			Boolean isDaily, ZoneOffset zoneOffset) {
+		ExtremesMinMax output = new ExtremesMinMax();
+		if(minMax != null) {
+			output.setMaxPoints(getExtremesPoints(minMax.getMaxPoints(), isDaily, zoneOffset));
+			output.setMultipleMaxFlag(minMax.getMultipleMaxFlag());
+			output.setMinPoints(getExtremesPoints(minMax.getMinPoints(), isDaily, zoneOffset));
+			output.setMultipleMinFlag(minMax.getMultipleMinFlag());
+			output.setQualifiers(getExtremesQualifiers(qualifiers, isDaily, zoneOffset));
+			output.setIntervals(getExtremesIntervals(minMax.getIntervals(), isDaily, zoneOffset));
+			if(topMinMax != null) {
+				output.setMaxTopPoints(getExtremesPoints(topMinMax.getMaxPoints(), isDaily, zoneOffset));
+				output.setMinTopPoints(getExtremesPoints(topMinMax.getMinPoints(), isDaily, zoneOffset));
+			}
+		}
+		return output;
+	}
+
+	/**
+	 * Adds the points of the related series matching the output's min/max points under the related key.
+	 */
+	protected void setRelatedPoints(ExtremesMinMax output, TimeSeriesMinMax relatedMinMax, String relatedKey,
+			Boolean isDaily, ZoneOffset zoneOffset) {
+		output.setMaxRelatedPoints(getExtremesPoints(relatedMinMax.getMaxPoints(), isDaily, zoneOffset), relatedKey);
+		output.setMinRelatedPoints(getExtremesPoints(relatedMinMax.getMinPoints(), isDaily, zoneOffset), relatedKey);
+	}
+
+	protected boolean isStreamingEnabled() {
+		return streamingTimeSeriesDataService != null && streamingTimeSeriesDataService.isEnabled();
+	}
+
+	/**
+	 * Extremes are found from daily aggregates when they are persisted, or when the period is long enough
+	 * to be retrieved in windows, unless top events are requested, or related points may match points an
+	 * unbounded time away from the extremes, which only a whole period retrieval finds.
+	 */
+	protected boolean isAggregationEnabled(ExtremesRequestParameters requestParameters, ZoneOffset zoneOffset) {
+		if(dailyAggregateService == null || requestParameters.isTopRequested()) {
+			return false;
+		}
+		if(!dailyAggregateService.isEnabled() && !dailyAggregateService.isWindowed(requestParameters, zoneOffset)) {
+			return false;
+		}
+		return requestParameters.getUpchainTimeseriesIdentifier() == null
+			|| requestParameters.getRelatedPointMatchMode() == null
+			|| requestParameters.getRelatedPointMatchMode() == RelatedPointMatchMode.EXACT
+			|| requestParameters.getRelatedPointTolerance() != null;
+	}
+
+	/**
+	 * Retrieves the primary, upchain and derived series concurrently, then finds their min/max
+	 * and related points over the retrieved data.
+	 */
+	protected SeriesExtremes findRetrievedExtremes(ExtremesRequestParameters requestParameters, TimeSeriesDescription primaryDescription,
+			TimeSeriesDescription upchainDescription, TimeSeriesDescription derivedDescription) {
+		SeriesExtremes extremes = new SeriesExtremes();
+		List<Qualifier> qualifiers = new ArrayList<>();
 
+		// Retrieve all TS Data concurrently
+		log.debug("Get primary/upchain/derived time series data");
+		CompletableFuture<ColumnarTimeSeries> primaryDataFuture = getColumnarTimeSeriesData(primaryDescription, requestParameters,
+			TimeSeriesUtils.getZoneOffset(primaryDescription), TimeSeriesUtils.isDailyTimeSeries(primaryDescription));
+		CompletableFuture<ColumnarTimeSeries> upchainDataFuture = CompletableFuture.completedFuture(null);
+		if(upchainDescription != null) {
+			upchainDataFuture = getColumnarTimeSeriesData(upchainDescription, requestParameters,
+				TimeSeriesUtils.getZoneOffset(upchainDescription), TimeSeriesUtils.isDailyTimeSeries(upchainDescription));
+		}
+		CompletableFuture<ColumnarTimeSeries> derivedDataFuture = CompletableFuture.completedFuture(null);
 		if(derivedDescription != null) {
-			ZoneOffset derivedZoneOffset = TimeSeriesUtils.getZoneOffset(derivedDescription);
-			derivedData = timeSeriesDataService
-				.get(derivedDescription.getUniqueId(), requestParameters,  derivedZoneOffset, true, false, false, null);
-
-			if(derivedData != null && !derivedData.getPoints().isEmpty()) {
-				TimeSeriesMinMax derivedMinMax = minMaxBuilderService.findMinMaxPoints(derivedData.getPoints());
-				derivedOutput.setMaxPoints(getExtremesPoints(derivedMinMax.getMaxPoints(), true, derivedZoneOffset));
-				derivedOutput.setMultipleMaxFlag(getMultipleMinMaxFlag(derivedMinMax.getMaxPoints().get(0),derivedData.getPoints()));
-				derivedOutput.setMinPoints(getExtremesPoints(derivedMinMax.getMinPoints(), true, derivedZoneOffset));
-				derivedOutput.setMultipleMinFlag(getMultipleMinMaxFlag(derivedMinMax.getMinPoints().get(0),derivedData.getPoints()));
-				derivedOutput.setQualifiers(getExtremesQualifiers(derivedData.getQualifiers(), true, derivedZoneOffset));
-				qualifiers.addAll(derivedData.getQualifiers());
+			derivedDataFuture = getColumnarTimeSeriesData(derivedDescription, requestParameters,
+				TimeSeriesUtils.getZoneOffset(derivedDescription), true);
+		}
+
+		ColumnarTimeSeries primaryData = await(primaryDataFuture);
+		ColumnarTimeSeries upchainData = await(upchainDataFuture);
+		ColumnarTimeSeries derivedData = await(derivedDataFuture);
+
+		// Qualifier metadata only depends on the retrieved data, so look it up while computing min/max
+		if(primaryData != null && !primaryData.isEmpty()) {
+			qualifiers.addAll(primaryData.getQualifiers());
+		}
+		if(upchainData != null && !upchainData.isEmpty()) {
+			qualifiers.addAll(upchainData.getQualifiers());
+		}
+		if(derivedData != null && !derivedData.isEmpty()) {
+			qualifiers.addAll(derivedData.getQualifiers());
+		}
+		extremes.qualifierMetadata = getQualifierMetadata(qualifiers, retrievalExecutor);
+
+		if(primaryData != null && !primaryData.isEmpty()) {
+			extremes.primaryMinMax = minMaxBuilderService.findColumnarMinMaxPoints(primaryData, requestParameters.getExtremesInterval(),
+				TimeSeriesUtils.getZoneOffset(primaryDescription), TimeSeriesUtils.isDailyTimeSeries(primaryDescription));
+			extremes.primaryQualifiers = primaryData.getQualifiers();
+		}
+		if(upchainData != null && !upchainData.isEmpty()) {
+			extremes.upchainMinMax = minMaxBuilderService.findColumnarMinMaxPoints(upchainData, requestParameters.getExtremesInterval(),
+				TimeSeriesUtils.getZoneOffset(upchainDescription), TimeSeriesUtils.isDailyTimeSeries(upchainDescription));
+			extremes.upchainQualifiers = upchainData.getQualifiers();
+		}
+		if(derivedData != null && !derivedData.isEmpty()) {
+			extremes.derivedMinMax = minMaxBuilderService.findColumnarMinMaxPoints(derivedData, requestParameters.getExtremesInterval(),
+				TimeSeriesUtils.getZoneOffset(derivedDescription), true);
+			extremes.derivedQualifiers = derivedData.getQualifiers();
+		}
+
+		// Find top events
+		if(requestParameters.isTopRequested()) {
+			if(extremes.primaryMinMax != null) {
+				extremes.primaryTopMinMax = minMaxBuilderService.findColumnarTopPoints(primaryData,
+					requestParameters.getTopCount(), requestParameters.getTopSeparation());
+			}
+			if(extremes.upchainMinMax != null) {
+				extremes.upchainTopMinMax = minMaxBuilderService.findColumnarTopPoints(upchainData,
+					requestParameters.getTopCount(), requestParameters.getTopSeparation());
+			}
+			if(extremes.derivedMinMax != null) {
+				extremes.derivedTopMinMax = minMaxBuilderService.findColumnarTopPoints(derivedData,
+					requestParameters.getTopCount(), requestParameters.getTopSeparation());
 			}
 		}
 
-		// Output to report
-		report.setPrimary(primaryOutput);
-		report.setUpchain(upchainOutput);
-		report.setDv(derivedOutput);
+		// Find related data
+		if(extremes.primaryMinMax != null && extremes.upchainMinMax != null) {
+			extremes.relatedUpchainMinMax = minMaxBuilderService.findColumnarMinMaxMatchingPoints(extremes.primaryMinMax, upchainData,
+				requestParameters.getRelatedPointMatchMode(), requestParameters.getRelatedPointTolerance());
+			extremes.relatedPrimaryMinMax = minMaxBuilderService.findColumnarMinMaxMatchingPoints(extremes.upchainMinMax, primaryData,
+				requestParameters.getRelatedPointMatchMode(), requestParameters.getRelatedPointTolerance());
+		}
+		return extremes;
+	}
 
-		//Report Metadata
-		report.setReportMetadata(getReportMetadata(requestParameters,
-			timeSeriesDescriptions,
-			primaryDescription,
-			requestingUser,
-			qualifiers
-		));
-		return report;
+	/**
+	 * Finds the same extremes as findRetrievedExtremes without holding any series in memory.
+	 * The primary, upchain and derived series are streamed concurrently into min/max accumulators.
+	 * Related points can only be matched once both min/max results are known, so when there is
+	 * an upchain series the primary and upchain series are streamed a second time, retaining
+	 * only the points that match the other series' min/max points.
+	 */
+	protected SeriesExtremes findStreamedExtremes(ExtremesRequestParameters requestParameters, TimeSeriesDescription primaryDescription,
+			TimeSeriesDescription upchainDescription, TimeSeriesDescription derivedDescription) {
+		SeriesExtremes extremes = new SeriesExtremes();
+		List<Qualifier> qualifiers = new ArrayList<>();
+		StreamingMinMaxAccumulator primaryAccumulator = new StreamingMinMaxAccumulator(requestParameters.getExtremesInterval(),
+			TimeSeriesUtils.getZoneOffset(primaryDescription), TimeSeriesUtils.isDailyTimeSeries(primaryDescription));
+		StreamingMinMaxAccumulator upchainAccumulator = new StreamingMinMaxAccumulator();
+		if(upchainDescription != null) {
+			upchainAccumulator = new StreamingMinMaxAccumulator(requestParameters.getExtremesInterval(),
+				TimeSeriesUtils.getZoneOffset(upchainDescription), TimeSeriesUtils.isDailyTimeSeries(upchainDescription));
+		}
+		StreamingMinMaxAccumulator derivedAccumulator = new StreamingMinMaxAccumulator();
+		if(derivedDescription != null) {
+			derivedAccumulator = new StreamingMinMaxAccumulator(requestParameters.getExtremesInterval(),
+				TimeSeriesUtils.getZoneOffset(derivedDescription), true);
+		}
+
+		// Stream all TS Data concurrently
+		log.debug("Stream primary/upchain/derived time series data");
+		CompletableFuture<List<Qualifier>> primaryQualifiersFuture = streamTimeSeriesData(primaryDescription, requestParameters,
+			TimeSeriesUtils.isDailyTimeSeries(primaryDescription), primaryAccumulator);
+		CompletableFuture<List<Qualifier>> upchainQualifiersFuture = CompletableFuture.completedFuture(null);
+		if(upchainDescription != null) {
+			upchainQualifiersFuture = streamTimeSeriesData(upchainDescription, requestParameters,
+				TimeSeriesUtils.isDailyTimeSeries(upchainDescription), upchainAccumulator);
+		}
+		CompletableFuture<List<Qualifier>> derivedQualifiersFuture = CompletableFuture.completedFuture(null);
+		if(derivedDescription != null) {
+			derivedQualifiersFuture = streamTimeSeriesData(derivedDescription, requestParameters, true, derivedAccumulator);
+		}
+
+		List<Qualifier> primaryQualifiers = await(primaryQualifiersFuture);
+		List<Qualifier> upchainQualifiers = await(upchainQualifiersFuture);
+		List<Qualifier> derivedQualifiers = await(derivedQualifiersFuture);
+
+		if(!primaryAccumulator.isEmpty()) {
+			extremes.primaryMinMax = minMaxBuilderService.findStreamedMinMaxPoints(primaryAccumulator);
+			extremes.primaryQualifiers = primaryQualifiers != null ? primaryQualifiers : new ArrayList<>();
+			qualifiers.addAll(extremes.primaryQualifiers);
+		}
+		if(!upchainAccumulator.isEmpty()) {
+			extremes.upchainMinMax = minMaxBuilderService.findStreamedMinMaxPoints(upchainAccumulator);
+			extremes.upchainQualifiers = upchainQualifiers != null ? upchainQualifiers : new ArrayList<>();
+			qualifiers.addAll(extremes.upchainQualifiers);
+		}
+		if(!derivedAccumulator.isEmpty()) {
+			extremes.derivedMinMax = minMaxBuilderService.findStreamedMinMaxPoints(derivedAccumulator);
+			extremes.derivedQualifiers = derivedQualifiers != null ? derivedQualifiers : new ArrayList<>();
+			qualifiers.addAll(extremes.derivedQualifiers);
+		}
+		extremes.qualifierMetadata = getQualifierMetadata(qualifiers, retrievalExecutor);
+
+		// Find related data
+		if(extremes.primaryMinMax != null && extremes.upchainMinMax != null) {
+			log.debug("Stream primary/upchain time series data for related points");
+			RelatedPointCollector relatedUpchainCollector = new RelatedPointCollector(extremes.primaryMinMax,
+				requestParameters.getRelatedPointMatchMode(), requestParameters.getRelatedPointTolerance());
+			RelatedPointCollector relatedPrimaryCollector = new RelatedPointCollector(extremes.upchainMinMax,
+				requestParameters.getRelatedPointMatchMode(), requestParameters.getRelatedPointTolerance());
+			CompletableFuture<List<Qualifier>> relatedUpchainFuture = streamTimeSeriesData(upchainDescription, requestParameters,
+				TimeSeriesUtils.isDailyTimeSeries(upchainDescription), relatedUpchainCollector);
+			CompletableFuture<List<Qualifier>> relatedPrimaryFuture = streamTimeSeriesData(primaryDescription, requestParameters,
+				TimeSeriesUtils.isDailyTimeSeries(primaryDescription), relatedPrimaryCollector);
+			await(relatedUpchainFuture);
+			await(relatedPrimaryFuture);
+			extremes.relatedUpchainMinMax = relatedUpchainCollector.getMatchingMinMax();
+			extremes.relatedPrimaryMinMax = relatedPrimaryCollector.getMatchingMinMax();
+		}
+		return extremes;
+	}
+
+	/**
+	 * Finds the same extremes as findRetrievedExtremes from the persisted daily aggregates of each series,
+	 * only retrieving the days not aggregated yet. Related points are matched within the days around the
+	 * other series' min/max points, which are retrieved once both min/max results are known.
+	 */
+	protected SeriesExtremes findAggregatedExtremes(ExtremesRequestParameters requestParameters, TimeSeriesDescription primaryDescription,
+			TimeSeriesDescription upchainDescription, TimeSeriesDescription derivedDescription) {
+		SeriesExtremes extremes = new SeriesExtremes();
+		List<Qualifier> qualifiers = new ArrayList<>();
+
+		// Aggregate all TS Data concurrently
+		log.debug("Aggregate primary/upchain/derived time series data");
+		CompletableFuture<AggregatedExtremes> primaryFuture = aggregateTimeSeriesData(primaryDescription, requestParameters,
+			TimeSeriesUtils.isDailyTimeSeries(primaryDescription));
+		CompletableFuture<AggregatedExtremes> upchainFuture = CompletableFuture.completedFuture(new AggregatedExtremes());
+		if(upchainDescription != null) {
+			upchainFuture = aggregateTimeSeriesData(upchainDescription, requestParameters,
+				TimeSeriesUtils.isDailyTimeSeries(upchainDescription));
+		}
+		CompletableFuture<AggregatedExtremes> derivedFuture = CompletableFuture.completedFuture(new AggregatedExtremes());
+		if(derivedDescription != null) {
+			derivedFuture = aggregateTimeSeriesData(derivedDescription, requestParameters, true);
+		}
+
+		AggregatedExtremes primary = await(primaryFuture);
+		AggregatedExtremes upchain = await(upchainFuture);
+		AggregatedExtremes derived = await(derivedFuture);
+
+		if(primary.getMinMax() != null) {
+			extremes.primaryMinMax = primary.getMinMax();
+			extremes.primaryQualifiers = primary.getQualifiers();
+			qualifiers.addAll(extremes.primaryQualifiers);
+		}
+		if(upchain.getMinMax() != null) {
+			extremes.upchainMinMax = upchain.getMinMax();
+			extremes.upchainQualifiers = upchain.getQualifiers();
+			qualifiers.addAll(extremes.upchainQualifiers);
+		}
+		if(derived.getMinMax() != null) {
+			extremes.derivedMinMax = derived.getMinMax();
+			extremes.derivedQualifiers = derived.getQualifiers();
+			qualifiers.addAll(extremes.derivedQualifiers);
+		}
+		extremes.qualifierMetadata = getQualifierMetadata(qualifiers, retrievalExecutor);
+
+		// Find related data
+		if(extremes.primaryMinMax != null && extremes.upchainMinMax != null) {
+			log.debug("Get primary/upchain time series data for related points");
+			CompletableFuture<ColumnarTimeSeries> relatedUpchainFuture = getPointsNear(upchainDescription, requestParameters,
+				TimeSeriesUtils.isDailyTimeSeries(upchainDescription), extremes.primaryMinMax);
+			CompletableFuture<ColumnarTimeSeries> relatedPrimaryFuture = getPointsNear(primaryDescription, requestParameters,
+				TimeSeriesUtils.isDailyTimeSeries(primaryDescription), extremes.upchainMinMax);
+			extremes.relatedUpchainMinMax = minMaxBuilderService.findColumnarMinMaxMatchingPoints(extremes.primaryMinMax,
+				await(relatedUpchainFuture), requestParameters.getRelatedPointMatchMode(), requestParameters.getRelatedPointTolerance());
+			extremes.relatedPrimaryMinMax = minMaxBuilderService.findColumnarMinMaxMatchingPoints(extremes.upchainMinMax,
+				await(relatedPrimaryFuture), requestParameters.getRelatedPointMatchMode(), requestParameters.getRelatedPointTolerance());
+		}
+		return extremes;
+	}
+
+	protected CompletableFuture<AggregatedExtremes> aggregateTimeSeriesData(TimeSeriesDescription description,
+			ExtremesRequestParameters requestParameters, Boolean isDaily) {
+		return CompletableFuture.supplyAsync(
+			() -> dailyAggregateService.findExtremes(description, requestParameters, TimeSeriesUtils.getZoneOffset(description), isDaily),
+			retrievalExecutor);
+	}
+
+	protected CompletableFuture<ColumnarTimeSeries> getPointsNear(TimeSeriesDescription description,
+			ExtremesRequestParameters requestParameters, Boolean isDaily, TimeSeriesMinMax minMax) {
+		List<TimeSeriesPoint> points = new ArrayList<>(minMax.getMaxPoints());
+		points.addAll(minMax.getMinPoints());
+		return CompletableFuture.supplyAsync(
+			() -> dailyAggregateService.getPointsNear(description, requestParameters, TimeSeriesUtils.getZoneOffset(description), isDaily,
+				points, requestParameters.getRelatedPointTolerance()),
+			retrievalExecutor);
+	}
+
+	protected CompletableFuture<List<Qualifier>> streamTimeSeriesData(TimeSeriesDescription description,
+			ExtremesRequestParameters requestParameters, Boolean isDaily, Consumer<TimeSeriesPoint> pointConsumer) {
+		return CompletableFuture.supplyAsync(
+			() -> streamingTimeSeriesDataService.get(description.getUniqueId(), requestParameters,
+				TimeSeriesUtils.getZoneOffset(description), isDaily, pointConsumer),
+			retrievalExecutor);
+	}
+
+	/**
+	 * Retrieves a series and converts it to columnar form on the retrieval thread, so the
+	 * SDK points can be collected as soon as each series is converted. When the period is
+	 * within the cached period of the series, the cached points are used instead.
+	 */
+	protected CompletableFuture<ColumnarTimeSeries> getColumnarTimeSeriesData(TimeSeriesDescription description,
+			ExtremesRequestParameters requestParameters, ZoneOffset zoneOffset, Boolean isDaily) {
+		if(timeSeriesDataCache == null) {
+			return getTimeSeriesData(description, requestParameters, zoneOffset, isDaily).thenApply(ColumnarTimeSeries::fromResponse);
+		}
+		return CompletableFuture.supplyAsync(
+			() -> timeSeriesDataCache.get(description, zoneOffset, isDaily,
+				requestParameters.getQueryStartInstant(zoneOffset, isDaily), requestParameters.getQueryEndInstant(zoneOffset, isDaily),
+				() -> ColumnarTimeSeries.fromResponse(
+					timeSeriesDataService.get(description.getUniqueId(), requestParameters, zoneOffset, isDaily, false, false, null))),
+			retrievalExecutor);
+	}
+
+	protected CompletableFuture<TimeSeriesDataServiceResponse> getTimeSeriesData(TimeSeriesDescription description,
+			ExtremesRequestParameters requestParameters, ZoneOffset zoneOffset, Boolean isDaily) {
+		return CompletableFuture.supplyAsync(
+			() -> timeSeriesDataService.get(description.getUniqueId(), requestParameters, zoneOffset, isDaily, false, false, null),
+			retrievalExecutor);
+	}
+
+	protected CompletableFuture<Map<String, QualifierMetadata>> getQualifierMetadata(List<Qualifier> qualifierList, Executor executor) {
+		if(qualifierList != null && !qualifierList.isEmpty()) {
+			return CompletableFuture.supplyAsync(() -> qualifierMetadataCache.getByQualifierList(qualifierList), executor);
+		}
+		return CompletableFuture.completedFuture(null);
+	}
+
+	/**
+	 * Waits for a retrieval to complete, rethrowing any failure as the exception the
+	 * retrieval service itself threw.
+	 */
+	protected <T> T await(CompletableFuture<T> future) {
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			if(e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			} else if(e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			throw e;
+		}
 	}
 
 	protected List<ExtremesPoint> getExtremesPoints(List<TimeSeriesPoint> points, Boolean isDaily, ZoneOffset zoneOffset) {
@@ -181,6 +564,25 @@ public class ReportBuilderService {
 		return new ArrayList<>();
 	}
 
+	/**
+	 * The min/max points of each interval, by interval label, or null when no breakdown was requested.
+	 */
+	protected Map<String, ExtremesMinMax> getExtremesIntervals(Map<String, TimeSeriesMinMax> intervals, Boolean isDaily, ZoneOffset zoneOffset) {
+		if(intervals == null) {
+			return null;
+		}
+		Map<String, ExtremesMinMax> result = new LinkedHashMap<>();
+		for(Map.Entry<String, TimeSeriesMinMax> entry : intervals.entrySet()) {
+			ExtremesMinMax intervalOutput = new ExtremesMinMax();
+			intervalOutput.setMaxPoints(getExtremesPoints(entry.getValue().getMaxPoints(), isDaily, zoneOffset));
+			intervalOutput.setMultipleMaxFlag(entry.getValue().getMultipleMaxFlag());
+			intervalOutput.setMinPoints(getExtremesPoints(entry.getValue().getMinPoints(), isDaily, zoneOffset));
+			intervalOutput.setMultipleMinFlag(entry.getValue().getMultipleMinFlag());
+			result.put(entry.getKey(), intervalOutput);
+		}
+		return result;
+	}
+
 	protected List<ExtremesQualifier> getExtremesQualifiers(List<Qualifier> quals, Boolean isDaily, ZoneOffset zoneOffset) {
 		if(quals != null && !quals.isEmpty()) {
 			return quals.stream().map(q -> new ExtremesQualifier(q, isDaily, zoneOffset)).collect(Collectors.toList());
@@ -193,13 +595,24 @@ public class ReportBuilderService {
 			TimeSeriesDescription primarySeriesDescription,
 			String requestingUser, 
 			List<Qualifier> qualifierList) {
+		return getReportMetadata(requestParameters, timeSeriesDescriptions, primarySeriesDescription, requestingUser,
+			CompletableFuture.supplyAsync(() -> locationDescriptionCache.getByLocationIdentifier(primarySeriesDescription.getLocationIdentifier()), Runnable::run),
+			getQualifierMetadata(qualifierList, Runnable::run));
+	}
+
+	protected ExtremesReportMetadata getReportMetadata(ExtremesRequestParameters requestParameters, 
+			Map<String, TimeSeriesDescription> timeSeriesDescriptions,
+			TimeSeriesDescription primarySeriesDescription,
+			String requestingUser, 
+			CompletableFuture<LocationDescription> primaryLocation,
+			CompletableFuture<Map<String, QualifierMetadata>> qualifierMetadata) {
 		ExtremesReportMetadata metadata = new ExtremesReportMetadata();
 		try {
 			metadata.setTitle(REPORT_TITLE);
 			metadata.setRequestingUser(requestingUser);
 			metadata.setRequestParameters(requestParameters);
 			metadata.setStationId(primarySeriesDescription.getLocationIdentifier());
-			metadata.setStationName(locationDescriptionListService.getByLocationIdentifier(primarySeriesDescription.getLocationIdentifier()).getName());
+			metadata.setStationName(await(primaryLocation).getName());
 			metadata.setPrimaryParameter(primarySeriesDescription.getParameter());
 			metadata.setPrimaryUnit(primarySeriesDescription.getUnit());
 			metadata.setPrimaryLabel(primarySeriesDescription.getIdentifier());
@@ -225,27 +638,45 @@ public class ReportBuilderService {
 						timeSeriesDescriptions.get(requestParameters.getUpchainTimeseriesIdentifier()).getUnit());
 			}
 			
-			if(qualifierList != null && !qualifierList.isEmpty()) {
-				metadata.setQualifierMetadata(qualifierLookupService.getByQualifierList(qualifierList));
+			Map<String, QualifierMetadata> qualifierMetadataMap = await(qualifierMetadata);
+			if(qualifierMetadataMap != null) {
+				metadata.setQualifierMetadata(qualifierMetadataMap);
 			}
 		} catch (Exception e) {
 			log.error("Exception in getReportMetadata: ", e.getMessage());
 		}
 		return metadata;
 	}
-	
-	protected Boolean getMultipleMinMaxFlag(TimeSeriesPoint extremePoint, List<TimeSeriesPoint> points) {
-		boolean multipleMinMax = false;
-		
-		List<TimeSeriesPoint> multipleMinMaxPoints = points.stream()
-				.filter(p -> p.getValue().getDisplay().equals(extremePoint.getValue().getDisplay())
-						&& p.getTimestamp().DateTimeOffset.compareTo(extremePoint.getTimestamp().DateTimeOffset) != 0)
-				.collect(Collectors.toList());
-		
-		if (multipleMinMaxPoints.size() > 0) {
-			multipleMinMax = true;
-		}
-		
-		return multipleMinMax;
+
+	/**
+	 * The min/max, related points and top events found for each series, null where the series has no
+	 * points or top events were not requested.
+	 */
+	protected static class SeriesExtremes {
+		private TimeSeriesMinMax primaryMinMax;
+		private TimeSeriesMinMax upchainMinMax;
+		private TimeSeriesMinMax derivedMinMax;
+		private List<Qualifier> primaryQualifiers;
+		private List<Qualifier> upchainQualifiers;
+		private List<Qualifier> derivedQualifiers;
+		private TimeSeriesMinMax relatedUpchainMinMax;
+		private TimeSeriesMinMax relatedPrimaryMinMax;
+		private TimeSeriesMinMax primaryTopMinMax;
+		private TimeSeriesMinMax upchainTopMinMax;
+		private TimeSeriesMinMax derivedTopMinMax;
+		private CompletableFuture<Map<String, QualifierMetadata>> qualifierMetadata;
+	}
+
+	/**
+	 * The parts of a report that do not depend on the requesting user.
+	 */
+	protected static class ReportData {
+		private ExtremesMinMax primary;
+		private ExtremesMinMax upchain;
+		private ExtremesMinMax derived;
+		private Map<String, TimeSeriesDescription> timeSeriesDescriptions;
+		private TimeSeriesDescription primaryDescription;
+		private CompletableFuture<LocationDescription> primaryLocation;
+		private CompletableFuture<Map<String, QualifierMetadata>> qualifierMetadata;
 	}
 }
\ No newline at end of file
@@ -0,0 +1,65 @@
+package gov.usgs.aqcu.builder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Shares one in-flight computation between concurrent callers with an equal key.
+ * The first caller for a key runs the computation; callers arriving while it is running
+ * wait for and receive the same result, or the same exception.
+ */
+public class RequestCoalescer<T> {
+	private final ConcurrentMap<String, CompletableFuture<T>> inFlight = new ConcurrentHashMap<>();
+	private final Counter executedCounter;
+	private final Counter coalescedCounter;
+
+	public RequestCoalescer(MeterRegistry meterRegistry, String metricName) {
+		this.executedCounter = meterRegistry.counter(metricName, "result", "executed");
+		this.coalescedCounter = meterRegistry.counter(metricName, "result", "coalesced");
+	}
+
+	public T execute(String key, Supplier<T> computation) {
+		CompletableFuture<T> future = new CompletableFuture<>();
+		CompletableFuture<T> existing = inFlight.putIfAbsent(key, future);
+
+		if(existing != null) {
+			coalescedCounter.increment();
+			try {
+				return existing.join();
+			} catch (CompletionException e) {
+				if(e.getCause() instanceof RuntimeException) {
+					throw (RuntimeException) e.getCause();
+				} else if(e.getCause() instanceof Error) {
+					throw (Error) e.getCause();
+				}
+				throw e;
+			}
+		}
+
+		executedCounter.increment();
+		try {
+			T result = computation.get();
+			future.complete(result);
+			return result;
+		} catch (RuntimeException | Error e) {
+			future.completeExceptionally(e);
+			throw e;
+		} finally {
+			inFlight.remove(key, future);
+		}
+	}
+
+	public double getCoalescedCount() {
+		return coalescedCounter.count();
+	}
+
+	public double getExecutedCount() {
+		return executedCounter.count();
+	}
+}
@@ -0,0 +1,167 @@
+package gov.usgs.aqcu.builder;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesPoint;
+
+import gov.usgs.aqcu.model.TimeSeriesMinMax;
+import gov.usgs.aqcu.parameter.ExtremesInterval;
+
+/**
+ * Running min/max over points as they are read from a response. Only the points tied for the
+ * current min and max, and the point that started each extreme's display group, are retained.
+ * Produces the same min/max points and flags as MinMaxAccumulator over the same points in the
+ * same order.
+ *
+ * A point without a finite numeric value fails the whole min/max, as it does for a retrieved
+ * series; the remaining points are still counted but no longer compared.
+ *
+ * When an interval is given, the points of each interval are also accumulated separately, as
+ * MinMaxBuilderService does for a retrieved series.
+ */
+public class StreamingMinMaxAccumulator implements Consumer<TimeSeriesPoint> {
+	private long pointCount = 0;
+	private double maxValue;
+	private double minValue;
+	private List<TimeSeriesPoint> maxPoints = new ArrayList<>();
+	private List<TimeSeriesPoint> minPoints = new ArrayList<>();
+	private TimeSeriesPoint maxDisplayPoint;
+	private TimeSeriesPoint minDisplayPoint;
+	private boolean multipleMaxFlag = false;
+	private boolean multipleMinFlag = false;
+	private NumberFormatException failure;
+	private ExtremesInterval interval;
+	private ZoneOffset zoneOffset;
+	private Boolean isDaily;
+	private Map<String, StreamingMinMaxAccumulator> intervals;
+	private StreamingMinMaxAccumulator currentInterval;
+	private Instant currentIntervalEnd;
+
+	public StreamingMinMaxAccumulator() {
+	}
+
+	public StreamingMinMaxAccumulator(ExtremesInterval interval, ZoneOffset zoneOffset, Boolean isDaily) {
+		this.interval = interval;
+		this.zoneOffset = zoneOffset;
+		this.isDaily = isDaily;
+		if(interval != null) {
+			this.intervals = new LinkedHashMap<>();
+		}
+	}
+
+	@Override
+	public void accept(TimeSeriesPoint point) {
+		pointCount++;
+		if(failure != null) {
+			return;
+		}
+		if(intervals != null) {
+			acceptInterval(point);
+		}
+		Double numeric = point.getValue() != null ? point.getValue().getNumeric() : null;
+		if(numeric == null || !Double.isFinite(numeric)) {
+			failure = new NumberFormatException("Infinite or NaN point value: " + numeric);
+			maxPoints.clear();
+			minPoints.clear();
+			return;
+		}
+		double value = numeric;
+
+		// Check for Max
+		if(maxPoints.isEmpty() || value > maxValue) {
+			if(maxPoints.isEmpty() || !hasSameDisplay(point, maxDisplayPoint)) {
+				maxDisplayPoint = point;
+				multipleMaxFlag = false;
+			}
+			maxValue = value;
+			maxPoints.clear();
+			maxPoints.add(point);
+		} else if(value == maxValue) {
+			maxPoints.add(point);
+		}
+		if(!multipleMaxFlag && hasSameDisplay(point, maxDisplayPoint) && !hasSameTime(point, maxDisplayPoint)) {
+			multipleMaxFlag = true;
+		}
+
+		// Check for Min
+		if(minPoints.isEmpty() || value < minValue) {
+			if(minPoints.isEmpty() || !hasSameDisplay(point, minDisplayPoint)) {
+				minDisplayPoint = point;
+				multipleMinFlag = false;
+			}
+			minValue = value;
+			minPoints.clear();
+			minPoints.add(point);
+		} else if(value == minValue) {
+			minPoints.add(point);
+		}
+		if(!multipleMinFlag && hasSameDisplay(point, minDisplayPoint) && !hasSameTime(point, minDisplayPoint)) {
+			multipleMinFlag = true;
+		}
+	}
+
+	public long getPointCount() {
+		return pointCount;
+	}
+
+	public boolean isEmpty() {
+		return pointCount == 0;
+	}
+
+	/**
+	 * The min/max of the points accepted so far.
+	 * @throws NumberFormatException when a point without a finite numeric value was accepted
+	 */
+	public TimeSeriesMinMax getMinMax() {
+		if(failure != null) {
+			throw failure;
+		}
+		TimeSeriesMinMax result = new TimeSeriesMinMax();
+		result.setMaxPoints(new ArrayList<>(maxPoints));
+		result.setMinPoints(new ArrayList<>(minPoints));
+		result.setMultipleMaxFlag(multipleMaxFlag);
+		result.setMultipleMinFlag(multipleMinFlag);
+		if(intervals != null) {
+			Map<String, TimeSeriesMinMax> intervalMinMax = new LinkedHashMap<>();
+			for(Map.Entry<String, StreamingMinMaxAccumulator> entry : intervals.entrySet()) {
+				intervalMinMax.put(entry.getKey(), entry.getValue().getMinMax());
+			}
+			result.setIntervals(intervalMinMax);
+		}
+		return result;
+	}
+
+	private void acceptInterval(TimeSeriesPoint point) {
+		Instant time = getTime(point);
+		if(time == null) {
+			return;
+		}
+		boolean daily = isDaily != null && isDaily;
+		if(currentInterval == null || (daily ? time.isAfter(currentIntervalEnd) : !time.isBefore(currentIntervalEnd))) {
+			LocalDate start = interval.getStart(time, zoneOffset, isDaily);
+			currentIntervalEnd = interval.getEndInstant(start, zoneOffset);
+			currentInterval = intervals.computeIfAbsent(interval.getLabel(start), k -> new StreamingMinMaxAccumulator());
+		}
+		currentInterval.accept(point);
+	}
+
+	private static boolean hasSameDisplay(TimeSeriesPoint point, TimeSeriesPoint other) {
+		return Objects.equals(point.getValue().getDisplay(), other.getValue().getDisplay());
+	}
+
+	private static boolean hasSameTime(TimeSeriesPoint point, TimeSeriesPoint other) {
+		return Objects.equals(getTime(point), getTime(other));
+	}
+
+	private static Instant getTime(TimeSeriesPoint point) {
+		return point.getTimestamp() != null ? point.getTimestamp().getDateTimeOffset() : null;
+	}
+}
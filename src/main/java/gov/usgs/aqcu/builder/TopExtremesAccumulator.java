@@ -0,0 +1,179 @@
+package gov.usgs.aqcu.builder;
+
+import java.util.Arrays;
+
+/**
+ * Finds the highest and lowest events of a ColumnarTimeSeries in a single scan, keeping the
+ * indices of the best events in two bounded heaps of at most the requested count.
+ *
+ * An event is a point that is the highest (or lowest) point within the minimum separation either
+ * side of it, with the earliest point winning a tie, so no two events are within the separation
+ * of each other and a single flood or drought fills one place in the list. Each side keeps a
+ * deque of the points of the trailing separation window and the one candidate whose following
+ * window has not yet passed, so the scan only holds the points of one separation window.
+ * Without a separation every point is an event.
+ */
+class TopExtremesAccumulator {
+	private final ColumnarTimeSeries series;
+	private final EventHeap highest;
+	private final EventHeap lowest;
+
+	TopExtremesAccumulator(ColumnarTimeSeries series, int count, long separationMillis) {
+		this.series = series;
+		this.highest = new EventHeap(count, separationMillis, 1);
+		this.lowest = new EventHeap(count, separationMillis, -1);
+	}
+
+	public void accept(int index, double value) {
+		long time = series.getEpochMilli(index);
+		highest.accept(index, time, value);
+		lowest.accept(index, time, value);
+	}
+
+	/**
+	 * The indices of the highest events, highest first.
+	 */
+	public int[] getHighestIndexes() {
+		return highest.finish();
+	}
+
+	/**
+	 * The indices of the lowest events, lowest first.
+	 */
+	public int[] getLowestIndexes() {
+		return lowest.finish();
+	}
+
+	/**
+	 * Event detection and the bounded heap for one side. Values are compared after multiplying by
+	 * the sign, so the lowest events are found as the highest negated values.
+	 */
+	private class EventHeap {
+		private final int capacity;
+		private final long separationMillis;
+		private final int sign;
+		// Min-heap of the best events so far, the worst of them at the root
+		private final int[] heap;
+		private int heapSize = 0;
+		// Indices of the trailing window, with non-increasing signed values from head to tail
+		private int[] window = new int[16];
+		private int windowHead = 0;
+		private int windowSize = 0;
+		private int pending = -1;
+		private long pendingTime;
+		private double pendingValue;
+
+		EventHeap(int capacity, long separationMillis, int sign) {
+			this.capacity = capacity;
+			this.separationMillis = Math.max(0, separationMillis);
+			this.sign = sign;
+			this.heap = new int[capacity];
+		}
+
+		void accept(int index, long time, double value) {
+			double signedValue = sign * value;
+
+			// The pending candidate is an event once its following window has passed, unless beaten within it
+			if(pending >= 0 && time - pendingTime > separationMillis) {
+				offer(pending);
+				pending = -1;
+			}
+			if(pending >= 0 && signedValue > pendingValue) {
+				pending = -1;
+			}
+
+			// A point is a candidate when no point in its trailing window is as extreme
+			while(windowSize > 0 && series.getEpochMilli(window[windowHead]) < time - separationMillis) {
+				windowHead = (windowHead + 1) % window.length;
+				windowSize--;
+			}
+			if(windowSize == 0 || sign * series.getValue(window[windowHead]) < signedValue) {
+				pending = index;
+				pendingTime = time;
+				pendingValue = signedValue;
+			}
+
+			while(windowSize > 0 && sign * series.getValue(window[(windowHead + windowSize - 1) % window.length]) <= signedValue) {
+				windowSize--;
+			}
+			if(windowSize == window.length) {
+				int[] grown = new int[window.length * 2];
+				for(int i = 0; i < windowSize; i++) {
+					grown[i] = window[(windowHead + i) % window.length];
+				}
+				window = grown;
+				windowHead = 0;
+			}
+			window[(windowHead + windowSize) % window.length] = index;
+			windowSize++;
+		}
+
+		int[] finish() {
+			if(pending >= 0) {
+				offer(pending);
+				pending = -1;
+			}
+			Integer[] sorted = new Integer[heapSize];
+			for(int i = 0; i < heapSize; i++) {
+				sorted[i] = heap[i];
+			}
+			Arrays.sort(sorted, (a, b) -> isBetter(a, b) ? -1 : (isBetter(b, a) ? 1 : 0));
+			int[] result = new int[heapSize];
+			for(int i = 0; i < heapSize; i++) {
+				result[i] = sorted[i];
+			}
+			return result;
+		}
+
+		private void offer(int index) {
+			if(capacity == 0) {
+				return;
+			}
+			if(heapSize < capacity) {
+				heap[heapSize] = index;
+				siftUp(heapSize++);
+			} else if(isBetter(index, heap[0])) {
+				heap[0] = index;
+				siftDown(0);
+			}
+		}
+
+		/**
+		 * Whether the event at the index ranks above the other, the earlier event winning a tie.
+		 */
+		private boolean isBetter(int index, int other) {
+			double value = sign * series.getValue(index);
+			double otherValue = sign * series.getValue(other);
+			return value > otherValue || (value == otherValue && index < other);
+		}
+
+		private void siftUp(int position) {
+			int index = heap[position];
+			while(position > 0) {
+				int parent = (position - 1) / 2;
+				if(!isBetter(heap[parent], index)) {
+					break;
+				}
+				heap[position] = heap[parent];
+				position = parent;
+			}
+			heap[position] = index;
+		}
+
+		private void siftDown(int position) {
+			int index = heap[position];
+			while(position * 2 + 1 < heapSize) {
+				int child = position * 2 + 1;
+				if(child + 1 < heapSize && isBetter(heap[child], heap[child + 1])) {
+					child++;
+				}
+				if(!isBetter(index, heap[child])) {
+					break;
+				}
+				heap[position] = heap[child];
+				position = child;
+			}
+			heap[position] = index;
+		}
+	}
+}
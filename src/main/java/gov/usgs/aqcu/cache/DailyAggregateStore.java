@@ -0,0 +1,120 @@
+package gov.usgs.aqcu.cache;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonIOException;
+
+import gov.usgs.aqcu.model.SeriesAggregates;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Persists the daily aggregates of each time series as one JSON file per series in the configured
+ * directory, so they survive restarts and are shared by every report on the series. The store is
+ * disabled when no directory is configured.
+ *
+ * Files are replaced atomically. Concurrent reports on the same series may each save their own
+ * days, and the days only the earlier save added are aggregated again by a later report.
+ */
+@Component
+public class DailyAggregateStore {
+	private Logger log = LoggerFactory.getLogger(DailyAggregateStore.class);
+	public static final String DAYS_METRIC_NAME = "extremes.aggregates.days";
+
+	private Path directory;
+	private Gson gson = new Gson();
+	private Counter storedDaysCounter;
+	private Counter aggregatedDaysCounter;
+
+	@Autowired
+	public DailyAggregateStore(
+		@Value("${extremes.aggregates.directory:}") String directory,
+		MeterRegistry meterRegistry) {
+		this.directory = directory != null && !directory.isEmpty() ? Paths.get(directory) : null;
+		this.storedDaysCounter = meterRegistry.counter(DAYS_METRIC_NAME, "source", "store");
+		this.aggregatedDaysCounter = meterRegistry.counter(DAYS_METRIC_NAME, "source", "aquarius");
+	}
+
+	public boolean isEnabled() {
+		return directory != null;
+	}
+
+	/**
+	 * Returns the stored aggregates of the series, or null when there are none or they cannot be read.
+	 */
+	public SeriesAggregates load(String key) {
+		Path path = getPath(key);
+		if(!Files.exists(path)) {
+			return null;
+		}
+		try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+			return gson.fromJson(reader, SeriesAggregates.class);
+		} catch (Exception e) {
+			log.error("Exception in load: {}", e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * Replaces the stored aggregates of the series. The aggregates are written to a temporary file
+	 * that is moved over the stored file, and deleted when the write or the move fails.
+	 */
+	public void save(String key, SeriesAggregates aggregates) {
+		Path temp = null;
+		try {
+			Files.createDirectories(directory);
+			Path path = getPath(key);
+			temp = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+			try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+				gson.toJson(aggregates, writer);
+			}
+			Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException | JsonIOException e) {
+			log.error("Exception in save: {}", e.getMessage());
+		} finally {
+			if(temp != null) {
+				try {
+					Files.deleteIfExists(temp);
+				} catch (IOException e) {
+					log.error("Exception in save: {}", e.getMessage());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Records how many days of a report came from the store and how many were aggregated from Aquarius.
+	 */
+	public void recordDays(long storedDays, long aggregatedDays) {
+		storedDaysCounter.increment(storedDays);
+		aggregatedDaysCounter.increment(aggregatedDays);
+	}
+
+	protected Path getPath(String key) {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+		byte[] hash = digest.digest(key.getBytes(StandardCharsets.UTF_8));
+		return directory.resolve(Base64.getUrlEncoder().withoutPadding().encodeToString(hash) + ".json");
+	}
+}
@@ -0,0 +1,78 @@
+package gov.usgs.aqcu.cache;
+
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.LocationDescription;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import gov.usgs.aqcu.retrieval.LocationDescriptionListService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * In-process cache of LocationDescriptions keyed by location identifier, used to fill
+ * the station name of the report metadata without a round trip to Aquarius.
+ */
+@Component
+public class LocationDescriptionCache {
+	private static final Logger LOG = LoggerFactory.getLogger(LocationDescriptionCache.class);
+	public static final String CACHE_NAME = "locationDescriptions";
+
+	private LocationDescriptionListService locationDescriptionListService;
+	private Cache<String, LocationDescription> cache;
+	private String[] preloadLocationIdentifiers;
+
+	@Autowired
+	public LocationDescriptionCache(
+		LocationDescriptionListService locationDescriptionListService,
+		@Value("${extremes.cache.locations.ttlSeconds:86400}") long ttlSeconds,
+		@Value("${extremes.cache.locations.maxSize:5000}") long maxSize,
+		@Value("${extremes.cache.locations.preload:}") String[] preloadLocationIdentifiers,
+		MeterRegistry meterRegistry) {
+		this.locationDescriptionListService = locationDescriptionListService;
+		this.preloadLocationIdentifiers = preloadLocationIdentifiers;
+		this.cache = Caffeine.newBuilder()
+			.maximumSize(maxSize)
+			.expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+			.recordStats()
+			.build();
+		CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+	}
+
+	public LocationDescription getByLocationIdentifier(String locationIdentifier) {
+		return cache.get(locationIdentifier, id -> locationDescriptionListService.getByLocationIdentifier(id));
+	}
+
+	public void invalidateAll() {
+		cache.invalidateAll();
+	}
+
+	/**
+	 * Loads the configured stations once the application has started. A station that
+	 * cannot be loaded is logged and left to be loaded on first use.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void preload() {
+		if(preloadLocationIdentifiers != null) {
+			for(String locationIdentifier : preloadLocationIdentifiers) {
+				if(locationIdentifier != null && !locationIdentifier.trim().isEmpty()) {
+					try {
+						getByLocationIdentifier(locationIdentifier.trim());
+					} catch (Exception e) {
+						LOG.warn("Unable to preload location {}: {}", locationIdentifier, e.getMessage());
+					}
+				}
+			}
+			LOG.debug("Preloaded {} location descriptions", cache.estimatedSize());
+		}
+	}
+}
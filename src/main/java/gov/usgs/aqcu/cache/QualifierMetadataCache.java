@@ -0,0 +1,99 @@
+package gov.usgs.aqcu.cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.Qualifier;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.QualifierMetadata;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+
+import gov.usgs.aqcu.retrieval.QualifierLookupService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * In-process cache of QualifierMetadata keyed by qualifier identifier.
+ * Qualifier lists are de-duplicated by identifier before lookup and only identifiers
+ * missing from the cache are passed to the QualifierLookupService. Cached entries are
+ * refreshed in the background once they are older than the refresh interval.
+ */
+@Component
+public class QualifierMetadataCache {
+	public static final String CACHE_NAME = "qualifierMetadata";
+
+	private QualifierLookupService qualifierLookupService;
+	private LoadingCache<String, QualifierMetadata> cache;
+
+	@Autowired
+	public QualifierMetadataCache(
+		QualifierLookupService qualifierLookupService,
+		@Value("${extremes.cache.qualifiers.refreshSeconds:3600}") long refreshSeconds,
+		@Value("${extremes.cache.qualifiers.ttlSeconds:86400}") long ttlSeconds,
+		@Value("${extremes.cache.qualifiers.maxSize:5000}") long maxSize,
+		MeterRegistry meterRegistry) {
+		this.qualifierLookupService = qualifierLookupService;
+		this.cache = Caffeine.newBuilder()
+			.maximumSize(maxSize)
+			.refreshAfterWrite(refreshSeconds, TimeUnit.SECONDS)
+			.expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+			.recordStats()
+			.build(identifier -> lookupQualifierMetadata(identifier));
+		CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+	}
+
+	public Map<String, QualifierMetadata> getByQualifierList(List<Qualifier> qualifierList) {
+		Map<String, QualifierMetadata> result = new HashMap<>();
+		List<Qualifier> missingQualifiers = new ArrayList<>();
+
+		for(Qualifier qualifier : getUniqueQualifiers(qualifierList)) {
+			QualifierMetadata metadata = cache.getIfPresent(qualifier.getIdentifier());
+			if(metadata != null) {
+				result.put(qualifier.getIdentifier(), metadata);
+			} else {
+				missingQualifiers.add(qualifier);
+			}
+		}
+
+		if(!missingQualifiers.isEmpty()) {
+			Map<String, QualifierMetadata> lookupResult = qualifierLookupService.getByQualifierList(missingQualifiers);
+			if(lookupResult != null) {
+				cache.putAll(lookupResult);
+				result.putAll(lookupResult);
+			}
+		}
+
+		return result;
+	}
+
+	public void invalidateAll() {
+		cache.invalidateAll();
+	}
+
+	protected List<Qualifier> getUniqueQualifiers(List<Qualifier> qualifierList) {
+		Map<String, Qualifier> uniqueQualifiers = new LinkedHashMap<>();
+		if(qualifierList != null) {
+			for(Qualifier qualifier : qualifierList) {
+				if(qualifier != null && qualifier.getIdentifier() != null) {
+					uniqueQualifiers.putIfAbsent(qualifier.getIdentifier(), qualifier);
+				}
+			}
+		}
+		return new ArrayList<>(uniqueQualifiers.values());
+	}
+
+	protected QualifierMetadata lookupQualifierMetadata(String identifier) {
+		Map<String, QualifierMetadata> lookupResult = qualifierLookupService.getByQualifierList(
+			Collections.singletonList(new Qualifier().setIdentifier(identifier)));
+		return lookupResult != null ? lookupResult.get(identifier) : null;
+	}
+}
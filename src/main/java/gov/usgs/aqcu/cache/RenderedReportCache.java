@@ -0,0 +1,79 @@
+package gov.usgs.aqcu.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import gov.usgs.aqcu.client.JavaToRClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * In-process cache of rendered report HTML keyed by a SHA-256 hash of the report JSON sent to JavaToR.
+ * The requesting user is not part of the key because it is already in the report metadata of the
+ * hashed JSON, so cached output is only ever returned to the user it was rendered for. Reports are
+ * rendered outside of the cache and then stored, so a slow render never blocks other keys. Eviction
+ * is bounded by the total size of the cached HTML in bytes.
+ */
+@Component
+public class RenderedReportCache {
+	public static final String CACHE_NAME = "renderedReports";
+
+	private JavaToRClient javaToRClient;
+	private Cache<String, byte[]> cache;
+
+	@Autowired
+	public RenderedReportCache(
+		JavaToRClient javaToRClient,
+		@Value("${extremes.cache.rendered.ttlSeconds:3600}") long ttlSeconds,
+		@Value("${extremes.cache.rendered.maxBytes:104857600}") long maxBytes,
+		MeterRegistry meterRegistry) {
+		this.javaToRClient = javaToRClient;
+		this.cache = Caffeine.newBuilder()
+			.maximumWeight(maxBytes)
+			.weigher((String key, byte[] html) -> html.length)
+			.expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+			.recordStats()
+			.build();
+		CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+	}
+
+	/**
+	 * Returns the rendered report, only calling JavaToR when an identical report payload has not
+	 * already been rendered. Concurrent identical requests may each render once before the first
+	 * result is stored.
+	 */
+	public byte[] render(String requestingUser, String reportType, String reportJson) {
+		String key = getKey(reportType, reportJson);
+		byte[] html = cache.getIfPresent(key);
+		if(html == null) {
+			html = javaToRClient.render(requestingUser, reportType, reportJson);
+			cache.put(key, html);
+		}
+		return html;
+	}
+
+	public void invalidateAll() {
+		cache.invalidateAll();
+	}
+
+	protected static String getKey(String reportType, String reportJson) {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+		byte[] hash = digest.digest(reportJson.getBytes(StandardCharsets.UTF_8));
+		return String.join("|", reportType, Base64.getEncoder().encodeToString(hash));
+	}
+}
@@ -0,0 +1,146 @@
+package gov.usgs.aqcu.cache;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesDescription;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import gov.usgs.aqcu.builder.ColumnarTimeSeries;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * In-process cache of the most recently retrieved period of each time series, held in columnar
+ * form with a range min/max index. A request for a period within the cached period is answered
+ * with a view of the cached points, so re-running a report for a sub-period of the same series
+ * neither retrieves nor rescans the points.
+ *
+ * Aquarius has no changes-since query for corrected data, so every lookup requests the series'
+ * current description from Aquarius, bypassing the up to ttl old descriptions of
+ * TimeSeriesDescriptionCache, and only serves a cached period retrieved at its last modified time.
+ * Cached points are so only as stale as the time between that request and reading them, at the
+ * cost of one description request per lookup. When the current description cannot be requested
+ * the series is retrieved without either cache. When the disk cache is enabled, periods that are
+ * not cached in process are looked up there, with the same description, before they are retrieved.
+ *
+ * Eviction is bounded by the total number of cached points. Cached series are compacted to the
+ * requested period before they are indexed, so no larger retrieval is kept reachable by a view.
+ */
+@Component
+public class TimeSeriesDataCache {
+	public static final String CACHE_NAME = "timeSeriesData";
+	public static final String REQUESTS_METRIC_NAME = "extremes.cache.timeSeriesData.requests";
+
+	private TimeSeriesDescriptionCache timeSeriesDescriptionCache;
+	private Cache<String, CachedTimeSeries> cache;
+	private TimeSeriesDiskCache diskCache;
+	private Counter hitCounter;
+	private Counter missCounter;
+
+	public TimeSeriesDataCache(TimeSeriesDescriptionCache timeSeriesDescriptionCache, long ttlSeconds, long maxPoints,
+			MeterRegistry meterRegistry) {
+		this(timeSeriesDescriptionCache, ttlSeconds, maxPoints, null, meterRegistry);
+	}
+
+	@Autowired
+	public TimeSeriesDataCache(
+		TimeSeriesDescriptionCache timeSeriesDescriptionCache,
+		@Value("${extremes.cache.data.ttlSeconds:3600}") long ttlSeconds,
+		@Value("${extremes.cache.data.maxPoints:5000000}") long maxPoints,
+		TimeSeriesDiskCache diskCache,
+		MeterRegistry meterRegistry) {
+		this.timeSeriesDescriptionCache = timeSeriesDescriptionCache;
+		this.diskCache = diskCache;
+		this.cache = Caffeine.newBuilder()
+			.maximumWeight(maxPoints)
+			.weigher((String key, CachedTimeSeries cached) -> cached.series.size())
+			.expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+			.recordStats()
+			.build();
+		CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+		this.hitCounter = meterRegistry.counter(REQUESTS_METRIC_NAME, "result", "hit");
+		this.missCounter = meterRegistry.counter(REQUESTS_METRIC_NAME, "result", "miss");
+	}
+
+	/**
+	 * Returns the points of the series from the start time through the end time, only calling the
+	 * retrieval when the cached period of the series does not cover them or the series has changed
+	 * since it was cached. Retrieved series replace the cached period of the series.
+	 */
+	public ColumnarTimeSeries get(TimeSeriesDescription description, ZoneOffset zoneOffset, Boolean isDaily,
+			Instant startTime, Instant endTime, Supplier<ColumnarTimeSeries> retrieval) {
+		TimeSeriesDescription currentDescription = timeSeriesDescriptionCache.getCurrentDescription(description.getUniqueId());
+		if(currentDescription == null) {
+			missCounter.increment();
+			ColumnarTimeSeries series = retrieval.get();
+			return series != null ? series.indexed() : null;
+		}
+
+		String key = getKey(currentDescription, zoneOffset, isDaily);
+		String lastModified = String.valueOf(currentDescription.getLastModified());
+		CachedTimeSeries cached = cache.getIfPresent(key);
+		if(cached != null && cached.lastModified.equals(lastModified)
+				&& !startTime.isBefore(cached.startTime) && !endTime.isAfter(cached.endTime)) {
+			hitCounter.increment();
+			return cached.series.subSeries(startTime, endTime);
+		}
+
+		missCounter.increment();
+		ColumnarTimeSeries series = isDiskCacheEnabled() ? diskCache.get(currentDescription, zoneOffset, isDaily, startTime, endTime) : null;
+		if(series == null) {
+			series = retrieval.get();
+			if(series == null) {
+				return null;
+			}
+			if(isDiskCacheEnabled()) {
+				diskCache.put(currentDescription, zoneOffset, isDaily, startTime, endTime, series);
+			}
+		}
+		series = series.indexed();
+		cache.put(key, new CachedTimeSeries(lastModified, startTime, endTime, series));
+		return series;
+	}
+
+	public void invalidateAll() {
+		cache.invalidateAll();
+	}
+
+	protected boolean isDiskCacheEnabled() {
+		return diskCache != null && diskCache.isEnabled();
+	}
+
+	public double getHitCount() {
+		return hitCounter.count();
+	}
+
+	protected static String getKey(TimeSeriesDescription description, ZoneOffset zoneOffset, Boolean isDaily) {
+		return String.join("|",
+			String.valueOf(description.getUniqueId()),
+			String.valueOf(zoneOffset),
+			String.valueOf(isDaily)
+		);
+	}
+
+	private static class CachedTimeSeries {
+		private final String lastModified;
+		private final Instant startTime;
+		private final Instant endTime;
+		private final ColumnarTimeSeries series;
+
+		CachedTimeSeries(String lastModified, Instant startTime, Instant endTime, ColumnarTimeSeries series) {
+			this.lastModified = lastModified;
+			this.startTime = startTime;
+			this.endTime = endTime;
+			this.series = series;
+		}
+	}
+}
@@ -0,0 +1,95 @@
+package gov.usgs.aqcu.cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesDescription;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import gov.usgs.aqcu.retrieval.TimeSeriesDescriptionListService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * In-process cache of TimeSeriesDescriptions keyed by time series unique id.
+ * Only the ids missing from the cache are requested from Aquarius, in a single batched call.
+ */
+@Component
+public class TimeSeriesDescriptionCache {
+	private Logger log = LoggerFactory.getLogger(TimeSeriesDescriptionCache.class);
+	public static final String CACHE_NAME = "timeSeriesDescriptions";
+
+	private TimeSeriesDescriptionListService timeSeriesDescriptionListService;
+	private Cache<String, TimeSeriesDescription> cache;
+
+	@Autowired
+	public TimeSeriesDescriptionCache(
+		TimeSeriesDescriptionListService timeSeriesDescriptionListService,
+		@Value("${extremes.cache.descriptions.ttlSeconds:3600}") long ttlSeconds,
+		@Value("${extremes.cache.descriptions.maxSize:10000}") long maxSize,
+		@Value("${extremes.cache.descriptions.expireAfterAccess:false}") boolean expireAfterAccess,
+		MeterRegistry meterRegistry) {
+		this.timeSeriesDescriptionListService = timeSeriesDescriptionListService;
+		Caffeine<Object, Object> builder = Caffeine.newBuilder().maximumSize(maxSize).recordStats();
+		if(expireAfterAccess) {
+			builder.expireAfterAccess(ttlSeconds, TimeUnit.SECONDS);
+		} else {
+			builder.expireAfterWrite(ttlSeconds, TimeUnit.SECONDS);
+		}
+		this.cache = builder.build();
+		CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+	}
+
+	/**
+	 * Returns the descriptions found for the requested ids, keyed by unique id.
+	 * Ids Aquarius does not return a description for are omitted and not cached.
+	 */
+	public Map<String, TimeSeriesDescription> getTimeSeriesDescriptions(List<String> timeSeriesUniqueIds) {
+		return cache.getAll(timeSeriesUniqueIds, missingIds -> loadTimeSeriesDescriptions(missingIds));
+	}
+
+	/**
+	 * Requests the current description of the series from Aquarius, bypassing and then refreshing the
+	 * cached description, for callers that must not act on a description up to the ttl old. Returns
+	 * null when Aquarius does not return a description or the request fails.
+	 */
+	public TimeSeriesDescription getCurrentDescription(String timeSeriesUniqueId) {
+		try {
+			TimeSeriesDescription description = loadTimeSeriesDescriptions(Collections.singletonList(timeSeriesUniqueId))
+				.get(timeSeriesUniqueId);
+			if(description != null) {
+				cache.put(timeSeriesUniqueId, description);
+			}
+			return description;
+		} catch (RuntimeException e) {
+			log.error("Exception in getCurrentDescription: {}", e.getMessage());
+			return null;
+		}
+	}
+
+	public void invalidate(String timeSeriesUniqueId) {
+		cache.invalidate(timeSeriesUniqueId);
+	}
+
+	public void invalidateAll() {
+		cache.invalidateAll();
+	}
+
+	protected Map<String, TimeSeriesDescription> loadTimeSeriesDescriptions(Iterable<? extends String> timeSeriesUniqueIds) {
+		List<String> idList = new ArrayList<>();
+		timeSeriesUniqueIds.forEach(idList::add);
+		return timeSeriesDescriptionListService.getTimeSeriesDescriptionList(idList)
+			.stream().collect(Collectors.toMap(t -> t.getUniqueId(), t -> t));
+	}
+}
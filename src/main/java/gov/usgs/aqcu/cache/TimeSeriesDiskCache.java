@@ -0,0 +1,366 @@
+package gov.usgs.aqcu.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesDescription;
+
+import gov.usgs.aqcu.builder.ColumnarTimeSeries;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Local disk cache of retrieved time series, held as binary segments of columnar points, so a
+ * period retrieved once is not retrieved from Aquarius again after it leaves the in-process cache
+ * or the service restarts. A request is answered from any segment of the series that covers it.
+ *
+ * Each segment records the series' last modified time when it was retrieved, and segments of a
+ * series whose last modified time has changed are deleted when the series is next requested.
+ * Aquarius has no changes-since query for corrected data, so TimeSeriesDataCache looks segments up
+ * with the series' current description, requested from Aquarius on every lookup rather than taken
+ * from the cached description, which may be up to its ttl old. A segment is therefore only served
+ * while the series is unchanged, short of a change made while the segment is read.
+ * The total size of the segments is bounded, evicting the least recently used (LRU) or the
+ * oldest (FIFO) segments first. The cache is disabled when no directory is configured.
+ */
+@Component
+public class TimeSeriesDiskCache {
+	private Logger log = LoggerFactory.getLogger(TimeSeriesDiskCache.class);
+	public static final String REQUESTS_METRIC_NAME = "extremes.cache.disk.requests";
+	public static final String EVICTIONS_METRIC_NAME = "extremes.cache.disk.evictions";
+	public static final String SIZE_METRIC_NAME = "extremes.cache.disk.bytes";
+	public static final String SEGMENT_SUFFIX = ".seg";
+	private static final int SEGMENT_MAGIC = 0x41514344;
+	private static final int SEGMENT_VERSION = 1;
+
+	public enum EvictionPolicy {
+		LRU,
+		FIFO
+	}
+
+	private Path directory;
+	private long maxBytes;
+	private long maxAgeMillis;
+	private EvictionPolicy evictionPolicy;
+	private Map<String, List<Segment>> segments = new HashMap<>();
+	private AtomicLong totalBytes = new AtomicLong();
+	private Counter hitCounter;
+	private Counter missCounter;
+	private Counter sizeEvictionCounter;
+	private Counter expiredEvictionCounter;
+	private Counter modifiedEvictionCounter;
+
+	@Autowired
+	public TimeSeriesDiskCache(
+		@Value("${extremes.cache.disk.directory:}") String directory,
+		@Value("${extremes.cache.disk.maxBytes:1073741824}") long maxBytes,
+		@Value("${extremes.cache.disk.maxAgeSeconds:0}") long maxAgeSeconds,
+		@Value("${extremes.cache.disk.evictionPolicy:LRU}") EvictionPolicy evictionPolicy,
+		MeterRegistry meterRegistry) {
+		this.directory = directory != null && !directory.isEmpty() ? Paths.get(directory) : null;
+		this.maxBytes = maxBytes;
+		this.maxAgeMillis = maxAgeSeconds * 1000;
+		this.evictionPolicy = evictionPolicy;
+		this.hitCounter = meterRegistry.counter(REQUESTS_METRIC_NAME, "result", "hit");
+		this.missCounter = meterRegistry.counter(REQUESTS_METRIC_NAME, "result", "miss");
+		this.sizeEvictionCounter = meterRegistry.counter(EVICTIONS_METRIC_NAME, "cause", "size");
+		this.expiredEvictionCounter = meterRegistry.counter(EVICTIONS_METRIC_NAME, "cause", "expired");
+		this.modifiedEvictionCounter = meterRegistry.counter(EVICTIONS_METRIC_NAME, "cause", "modified");
+		meterRegistry.gauge(SIZE_METRIC_NAME, totalBytes);
+	}
+
+	public boolean isEnabled() {
+		return directory != null;
+	}
+
+	/**
+	 * Indexes the segments left in the directory by a previous run, deleting any that cannot be read.
+	 * Requests before the segments are indexed are retrieved from Aquarius.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void loadSegments() {
+		if(!isEnabled() || !Files.isDirectory(directory)) {
+			return;
+		}
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+			for(Path path : files) {
+				// Temporary files are segments that were still being written
+				if(path.getFileName().toString().endsWith(".tmp")) {
+					Files.deleteIfExists(path);
+				}
+				if(!path.getFileName().toString().endsWith(SEGMENT_SUFFIX)) {
+					continue;
+				}
+				try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+					Segment segment = readHeader(in, path);
+					segment.lastAccess = Files.getLastModifiedTime(path).toMillis();
+					addSegment(segment);
+				} catch (IOException | RuntimeException e) {
+					log.error("Exception in loadSegments: ", e.getMessage());
+					Files.deleteIfExists(path);
+				}
+			}
+		} catch (IOException e) {
+			log.error("Exception in loadSegments: ", e.getMessage());
+		}
+		synchronized(this) {
+			evict(null);
+		}
+	}
+
+	/**
+	 * Returns the points of the series from the start time through the end time from a segment
+	 * retrieved at the last modified time of the given description, which should be the current
+	 * description, or null when no segment covers them.
+	 */
+	public ColumnarTimeSeries get(TimeSeriesDescription description, ZoneOffset zoneOffset, Boolean isDaily,
+			Instant startTime, Instant endTime) {
+		Segment segment = findSegment(getKey(description, zoneOffset, isDaily), String.valueOf(description.getLastModified()),
+			startTime, endTime);
+		if(segment == null) {
+			missCounter.increment();
+			return null;
+		}
+
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(segment.path)))) {
+			readHeader(in, segment.path);
+			ColumnarTimeSeries series = ColumnarTimeSeries.readFrom(in);
+			hitCounter.increment();
+			return series.subSeries(startTime, endTime);
+		} catch (IOException | RuntimeException e) {
+			// The segment may have been evicted while it was read
+			log.error("Exception in get: ", e.getMessage());
+			removeSegment(segment);
+			missCounter.increment();
+			return null;
+		}
+	}
+
+	/**
+	 * Stores the series retrieved for the period from the start time through the end time,
+	 * replacing the segments of the series that the period covers. The description should be the
+	 * current description requested before the series was retrieved, so a change made during the
+	 * retrieval leaves the segment stale and it is deleted on the next lookup.
+	 */
+	public void put(TimeSeriesDescription description, ZoneOffset zoneOffset, Boolean isDaily,
+			Instant startTime, Instant endTime, ColumnarTimeSeries series) {
+		Segment segment = new Segment();
+		segment.key = getKey(description, zoneOffset, isDaily);
+		segment.lastModified = String.valueOf(description.getLastModified());
+		segment.startTime = startTime;
+		segment.endTime = endTime;
+		segment.path = directory.resolve(hash(segment.key) + "-" + startTime.toEpochMilli() + "-" + endTime.toEpochMilli() + SEGMENT_SUFFIX);
+
+		try {
+			Files.createDirectories(directory);
+			Path temp = Files.createTempFile(directory, segment.path.getFileName().toString(), ".tmp");
+			try {
+				try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+					writeHeader(out, segment);
+					series.writeTo(out);
+				}
+				segment.bytes = Files.size(temp);
+				if(segment.bytes > maxBytes) {
+					log.debug("Segment of " + segment.bytes + " bytes is larger than the disk cache and will not be stored");
+					return;
+				}
+				synchronized(this) {
+					List<Segment> replaced = new ArrayList<>();
+					for(Segment existing : segments.getOrDefault(segment.key, new ArrayList<>())) {
+						if(existing.path.equals(segment.path)
+								|| (!existing.startTime.isBefore(startTime) && !existing.endTime.isAfter(endTime))) {
+							replaced.add(existing);
+						}
+					}
+					replaced.forEach(this::removeSegment);
+					Files.move(temp, segment.path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+					segment.lastAccess = System.currentTimeMillis();
+					addSegment(segment);
+					evict(segment);
+				}
+			} finally {
+				Files.deleteIfExists(temp);
+			}
+		} catch (IOException e) {
+			log.error("Exception in put: ", e.getMessage());
+		}
+	}
+
+	public synchronized void invalidateAll() {
+		List<Segment> all = new ArrayList<>();
+		segments.values().forEach(all::addAll);
+		all.forEach(this::removeSegment);
+	}
+
+	public double getHitCount() {
+		return hitCounter.count();
+	}
+
+	public long getTotalBytes() {
+		return totalBytes.get();
+	}
+
+	protected synchronized Segment findSegment(String key, String lastModified, Instant startTime, Instant endTime) {
+		List<Segment> seriesSegments = segments.get(key);
+		if(seriesSegments == null) {
+			return null;
+		}
+
+		long now = System.currentTimeMillis();
+		Segment result = null;
+		for(Segment segment : new ArrayList<>(seriesSegments)) {
+			if(!segment.lastModified.equals(lastModified)) {
+				removeSegment(segment);
+				modifiedEvictionCounter.increment();
+			} else if(isExpired(segment, now)) {
+				removeSegment(segment);
+				expiredEvictionCounter.increment();
+			} else if(result == null && !startTime.isBefore(segment.startTime) && !endTime.isAfter(segment.endTime)) {
+				result = segment;
+			}
+		}
+		if(result != null) {
+			result.lastAccess = now;
+		}
+		return result;
+	}
+
+	protected static String getKey(TimeSeriesDescription description, ZoneOffset zoneOffset, Boolean isDaily) {
+		return String.join("|",
+			String.valueOf(description.getUniqueId()),
+			String.valueOf(zoneOffset),
+			String.valueOf(isDaily)
+		);
+	}
+
+	/**
+	 * Evicts expired segments, then segments in eviction policy order until the total size is
+	 * within the limit, keeping the given segment.
+	 */
+	private void evict(Segment keep) {
+		long now = System.currentTimeMillis();
+		List<Segment> candidates = new ArrayList<>();
+		segments.values().forEach(candidates::addAll);
+		for(Segment segment : candidates) {
+			if(segment != keep && isExpired(segment, now)) {
+				removeSegment(segment);
+				expiredEvictionCounter.increment();
+			}
+		}
+
+		if(totalBytes.get() <= maxBytes) {
+			return;
+		}
+		candidates.removeIf(s -> s == keep || !segments.getOrDefault(s.key, new ArrayList<>()).contains(s));
+		candidates.sort(evictionPolicy == EvictionPolicy.FIFO
+			? Comparator.comparingLong((Segment s) -> s.written)
+			: Comparator.comparingLong((Segment s) -> s.lastAccess));
+		for(Segment segment : candidates) {
+			if(totalBytes.get() <= maxBytes) {
+				break;
+			}
+			removeSegment(segment);
+			sizeEvictionCounter.increment();
+		}
+	}
+
+	private boolean isExpired(Segment segment, long now) {
+		return maxAgeMillis > 0 && now - segment.written > maxAgeMillis;
+	}
+
+	private synchronized void addSegment(Segment segment) {
+		segments.computeIfAbsent(segment.key, k -> new ArrayList<>()).add(segment);
+		totalBytes.addAndGet(segment.bytes);
+	}
+
+	private synchronized void removeSegment(Segment segment) {
+		List<Segment> seriesSegments = segments.get(segment.key);
+		if(seriesSegments == null || !seriesSegments.remove(segment)) {
+			return;
+		}
+		if(seriesSegments.isEmpty()) {
+			segments.remove(segment.key);
+		}
+		totalBytes.addAndGet(-segment.bytes);
+		try {
+			Files.deleteIfExists(segment.path);
+		} catch (IOException e) {
+			log.error("Exception in removeSegment: ", e.getMessage());
+		}
+	}
+
+	private void writeHeader(DataOutputStream out, Segment segment) throws IOException {
+		segment.written = System.currentTimeMillis();
+		out.writeInt(SEGMENT_MAGIC);
+		out.writeInt(SEGMENT_VERSION);
+		out.writeUTF(segment.key);
+		out.writeUTF(segment.lastModified);
+		out.writeUTF(segment.startTime.toString());
+		out.writeUTF(segment.endTime.toString());
+		out.writeLong(segment.written);
+	}
+
+	private Segment readHeader(DataInputStream in, Path path) throws IOException {
+		if(in.readInt() != SEGMENT_MAGIC || in.readInt() != SEGMENT_VERSION) {
+			throw new IOException("Unrecognized segment " + path);
+		}
+		Segment segment = new Segment();
+		segment.path = path;
+		segment.key = in.readUTF();
+		segment.lastModified = in.readUTF();
+		segment.startTime = Instant.parse(in.readUTF());
+		segment.endTime = Instant.parse(in.readUTF());
+		segment.written = in.readLong();
+		segment.bytes = Files.size(path);
+		return segment;
+	}
+
+	private static String hash(String key) {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(digest.digest(key.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	protected static class Segment {
+		private String key;
+		private String lastModified;
+		private Instant startTime;
+		private Instant endTime;
+		private long written;
+		private Path path;
+		private long bytes;
+		private long lastAccess;
+	}
+}
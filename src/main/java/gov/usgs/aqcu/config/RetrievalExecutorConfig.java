@@ -0,0 +1,60 @@
+package gov.usgs.aqcu.config;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.task.DelegatingSecurityContextAsyncTaskExecutor;
+
+@Configuration
+public class RetrievalExecutorConfig {
+	public static final String RETRIEVAL_EXECUTOR = "retrievalExecutor";
+	public static final String WINDOW_EXECUTOR = "windowExecutor";
+
+	@Value("${extremes.retrieval.executor.coreSize:12}")
+	private int coreSize;
+
+	@Value("${extremes.retrieval.executor.maxSize:24}")
+	private int maxSize;
+
+	@Value("${extremes.retrieval.executor.queueCapacity:100}")
+	private int queueCapacity;
+
+	@Value("${extremes.retrieval.windows.parallelism:4}")
+	private int windowParallelism;
+
+	@Value("${extremes.retrieval.windows.queueCapacity:100}")
+	private int windowQueueCapacity;
+
+	@Bean(name = RETRIEVAL_EXECUTOR)
+	public Executor retrievalExecutor() {
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(coreSize);
+		executor.setMaxPoolSize(maxSize);
+		executor.setQueueCapacity(queueCapacity);
+		executor.setThreadNamePrefix("extremes-retrieval-");
+		// When saturated, retrieve on the request thread rather than failing the report
+		executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+		executor.initialize();
+		return new DelegatingSecurityContextAsyncTaskExecutor(executor);
+	}
+
+	/**
+	 * Windows of long periods are retrieved on their own pool, bounding how many Aquarius requests
+	 * they add, and so series retrievals waiting on their windows never wait for their own pool.
+	 */
+	@Bean(name = WINDOW_EXECUTOR)
+	public Executor windowExecutor() {
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(windowParallelism);
+		executor.setMaxPoolSize(windowParallelism);
+		executor.setQueueCapacity(windowQueueCapacity);
+		executor.setThreadNamePrefix("extremes-window-");
+		executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+		executor.initialize();
+		return new DelegatingSecurityContextAsyncTaskExecutor(executor);
+	}
+}
@@ -0,0 +1,198 @@
+package gov.usgs.aqcu.model;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.DoubleWithDisplay;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.StatisticalDateTimeOffset;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesPoint;
+
+/**
+ * The min/max of one day of a time series, persisted so the day does not need to be retrieved again.
+ * Holds every point tied for the min and max, and the point that started each extreme's display
+ * group, so the days of a period can be merged into the same min/max points and multiple flags as
+ * a scan of the whole period. Times are stored as ISO-8601 strings.
+ */
+public class DailyAggregate {
+	private String date;
+	private long pointCount;
+	private String firstTime;
+	private String lastTime;
+	// Whether the day has a point without a finite numeric value, which fails any period containing it
+	private boolean invalid;
+	private double maxValue;
+	private List<AggregatePoint> maxPoints = new ArrayList<>();
+	private AggregatePoint maxDisplayPoint;
+	private boolean multipleMaxFlag;
+	private double minValue;
+	private List<AggregatePoint> minPoints = new ArrayList<>();
+	private AggregatePoint minDisplayPoint;
+	private boolean multipleMinFlag;
+
+	public String getDate() {
+		return date;
+	}
+
+	public DailyAggregate setDate(String date) {
+		this.date = date;
+		return this;
+	}
+
+	public long getPointCount() {
+		return pointCount;
+	}
+
+	public DailyAggregate setPointCount(long pointCount) {
+		this.pointCount = pointCount;
+		return this;
+	}
+
+	public String getFirstTime() {
+		return firstTime;
+	}
+
+	public DailyAggregate setFirstTime(String firstTime) {
+		this.firstTime = firstTime;
+		return this;
+	}
+
+	public String getLastTime() {
+		return lastTime;
+	}
+
+	public DailyAggregate setLastTime(String lastTime) {
+		this.lastTime = lastTime;
+		return this;
+	}
+
+	public boolean isInvalid() {
+		return invalid;
+	}
+
+	public DailyAggregate setInvalid(boolean invalid) {
+		this.invalid = invalid;
+		return this;
+	}
+
+	public boolean isEmpty() {
+		return pointCount == 0;
+	}
+
+	public double getMaxValue() {
+		return maxValue;
+	}
+
+	public DailyAggregate setMaxValue(double maxValue) {
+		this.maxValue = maxValue;
+		return this;
+	}
+
+	public List<AggregatePoint> getMaxPoints() {
+		return maxPoints;
+	}
+
+	public DailyAggregate setMaxPoints(List<AggregatePoint> maxPoints) {
+		this.maxPoints = maxPoints;
+		return this;
+	}
+
+	public AggregatePoint getMaxDisplayPoint() {
+		return maxDisplayPoint;
+	}
+
+	public DailyAggregate setMaxDisplayPoint(AggregatePoint maxDisplayPoint) {
+		this.maxDisplayPoint = maxDisplayPoint;
+		return this;
+	}
+
+	public boolean isMultipleMaxFlag() {
+		return multipleMaxFlag;
+	}
+
+	public DailyAggregate setMultipleMaxFlag(boolean multipleMaxFlag) {
+		this.multipleMaxFlag = multipleMaxFlag;
+		return this;
+	}
+
+	public double getMinValue() {
+		return minValue;
+	}
+
+	public DailyAggregate setMinValue(double minValue) {
+		this.minValue = minValue;
+		return this;
+	}
+
+	public List<AggregatePoint> getMinPoints() {
+		return minPoints;
+	}
+
+	public DailyAggregate setMinPoints(List<AggregatePoint> minPoints) {
+		this.minPoints = minPoints;
+		return this;
+	}
+
+	public AggregatePoint getMinDisplayPoint() {
+		return minDisplayPoint;
+	}
+
+	public DailyAggregate setMinDisplayPoint(AggregatePoint minDisplayPoint) {
+		this.minDisplayPoint = minDisplayPoint;
+		return this;
+	}
+
+	public boolean isMultipleMinFlag() {
+		return multipleMinFlag;
+	}
+
+	public DailyAggregate setMultipleMinFlag(boolean multipleMinFlag) {
+		this.multipleMinFlag = multipleMinFlag;
+		return this;
+	}
+
+	/**
+	 * A persisted TimeSeriesPoint.
+	 */
+	public static class AggregatePoint {
+		private String time;
+		private Boolean endOfPeriod;
+		private String display;
+		private Double numeric;
+
+		public AggregatePoint() {};
+
+		public AggregatePoint(TimeSeriesPoint source) {
+			if(source.getTimestamp() != null) {
+				if(source.getTimestamp().getDateTimeOffset() != null) {
+					time = source.getTimestamp().getDateTimeOffset().toString();
+				}
+				endOfPeriod = source.getTimestamp().isRepresentsEndOfTimePeriod();
+			}
+			if(source.getValue() != null) {
+				display = source.getValue().getDisplay();
+				numeric = source.getValue().getNumeric();
+			}
+		}
+
+		public TimeSeriesPoint toPoint() {
+			return new TimeSeriesPoint()
+				.setTimestamp(new StatisticalDateTimeOffset()
+					.setDateTimeOffset(time != null ? Instant.parse(time) : null)
+					.setRepresentsEndOfTimePeriod(endOfPeriod)
+				)
+				.setValue(new DoubleWithDisplay()
+					.setDisplay(display)
+					.setNumeric(numeric)
+				);
+		}
+
+		public String getTime() {
+			return time;
+		}
+
+		public String getDisplay() {
+			return display;
+		}
+	}
+}
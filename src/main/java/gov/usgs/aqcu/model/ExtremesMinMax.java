@@ -6,12 +6,14 @@ import java.util.Map;
 
 public class ExtremesMinMax {
 	public static final String MIN_MAX_POINTS_KEY = "points";
+	public static final String TOP_POINTS_KEY = "top";
 
 	private Map<String, List<ExtremesPoint>> min;
 	private Boolean multipleMinFlag;
 	private Map<String, List<ExtremesPoint>> max;
 	private Boolean multipleMaxFlag;
 	private List<ExtremesQualifier> qualifiers;
+	private Map<String, ExtremesMinMax> intervals;
 	
 	public Map<String, List<ExtremesPoint>> getMin() {
 		return min;
@@ -53,6 +55,14 @@ public class ExtremesMinMax {
 		this.qualifiers = val;
 	}
 
+	public Map<String, ExtremesMinMax> getIntervals() {
+		return intervals;
+	}
+
+	public void setIntervals(Map<String, ExtremesMinMax> val) {
+		this.intervals = val;
+	}
+
 	public void setMinPoints(List<ExtremesPoint> points) {
 		if(points != null && !points.isEmpty()) {
 			if(min == null) {
@@ -88,5 +98,12 @@ public class ExtremesMinMax {
 			max.put(relatedKey, points);
 		}
 	}
+
+	public void setMinTopPoints(List<ExtremesPoint> points) {
+		setMinRelatedPoints(points, TOP_POINTS_KEY);
+	}
+
+	public void setMaxTopPoints(List<ExtremesPoint> points) {
+		setMaxRelatedPoints(points, TOP_POINTS_KEY);
+	}
 }
-	
@@ -0,0 +1,109 @@
+package gov.usgs.aqcu.model;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.Qualifier;
+
+/**
+ * The persisted daily aggregates of one time series, in one zone offset, along with the series'
+ * last modified time when they were aggregated, when every stored day was last aggregated again,
+ * and the qualifiers retrieved with them.
+ * Days are keyed by their ISO-8601 date, so they are ordered by date.
+ */
+public class SeriesAggregates {
+	private String uniqueId;
+	private String lastModified;
+	private String aggregatedAt;
+	private List<AggregateQualifier> qualifiers = new ArrayList<>();
+	private TreeMap<String, DailyAggregate> days = new TreeMap<>();
+
+	public String getUniqueId() {
+		return uniqueId;
+	}
+
+	public SeriesAggregates setUniqueId(String uniqueId) {
+		this.uniqueId = uniqueId;
+		return this;
+	}
+
+	public String getLastModified() {
+		return lastModified;
+	}
+
+	public SeriesAggregates setLastModified(String lastModified) {
+		this.lastModified = lastModified;
+		return this;
+	}
+
+	public String getAggregatedAt() {
+		return aggregatedAt;
+	}
+
+	public SeriesAggregates setAggregatedAt(String aggregatedAt) {
+		this.aggregatedAt = aggregatedAt;
+		return this;
+	}
+
+	public List<AggregateQualifier> getQualifiers() {
+		return qualifiers;
+	}
+
+	public SeriesAggregates setQualifiers(List<AggregateQualifier> qualifiers) {
+		this.qualifiers = qualifiers;
+		return this;
+	}
+
+	public TreeMap<String, DailyAggregate> getDays() {
+		return days;
+	}
+
+	public SeriesAggregates setDays(TreeMap<String, DailyAggregate> days) {
+		this.days = days;
+		return this;
+	}
+
+	/**
+	 * A persisted Qualifier.
+	 */
+	public static class AggregateQualifier {
+		private String identifier;
+		private String startTime;
+		private String endTime;
+		private String user;
+		private String dateApplied;
+
+		public AggregateQualifier() {};
+
+		public AggregateQualifier(Qualifier source) {
+			identifier = source.getIdentifier();
+			startTime = source.getStartTime() != null ? source.getStartTime().toString() : null;
+			endTime = source.getEndTime() != null ? source.getEndTime().toString() : null;
+			user = source.getUser();
+			dateApplied = source.getDateApplied() != null ? source.getDateApplied().toString() : null;
+		}
+
+		public Qualifier toQualifier() {
+			return new Qualifier()
+				.setIdentifier(identifier)
+				.setStartTime(startTime != null ? Instant.parse(startTime) : null)
+				.setEndTime(endTime != null ? Instant.parse(endTime) : null)
+				.setUser(user)
+				.setDateApplied(dateApplied != null ? Instant.parse(dateApplied) : null);
+		}
+
+		public String getIdentifier() {
+			return identifier;
+		}
+
+		public String getStartTime() {
+			return startTime;
+		}
+
+		public String getEndTime() {
+			return endTime;
+		}
+	}
+}
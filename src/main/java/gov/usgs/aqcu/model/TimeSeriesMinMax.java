@@ -2,16 +2,23 @@ package gov.usgs.aqcu.model;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesPoint;
 
 public class TimeSeriesMinMax {
     private List<TimeSeriesPoint> minPoints;
     private List<TimeSeriesPoint> maxPoints;
+    private Boolean multipleMinFlag;
+    private Boolean multipleMaxFlag;
+    // The min/max of each interval of the period by interval label, when a breakdown was requested
+    private Map<String, TimeSeriesMinMax> intervals;
     
     public TimeSeriesMinMax() {
         minPoints = new ArrayList<>();
         maxPoints = new ArrayList<>();
+        multipleMinFlag = false;
+        multipleMaxFlag = false;
     };
 
     public void setMaxPoints(List<TimeSeriesPoint> maxPoints) {
@@ -29,4 +36,28 @@ public class TimeSeriesMinMax {
     public List<TimeSeriesPoint> getMinPoints() {
         return minPoints;
     }
-}
\ No newline at end of file
+
+    public Boolean getMultipleMinFlag() {
+        return multipleMinFlag;
+    }
+
+    public void setMultipleMinFlag(Boolean multipleMinFlag) {
+        this.multipleMinFlag = multipleMinFlag;
+    }
+
+    public Boolean getMultipleMaxFlag() {
+        return multipleMaxFlag;
+    }
+
+    public void setMultipleMaxFlag(Boolean multipleMaxFlag) {
+        this.multipleMaxFlag = multipleMaxFlag;
+    }
+
+    public Map<String, TimeSeriesMinMax> getIntervals() {
+        return intervals;
+    }
+
+    public void setIntervals(Map<String, TimeSeriesMinMax> intervals) {
+        this.intervals = intervals;
+    }
+}
@@ -0,0 +1,93 @@
+package gov.usgs.aqcu.parameter;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
+/**
+ * The intervals the report period is broken down into when extremes are also found per interval.
+ * DAY: calendar days, labelled 2018-01-31.
+ * MONTH: calendar months, labelled 2018-01.
+ * WATER_YEAR: October through September, labelled by the calendar year the water year ends in.
+ */
+public enum ExtremesInterval {
+	DAY {
+		@Override
+		public LocalDate getStart(LocalDate date) {
+			return date;
+		}
+
+		@Override
+		public LocalDate getNextStart(LocalDate start) {
+			return start.plusDays(1);
+		}
+
+		@Override
+		public String getLabel(LocalDate start) {
+			return start.toString();
+		}
+	},
+	MONTH {
+		@Override
+		public LocalDate getStart(LocalDate date) {
+			return date.withDayOfMonth(1);
+		}
+
+		@Override
+		public LocalDate getNextStart(LocalDate start) {
+			return start.plusMonths(1);
+		}
+
+		@Override
+		public String getLabel(LocalDate start) {
+			return start.toString().substring(0, 7);
+		}
+	},
+	WATER_YEAR {
+		@Override
+		public LocalDate getStart(LocalDate date) {
+			int year = date.getMonthValue() >= WATER_YEAR_START_MONTH ? date.getYear() : date.getYear() - 1;
+			return LocalDate.of(year, WATER_YEAR_START_MONTH, 1);
+		}
+
+		@Override
+		public LocalDate getNextStart(LocalDate start) {
+			return start.plusYears(1);
+		}
+
+		@Override
+		public String getLabel(LocalDate start) {
+			return String.valueOf(start.getYear() + 1);
+		}
+	};
+
+	private static final int WATER_YEAR_START_MONTH = 10;
+
+	/**
+	 * The first day of the interval containing the date.
+	 */
+	public abstract LocalDate getStart(LocalDate date);
+
+	/**
+	 * The first day of the interval following the interval starting on the given day.
+	 */
+	public abstract LocalDate getNextStart(LocalDate start);
+
+	public abstract String getLabel(LocalDate start);
+
+	/**
+	 * The first day of the interval containing a point's time, in the series' zone offset.
+	 * Daily values are stamped at the end of their day, so they belong to the day before the stamp.
+	 */
+	public LocalDate getStart(Instant time, ZoneOffset zoneOffset, Boolean isDaily) {
+		Instant pointTime = isDaily != null && isDaily ? time.minusNanos(1) : time;
+		return getStart(pointTime.atOffset(zoneOffset).toLocalDate());
+	}
+
+	/**
+	 * The instant the interval following the interval starting on the given day starts.
+	 */
+	public Instant getEndInstant(LocalDate start, ZoneOffset zoneOffset) {
+		return getNextStart(start).atStartOfDay().toInstant(zoneOffset);
+	}
+}
@@ -1,5 +1,9 @@
 package gov.usgs.aqcu.parameter;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -7,6 +11,11 @@ public class ExtremesRequestParameters extends ReportRequestParameters {
 
 	private String upchainTimeseriesIdentifier;
 	private String derivedTimeseriesIdentifier;
+	private RelatedPointMatchMode relatedPointMatchMode = RelatedPointMatchMode.EXACT;
+	private Long relatedPointToleranceMinutes;
+	private ExtremesInterval extremesInterval;
+	private Integer topCount;
+	private Long topSeparationMinutes;
 
 	public String getUpchainTimeseriesIdentifier() {		
 		return upchainTimeseriesIdentifier;
@@ -24,6 +33,105 @@ public class ExtremesRequestParameters extends ReportRequestParameters {
 		this.derivedTimeseriesIdentifier = dvId;
 	}
 
+	public RelatedPointMatchMode getRelatedPointMatchMode() {
+		return relatedPointMatchMode;
+	}
+
+	public void setRelatedPointMatchMode(RelatedPointMatchMode val) {
+		this.relatedPointMatchMode = val;
+	}
+
+	public Long getRelatedPointToleranceMinutes() {
+		return relatedPointToleranceMinutes;
+	}
+
+	public void setRelatedPointToleranceMinutes(Long val) {
+		this.relatedPointToleranceMinutes = val;
+	}
+
+	public ExtremesInterval getExtremesInterval() {
+		return extremesInterval;
+	}
+
+	public void setExtremesInterval(ExtremesInterval val) {
+		this.extremesInterval = val;
+	}
+
+	public Integer getTopCount() {
+		return topCount;
+	}
+
+	public void setTopCount(Integer val) {
+		this.topCount = val;
+	}
+
+	public Long getTopSeparationMinutes() {
+		return topSeparationMinutes;
+	}
+
+	public void setTopSeparationMinutes(Long val) {
+		this.topSeparationMinutes = val;
+	}
+
+	/**
+	 * Whether the highest and lowest events are requested, in addition to the extremes.
+	 */
+	public boolean isTopRequested() {
+		return topCount != null && topCount > 0;
+	}
+
+	/**
+	 * The smallest time between two reported highest or lowest events.
+	 */
+	public Duration getTopSeparation() {
+		return topSeparationMinutes != null ? Duration.ofMinutes(topSeparationMinutes) : Duration.ZERO;
+	}
+
+	/**
+	 * The largest time difference allowed between a point and its NEAREST or PREVIOUS related point,
+	 * or null when it is not limited.
+	 */
+	public Duration getRelatedPointTolerance() {
+		return relatedPointToleranceMinutes != null ? Duration.ofMinutes(relatedPointToleranceMinutes) : null;
+	}
+
+	/**
+	 * The start of the period that time series data is requested for. Daily values are stamped at
+	 * the end of their day, so the period of a daily series is shifted by a day to cover the values
+	 * of the first through the last requested day.
+	 */
+	public Instant getQueryStartInstant(ZoneOffset zoneOffset, Boolean isDaily) {
+		Instant start = getStartInstant(zoneOffset);
+		return isDaily != null && isDaily ? start.plus(Duration.ofDays(1)) : start;
+	}
+
+	/**
+	 * The end, inclusive, of the period that time series data is requested for.
+	 */
+	public Instant getQueryEndInstant(ZoneOffset zoneOffset, Boolean isDaily) {
+		Instant end = getEndInstant(zoneOffset);
+		return isDaily != null && isDaily ? end.plus(Duration.ofDays(1)) : end;
+	}
+
+	/**
+	 * A copy of these parameters for the period from the start date through the end date, used to
+	 * retrieve part of the report period.
+	 */
+	public ExtremesRequestParameters forPeriod(LocalDate startDate, LocalDate endDate) {
+		ExtremesRequestParameters result = new ExtremesRequestParameters();
+		result.setPrimaryTimeseriesIdentifier(getPrimaryTimeseriesIdentifier());
+		result.setUpchainTimeseriesIdentifier(getUpchainTimeseriesIdentifier());
+		result.setDerivedTimeseriesIdentifier(getDerivedTimeseriesIdentifier());
+		result.setRelatedPointMatchMode(getRelatedPointMatchMode());
+		result.setRelatedPointToleranceMinutes(getRelatedPointToleranceMinutes());
+		result.setExtremesInterval(getExtremesInterval());
+		result.setTopCount(getTopCount());
+		result.setTopSeparationMinutes(getTopSeparationMinutes());
+		result.setStartDate(startDate);
+		result.setEndDate(endDate);
+		return result;
+	}
+
 	public Set<String> getTsIdSet() {
 		Set<String> result = new HashSet<>();
 
@@ -41,4 +149,24 @@ public class ExtremesRequestParameters extends ReportRequestParameters {
 
 		return result;
 	}
+
+	/**
+	 * Identifies the report these parameters produce: the requested time series, the
+	 * resolved report period, independent of how the period was requested, the
+	 * related point matching options, the interval breakdown and the top events options.
+	 */
+	public String getReportKey() {
+		return String.join("|",
+			String.valueOf(getPrimaryTimeseriesIdentifier()),
+			String.valueOf(getUpchainTimeseriesIdentifier()),
+			String.valueOf(getDerivedTimeseriesIdentifier()),
+			String.valueOf(getStartInstant(ZoneOffset.UTC)),
+			String.valueOf(getEndInstant(ZoneOffset.UTC)),
+			String.valueOf(getRelatedPointMatchMode()),
+			String.valueOf(getRelatedPointToleranceMinutes()),
+			String.valueOf(getExtremesInterval()),
+			String.valueOf(getTopCount()),
+			String.valueOf(getTopSeparationMinutes())
+		);
+	}
 }
@@ -0,0 +1,13 @@
+package gov.usgs.aqcu.parameter;
+
+/**
+ * How a point in a related time series is matched to an extreme point.
+ * EXACT: the related point with the same timestamp.
+ * NEAREST: the related point closest in time, preferring the earlier point on a tie.
+ * PREVIOUS: the related point at or most recently before the timestamp.
+ */
+public enum RelatedPointMatchMode {
+	EXACT,
+	NEAREST,
+	PREVIOUS
+}
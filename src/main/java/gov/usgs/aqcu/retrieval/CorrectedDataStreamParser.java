@@ -0,0 +1,169 @@
+package gov.usgs.aqcu.retrieval;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.DoubleWithDisplay;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.Qualifier;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.StatisticalDateTimeOffset;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesPoint;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * Reads an Aquarius corrected data response one token at a time. Each point is handed to the
+ * point consumer as soon as it has been read and is not retained, so the memory used does not
+ * depend on the number of points in the response. Qualifiers are collected and returned.
+ * Response properties other than Points and Qualifiers are skipped.
+ */
+public class CorrectedDataStreamParser {
+	public static final String MAX_CONCRETE_VALUE = "MaxConcreteValue";
+	public static final String MIN_CONCRETE_VALUE = "MinConcreteValue";
+	private static final String END_OF_DAY = "T24:";
+
+	public List<Qualifier> parse(Reader reader, Consumer<TimeSeriesPoint> pointConsumer) throws IOException {
+		List<Qualifier> qualifiers = new ArrayList<>();
+		JsonReader json = new JsonReader(reader);
+
+		json.beginObject();
+		while(json.hasNext()) {
+			String name = json.nextName();
+			if("Points".equals(name) && json.peek() == JsonToken.BEGIN_ARRAY) {
+				json.beginArray();
+				while(json.hasNext()) {
+					pointConsumer.accept(readPoint(json));
+				}
+				json.endArray();
+			} else if("Qualifiers".equals(name) && json.peek() == JsonToken.BEGIN_ARRAY) {
+				json.beginArray();
+				while(json.hasNext()) {
+					qualifiers.add(readQualifier(json));
+				}
+				json.endArray();
+			} else {
+				json.skipValue();
+			}
+		}
+		json.endObject();
+
+		return qualifiers;
+	}
+
+	protected TimeSeriesPoint readPoint(JsonReader json) throws IOException {
+		TimeSeriesPoint point = new TimeSeriesPoint();
+
+		json.beginObject();
+		while(json.hasNext()) {
+			String name = json.nextName();
+			if("Timestamp".equals(name)) {
+				point.setTimestamp(readTimestamp(json));
+			} else if("Value".equals(name)) {
+				point.setValue(readValue(json));
+			} else {
+				json.skipValue();
+			}
+		}
+		json.endObject();
+
+		return point;
+	}
+
+	protected Qualifier readQualifier(JsonReader json) throws IOException {
+		Qualifier qualifier = new Qualifier();
+
+		json.beginObject();
+		while(json.hasNext()) {
+			String name = json.nextName();
+			if("Identifier".equals(name)) {
+				qualifier.setIdentifier(readString(json));
+			} else if("StartTime".equals(name)) {
+				qualifier.setStartTime(parseInstant(readString(json)));
+			} else if("EndTime".equals(name)) {
+				qualifier.setEndTime(parseInstant(readString(json)));
+			} else if("User".equals(name)) {
+				qualifier.setUser(readString(json));
+			} else if("DateApplied".equals(name)) {
+				qualifier.setDateApplied(parseInstant(readString(json)));
+			} else {
+				json.skipValue();
+			}
+		}
+		json.endObject();
+
+		return qualifier;
+	}
+
+	/**
+	 * Aquarius writes the end of a statistical period as 24:00 of the day that it ends,
+	 * which is read as the start of the following day.
+	 */
+	protected StatisticalDateTimeOffset readTimestamp(JsonReader json) throws IOException {
+		String value = readString(json);
+		if(value == null) {
+			return null;
+		}
+		int endOfDay = value.indexOf(END_OF_DAY);
+		if(endOfDay >= 0) {
+			Instant time = OffsetDateTime.parse(value.substring(0, endOfDay) + "T00:" + value.substring(endOfDay + END_OF_DAY.length()))
+				.plusDays(1)
+				.toInstant();
+			return new StatisticalDateTimeOffset()
+				.setDateTimeOffset(time)
+				.setRepresentsEndOfTimePeriod(true);
+		}
+		return new StatisticalDateTimeOffset()
+			.setDateTimeOffset(parseInstant(value))
+			.setRepresentsEndOfTimePeriod(false);
+	}
+
+	protected DoubleWithDisplay readValue(JsonReader json) throws IOException {
+		if(json.peek() == JsonToken.NULL) {
+			json.nextNull();
+			return null;
+		}
+		DoubleWithDisplay value = new DoubleWithDisplay();
+
+		json.beginObject();
+		while(json.hasNext()) {
+			String name = json.nextName();
+			if("Display".equals(name)) {
+				value.setDisplay(readString(json));
+			} else if("Numeric".equals(name)) {
+				if(json.peek() == JsonToken.NULL) {
+					json.nextNull();
+				} else {
+					value.setNumeric(json.nextDouble());
+				}
+			} else {
+				json.skipValue();
+			}
+		}
+		json.endObject();
+
+		return value;
+	}
+
+	protected Instant parseInstant(String value) {
+		if(value == null) {
+			return null;
+		} else if(MAX_CONCRETE_VALUE.equals(value)) {
+			return Instant.MAX;
+		} else if(MIN_CONCRETE_VALUE.equals(value)) {
+			return Instant.MIN;
+		}
+		return OffsetDateTime.parse(value).toInstant();
+	}
+
+	private String readString(JsonReader json) throws IOException {
+		if(json.peek() == JsonToken.NULL) {
+			json.nextNull();
+			return null;
+		}
+		return json.nextString();
+	}
+}
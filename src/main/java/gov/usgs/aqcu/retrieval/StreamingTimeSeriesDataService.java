@@ -0,0 +1,162 @@
+package gov.usgs.aqcu.retrieval;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.function.Consumer;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.aquaticinformatics.aquarius.sdk.timeseries.AquariusClient;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.Qualifier;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesDataCorrectedServiceRequest;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesPoint;
+
+import gov.usgs.aqcu.parameter.ExtremesRequestParameters;
+
+/**
+ * Retrieves corrected time series data like TimeSeriesDataService, but parses the Aquarius response
+ * as it is read and hands each point to a consumer instead of returning the whole response.
+ * Only used when extremes.retrieval.streaming.enabled is set.
+ * 
+ * One connected client, and so one Aquarius session, is shared by every request. When Aquarius
+ * rejects the session it is reconnected, up to the configured unauthorized retries, and the
+ * configured Aquarius timeout applies to both connecting and reading the response.
+ */
+@Service
+public class StreamingTimeSeriesDataService {
+	private Logger log = LoggerFactory.getLogger(StreamingTimeSeriesDataService.class);
+
+	private boolean enabled;
+	private String aquariusUrl;
+	private String aquariusUser;
+	private String aquariusPassword;
+	private int unauthorizedRetries;
+	private int timeout;
+	private CorrectedDataStreamParser parser = new CorrectedDataStreamParser();
+	private AquariusClient client;
+
+	@Autowired
+	public StreamingTimeSeriesDataService(
+		@Value("${extremes.retrieval.streaming.enabled:false}") boolean enabled,
+		@Value("${aquarius.service.endpoint}") String aquariusUrl,
+		@Value("${aquarius.service.user}") String aquariusUser,
+		@Value("${aquarius.service.password}") String aquariusPassword,
+		@Value("${aquarius.service.retries.unauthorized:3}") int unauthorizedRetries,
+		@Value("${aquarius.service.timeout:30000}") int timeout) {
+		this.enabled = enabled;
+		this.aquariusUrl = aquariusUrl;
+		this.aquariusUser = aquariusUser;
+		this.aquariusPassword = aquariusPassword;
+		this.unauthorizedRetries = unauthorizedRetries;
+		this.timeout = timeout;
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	@PreDestroy
+	public synchronized void shutdown() {
+		if(client != null) {
+			disconnect(client);
+			client = null;
+		}
+	}
+
+	/**
+	 * Streams the corrected points of a time series to the point consumer, in the order Aquarius
+	 * returns them, and returns the qualifiers of the series.
+	 */
+	public List<Qualifier> get(String timeSeriesUniqueId, ExtremesRequestParameters requestParameters, ZoneOffset zoneOffset,
+			Boolean isDaily, Consumer<TimeSeriesPoint> pointConsumer) {
+		TimeSeriesDataCorrectedServiceRequest request = buildRequest(timeSeriesUniqueId, requestParameters, zoneOffset, isDaily);
+
+		try (Reader reader = new InputStreamReader(openStream(request), StandardCharsets.UTF_8)) {
+			return parser.parse(reader, pointConsumer);
+		} catch (IOException e) {
+			log.error("Exception in get: {}", e.getMessage());
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * The corrected data request for the series. The query period must match the one the framework
+	 * TimeSeriesDataService requests, which StreamingTimeSeriesDataServiceTest verifies.
+	 */
+	protected TimeSeriesDataCorrectedServiceRequest buildRequest(String timeSeriesUniqueId, ExtremesRequestParameters requestParameters,
+			ZoneOffset zoneOffset, Boolean isDaily) {
+		return new TimeSeriesDataCorrectedServiceRequest()
+			.setTimeSeriesUniqueId(timeSeriesUniqueId)
+			.setQueryFrom(requestParameters.getQueryStartInstant(zoneOffset, isDaily))
+			.setQueryTo(requestParameters.getQueryEndInstant(zoneOffset, isDaily))
+			.setApplyRounding(true)
+			.setIncludeGapMarkers(false);
+	}
+
+	protected InputStream openStream(TimeSeriesDataCorrectedServiceRequest request) throws IOException {
+		for(int attempt = 0; ; attempt++) {
+			AquariusClient current = getClient();
+			HttpURLConnection connection = openConnection(current, request);
+			int status = connection.getResponseCode();
+			if(status == HttpURLConnection.HTTP_UNAUTHORIZED && attempt < unauthorizedRetries) {
+				log.warn("Aquarius session rejected for {}, reconnecting", request.getTimeSeriesUniqueId());
+				connection.disconnect();
+				reconnect(current);
+			} else if(status >= HttpURLConnection.HTTP_BAD_REQUEST) {
+				connection.disconnect();
+				throw new IOException("Aquarius corrected data request for " + request.getTimeSeriesUniqueId() + " failed with status " + status);
+			} else {
+				return connection.getInputStream();
+			}
+		}
+	}
+
+	protected HttpURLConnection openConnection(AquariusClient client, TimeSeriesDataCorrectedServiceRequest request) {
+		HttpURLConnection connection = client.Publish.createRequest(client.Publish.createUrl(request, null), "GET", null, null);
+		connection.setConnectTimeout(timeout);
+		connection.setReadTimeout(timeout);
+		return connection;
+	}
+
+	protected synchronized AquariusClient getClient() {
+		if(client == null) {
+			client = connect();
+		}
+		return client;
+	}
+
+	protected AquariusClient connect() {
+		return AquariusClient.createConnectedClient(aquariusUrl, aquariusUser, aquariusPassword);
+	}
+
+	/**
+	 * Drops the client whose session was rejected, unless another request has already replaced it.
+	 */
+	protected synchronized void reconnect(AquariusClient rejected) {
+		if(client == rejected) {
+			client = null;
+			disconnect(rejected);
+		}
+	}
+
+	protected void disconnect(AquariusClient client) {
+		try {
+			client.close();
+		} catch (Exception e) {
+			log.debug("Unable to close Aquarius session: {}", e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,175 @@
+package gov.usgs.aqcu.retrieval;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesDataServiceResponse;
+
+import gov.usgs.aqcu.config.RetrievalExecutorConfig;
+import gov.usgs.aqcu.parameter.ExtremesRequestParameters;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Retrieves long periods of a time series as windows of extremes.retrieval.windows.days days,
+ * fetched concurrently on the window executor, so no single Aquarius request has to return the
+ * whole period within the Aquarius timeout. Each window is reduced as soon as it is retrieved and
+ * a failed window is retrieved again on its own, up to extremes.retrieval.windows.retries times.
+ * Once a window has failed for good the windows not yet retrieved are skipped and no further
+ * retries are made, since the period can no longer be completed.
+ * Windowed retrieval is disabled when the window size is not positive.
+ */
+@Service
+public class WindowedTimeSeriesDataService {
+	private Logger log = LoggerFactory.getLogger(WindowedTimeSeriesDataService.class);
+	public static final String WINDOWS_METRIC_NAME = "extremes.retrieval.windows";
+
+	private TimeSeriesDataService timeSeriesDataService;
+	private Executor windowExecutor;
+	private int windowDays;
+	private int retries;
+	private Counter retrievedCounter;
+	private Counter retriedCounter;
+
+	@Autowired
+	public WindowedTimeSeriesDataService(
+		TimeSeriesDataService timeSeriesDataService,
+		@Qualifier(RetrievalExecutorConfig.WINDOW_EXECUTOR) Executor windowExecutor,
+		@Value("${extremes.retrieval.windows.days:0}") int windowDays,
+		@Value("${extremes.retrieval.windows.retries:2}") int retries,
+		MeterRegistry meterRegistry) {
+		this.timeSeriesDataService = timeSeriesDataService;
+		this.windowExecutor = windowExecutor;
+		this.windowDays = windowDays;
+		this.retries = Math.max(0, retries);
+		this.retrievedCounter = meterRegistry.counter(WINDOWS_METRIC_NAME, "result", "retrieved");
+		this.retriedCounter = meterRegistry.counter(WINDOWS_METRIC_NAME, "result", "retried");
+	}
+
+	public boolean isEnabled() {
+		return windowDays > 0;
+	}
+
+	/**
+	 * Whether the report period, resolved from its dates, water year or last months at the zone offset,
+	 * is longer than a single window.
+	 */
+	public boolean isWindowed(ExtremesRequestParameters requestParameters, ZoneOffset zoneOffset) {
+		if(!isEnabled()) {
+			return false;
+		}
+		Instant start = requestParameters.getStartInstant(zoneOffset);
+		Instant end = requestParameters.getEndInstant(zoneOffset);
+		if(start == null || end == null) {
+			return false;
+		}
+		return ChronoUnit.DAYS.between(start.atOffset(zoneOffset).toLocalDate(), end.atOffset(zoneOffset).toLocalDate()) + 1 > windowDays;
+	}
+
+	/**
+	 * Retrieves each period, given as its first and last day, split into windows that are retrieved
+	 * concurrently. Returns the reduced windows in the order of the periods and their days, or throws
+	 * the first failure of any window.
+	 */
+	public <T> List<T> get(String timeSeriesUniqueId, ExtremesRequestParameters requestParameters, List<LocalDate[]> periods,
+			ZoneOffset zoneOffset, Boolean isDaily, WindowReducer<T> reducer) {
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+		List<CompletableFuture<T>> futures = new ArrayList<>();
+		for(LocalDate[] window : getWindows(periods)) {
+			if(failure.get() != null) {
+				break;
+			}
+			ExtremesRequestParameters windowParameters = requestParameters.forPeriod(window[0], window[1]);
+			futures.add(CompletableFuture.supplyAsync(() -> {
+				if(failure.get() != null) {
+					throw new CancellationException("Skipped after a failed window");
+				}
+				try {
+					return reducer.reduce(window[0], window[1], getWindow(timeSeriesUniqueId, windowParameters, zoneOffset, isDaily, failure));
+				} catch (RuntimeException | Error e) {
+					failure.compareAndSet(null, e);
+					throw e;
+				}
+			}, windowExecutor));
+		}
+
+		List<T> result = new ArrayList<>(futures.size());
+		for(CompletableFuture<T> future : futures) {
+			try {
+				result.add(future.join());
+			} catch (CompletionException e) {
+				Throwable cause = failure.get() != null ? failure.get() : e.getCause();
+				if(cause instanceof RuntimeException) {
+					throw (RuntimeException) cause;
+				} else if(cause instanceof Error) {
+					throw (Error) cause;
+				}
+				throw e;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Splits each period into consecutive windows of at most the configured number of days, each the
+	 * first and last day of the window. Periods are not split when windowed retrieval is disabled.
+	 */
+	public List<LocalDate[]> getWindows(List<LocalDate[]> periods) {
+		List<LocalDate[]> windows = new ArrayList<>();
+		for(LocalDate[] period : periods) {
+			if(!isEnabled()) {
+				windows.add(new LocalDate[] { period[0], period[1] });
+				continue;
+			}
+			for(LocalDate start = period[0]; !start.isAfter(period[1]); start = start.plusDays(windowDays)) {
+				LocalDate end = start.plusDays(windowDays - 1);
+				windows.add(new LocalDate[] { start, end.isAfter(period[1]) ? period[1] : end });
+			}
+		}
+		return windows;
+	}
+
+	protected TimeSeriesDataServiceResponse getWindow(String timeSeriesUniqueId, ExtremesRequestParameters windowParameters,
+			ZoneOffset zoneOffset, Boolean isDaily, AtomicReference<Throwable> failure) {
+		for(int attempt = 0; ; attempt++) {
+			try {
+				TimeSeriesDataServiceResponse response = timeSeriesDataService.get(timeSeriesUniqueId, windowParameters,
+					zoneOffset, isDaily, false, false, null);
+				retrievedCounter.increment();
+				return response;
+			} catch (RuntimeException e) {
+				if(attempt >= retries || failure.get() != null) {
+					log.error("Exception in getWindow: {}", e.getMessage());
+					throw e;
+				}
+				log.warn("Exception in getWindow, retrying {} from {} through {}: {}", timeSeriesUniqueId,
+					windowParameters.getStartDate(), windowParameters.getEndDate(), e.getMessage());
+				retriedCounter.increment();
+			}
+		}
+	}
+
+	/**
+	 * Reduces the response of a window, given the first and last day of the window.
+	 */
+	@FunctionalInterface
+	public interface WindowReducer<T> {
+		T reduce(LocalDate startDay, LocalDate endDay, TimeSeriesDataServiceResponse response);
+	}
+}
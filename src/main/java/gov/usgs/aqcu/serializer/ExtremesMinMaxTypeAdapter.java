@@ -0,0 +1,93 @@
+package gov.usgs.aqcu.serializer;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import gov.usgs.aqcu.model.ExtremesMinMax;
+import gov.usgs.aqcu.model.ExtremesPoint;
+import gov.usgs.aqcu.model.ExtremesQualifier;
+
+public class ExtremesMinMaxTypeAdapter extends TypeAdapter<ExtremesMinMax> {
+	private TypeAdapter<ExtremesMinMax> delegate;
+	private TypeAdapter<ExtremesPoint> pointAdapter;
+	private TypeAdapter<ExtremesQualifier> qualifierAdapter;
+	private TypeAdapter<Boolean> booleanAdapter;
+
+	public ExtremesMinMaxTypeAdapter(Gson gson, TypeAdapter<ExtremesMinMax> delegate) {
+		this.delegate = delegate;
+		this.pointAdapter = gson.getAdapter(ExtremesPoint.class);
+		this.qualifierAdapter = gson.getAdapter(ExtremesQualifier.class);
+		this.booleanAdapter = gson.getAdapter(Boolean.class);
+	}
+
+	@Override
+	public void write(JsonWriter out, ExtremesMinMax minMax) throws IOException {
+		if(minMax == null) {
+			out.nullValue();
+			return;
+		}
+		out.beginObject();
+		out.name("min");
+		writePointMap(out, minMax.getMin());
+		out.name("multipleMinFlag");
+		booleanAdapter.write(out, minMax.getMultipleMinFlag());
+		out.name("max");
+		writePointMap(out, minMax.getMax());
+		out.name("multipleMaxFlag");
+		booleanAdapter.write(out, minMax.getMultipleMaxFlag());
+		out.name("qualifiers");
+		writeList(out, minMax.getQualifiers(), qualifierAdapter);
+		out.name("intervals");
+		writeIntervalMap(out, minMax.getIntervals());
+		out.endObject();
+	}
+
+	@Override
+	public ExtremesMinMax read(JsonReader in) throws IOException {
+		return delegate.read(in);
+	}
+
+	private void writePointMap(JsonWriter out, Map<String, List<ExtremesPoint>> pointMap) throws IOException {
+		if(pointMap == null) {
+			out.nullValue();
+			return;
+		}
+		out.beginObject();
+		for(Map.Entry<String, List<ExtremesPoint>> entry : pointMap.entrySet()) {
+			out.name(String.valueOf(entry.getKey()));
+			writeList(out, entry.getValue(), pointAdapter);
+		}
+		out.endObject();
+	}
+
+	private void writeIntervalMap(JsonWriter out, Map<String, ExtremesMinMax> intervalMap) throws IOException {
+		if(intervalMap == null) {
+			out.nullValue();
+			return;
+		}
+		out.beginObject();
+		for(Map.Entry<String, ExtremesMinMax> entry : intervalMap.entrySet()) {
+			out.name(String.valueOf(entry.getKey()));
+			write(out, entry.getValue());
+		}
+		out.endObject();
+	}
+
+	private <T> void writeList(JsonWriter out, List<T> values, TypeAdapter<T> adapter) throws IOException {
+		if(values == null) {
+			out.nullValue();
+			return;
+		}
+		out.beginArray();
+		for(T value : values) {
+			adapter.write(out, value);
+		}
+		out.endArray();
+	}
+}
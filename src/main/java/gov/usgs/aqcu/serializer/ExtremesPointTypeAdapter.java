@@ -0,0 +1,42 @@
+package gov.usgs.aqcu.serializer;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import gov.usgs.aqcu.model.ExtremesPoint;
+
+public class ExtremesPointTypeAdapter extends TypeAdapter<ExtremesPoint> {
+	private Gson gson;
+	private TypeAdapter<ExtremesPoint> delegate;
+	private TypeAdapter<BigDecimal> bigDecimalAdapter;
+
+	public ExtremesPointTypeAdapter(Gson gson, TypeAdapter<ExtremesPoint> delegate) {
+		this.gson = gson;
+		this.delegate = delegate;
+		this.bigDecimalAdapter = gson.getAdapter(BigDecimal.class);
+	}
+
+	@Override
+	public void write(JsonWriter out, ExtremesPoint point) throws IOException {
+		if(point == null) {
+			out.nullValue();
+			return;
+		}
+		out.beginObject();
+		out.name("time");
+		ExtremesTypeAdapterFactory.writeRuntimeType(gson, out, point.getTime());
+		out.name("value");
+		bigDecimalAdapter.write(out, point.getValue());
+		out.endObject();
+	}
+
+	@Override
+	public ExtremesPoint read(JsonReader in) throws IOException {
+		return delegate.read(in);
+	}
+}
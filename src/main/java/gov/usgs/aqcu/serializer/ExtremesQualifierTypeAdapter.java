@@ -0,0 +1,43 @@
+package gov.usgs.aqcu.serializer;
+
+import java.io.IOException;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import gov.usgs.aqcu.model.ExtremesQualifier;
+
+public class ExtremesQualifierTypeAdapter extends TypeAdapter<ExtremesQualifier> {
+	private Gson gson;
+	private TypeAdapter<ExtremesQualifier> delegate;
+	private TypeAdapter<String> stringAdapter;
+
+	public ExtremesQualifierTypeAdapter(Gson gson, TypeAdapter<ExtremesQualifier> delegate) {
+		this.gson = gson;
+		this.delegate = delegate;
+		this.stringAdapter = gson.getAdapter(String.class);
+	}
+
+	@Override
+	public void write(JsonWriter out, ExtremesQualifier qualifier) throws IOException {
+		if(qualifier == null) {
+			out.nullValue();
+			return;
+		}
+		out.beginObject();
+		out.name("identifier");
+		stringAdapter.write(out, qualifier.getIdentifier());
+		out.name("startTime");
+		ExtremesTypeAdapterFactory.writeRuntimeType(gson, out, qualifier.getStartTime());
+		out.name("endTime");
+		ExtremesTypeAdapterFactory.writeRuntimeType(gson, out, qualifier.getEndTime());
+		out.endObject();
+	}
+
+	@Override
+	public ExtremesQualifier read(JsonReader in) throws IOException {
+		return delegate.read(in);
+	}
+}
@@ -0,0 +1,47 @@
+package gov.usgs.aqcu.serializer;
+
+import java.io.IOException;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import gov.usgs.aqcu.model.ExtremesMinMax;
+import gov.usgs.aqcu.model.ExtremesReport;
+
+public class ExtremesReportTypeAdapter extends TypeAdapter<ExtremesReport> {
+	private Gson gson;
+	private TypeAdapter<ExtremesReport> delegate;
+	private TypeAdapter<ExtremesMinMax> minMaxAdapter;
+
+	public ExtremesReportTypeAdapter(Gson gson, TypeAdapter<ExtremesReport> delegate) {
+		this.gson = gson;
+		this.delegate = delegate;
+		this.minMaxAdapter = gson.getAdapter(ExtremesMinMax.class);
+	}
+
+	@Override
+	public void write(JsonWriter out, ExtremesReport report) throws IOException {
+		if(report == null) {
+			out.nullValue();
+			return;
+		}
+		out.beginObject();
+		//Metadata is mostly framework owned fields, so it is left to its own adapter
+		out.name("reportMetadata");
+		ExtremesTypeAdapterFactory.writeRuntimeType(gson, out, report.getReportMetadata());
+		out.name("dv");
+		minMaxAdapter.write(out, report.getDv());
+		out.name("upchain");
+		minMaxAdapter.write(out, report.getUpchain());
+		out.name("primary");
+		minMaxAdapter.write(out, report.getPrimary());
+		out.endObject();
+	}
+
+	@Override
+	public ExtremesReport read(JsonReader in) throws IOException {
+		return delegate.read(in);
+	}
+}
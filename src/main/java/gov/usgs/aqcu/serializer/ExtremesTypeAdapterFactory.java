@@ -0,0 +1,52 @@
+package gov.usgs.aqcu.serializer;
+
+import java.io.IOException;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonWriter;
+
+import gov.usgs.aqcu.model.ExtremesMinMax;
+import gov.usgs.aqcu.model.ExtremesPoint;
+import gov.usgs.aqcu.model.ExtremesQualifier;
+import gov.usgs.aqcu.model.ExtremesReport;
+
+/**
+ * Provides the streaming TypeAdapters for the Extremes report model.
+ * The adapters write the same fields, in the same order, as Gson's reflective serialization so that
+ * the JSON is unchanged. Leaf values (Temporals, BigDecimals, Booleans, Strings and the report metadata)
+ * are written with the adapters resolved from the Gson instance, so any adapters registered by
+ * AqcuGsonBuilderFactory still apply. Reading is delegated to the reflective adapters.
+ */
+public class ExtremesTypeAdapterFactory implements TypeAdapterFactory {
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+		Class<? super T> rawType = type.getRawType();
+		if(rawType == ExtremesPoint.class) {
+			return (TypeAdapter<T>) new ExtremesPointTypeAdapter(gson, gson.getDelegateAdapter(this, TypeToken.get(ExtremesPoint.class)));
+		} else if(rawType == ExtremesQualifier.class) {
+			return (TypeAdapter<T>) new ExtremesQualifierTypeAdapter(gson, gson.getDelegateAdapter(this, TypeToken.get(ExtremesQualifier.class)));
+		} else if(rawType == ExtremesMinMax.class) {
+			return (TypeAdapter<T>) new ExtremesMinMaxTypeAdapter(gson, gson.getDelegateAdapter(this, TypeToken.get(ExtremesMinMax.class)));
+		} else if(rawType == ExtremesReport.class) {
+			return (TypeAdapter<T>) new ExtremesReportTypeAdapter(gson, gson.getDelegateAdapter(this, TypeToken.get(ExtremesReport.class)));
+		}
+		return null;
+	}
+
+	/**
+	 * Writes a value declared as an interface (e.g. Temporal) with the adapter for its runtime type,
+	 * as reflective serialization does.
+	 */
+	@SuppressWarnings("unchecked")
+	static void writeRuntimeType(Gson gson, JsonWriter out, Object value) throws IOException {
+		if(value == null) {
+			out.nullValue();
+		} else {
+			((TypeAdapter<Object>) gson.getAdapter(value.getClass())).write(out, value);
+		}
+	}
+}
@@ -4,23 +4,32 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.nio.charset.StandardCharsets;
 
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringRunner;
 
 import com.google.gson.Gson;
 
 import gov.usgs.aqcu.builder.ReportBuilderService;
+import gov.usgs.aqcu.cache.RenderedReportCache;
 import gov.usgs.aqcu.client.JavaToRClient;
 import gov.usgs.aqcu.model.ExtremesReport;
 import gov.usgs.aqcu.parameter.ExtremesRequestParameters;
 import gov.usgs.aqcu.util.AqcuGsonBuilderFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 @RunWith(SpringRunner.class)
 @ActiveProfiles("test")
@@ -40,7 +49,7 @@ public class ControllerTest {
 	public void setup() {
 		gson = AqcuGsonBuilderFactory.getConfiguredGsonBuilder().create();
 		report = new ExtremesReport();
-		controller = new Controller(reportBuilderService, client, gson);
+		controller = new Controller(reportBuilderService, new RenderedReportCache(client, 3600, 1000000, new SimpleMeterRegistry()), gson);
 		resultBytes = gson.toJson(report).getBytes();
 	}
 
@@ -56,13 +65,29 @@ public class ControllerTest {
 		assertEquals(result.getStatusCode(), HttpStatus.OK);
 	}
 
+	@Test
+	public void getReportRenderedOnceTest() throws Exception {
+		given(reportBuilderService.buildReport(any(ExtremesRequestParameters.class), any(String.class)))
+			.willReturn(report);
+		given(client.render(any(String.class), any(String.class), any(String.class)))
+			.willReturn(resultBytes);
+
+		ResponseEntity<?> result = controller.getReport(new ExtremesRequestParameters());
+		assertEquals(result.getBody(), resultBytes);
+		result = controller.getReport(new ExtremesRequestParameters());
+		assertEquals(result.getBody(), resultBytes);
+		verify(client, times(1)).render(any(String.class), any(String.class), any(String.class));
+	}
+
 	@Test
 	public void getReportRawDataTest() throws Exception {
 		given(reportBuilderService.buildReport(any(ExtremesRequestParameters.class), any(String.class)))
 			.willReturn(report);
-		ResponseEntity<?> result = controller.getReportRawData(new ExtremesRequestParameters());
-		assertEquals(result.getBody(), gson.toJson(report));
-		assertEquals(result.getStatusCode(), HttpStatus.OK);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		controller.getReportRawData(new ExtremesRequestParameters(), response);
+		assertArrayEquals(response.getContentAsByteArray(), gson.toJson(report).getBytes(StandardCharsets.UTF_8));
+		assertEquals(response.getContentType(), MediaType.APPLICATION_JSON_VALUE);
+		assertEquals(response.getStatus(), HttpStatus.OK.value());
 	}
 
 	@Test
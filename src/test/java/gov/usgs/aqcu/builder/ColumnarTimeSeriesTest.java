@@ -0,0 +1,325 @@
+package gov.usgs.aqcu.builder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.DoubleWithDisplay;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.Qualifier;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.StatisticalDateTimeOffset;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesDataServiceResponse;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesPoint;
+
+import org.junit.Test;
+
+public class ColumnarTimeSeriesTest {
+
+	@Test
+	public void fromPointsTest() {
+		List<TimeSeriesPoint> pointList = Arrays.asList(
+			new TimeSeriesPoint()
+				.setTimestamp(new StatisticalDateTimeOffset()
+					.setDateTimeOffset(Instant.parse("2018-01-01T00:00:00Z"))
+					.setRepresentsEndOfTimePeriod(false)
+				)
+				.setValue(new DoubleWithDisplay()
+					.setDisplay("1.0")
+					.setNumeric(1.0D)
+				),
+			new TimeSeriesPoint()
+				.setTimestamp(new StatisticalDateTimeOffset()
+					.setDateTimeOffset(Instant.parse("2018-01-02T00:00:00.0000001Z"))
+					.setRepresentsEndOfTimePeriod(true)
+				)
+				.setValue(new DoubleWithDisplay()
+					.setDisplay("-0.0520")
+					.setNumeric(-0.052D)
+				),
+			new TimeSeriesPoint()
+				.setTimestamp(new StatisticalDateTimeOffset()
+					.setDateTimeOffset(Instant.parse("1899-12-31T23:59:59.999Z"))
+				)
+				.setValue(new DoubleWithDisplay()
+					.setDisplay("EQP")
+				),
+			new TimeSeriesPoint()
+		);
+
+		ColumnarTimeSeries series = ColumnarTimeSeries.fromPoints(pointList);
+		assertEquals(series.size(), 4);
+		for(int i = 0; i < pointList.size(); i++) {
+			assertPointEquals(series.getPoint(i), pointList.get(i));
+		}
+		assertEquals(series.getValue(0), 1.0D, 0.0D);
+		assertTrue(Double.isNaN(series.getValue(2)));
+		assertTrue(Double.isNaN(series.getValue(3)));
+		assertNull(series.getTime(3));
+	}
+
+	@Test
+	public void fromPointsEmptyTest() {
+		assertTrue(ColumnarTimeSeries.fromPoints(new ArrayList<>()).isEmpty());
+		assertTrue(ColumnarTimeSeries.fromPoints(null).isEmpty());
+	}
+
+	@Test
+	public void fromResponseTest() {
+		ArrayList<TimeSeriesPoint> points = new ArrayList<>();
+		points.add(new TimeSeriesPoint()
+			.setTimestamp(new StatisticalDateTimeOffset()
+				.setDateTimeOffset(Instant.parse("2018-01-01T00:00:00Z"))
+				.setRepresentsEndOfTimePeriod(false)
+			)
+			.setValue(new DoubleWithDisplay()
+				.setDisplay("1.0")
+				.setNumeric(1.0D)
+			)
+		);
+		ArrayList<Qualifier> qualifiers = new ArrayList<>();
+		qualifiers.add(new Qualifier().setIdentifier("ESTIMATED"));
+		TimeSeriesDataServiceResponse response = new TimeSeriesDataServiceResponse()
+			.setPoints(points)
+			.setQualifiers(qualifiers);
+
+		ColumnarTimeSeries series = ColumnarTimeSeries.fromResponse(response);
+		assertEquals(series.size(), 1);
+		assertEquals(series.getQualifiers(), qualifiers);
+		assertNull(ColumnarTimeSeries.fromResponse(null));
+		assertTrue(ColumnarTimeSeries.fromResponse(new TimeSeriesDataServiceResponse()).isEmpty());
+		assertTrue(ColumnarTimeSeries.fromResponse(new TimeSeriesDataServiceResponse()).getQualifiers().isEmpty());
+	}
+
+	@Test
+	public void displayTest() {
+		List<String> displays = Arrays.asList("0", "0.0", "1.0", "1.00", "-1.5", "120", "1200.25", "9223372036854775807",
+			"9223372036854775808", "-0", "-0.0", "01", ".5", "1.", "1E+3", "+1", "", null, "NaN");
+		List<TimeSeriesPoint> pointList = new ArrayList<>();
+		for(String display : displays) {
+			pointList.add(new TimeSeriesPoint()
+				.setTimestamp(new StatisticalDateTimeOffset()
+					.setDateTimeOffset(Instant.parse("2018-01-01T00:00:00Z"))
+					.setRepresentsEndOfTimePeriod(false)
+				)
+				.setValue(new DoubleWithDisplay()
+					.setDisplay(display)
+					.setNumeric(1.0D)
+				)
+			);
+		}
+
+		ColumnarTimeSeries series = ColumnarTimeSeries.fromPoints(pointList);
+		for(int i = 0; i < displays.size(); i++) {
+			assertEquals(series.getDisplay(i), displays.get(i));
+			for(int j = 0; j < displays.size(); j++) {
+				assertEquals(series.hasSameDisplay(i, j), i == j);
+			}
+		}
+	}
+
+	@Test
+	public void hasSameTimeTest() {
+		List<TimeSeriesPoint> pointList = Arrays.asList(
+			new TimeSeriesPoint()
+				.setTimestamp(new StatisticalDateTimeOffset()
+					.setDateTimeOffset(Instant.parse("2018-01-01T00:00:00Z"))
+				),
+			new TimeSeriesPoint()
+				.setTimestamp(new StatisticalDateTimeOffset()
+					.setDateTimeOffset(Instant.parse("2018-01-01T00:00:00.0000001Z"))
+				),
+			new TimeSeriesPoint()
+				.setTimestamp(new StatisticalDateTimeOffset()
+					.setDateTimeOffset(Instant.parse("2018-01-01T00:00:00Z"))
+				),
+			new TimeSeriesPoint()
+		);
+
+		ColumnarTimeSeries series = ColumnarTimeSeries.fromPoints(pointList);
+		assertFalse(series.hasSameTime(0, 1));
+		assertTrue(series.hasSameTime(0, 2));
+		assertFalse(series.hasSameTime(0, 3));
+		assertTrue(series.hasSameTime(3, 3));
+	}
+
+	@Test
+	public void subSeriesTest() {
+		List<TimeSeriesPoint> pointList = new ArrayList<>();
+		for(int i = 0; i < 10; i++) {
+			pointList.add(new TimeSeriesPoint()
+				.setTimestamp(new StatisticalDateTimeOffset()
+					.setDateTimeOffset(Instant.parse("2018-01-01T00:00:00Z").plusSeconds(i * 3600L))
+					.setRepresentsEndOfTimePeriod(false)
+				)
+				.setValue(new DoubleWithDisplay()
+					.setDisplay(i + ".5")
+					.setNumeric(i + 0.5D)
+				)
+			);
+		}
+		ArrayList<Qualifier> qualifiers = new ArrayList<>();
+		qualifiers.add(new Qualifier().setIdentifier("before")
+			.setStartTime(Instant.parse("2017-01-01T00:00:00Z")).setEndTime(Instant.parse("2018-01-01T01:00:00Z")));
+		qualifiers.add(new Qualifier().setIdentifier("during")
+			.setStartTime(Instant.parse("2018-01-01T03:00:00Z")).setEndTime(Instant.parse("2018-01-01T04:00:00Z")));
+		qualifiers.add(new Qualifier().setIdentifier("after")
+			.setStartTime(Instant.parse("2018-01-01T06:00:00Z")).setEndTime(Instant.MAX));
+		ColumnarTimeSeries series = ColumnarTimeSeries.fromResponse(new TimeSeriesDataServiceResponse()
+			.setPoints(new ArrayList<>(pointList))
+			.setQualifiers(qualifiers));
+
+		assertEquals(series.getStartIndex(Instant.parse("2018-01-01T02:00:00Z")), 2);
+		assertEquals(series.getStartIndex(Instant.parse("2018-01-01T02:00:00.5Z")), 3);
+		assertEquals(series.getEndIndex(Instant.parse("2018-01-01T02:00:00Z")), 3);
+		assertEquals(series.getEndIndex(Instant.parse("2019-01-01T00:00:00Z")), 10);
+
+		ColumnarTimeSeries view = series.subSeries(Instant.parse("2018-01-01T02:00:00Z"), Instant.parse("2018-01-01T05:30:00Z"));
+		assertEquals(view.size(), 4);
+		assertEquals(view.getValue(0), 2.5D, 0.0D);
+		assertEquals(view.getDisplay(3), "5.5");
+		assertPointEquals(view.getPoint(1), pointList.get(3));
+		assertTrue(view.hasSameTime(1, 1));
+		assertFalse(view.hasSameDisplay(0, 1));
+		assertEquals(view.getQualifiers().size(), 1);
+		assertEquals(view.getQualifiers().get(0).getIdentifier(), "during");
+
+		ColumnarTimeSeries nested = view.subSeries(1, 3);
+		assertEquals(nested.size(), 2);
+		assertEquals(nested.getTime(0), Instant.parse("2018-01-01T03:00:00Z"));
+		assertTrue(series.subSeries(Instant.parse("2019-01-01T00:00:00Z"), Instant.parse("2019-02-01T00:00:00Z")).isEmpty());
+		assertTrue(series.subSeries(Instant.parse("2018-01-01T05:00:00Z"), Instant.parse("2018-01-01T01:00:00Z")).isEmpty());
+	}
+
+	@Test
+	public void compactTest() {
+		List<String> displays = Arrays.asList("1.0", "1E+3", "2.50", "01", "3.0", "+1");
+		List<TimeSeriesPoint> pointList = new ArrayList<>();
+		for(int i = 0; i < displays.size(); i++) {
+			pointList.add(new TimeSeriesPoint()
+				.setTimestamp(new StatisticalDateTimeOffset()
+					.setDateTimeOffset(Instant.parse("2018-01-01T00:00:00.0000001Z").plusSeconds(i * 3600L))
+					.setRepresentsEndOfTimePeriod(false)
+				)
+				.setValue(new DoubleWithDisplay()
+					.setDisplay(displays.get(i))
+					.setNumeric((double) i)
+				)
+			);
+		}
+		ColumnarTimeSeries series = ColumnarTimeSeries.fromPoints(pointList);
+		assertTrue(series.compact() == series);
+
+		ColumnarTimeSeries compacted = series.subSeries(1, 4).compact();
+		assertEquals(compacted.size(), 3);
+		for(int i = 0; i < 3; i++) {
+			assertPointEquals(compacted.getPoint(i), pointList.get(i + 1));
+			assertEquals(compacted.getDisplay(i), displays.get(i + 1));
+		}
+		assertTrue(compacted.compact() == compacted);
+
+		ColumnarTimeSeries indexed = series.subSeries(1, 4).indexed();
+		assertTrue(indexed.isIndexed());
+		assertEquals(indexed.size(), 3);
+		assertEquals(indexed.getDisplay(0), "1E+3");
+		assertFalse(series.isIndexed());
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void subSeriesOutOfBoundsTest() {
+		ColumnarTimeSeries.fromPoints(new ArrayList<>()).subSeries(0, 1);
+	}
+
+	@Test
+	public void writeToReadFromTest() throws IOException {
+		List<TimeSeriesPoint> pointList = Arrays.asList(
+			new TimeSeriesPoint()
+				.setTimestamp(new StatisticalDateTimeOffset()
+					.setDateTimeOffset(Instant.parse("2018-01-01T00:00:00Z"))
+					.setRepresentsEndOfTimePeriod(false)
+				)
+				.setValue(new DoubleWithDisplay()
+					.setDisplay("1.0")
+					.setNumeric(1.0D)
+				),
+			new TimeSeriesPoint()
+				.setTimestamp(new StatisticalDateTimeOffset()
+					.setDateTimeOffset(Instant.parse("2018-01-02T00:00:00.0000001Z"))
+					.setRepresentsEndOfTimePeriod(true)
+				)
+				.setValue(new DoubleWithDisplay()
+					.setDisplay("-0.0520")
+					.setNumeric(-0.052D)
+				),
+			new TimeSeriesPoint()
+				.setTimestamp(new StatisticalDateTimeOffset()
+					.setDateTimeOffset(Instant.parse("2018-01-03T00:00:00Z"))
+				)
+				.setValue(new DoubleWithDisplay()
+					.setDisplay("EQP")
+				),
+			new TimeSeriesPoint()
+				.setTimestamp(new StatisticalDateTimeOffset()
+					.setDateTimeOffset(Instant.parse("2018-01-04T00:00:00Z"))
+					.setRepresentsEndOfTimePeriod(false)
+				)
+		);
+		ArrayList<Qualifier> qualifiers = new ArrayList<>();
+		qualifiers.add(new Qualifier()
+			.setIdentifier("ESTIMATED")
+			.setStartTime(Instant.parse("2018-01-02T00:00:00Z"))
+			.setUser("user")
+		);
+		ColumnarTimeSeries series = ColumnarTimeSeries.fromResponse(new TimeSeriesDataServiceResponse()
+			.setPoints(new ArrayList<>(pointList))
+			.setQualifiers(qualifiers));
+
+		ColumnarTimeSeries result = writeRead(series);
+		assertEquals(result.size(), 4);
+		for(int i = 0; i < pointList.size(); i++) {
+			assertPointEquals(result.getPoint(i), pointList.get(i));
+		}
+		assertEquals(result.getQualifiers().size(), 1);
+		assertEquals(result.getQualifiers().get(0).getIdentifier(), "ESTIMATED");
+		assertEquals(result.getQualifiers().get(0).getStartTime(), Instant.parse("2018-01-02T00:00:00Z"));
+		assertNull(result.getQualifiers().get(0).getEndTime());
+		assertEquals(result.getQualifiers().get(0).getUser(), "user");
+
+		// Only the points of a view are written
+		result = writeRead(series.subSeries(1, 3));
+		assertEquals(result.size(), 2);
+		assertPointEquals(result.getPoint(0), pointList.get(1));
+		assertPointEquals(result.getPoint(1), pointList.get(2));
+		assertTrue(writeRead(ColumnarTimeSeries.fromPoints(null)).isEmpty());
+	}
+
+	private ColumnarTimeSeries writeRead(ColumnarTimeSeries series) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		series.writeTo(new DataOutputStream(bytes));
+		return ColumnarTimeSeries.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+	}
+
+	private void assertPointEquals(TimeSeriesPoint actual, TimeSeriesPoint expected) {
+		if(expected.getTimestamp() == null) {
+			assertNull(actual.getTimestamp());
+		} else {
+			assertEquals(actual.getTimestamp().getDateTimeOffset(), expected.getTimestamp().getDateTimeOffset());
+			assertEquals(actual.getTimestamp().isRepresentsEndOfTimePeriod(), expected.getTimestamp().isRepresentsEndOfTimePeriod());
+		}
+		if(expected.getValue() == null) {
+			assertNull(actual.getValue());
+		} else {
+			assertEquals(actual.getValue().getDisplay(), expected.getValue().getDisplay());
+			assertEquals(actual.getValue().getNumeric(), expected.getValue().getNumeric());
+		}
+	}
+}
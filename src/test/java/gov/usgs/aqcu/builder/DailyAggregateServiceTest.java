@@ -0,0 +1,299 @@
+package gov.usgs.aqcu.builder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.DoubleWithDisplay;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.Qualifier;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.StatisticalDateTimeOffset;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesDataServiceResponse;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesDescription;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesPoint;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import gov.usgs.aqcu.builder.DailyAggregateService.AggregatedExtremes;
+import gov.usgs.aqcu.cache.DailyAggregateStore;
+import gov.usgs.aqcu.cache.TimeSeriesDescriptionCache;
+import gov.usgs.aqcu.model.TimeSeriesMinMax;
+import gov.usgs.aqcu.parameter.ExtremesInterval;
+import gov.usgs.aqcu.parameter.ExtremesRequestParameters;
+import gov.usgs.aqcu.retrieval.TimeSeriesDataService;
+import gov.usgs.aqcu.retrieval.TimeSeriesDescriptionListService;
+import gov.usgs.aqcu.retrieval.WindowedTimeSeriesDataService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@RunWith(SpringRunner.class)
+public class DailyAggregateServiceTest {
+	@MockBean
+	TimeSeriesDataService tsDataService;
+	@MockBean
+	TimeSeriesDescriptionListService tsDescService;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static final ZoneOffset ZONE_OFFSET = ZoneOffset.ofHours(-6);
+	private DailyAggregateService service;
+	private DailyAggregateStore store;
+	private SimpleMeterRegistry meterRegistry;
+	private MinMaxBuilderService minMaxBuilderService;
+	private TimeSeriesDescription description;
+	private ExtremesRequestParameters requestParameters;
+	private List<TimeSeriesPoint> points;
+	private List<Qualifier> qualifiers;
+
+	@Before
+	public void setup() {
+		meterRegistry = new SimpleMeterRegistry();
+		store = new DailyAggregateStore(folder.getRoot().getPath(), meterRegistry);
+		service = new DailyAggregateService(store, tsDataService, -1);
+		minMaxBuilderService = new MinMaxBuilderService();
+		description = new TimeSeriesDescription()
+			.setUniqueId("tsId")
+			.setLastModified(Instant.parse("2018-03-01T00:00:00Z"));
+		requestParameters = new ExtremesRequestParameters();
+		requestParameters.setPrimaryTimeseriesIdentifier("tsId");
+		requestParameters.setStartDate(LocalDate.parse("2018-01-01"));
+		requestParameters.setEndDate(LocalDate.parse("2018-01-20"));
+
+		// Every 6 hours, with the max of 9.0 repeated on separate days and the min of -3.0 repeated within a day
+		points = new ArrayList<>();
+		Instant start = LocalDate.parse("2018-01-01").atStartOfDay().toInstant(ZONE_OFFSET);
+		for(int i = 0; i < 4 * 45; i++) {
+			double value = (i * 7) % 13 - 3;
+			if(i == 22 || i == 23) {
+				value = -3;
+			}
+			points.add(createPoint(start.plus(Duration.ofHours(6 * i)), value));
+		}
+		qualifiers = Arrays.asList(
+			new Qualifier()
+				.setIdentifier("ESTIMATED")
+				.setStartTime(Instant.parse("2018-01-05T00:00:00Z"))
+				.setEndTime(Instant.parse("2018-01-06T00:00:00Z")),
+			new Qualifier()
+				.setIdentifier("ICE")
+				.setStartTime(Instant.parse("2018-02-05T00:00:00Z"))
+				.setEndTime(Instant.parse("2018-02-06T00:00:00Z"))
+		);
+
+		given(tsDataService.get(any(), any(ExtremesRequestParameters.class), any(), any(), any(), any(), any())).willAnswer(invocation -> {
+			ExtremesRequestParameters period = invocation.getArgument(1);
+			ZoneOffset zoneOffset = invocation.getArgument(2);
+			Boolean isDaily = invocation.getArgument(3);
+			Instant periodStart = period.getQueryStartInstant(zoneOffset, isDaily);
+			Instant periodEnd = period.getQueryEndInstant(zoneOffset, isDaily);
+			return new TimeSeriesDataServiceResponse()
+				.setPoints(new ArrayList<>(points.stream()
+					.filter(p -> !p.getTimestamp().getDateTimeOffset().isBefore(periodStart) && !p.getTimestamp().getDateTimeOffset().isAfter(periodEnd))
+					.collect(Collectors.toList())))
+				.setQualifiers(new ArrayList<>(qualifiers.stream()
+					.filter(q -> !q.getStartTime().isAfter(periodEnd) && !q.getEndTime().isBefore(periodStart))
+					.collect(Collectors.toList())));
+		});
+	}
+
+	@Test
+	public void findExtremesMatchesScanTest() {
+		requestParameters.setExtremesInterval(ExtremesInterval.DAY);
+		AggregatedExtremes result = service.findExtremes(description, requestParameters, ZONE_OFFSET, false);
+		TimeSeriesMinMax expected = minMaxBuilderService.findColumnarMinMaxPoints(getSeries(requestParameters),
+			ExtremesInterval.DAY, ZONE_OFFSET, false);
+
+		assertMinMaxEquals(result.getMinMax(), expected);
+		assertTrue(result.getMinMax().getMultipleMaxFlag());
+		assertTrue(result.getMinMax().getMultipleMinFlag());
+		assertEquals(result.getMinMax().getIntervals().keySet(), expected.getIntervals().keySet());
+		for(String label : expected.getIntervals().keySet()) {
+			assertMinMaxEquals(result.getMinMax().getIntervals().get(label), expected.getIntervals().get(label));
+		}
+		assertEquals(result.getQualifiers().size(), 1);
+		assertEquals(result.getQualifiers().get(0).getIdentifier(), "ESTIMATED");
+	}
+
+	@Test
+	public void findExtremesRetrievesMissingDaysTest() {
+		service.findExtremes(description, requestParameters, ZONE_OFFSET, false);
+		verify(tsDataService, times(1)).get(any(), any(ExtremesRequestParameters.class), any(), any(), any(), any(), any());
+
+		// A later period only retrieves the days that were not aggregated yet
+		requestParameters.setStartDate(LocalDate.parse("2018-01-10"));
+		requestParameters.setEndDate(LocalDate.parse("2018-02-10"));
+		AggregatedExtremes result = service.findExtremes(description, requestParameters, ZONE_OFFSET, false);
+		verify(tsDataService, times(2)).get(any(), any(ExtremesRequestParameters.class), any(), any(), any(), any(), any());
+		assertMinMaxEquals(result.getMinMax(), minMaxBuilderService.findColumnarMinMaxPoints(getSeries(requestParameters)));
+		assertEquals(result.getQualifiers().size(), 1);
+		assertEquals(result.getQualifiers().get(0).getIdentifier(), "ICE");
+
+		service.findExtremes(description, requestParameters, ZONE_OFFSET, false);
+		verify(tsDataService, times(2)).get(any(), any(ExtremesRequestParameters.class), any(), any(), any(), any(), any());
+		assertEquals(meterRegistry.counter(DailyAggregateStore.DAYS_METRIC_NAME, "source", "aquarius").count(), 41.0D, 0.0D);
+		assertEquals(meterRegistry.counter(DailyAggregateStore.DAYS_METRIC_NAME, "source", "store").count(), 43.0D, 0.0D);
+	}
+
+	@Test
+	public void findExtremesModifiedSeriesTest() {
+		service.findExtremes(description, requestParameters, ZONE_OFFSET, false);
+		points.set(10, createPoint(points.get(10).getTimestamp().getDateTimeOffset(), 20.0D));
+		description.setLastModified(Instant.parse("2018-03-02T00:00:00Z"));
+
+		AggregatedExtremes result = service.findExtremes(description, requestParameters, ZONE_OFFSET, false);
+		verify(tsDataService, times(2)).get(any(), any(ExtremesRequestParameters.class), any(), any(), any(), any(), any());
+		assertEquals(result.getMinMax().getMaxPoints().size(), 1);
+		assertEquals(result.getMinMax().getMaxPoints().get(0).getValue().getDisplay(), "20.0");
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void findExtremesCurrentDescriptionTest() {
+		TimeSeriesDescription currentDescription = new TimeSeriesDescription()
+			.setUniqueId("tsId")
+			.setLastModified(description.getLastModified());
+		given(tsDescService.getTimeSeriesDescriptionList(any(List.class))).willReturn(Arrays.asList(currentDescription));
+		service = new DailyAggregateService(store, new TimeSeriesDescriptionCache(tsDescService, 3600, 100, false, meterRegistry),
+			tsDataService, null, -1, 0);
+		service.findExtremes(description, requestParameters, ZONE_OFFSET, false);
+
+		// The series changed in Aquarius while the description passed in is still the cached one
+		points.set(10, createPoint(points.get(10).getTimestamp().getDateTimeOffset(), 20.0D));
+		currentDescription.setLastModified(Instant.parse("2018-03-02T00:00:00Z"));
+		AggregatedExtremes result = service.findExtremes(description, requestParameters, ZONE_OFFSET, false);
+		verify(tsDataService, times(2)).get(any(), any(ExtremesRequestParameters.class), any(), any(), any(), any(), any());
+		assertEquals(result.getMinMax().getMaxPoints().get(0).getValue().getDisplay(), "20.0");
+
+		// Without the current description the stored days are not used
+		given(tsDescService.getTimeSeriesDescriptionList(any(List.class))).willThrow(new RuntimeException("unavailable"));
+		result = service.findExtremes(description, requestParameters, ZONE_OFFSET, false);
+		verify(tsDataService, times(3)).get(any(), any(ExtremesRequestParameters.class), any(), any(), any(), any(), any());
+		assertEquals(result.getMinMax().getMaxPoints().get(0).getValue().getDisplay(), "20.0");
+	}
+
+	@Test
+	public void findExtremesRevisableDaysTest() {
+		service = new DailyAggregateService(store, tsDataService, 5);
+		service.findExtremes(description, requestParameters, ZONE_OFFSET, false);
+
+		// Only the days from 5 days before the last modified time onward are aggregated again
+		description.setLastModified(LocalDate.parse("2018-01-18").atStartOfDay().toInstant(ZONE_OFFSET));
+		service.findExtremes(description, requestParameters, ZONE_OFFSET, false);
+		verify(tsDataService, times(2)).get(any(), any(ExtremesRequestParameters.class), any(), any(), any(), any(), any());
+		assertEquals(meterRegistry.counter(DailyAggregateStore.DAYS_METRIC_NAME, "source", "aquarius").count(), 28.0D, 0.0D);
+	}
+
+	@Test
+	public void findExtremesExpiredTest() {
+		service = new DailyAggregateService(store, null, tsDataService, null, 5, 7);
+		service.findExtremes(description, requestParameters, ZONE_OFFSET, false);
+		String key = DailyAggregateService.getKey(description, ZONE_OFFSET, false);
+		assertTrue(Instant.parse(store.load(key).getAggregatedAt()).isAfter(Instant.now().minusSeconds(60)));
+
+		// Every day is aggregated again on the first change after the max age
+		store.save(key, store.load(key).setAggregatedAt(Instant.now().minus(Duration.ofDays(8)).toString()));
+		description.setLastModified(LocalDate.parse("2018-01-18").atStartOfDay().toInstant(ZONE_OFFSET));
+		service.findExtremes(description, requestParameters, ZONE_OFFSET, false);
+		verify(tsDataService, times(2)).get(any(), any(ExtremesRequestParameters.class), any(), any(), any(), any(), any());
+		assertEquals(meterRegistry.counter(DailyAggregateStore.DAYS_METRIC_NAME, "source", "aquarius").count(), 40.0D, 0.0D);
+		assertTrue(Instant.parse(store.load(key).getAggregatedAt()).isAfter(Instant.now().minusSeconds(60)));
+	}
+
+	@Test
+	public void findExtremesEmptyTest() {
+		requestParameters.setStartDate(LocalDate.parse("2019-01-01"));
+		requestParameters.setEndDate(LocalDate.parse("2019-01-31"));
+		AggregatedExtremes result = service.findExtremes(description, requestParameters, ZONE_OFFSET, false);
+		assertNull(result.getMinMax());
+		assertNull(result.getQualifiers());
+	}
+
+	@Test
+	public void findExtremesInvalidTest() {
+		points.set(10, createPoint(points.get(10).getTimestamp().getDateTimeOffset(), Double.NaN));
+		AggregatedExtremes result = service.findExtremes(description, requestParameters, ZONE_OFFSET, false);
+		assertEquals(result.getMinMax().getMaxPoints().size(), 0);
+		assertEquals(result.getMinMax().getMinPoints().size(), 0);
+	}
+
+	@Test
+	public void findExtremesWindowedTest() {
+		WindowedTimeSeriesDataService windowedService = new WindowedTimeSeriesDataService(tsDataService, Runnable::run, 7, 2, meterRegistry);
+		service = new DailyAggregateService(new DailyAggregateStore("", meterRegistry), null, tsDataService, windowedService, -1, 0);
+		requestParameters.setEndDate(LocalDate.parse("2018-02-14"));
+		assertTrue(service.isWindowed(requestParameters, ZONE_OFFSET));
+
+		// Without a store the days are aggregated in memory, one retrieval per window
+		AggregatedExtremes result = service.findExtremes(description, requestParameters, ZONE_OFFSET, false);
+		verify(tsDataService, times(7)).get(any(), any(ExtremesRequestParameters.class), any(), any(), any(), any(), any());
+		assertMinMaxEquals(result.getMinMax(), minMaxBuilderService.findColumnarMinMaxPoints(getSeries(requestParameters)));
+		assertEquals(result.getQualifiers().size(), 2);
+		assertEquals(folder.getRoot().list().length, 0);
+
+		service.findExtremes(description, requestParameters, ZONE_OFFSET, false);
+		verify(tsDataService, times(14)).get(any(), any(ExtremesRequestParameters.class), any(), any(), any(), any(), any());
+	}
+
+	@Test
+	public void getPointsNearTest() {
+		List<TimeSeriesPoint> extremes = Arrays.asList(points.get(10), points.get(40));
+		ColumnarTimeSeries result = service.getPointsNear(description, requestParameters, ZONE_OFFSET, false, extremes, Duration.ofHours(12));
+		// The days within the tolerance of each point
+		assertEquals(result.size(), 4 * 4);
+		assertEquals(result.getTime(0), LocalDate.parse("2018-01-03").atStartOfDay().toInstant(ZONE_OFFSET));
+		verify(tsDataService, times(2)).get(any(), any(ExtremesRequestParameters.class), any(), any(), any(), any(), any());
+	}
+
+	private ColumnarTimeSeries getSeries(ExtremesRequestParameters period) {
+		Instant periodStart = period.getStartInstant(ZONE_OFFSET);
+		Instant periodEnd = period.getEndInstant(ZONE_OFFSET);
+		return ColumnarTimeSeries.fromPoints(points.stream()
+			.filter(p -> !p.getTimestamp().getDateTimeOffset().isBefore(periodStart) && !p.getTimestamp().getDateTimeOffset().isAfter(periodEnd))
+			.collect(Collectors.toList()));
+	}
+
+	private void assertMinMaxEquals(TimeSeriesMinMax result, TimeSeriesMinMax expected) {
+		assertEquals(result.getMultipleMaxFlag(), expected.getMultipleMaxFlag());
+		assertEquals(result.getMultipleMinFlag(), expected.getMultipleMinFlag());
+		assertPointsEqual(result.getMaxPoints(), expected.getMaxPoints());
+		assertPointsEqual(result.getMinPoints(), expected.getMinPoints());
+	}
+
+	private void assertPointsEqual(List<TimeSeriesPoint> result, List<TimeSeriesPoint> expected) {
+		assertEquals(result.size(), expected.size());
+		for(int i = 0; i < expected.size(); i++) {
+			assertEquals(result.get(i).getTimestamp().getDateTimeOffset(), expected.get(i).getTimestamp().getDateTimeOffset());
+			assertEquals(result.get(i).getValue().getDisplay(), expected.get(i).getValue().getDisplay());
+		}
+	}
+
+	private TimeSeriesPoint createPoint(Instant time, Double numeric) {
+		return new TimeSeriesPoint()
+			.setTimestamp(new StatisticalDateTimeOffset()
+				.setDateTimeOffset(time)
+				.setRepresentsEndOfTimePeriod(false)
+			)
+			.setValue(new DoubleWithDisplay()
+				.setDisplay(String.valueOf(numeric))
+				.setNumeric(numeric)
+			);
+	}
+}
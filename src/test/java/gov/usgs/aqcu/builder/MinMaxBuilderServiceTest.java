@@ -1,13 +1,16 @@
 package gov.usgs.aqcu.builder;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.time.Duration;
 import java.time.Instant;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
 
 import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.DoubleWithDisplay;
 import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.StatisticalDateTimeOffset;
@@ -17,6 +20,8 @@ import org.junit.Before;
 import org.junit.Test;
 
 import gov.usgs.aqcu.model.TimeSeriesMinMax;
+import gov.usgs.aqcu.parameter.ExtremesInterval;
+import gov.usgs.aqcu.parameter.RelatedPointMatchMode;
 
 public class MinMaxBuilderServiceTest {
 	private MinMaxBuilderService service;
@@ -27,7 +32,7 @@ public class MinMaxBuilderServiceTest {
 	}
 
 	@Test
-	public void pointListToMapTest() {
+	public void findPointIndexTest() {
 		List<TimeSeriesPoint> pointList = Arrays.asList(
 			new TimeSeriesPoint()
 				.setTimestamp(new StatisticalDateTimeOffset()
@@ -46,27 +51,200 @@ public class MinMaxBuilderServiceTest {
 				.setValue(new DoubleWithDisplay()
 					.setDisplay("2.0")
 					.setNumeric(2.0D)
+				),
+			new TimeSeriesPoint()
+				.setTimestamp(new StatisticalDateTimeOffset()
+					.setDateTimeOffset(Instant.parse("2018-01-03T00:00:00Z"))
+					.setRepresentsEndOfTimePeriod(false)
+				)
+				.setValue(new DoubleWithDisplay()
+					.setDisplay("3.0")
+					.setNumeric(3.0D)
 				)
 		);
 
-		Map<Instant, TimeSeriesPoint> result = service.pointListToMap(pointList);
-		assertEquals(result.size(), 2);
-		assertEquals(result.get(pointList.get(0).getTimestamp().getDateTimeOffset()), pointList.get(0));
-		assertEquals(result.get(pointList.get(1).getTimestamp().getDateTimeOffset()), pointList.get(1));
+		assertEquals(service.findPointIndex(pointList, Instant.parse("2017-12-31T00:00:00Z")), 0);
+		assertEquals(service.findPointIndex(pointList, Instant.parse("2018-01-01T00:00:00Z")), 0);
+		assertEquals(service.findPointIndex(pointList, Instant.parse("2018-01-01T12:00:00Z")), 1);
+		assertEquals(service.findPointIndex(pointList, Instant.parse("2018-01-02T00:00:00Z")), 1);
+		assertEquals(service.findPointIndex(pointList, Instant.parse("2018-01-03T00:00:00Z")), 2);
+		assertEquals(service.findPointIndex(pointList, Instant.parse("2018-01-04T00:00:00Z")), 3);
 	}
 
 	@Test
-	public void pointListToMapEmptyTest() {
-		Map<Instant, TimeSeriesPoint> result = service.pointListToMap(new ArrayList<>());
-		assertTrue(result.isEmpty());
+	public void findPointIndexEmptyTest() {
+		assertEquals(service.findPointIndex(new ArrayList<>(), Instant.parse("2018-01-01T00:00:00Z")), 0);
 	}
 
 	@Test
-	public void pointListToMapNullTest() {
-		Map<Instant, TimeSeriesPoint> result = service.pointListToMap(null);
-		assertTrue(result.isEmpty());
+	public void findMatchingPointsDuplicateTimestampTest() {
+		List<TimeSeriesPoint> pointList = Arrays.asList(
+			new TimeSeriesPoint()
+				.setTimestamp(new StatisticalDateTimeOffset()
+					.setDateTimeOffset(Instant.parse("2018-01-02T00:00:00Z"))
+					.setRepresentsEndOfTimePeriod(false)
+				)
+				.setValue(new DoubleWithDisplay()
+					.setDisplay("2.0")
+					.setNumeric(2.0D)
+				)
+		);
+
+		List<TimeSeriesPoint> relatedPointList = Arrays.asList(
+			new TimeSeriesPoint()
+				.setTimestamp(new StatisticalDateTimeOffset()
+					.setDateTimeOffset(Instant.parse("2018-01-01T00:00:00Z"))
+					.setRepresentsEndOfTimePeriod(false)
+				)
+				.setValue(new DoubleWithDisplay()
+					.setDisplay("1.1")
+					.setNumeric(1.1D)
+				),
+			new TimeSeriesPoint()
+				.setTimestamp(new StatisticalDateTimeOffset()
+					.setDateTimeOffset(Instant.parse("2018-01-02T00:00:00Z"))
+					.setRepresentsEndOfTimePeriod(false)
+				)
+				.setValue(new DoubleWithDisplay()
+					.setDisplay("2.1")
+					.setNumeric(2.1D)
+				),
+			new TimeSeriesPoint()
+				.setTimestamp(new StatisticalDateTimeOffset()
+					.setDateTimeOffset(Instant.parse("2018-01-02T00:00:00Z"))
+					.setRepresentsEndOfTimePeriod(false)
+				)
+				.setValue(new DoubleWithDisplay()
+					.setDisplay("2.2")
+					.setNumeric(2.2D)
+				)
+		);
+
+		List<TimeSeriesPoint> result = service.findMatchingPoints(pointList, relatedPointList);
+		assertEquals(result.size(), 1);
+		assertEquals(result.get(0), relatedPointList.get(1));
+		result = service.findMatchingPoints(pointList, new LinkedList<>(relatedPointList));
+		assertEquals(result.size(), 1);
+		assertEquals(result.get(0), relatedPointList.get(1));
 	}
 	
+	@Test
+	public void findRelatedPointIndexTest() {
+		List<TimeSeriesPoint> pointList = Arrays.asList(
+			new TimeSeriesPoint()
+				.setTimestamp(new StatisticalDateTimeOffset()
+					.setDateTimeOffset(Instant.parse("2018-01-01T00:00:00Z"))
+					.setRepresentsEndOfTimePeriod(false)
+				)
+				.setValue(new DoubleWithDisplay()
+					.setDisplay("1.0")
+					.setNumeric(1.0D)
+				),
+			new TimeSeriesPoint()
+				.setTimestamp(new StatisticalDateTimeOffset()
+					.setDateTimeOffset(Instant.parse("2018-01-01T01:00:00Z"))
+					.setRepresentsEndOfTimePeriod(false)
+				)
+				.setValue(new DoubleWithDisplay()
+					.setDisplay("2.0")
+					.setNumeric(2.0D)
+				),
+			new TimeSeriesPoint()
+				.setTimestamp(new StatisticalDateTimeOffset()
+					.setDateTimeOffset(Instant.parse("2018-01-01T02:00:00Z"))
+					.setRepresentsEndOfTimePeriod(false)
+				)
+				.setValue(new DoubleWithDisplay()
+					.setDisplay("3.0")
+					.setNumeric(3.0D)
+				)
+		);
+		Duration tolerance = Duration.ofMinutes(30);
+
+		assertEquals(service.findRelatedPointIndex(pointList, Instant.parse("2018-01-01T01:00:00Z"), RelatedPointMatchMode.EXACT, null), 1);
+		assertEquals(service.findRelatedPointIndex(pointList, Instant.parse("2018-01-01T01:00:00Z"), RelatedPointMatchMode.NEAREST, tolerance), 1);
+		assertEquals(service.findRelatedPointIndex(pointList, Instant.parse("2018-01-01T01:00:00Z"), RelatedPointMatchMode.PREVIOUS, tolerance), 1);
+		assertEquals(service.findRelatedPointIndex(pointList, Instant.parse("2018-01-01T01:20:00Z"), RelatedPointMatchMode.EXACT, null), -1);
+		assertEquals(service.findRelatedPointIndex(pointList, Instant.parse("2018-01-01T01:20:00Z"), RelatedPointMatchMode.NEAREST, null), 1);
+		assertEquals(service.findRelatedPointIndex(pointList, Instant.parse("2018-01-01T01:40:00Z"), RelatedPointMatchMode.NEAREST, null), 2);
+		assertEquals(service.findRelatedPointIndex(pointList, Instant.parse("2018-01-01T01:30:00Z"), RelatedPointMatchMode.NEAREST, null), 1);
+		assertEquals(service.findRelatedPointIndex(pointList, Instant.parse("2018-01-01T01:40:00Z"), RelatedPointMatchMode.PREVIOUS, null), 1);
+		assertEquals(service.findRelatedPointIndex(pointList, Instant.parse("2018-01-01T01:40:00Z"), RelatedPointMatchMode.PREVIOUS, tolerance), -1);
+		assertEquals(service.findRelatedPointIndex(pointList, Instant.parse("2017-12-31T23:45:00Z"), RelatedPointMatchMode.PREVIOUS, null), -1);
+		assertEquals(service.findRelatedPointIndex(pointList, Instant.parse("2017-12-31T23:45:00Z"), RelatedPointMatchMode.NEAREST, tolerance), 0);
+		assertEquals(service.findRelatedPointIndex(pointList, Instant.parse("2017-12-31T23:00:00Z"), RelatedPointMatchMode.NEAREST, tolerance), -1);
+		assertEquals(service.findRelatedPointIndex(pointList, Instant.parse("2018-01-01T03:00:00Z"), RelatedPointMatchMode.NEAREST, null), 2);
+		assertEquals(service.findRelatedPointIndex(pointList, Instant.parse("2018-01-01T03:00:00Z"), RelatedPointMatchMode.PREVIOUS, null), 2);
+		assertEquals(service.findRelatedPointIndex(pointList, Instant.parse("2018-01-01T03:00:00Z"), RelatedPointMatchMode.NEAREST, tolerance), -1);
+	}
+
+	@Test
+	public void findMinMaxMatchingPointsNearestTest() {
+		List<TimeSeriesPoint> primaryPointList = Arrays.asList(
+			new TimeSeriesPoint()
+				.setTimestamp(new StatisticalDateTimeOffset()
+					.setDateTimeOffset(Instant.parse("2018-01-01T00:00:00Z"))
+					.setRepresentsEndOfTimePeriod(false)
+				)
+				.setValue(new DoubleWithDisplay()
+					.setDisplay("1.0")
+					.setNumeric(1.0D)
+				),
+			new TimeSeriesPoint()
+				.setTimestamp(new StatisticalDateTimeOffset()
+					.setDateTimeOffset(Instant.parse("2018-01-01T00:15:00Z"))
+					.setRepresentsEndOfTimePeriod(false)
+				)
+				.setValue(new DoubleWithDisplay()
+					.setDisplay("5.0")
+					.setNumeric(5.0D)
+				)
+		);
+		List<TimeSeriesPoint> relatedPointList = Arrays.asList(
+			new TimeSeriesPoint()
+				.setTimestamp(new StatisticalDateTimeOffset()
+					.setDateTimeOffset(Instant.parse("2018-01-01T00:05:00Z"))
+					.setRepresentsEndOfTimePeriod(false)
+				)
+				.setValue(new DoubleWithDisplay()
+					.setDisplay("1.1")
+					.setNumeric(1.1D)
+				),
+			new TimeSeriesPoint()
+				.setTimestamp(new StatisticalDateTimeOffset()
+					.setDateTimeOffset(Instant.parse("2018-01-01T00:10:00Z"))
+					.setRepresentsEndOfTimePeriod(false)
+				)
+				.setValue(new DoubleWithDisplay()
+					.setDisplay("1.2")
+					.setNumeric(1.2D)
+				),
+			new TimeSeriesPoint()
+				.setTimestamp(new StatisticalDateTimeOffset()
+					.setDateTimeOffset(Instant.parse("2018-01-01T00:17:00Z"))
+					.setRepresentsEndOfTimePeriod(false)
+				)
+				.setValue(new DoubleWithDisplay()
+					.setDisplay("1.3")
+					.setNumeric(1.3D)
+				)
+		);
+		TimeSeriesMinMax primaryMinMax = service.findMinMaxPoints(primaryPointList);
+
+		TimeSeriesMinMax result = service.findMinMaxMatchingPoints(primaryMinMax, relatedPointList);
+		assertEquals(result.getMaxPoints().size(), 0);
+		assertEquals(result.getMinPoints().size(), 0);
+		result = service.findMinMaxMatchingPoints(primaryMinMax, relatedPointList, RelatedPointMatchMode.NEAREST, Duration.ofMinutes(10));
+		assertEquals(result.getMaxPoints().size(), 1);
+		assertEquals(result.getMaxPoints().get(0), relatedPointList.get(2));
+		assertEquals(result.getMinPoints().size(), 1);
+		assertEquals(result.getMinPoints().get(0), relatedPointList.get(0));
+		result = service.findMinMaxMatchingPoints(primaryMinMax, relatedPointList, RelatedPointMatchMode.PREVIOUS, Duration.ofMinutes(10));
+		assertEquals(result.getMaxPoints().size(), 1);
+		assertEquals(result.getMaxPoints().get(0), relatedPointList.get(1));
+		assertEquals(result.getMinPoints().size(), 0);
+	}
+
 	@Test
 	public void findMatchingPointsTest() {
 		List<TimeSeriesPoint> pointList = Arrays.asList(
@@ -543,4 +721,525 @@ public class MinMaxBuilderServiceTest {
 		assertEquals(result.getMaxPoints().size(), 0);
 		assertEquals(result.getMaxPoints().size(), 0);
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void findMinMaxPointsTiesTest() {
+		List<TimeSeriesPoint> pointList = Arrays.asList(
+			new TimeSeriesPoint()
+				.setTimestamp(new StatisticalDateTimeOffset()
+					.setDateTimeOffset(Instant.parse("2018-01-01T00:00:00Z"))
+					.setRepresentsEndOfTimePeriod(false)
+				)
+				.setValue(new DoubleWithDisplay()
+					.setDisplay("3.0")
+					.setNumeric(3.0D)
+				),
+			new TimeSeriesPoint()
+				.setTimestamp(new StatisticalDateTimeOffset()
+					.setDateTimeOffset(Instant.parse("2018-01-02T00:00:00Z"))
+					.setRepresentsEndOfTimePeriod(false)
+				)
+				.setValue(new DoubleWithDisplay()
+					.setDisplay("0.0")
+					.setNumeric(-0.0D)
+				),
+			new TimeSeriesPoint()
+				.setTimestamp(new StatisticalDateTimeOffset()
+					.setDateTimeOffset(Instant.parse("2018-01-03T00:00:00Z"))
+					.setRepresentsEndOfTimePeriod(false)
+				)
+				.setValue(new DoubleWithDisplay()
+					.setDisplay("3.0")
+					.setNumeric(3.0D)
+				),
+			new TimeSeriesPoint()
+				.setTimestamp(new StatisticalDateTimeOffset()
+					.setDateTimeOffset(Instant.parse("2018-01-04T00:00:00Z"))
+					.setRepresentsEndOfTimePeriod(false)
+				)
+				.setValue(new DoubleWithDisplay()
+					.setDisplay("0.0")
+					.setNumeric(0.0D)
+				)
+		);
+
+		TimeSeriesMinMax result = service.findMinMaxPoints(pointList);
+		assertEquals(result.getMaxPoints().size(), 2);
+		assertEquals(result.getMaxPoints().get(0), pointList.get(0));
+		assertEquals(result.getMaxPoints().get(1), pointList.get(2));
+		assertEquals(result.getMinPoints().size(), 2);
+		assertEquals(result.getMinPoints().get(0), pointList.get(1));
+		assertEquals(result.getMinPoints().get(1), pointList.get(3));
+	}
+
+	@Test
+	public void findMinMaxPointsNaNTest() {
+		List<TimeSeriesPoint> pointList = Arrays.asList(
+			new TimeSeriesPoint()
+				.setTimestamp(new StatisticalDateTimeOffset()
+					.setDateTimeOffset(Instant.parse("2018-01-01T00:00:00Z"))
+					.setRepresentsEndOfTimePeriod(false)
+				)
+				.setValue(new DoubleWithDisplay()
+					.setDisplay("1.0")
+					.setNumeric(1.0D)
+				),
+			new TimeSeriesPoint()
+				.setTimestamp(new StatisticalDateTimeOffset()
+					.setDateTimeOffset(Instant.parse("2018-01-02T00:00:00Z"))
+					.setRepresentsEndOfTimePeriod(false)
+				)
+				.setValue(new DoubleWithDisplay()
+					.setDisplay("NaN")
+					.setNumeric(Double.NaN)
+				)
+		);
+
+		TimeSeriesMinMax result = service.findMinMaxPoints(pointList);
+		assertEquals(result.getMaxPoints().size(), 0);
+		assertEquals(result.getMinPoints().size(), 0);
+	}
+
+	@Test
+	public void findMinMaxPointsMultipleFlagTest() {
+		List<TimeSeriesPoint> pointList = Arrays.asList(
+			new TimeSeriesPoint()
+				.setTimestamp(new StatisticalDateTimeOffset()
+					.setDateTimeOffset(Instant.parse("2018-01-01T00:00:00Z"))
+					.setRepresentsEndOfTimePeriod(false)
+				)
+				.setValue(new DoubleWithDisplay()
+					.setDisplay("2.0")
+					.setNumeric(1.96D)
+				),
+			new TimeSeriesPoint()
+				.setTimestamp(new StatisticalDateTimeOffset()
+					.setDateTimeOffset(Instant.parse("2018-01-02T00:00:00Z"))
+					.setRepresentsEndOfTimePeriod(false)
+				)
+				.setValue(new DoubleWithDisplay()
+					.setDisplay("0.5")
+					.setNumeric(0.5D)
+				),
+			new TimeSeriesPoint()
+				.setTimestamp(new StatisticalDateTimeOffset()
+					.setDateTimeOffset(Instant.parse("2018-01-03T00:00:00Z"))
+					.setRepresentsEndOfTimePeriod(false)
+				)
+				.setValue(new DoubleWithDisplay()
+					.setDisplay("2.0")
+					.setNumeric(2.0D)
+				),
+			new TimeSeriesPoint()
+				.setTimestamp(new StatisticalDateTimeOffset()
+					.setDateTimeOffset(Instant.parse("2018-01-04T00:00:00Z"))
+					.setRepresentsEndOfTimePeriod(false)
+				)
+				.setValue(new DoubleWithDisplay()
+					.setDisplay("0.7")
+					.setNumeric(0.7D)
+				)
+		);
+
+		TimeSeriesMinMax result = service.findMinMaxPoints(pointList);
+		assertEquals(result.getMaxPoints().size(), 1);
+		assertEquals(result.getMaxPoints().get(0), pointList.get(2));
+		assertTrue(result.getMultipleMaxFlag());
+		assertEquals(result.getMinPoints().size(), 1);
+		assertEquals(result.getMinPoints().get(0), pointList.get(1));
+		assertFalse(result.getMultipleMinFlag());
+	}
+
+	@Test
+	public void findMinMaxPointsParallelTest() {
+		List<TimeSeriesPoint> pointList = new ArrayList<>();
+		for(int i = 0; i < 100000; i++) {
+			double value = (i * 7919) % 1000;
+			pointList.add(new TimeSeriesPoint()
+				.setTimestamp(new StatisticalDateTimeOffset()
+					.setDateTimeOffset(Instant.parse("2018-01-01T00:00:00Z").plusSeconds(i * 900))
+					.setRepresentsEndOfTimePeriod(false)
+				)
+				.setValue(new DoubleWithDisplay()
+					.setDisplay(String.valueOf(value))
+					.setNumeric(value)
+				)
+			);
+		}
+		MinMaxBuilderService parallelService = new MinMaxBuilderService(true, 1, 4);
+
+		TimeSeriesMinMax expected = service.findMinMaxPoints(pointList);
+		TimeSeriesMinMax result = parallelService.findMinMaxPoints(pointList);
+		parallelService.shutdown();
+		assertEquals(result.getMaxPoints().size(), 100);
+		assertEquals(result.getMaxPoints(), expected.getMaxPoints());
+		assertEquals(result.getMinPoints().size(), 100);
+		assertEquals(result.getMinPoints(), expected.getMinPoints());
+		assertEquals(result.getMultipleMaxFlag(), expected.getMultipleMaxFlag());
+		assertEquals(result.getMultipleMinFlag(), expected.getMultipleMinFlag());
+	}
+
+	@Test
+	public void findColumnarMinMaxPointsTest() {
+		List<TimeSeriesPoint> pointList = Arrays.asList(
+			new TimeSeriesPoint()
+				.setTimestamp(new StatisticalDateTimeOffset()
+					.setDateTimeOffset(Instant.parse("2018-01-01T00:00:00Z"))
+					.setRepresentsEndOfTimePeriod(false)
+				)
+				.setValue(new DoubleWithDisplay()
+					.setDisplay("1.0")
+					.setNumeric(1.0D)
+				),
+			new TimeSeriesPoint()
+				.setTimestamp(new StatisticalDateTimeOffset()
+					.setDateTimeOffset(Instant.parse("2018-01-02T00:00:00Z"))
+					.setRepresentsEndOfTimePeriod(false)
+				)
+				.setValue(new DoubleWithDisplay()
+					.setDisplay("2.0")
+					.setNumeric(2.0D)
+				),
+			new TimeSeriesPoint()
+				.setTimestamp(new StatisticalDateTimeOffset()
+					.setDateTimeOffset(Instant.parse("2018-01-03T00:00:00Z"))
+					.setRepresentsEndOfTimePeriod(false)
+				)
+				.setValue(new DoubleWithDisplay()
+					.setDisplay("2.0")
+					.setNumeric(2.0D)
+				)
+		);
+		List<TimeSeriesPoint> relatedPointList = Arrays.asList(
+			new TimeSeriesPoint()
+				.setTimestamp(new StatisticalDateTimeOffset()
+					.setDateTimeOffset(Instant.parse("2018-01-01T00:00:00Z"))
+					.setRepresentsEndOfTimePeriod(false)
+				)
+				.setValue(new DoubleWithDisplay()
+					.setDisplay("5.0")
+					.setNumeric(5.0D)
+				),
+			new TimeSeriesPoint()
+				.setTimestamp(new StatisticalDateTimeOffset()
+					.setDateTimeOffset(Instant.parse("2018-01-03T00:00:00Z"))
+					.setRepresentsEndOfTimePeriod(false)
+				)
+				.setValue(new DoubleWithDisplay()
+					.setDisplay("6.0")
+					.setNumeric(6.0D)
+				)
+		);
+
+		TimeSeriesMinMax result = service.findColumnarMinMaxPoints(ColumnarTimeSeries.fromPoints(pointList));
+		assertEquals(result.getMaxPoints().size(), 2);
+		assertEquals(result.getMaxPoints().get(0).getTimestamp().getDateTimeOffset(), Instant.parse("2018-01-02T00:00:00Z"));
+		assertEquals(result.getMaxPoints().get(1).getTimestamp().getDateTimeOffset(), Instant.parse("2018-01-03T00:00:00Z"));
+		assertEquals(result.getMaxPoints().get(0).getValue().getDisplay(), "2.0");
+		assertEquals(result.getMinPoints().size(), 1);
+		assertEquals(result.getMinPoints().get(0).getValue().getNumeric(), 1.0D, 0.0D);
+		assertTrue(result.getMultipleMaxFlag());
+		assertFalse(result.getMultipleMinFlag());
+
+		TimeSeriesMinMax related = service.findColumnarMinMaxMatchingPoints(result, ColumnarTimeSeries.fromPoints(relatedPointList), RelatedPointMatchMode.EXACT, null);
+		assertEquals(related.getMaxPoints().size(), 1);
+		assertEquals(related.getMaxPoints().get(0).getValue().getDisplay(), "6.0");
+		assertEquals(related.getMinPoints().size(), 1);
+		assertEquals(related.getMinPoints().get(0).getValue().getDisplay(), "5.0");
+
+		result = service.findColumnarMinMaxPoints(ColumnarTimeSeries.fromPoints(new ArrayList<>()));
+		assertTrue(result.getMaxPoints().isEmpty());
+		result = service.findColumnarMinMaxPoints(null);
+		assertTrue(result.getMinPoints().isEmpty());
+	}
+
+	@Test
+	public void findStreamedMinMaxPointsTest() {
+		List<List<TimeSeriesPoint>> pointLists = Arrays.asList(
+			Arrays.asList(
+				createPoint("2018-01-01T00:00:00Z", "1.0", 1.0D),
+				createPoint("2018-01-02T00:00:00Z", "2.0", 1.96D),
+				createPoint("2018-01-03T00:00:00Z", "2.0", 2.0D),
+				createPoint("2018-01-03T00:00:00Z", "2.0", 2.0D),
+				createPoint("2018-01-04T00:00:00Z", "1.0", 1.0D)
+			),
+			Arrays.asList(
+				createPoint("2018-01-01T00:00:00Z", "3.0", 3.0D),
+				createPoint("2018-01-01T00:00:00Z", "3.0", 3.0D)
+			),
+			Arrays.asList(
+				createPoint("2018-01-01T00:00:00Z", "1.0", 1.0D),
+				createPoint("2018-01-02T00:00:00Z", "EQP", null),
+				createPoint("2018-01-03T00:00:00Z", "3.0", 3.0D)
+			)
+		);
+
+		for(List<TimeSeriesPoint> pointList : pointLists) {
+			StreamingMinMaxAccumulator accumulator = new StreamingMinMaxAccumulator();
+			pointList.forEach(accumulator);
+			TimeSeriesMinMax expected = service.findMinMaxPoints(pointList);
+			TimeSeriesMinMax result = service.findStreamedMinMaxPoints(accumulator);
+			assertEquals(accumulator.getPointCount(), pointList.size());
+			assertEquals(result.getMaxPoints(), expected.getMaxPoints());
+			assertEquals(result.getMinPoints(), expected.getMinPoints());
+			assertEquals(result.getMultipleMaxFlag(), expected.getMultipleMaxFlag());
+			assertEquals(result.getMultipleMinFlag(), expected.getMultipleMinFlag());
+		}
+		assertTrue(service.findStreamedMinMaxPoints(new StreamingMinMaxAccumulator()).getMaxPoints().isEmpty());
+		assertTrue(service.findStreamedMinMaxPoints(null).getMinPoints().isEmpty());
+	}
+
+	@Test
+	public void relatedPointCollectorTest() {
+		List<TimeSeriesPoint> relatedPointList = Arrays.asList(
+			createPoint("2018-01-01T00:00:00Z", "1.0", 1.0D),
+			createPoint("2018-01-02T00:00:00Z", "2.0", 2.0D),
+			createPoint("2018-01-02T00:00:00Z", "2.5", 2.5D),
+			createPoint("2018-01-02T12:00:00Z", "3.0", 3.0D),
+			createPoint("2018-01-04T00:00:00Z", "4.0", 4.0D)
+		);
+		TimeSeriesMinMax primaryMinMax = new TimeSeriesMinMax();
+		primaryMinMax.setMaxPoints(Arrays.asList(
+			createPoint("2018-01-02T00:00:00Z", "9.0", 9.0D),
+			createPoint("2018-01-03T00:00:00Z", "9.0", 9.0D),
+			createPoint("2018-01-05T00:00:00Z", "9.0", 9.0D)
+		));
+		primaryMinMax.setMinPoints(Arrays.asList(
+			createPoint("2017-12-31T00:00:00Z", "0.0", 0.0D),
+			createPoint("2018-01-02T06:00:00Z", "0.0", 0.0D),
+			createPoint("2018-01-03T00:00:00Z", "0.0", 0.0D)
+		));
+
+		for(RelatedPointMatchMode matchMode : RelatedPointMatchMode.values()) {
+			for(Duration tolerance : Arrays.asList(null, Duration.ofHours(6), Duration.ofDays(1))) {
+				RelatedPointCollector collector = new RelatedPointCollector(primaryMinMax, matchMode, tolerance);
+				relatedPointList.forEach(collector);
+				TimeSeriesMinMax expected = service.findMinMaxMatchingPoints(primaryMinMax, relatedPointList, matchMode, tolerance);
+				TimeSeriesMinMax result = collector.getMatchingMinMax();
+				assertEquals(result.getMaxPoints(), expected.getMaxPoints());
+				assertEquals(result.getMinPoints(), expected.getMinPoints());
+			}
+		}
+
+		RelatedPointCollector collector = new RelatedPointCollector(primaryMinMax, RelatedPointMatchMode.NEAREST, null);
+		assertTrue(collector.getMatchingMinMax().getMaxPoints().isEmpty());
+	}
+
+	@Test
+	public void findIndexedMinMaxPointsTest() {
+		List<TimeSeriesPoint> pointList = new ArrayList<>();
+		for(int i = 0; i < 5000; i++) {
+			double value = ((i * 37) % 101) / 10.0D;
+			pointList.add(createPoint(Instant.parse("2018-01-01T00:00:00Z").plusSeconds(i * 900L).toString(), String.format("%.0f", value), value));
+		}
+		ColumnarTimeSeries indexed = ColumnarTimeSeries.fromPoints(pointList).indexed();
+		int[][] ranges = { {0, 5000}, {0, 1}, {17, 1024}, {1000, 1100}, {1024, 2048}, {333, 4444}, {2047, 5000}, {4999, 5000} };
+
+		for(int[] range : ranges) {
+			TimeSeriesMinMax expected = service.findMinMaxPoints(pointList.subList(range[0], range[1]));
+			TimeSeriesMinMax result = service.findColumnarMinMaxPoints(indexed.subSeries(range[0], range[1]));
+			assertMinMaxEquals(result, expected);
+		}
+
+		pointList.set(3000, createPoint("2018-02-01T06:00:00Z", "NaN", Double.NaN));
+		indexed = ColumnarTimeSeries.fromPoints(pointList).indexed();
+		assertEquals(service.findColumnarMinMaxPoints(indexed.subSeries(2000, 4000)).getMaxPoints().size(), 0);
+		assertMinMaxEquals(service.findColumnarMinMaxPoints(indexed.subSeries(0, 2048)), service.findMinMaxPoints(pointList.subList(0, 2048)));
+	}
+
+	@Test
+	public void findIntervalMinMaxPointsTest() {
+		ZoneOffset zoneOffset = ZoneOffset.ofHours(-5);
+		List<TimeSeriesPoint> pointList = Arrays.asList(
+			createPoint("2018-01-31T01:00:00Z", "3.0", 3.0D),
+			createPoint("2018-01-31T12:00:00Z", "1.0", 1.0D),
+			createPoint("2018-02-01T03:00:00Z", "5.0", 5.0D),
+			createPoint("2018-02-01T06:00:00Z", "2.0", 2.0D),
+			createPoint("2018-02-15T00:00:00Z", "2.0", 2.0D),
+			createPoint("2018-10-01T06:00:00Z", "0.5", 0.5D)
+		);
+		ColumnarTimeSeries series = ColumnarTimeSeries.fromPoints(pointList);
+
+		TimeSeriesMinMax result = service.findColumnarMinMaxPoints(series, ExtremesInterval.MONTH, zoneOffset, false);
+		assertMinMaxEquals(result, service.findMinMaxPoints(pointList));
+		assertEquals(new ArrayList<>(result.getIntervals().keySet()), Arrays.asList("2018-01", "2018-02", "2018-10"));
+		assertEquals(result.getIntervals().get("2018-01").getMaxPoints().get(0).getValue().getDisplay(), "5.0");
+		assertEquals(result.getIntervals().get("2018-01").getMinPoints().get(0).getValue().getDisplay(), "1.0");
+		assertEquals(result.getIntervals().get("2018-02").getMinPoints().size(), 2);
+		assertTrue(result.getIntervals().get("2018-02").getMultipleMinFlag());
+		assertEquals(result.getIntervals().get("2018-10").getMaxPoints().get(0).getValue().getDisplay(), "0.5");
+
+		result = service.findColumnarMinMaxPoints(series, ExtremesInterval.WATER_YEAR, zoneOffset, false);
+		assertEquals(new ArrayList<>(result.getIntervals().keySet()), Arrays.asList("2018", "2019"));
+		assertEquals(result.getIntervals().get("2018").getMaxPoints().get(0).getValue().getDisplay(), "5.0");
+
+		// Indexed series give the same breakdown from the index
+		TimeSeriesMinMax indexedResult = service.findColumnarMinMaxPoints(series.indexed(), ExtremesInterval.DAY, zoneOffset, false);
+		result = service.findColumnarMinMaxPoints(series, ExtremesInterval.DAY, zoneOffset, false);
+		assertEquals(new ArrayList<>(result.getIntervals().keySet()), Arrays.asList("2018-01-30", "2018-01-31", "2018-02-01", "2018-02-14", "2018-10-01"));
+		assertEquals(indexedResult.getIntervals().keySet(), result.getIntervals().keySet());
+		assertMinMaxEquals(indexedResult, result);
+		for(String label : result.getIntervals().keySet()) {
+			assertMinMaxEquals(indexedResult.getIntervals().get(label), result.getIntervals().get(label));
+		}
+
+		// Streamed points give the same breakdown
+		StreamingMinMaxAccumulator accumulator = new StreamingMinMaxAccumulator(ExtremesInterval.DAY, zoneOffset, false);
+		pointList.forEach(accumulator);
+		TimeSeriesMinMax streamedResult = service.findStreamedMinMaxPoints(accumulator);
+		assertEquals(streamedResult.getIntervals().keySet(), result.getIntervals().keySet());
+		for(String label : result.getIntervals().keySet()) {
+			assertMinMaxEquals(streamedResult.getIntervals().get(label), result.getIntervals().get(label));
+		}
+
+		assertEquals(service.findColumnarMinMaxPoints(series, null, zoneOffset, false).getIntervals(), null);
+	}
+
+	@Test
+	public void findDailyIntervalMinMaxPointsTest() {
+		ZoneOffset zoneOffset = ZoneOffset.ofHours(-5);
+		// Daily values are stamped at the end of their day
+		List<TimeSeriesPoint> pointList = Arrays.asList(
+			createPoint("2018-01-31T05:00:00Z", "1.0", 1.0D),
+			createPoint("2018-02-01T05:00:00Z", "4.0", 4.0D),
+			createPoint("2018-02-02T05:00:00Z", "3.0", 3.0D)
+		);
+		ColumnarTimeSeries series = ColumnarTimeSeries.fromPoints(pointList);
+
+		TimeSeriesMinMax result = service.findColumnarMinMaxPoints(series, ExtremesInterval.MONTH, zoneOffset, true);
+		assertEquals(new ArrayList<>(result.getIntervals().keySet()), Arrays.asList("2018-01", "2018-02"));
+		assertEquals(result.getIntervals().get("2018-01").getMaxPoints().get(0).getValue().getDisplay(), "4.0");
+		assertEquals(result.getIntervals().get("2018-02").getMaxPoints().get(0).getValue().getDisplay(), "3.0");
+
+		StreamingMinMaxAccumulator accumulator = new StreamingMinMaxAccumulator(ExtremesInterval.MONTH, zoneOffset, true);
+		pointList.forEach(accumulator);
+		TimeSeriesMinMax streamedResult = accumulator.getMinMax();
+		assertEquals(streamedResult.getIntervals().keySet(), result.getIntervals().keySet());
+		assertEquals(streamedResult.getIntervals().get("2018-01").getMaxPoints().get(0).getValue().getDisplay(), "4.0");
+	}
+
+	@Test
+	public void findTopPointsTest() {
+		// Two floods a week apart, each rising and falling over a few hours
+		List<TimeSeriesPoint> pointList = Arrays.asList(
+			createPoint("2018-01-01T00:00:00Z", "1.0", 1.0D),
+			createPoint("2018-01-01T01:00:00Z", "5.0", 5.0D),
+			createPoint("2018-01-01T02:00:00Z", "9.0", 9.0D),
+			createPoint("2018-01-01T03:00:00Z", "8.0", 8.0D),
+			createPoint("2018-01-01T04:00:00Z", "2.0", 2.0D),
+			createPoint("2018-01-08T00:00:00Z", "3.0", 3.0D),
+			createPoint("2018-01-08T01:00:00Z", "7.0", 7.0D),
+			createPoint("2018-01-08T02:00:00Z", "6.0", 6.0D),
+			createPoint("2018-01-08T03:00:00Z", "0.5", 0.5D)
+		);
+		ColumnarTimeSeries series = ColumnarTimeSeries.fromPoints(pointList);
+
+		TimeSeriesMinMax result = service.findColumnarTopPoints(series, 3, Duration.ZERO);
+		assertEquals(getDisplays(result.getMaxPoints()), Arrays.asList("9.0", "8.0", "7.0"));
+		assertEquals(getDisplays(result.getMinPoints()), Arrays.asList("0.5", "1.0", "2.0"));
+
+		result = service.findColumnarTopPoints(series, 3, Duration.ofDays(1));
+		assertEquals(getDisplays(result.getMaxPoints()), Arrays.asList("9.0", "7.0"));
+		assertEquals(getDisplays(result.getMinPoints()), Arrays.asList("0.5", "1.0"));
+		assertEquals(result.getMaxPoints().get(1).getTimestamp().getDateTimeOffset(), Instant.parse("2018-01-08T01:00:00Z"));
+
+		result = service.findColumnarTopPoints(series, 1, Duration.ofDays(30));
+		assertEquals(getDisplays(result.getMaxPoints()), Arrays.asList("9.0"));
+		assertEquals(getDisplays(result.getMinPoints()), Arrays.asList("0.5"));
+
+		assertEquals(service.findColumnarTopPoints(series, 0, null).getMaxPoints().size(), 0);
+		assertEquals(service.findColumnarTopPoints(series.subSeries(5, 9), 1, null).getMaxPoints().get(0).getValue().getDisplay(), "7.0");
+	}
+
+	@Test
+	public void findTopPointsTiesTest() {
+		List<TimeSeriesPoint> pointList = Arrays.asList(
+			createPoint("2018-01-01T00:00:00Z", "4.0", 4.0D),
+			createPoint("2018-01-01T01:00:00Z", "4.0", 4.0D),
+			createPoint("2018-01-01T02:00:00Z", "1.0", 1.0D),
+			createPoint("2018-01-01T03:00:00Z", "4.0", 4.0D)
+		);
+		ColumnarTimeSeries series = ColumnarTimeSeries.fromPoints(pointList);
+
+		// The earliest of tied points is the event
+		TimeSeriesMinMax result = service.findColumnarTopPoints(series, 2, Duration.ofHours(1));
+		assertEquals(result.getMaxPoints().get(0).getTimestamp().getDateTimeOffset(), Instant.parse("2018-01-01T00:00:00Z"));
+		assertEquals(result.getMaxPoints().get(1).getTimestamp().getDateTimeOffset(), Instant.parse("2018-01-01T03:00:00Z"));
+		result = service.findColumnarTopPoints(series, 2, null);
+		assertEquals(result.getMaxPoints().get(1).getTimestamp().getDateTimeOffset(), Instant.parse("2018-01-01T01:00:00Z"));
+
+		ArrayList<TimeSeriesPoint> invalidList = new ArrayList<>(pointList);
+		invalidList.add(createPoint("2018-01-01T04:00:00Z", "NaN", Double.NaN));
+		assertEquals(service.findColumnarTopPoints(ColumnarTimeSeries.fromPoints(invalidList), 2, null).getMaxPoints().size(), 0);
+	}
+
+	@Test
+	public void findTopPointsWindowTest() {
+		// Events are the highest point within the separation either side, the earliest winning a tie
+		List<TimeSeriesPoint> pointList = new ArrayList<>();
+		long seed = 17;
+		for(int i = 0; i < 2000; i++) {
+			seed = (seed * 6364136223846793005L + 1442695040888963407L);
+			double value = ((seed >>> 40) % 50) / 2.0D;
+			pointList.add(createPoint(Instant.parse("2018-01-01T00:00:00Z").plusSeconds(i * 900L + (seed >>> 60) * 60).toString(), String.valueOf(value), value));
+		}
+		ColumnarTimeSeries series = ColumnarTimeSeries.fromPoints(pointList);
+		Duration separation = Duration.ofHours(3);
+
+		List<Integer> events = new ArrayList<>();
+		for(int i = 0; i < series.size(); i++) {
+			boolean isEvent = true;
+			for(int j = 0; j < series.size() && isEvent; j++) {
+				long gap = Math.abs(series.getEpochMilli(j) - series.getEpochMilli(i));
+				if(j != i && gap <= separation.toMillis()) {
+					isEvent = j < i ? series.getValue(j) < series.getValue(i) : series.getValue(j) <= series.getValue(i);
+				}
+			}
+			if(isEvent) {
+				events.add(i);
+			}
+		}
+		events.sort((a, b) -> series.getValue(a) != series.getValue(b) ? Double.compare(series.getValue(b), series.getValue(a)) : a - b);
+
+		TimeSeriesMinMax result = service.findColumnarTopPoints(series, 25, separation);
+		assertEquals(result.getMaxPoints().size(), Math.min(25, events.size()));
+		for(int i = 0; i < result.getMaxPoints().size(); i++) {
+			assertEquals(result.getMaxPoints().get(i).getTimestamp().getDateTimeOffset(), series.getTime(events.get(i)));
+		}
+	}
+
+	private List<String> getDisplays(List<TimeSeriesPoint> points) {
+		List<String> result = new ArrayList<>();
+		for(TimeSeriesPoint point : points) {
+			result.add(point.getValue().getDisplay());
+		}
+		return result;
+	}
+
+	private void assertMinMaxEquals(TimeSeriesMinMax result, TimeSeriesMinMax expected) {
+		assertEquals(result.getMultipleMaxFlag(), expected.getMultipleMaxFlag());
+		assertEquals(result.getMultipleMinFlag(), expected.getMultipleMinFlag());
+		assertPointsEqual(result.getMaxPoints(), expected.getMaxPoints());
+		assertPointsEqual(result.getMinPoints(), expected.getMinPoints());
+	}
+
+	private void assertPointsEqual(List<TimeSeriesPoint> result, List<TimeSeriesPoint> expected) {
+		assertEquals(result.size(), expected.size());
+		for(int i = 0; i < expected.size(); i++) {
+			assertEquals(result.get(i).getTimestamp().getDateTimeOffset(), expected.get(i).getTimestamp().getDateTimeOffset());
+			assertEquals(result.get(i).getValue().getDisplay(), expected.get(i).getValue().getDisplay());
+		}
+	}
+
+	private TimeSeriesPoint createPoint(String time, String display, Double numeric) {
+		return new TimeSeriesPoint()
+			.setTimestamp(new StatisticalDateTimeOffset()
+				.setDateTimeOffset(Instant.parse(time))
+				.setRepresentsEndOfTimePeriod(false)
+			)
+			.setValue(new DoubleWithDisplay()
+				.setDisplay(display)
+				.setNumeric(numeric)
+			);
+	}
+}
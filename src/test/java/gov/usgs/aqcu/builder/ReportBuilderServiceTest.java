@@ -4,9 +4,13 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 import java.math.BigDecimal;
 import java.time.Instant;
@@ -16,6 +20,9 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 
 import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.LocationDescription;
 import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.Qualifier;
@@ -27,18 +34,28 @@ import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.Doub
 import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.StatisticalDateTimeOffset;
 
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.context.junit4.SpringRunner;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import gov.usgs.aqcu.cache.DailyAggregateStore;
+import gov.usgs.aqcu.cache.LocationDescriptionCache;
+import gov.usgs.aqcu.cache.QualifierMetadataCache;
+import gov.usgs.aqcu.cache.TimeSeriesDescriptionCache;
 import gov.usgs.aqcu.model.ExtremesMinMax;
 import gov.usgs.aqcu.model.ExtremesPoint;
 import gov.usgs.aqcu.model.ExtremesReport;
 import gov.usgs.aqcu.model.ExtremesReportMetadata;
+import gov.usgs.aqcu.parameter.ExtremesInterval;
 import gov.usgs.aqcu.parameter.ExtremesRequestParameters;
 import gov.usgs.aqcu.retrieval.LocationDescriptionListService;
 import gov.usgs.aqcu.retrieval.QualifierLookupService;
+import gov.usgs.aqcu.retrieval.StreamingTimeSeriesDataService;
 import gov.usgs.aqcu.retrieval.TimeSeriesDataService;
 import gov.usgs.aqcu.retrieval.TimeSeriesDescriptionListService;
 import gov.usgs.aqcu.util.AqcuTimeUtils;
@@ -48,6 +65,9 @@ import gov.usgs.aqcu.util.DoubleWithDisplayUtil;
 public class ReportBuilderServiceTest {
 	private ReportBuilderService service;
 	private MinMaxBuilderService minMaxBuilderService;
+	private TimeSeriesDescriptionCache tsDescCache;
+	private LocationDescriptionCache locDescCache;
+	private QualifierMetadataCache qualCache;
 	private ExtremesRequestParameters requestParameters;
 
 	@MockBean
@@ -58,6 +78,11 @@ public class ReportBuilderServiceTest {
 	TimeSeriesDataService tsDataService;
 	@MockBean
 	QualifierLookupService qualLookupService;
+	@MockBean
+	StreamingTimeSeriesDataService streamingTsDataService;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
 
 	private TimeSeriesDescription primaryDesc = new TimeSeriesDescription()
 		.setUniqueId("primaryTsId")
@@ -199,7 +224,10 @@ public class ReportBuilderServiceTest {
 	@Before
 	public void setup() {
 		minMaxBuilderService = new MinMaxBuilderService();
-		service = new ReportBuilderService(locDescService, minMaxBuilderService, tsDescService, tsDataService, qualLookupService);
+		tsDescCache = new TimeSeriesDescriptionCache(tsDescService, 3600, 100, false, new SimpleMeterRegistry());
+		locDescCache = new LocationDescriptionCache(locDescService, 3600, 100, new String[0], new SimpleMeterRegistry());
+		qualCache = new QualifierMetadataCache(qualLookupService, 3600, 3600, 100, new SimpleMeterRegistry());
+		service = new ReportBuilderService(locDescCache, minMaxBuilderService, tsDescCache, tsDataService, qualCache);
 		requestParameters = new ExtremesRequestParameters();
 		requestParameters.setStartDate(LocalDate.parse("2018-01-01"));
 		requestParameters.setEndDate(LocalDate.parse("2018-02-01"));
@@ -753,6 +781,283 @@ public class ReportBuilderServiceTest {
 		assertEquals(result.getReportMetadata().getQualifierMetadata().size(), 0);
 	}
 	
+	@Test
+	@SuppressWarnings("unchecked")
+	public void buildReportIntervalTest() {
+		given(tsDescService.getTimeSeriesDescriptionList(any(List.class))).willReturn(
+			Arrays.asList(primaryDesc)
+		);
+		given(tsDataService.get(eq("primaryTsId"), any(ExtremesRequestParameters.class), eq(ZoneOffset.UTC), eq(false), eq(false), eq(false), eq(null))).willReturn(
+			new TimeSeriesDataServiceResponse()
+				.setPoints(primaryPoints)
+				.setQualifiers(new ArrayList<>())
+		);
+		given(locDescService.getByLocationIdentifier(any(String.class))).willReturn(
+			new LocationDescription()
+				.setIdentifier("loc1")
+				.setUniqueId("loc1")
+				.setName("loc1")
+		);
+		requestParameters.setExtremesInterval(ExtremesInterval.DAY);
+
+		ExtremesReport result = service.buildReport(requestParameters, "test-user");
+
+		// Verify Primary Data
+		assertEquals(result.getPrimary().getMax().get(ExtremesMinMax.MIN_MAX_POINTS_KEY).size(), 3);
+		assertEquals(result.getPrimary().getMin().get(ExtremesMinMax.MIN_MAX_POINTS_KEY).get(0).getValue(), BigDecimal.valueOf(0.5D));
+		assertEquals(new ArrayList<>(result.getPrimary().getIntervals().keySet()), Arrays.asList("2018-01-01", "2018-01-02", "2018-01-03", "2018-01-04"));
+		ExtremesMinMax day = result.getPrimary().getIntervals().get("2018-01-02");
+		assertEquals(day.getMax().get(ExtremesMinMax.MIN_MAX_POINTS_KEY).size(), 2);
+		assertEquals(day.getMax().get(ExtremesMinMax.MIN_MAX_POINTS_KEY).get(0).getValue(), BigDecimal.valueOf(2.0D));
+		assertTrue(day.getMultipleMaxFlag());
+		day = result.getPrimary().getIntervals().get("2018-01-04");
+		assertEquals(day.getMin().get(ExtremesMinMax.MIN_MAX_POINTS_KEY).get(0).getValue(), BigDecimal.valueOf(0.5D));
+		assertFalse(day.getMultipleMinFlag());
+
+		// Verify Upchain and Derived Data
+		assertNull(result.getUpchain().getIntervals());
+		assertNull(result.getDv().getIntervals());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void buildReportTopTest() {
+		given(tsDescService.getTimeSeriesDescriptionList(any(List.class))).willReturn(
+			Arrays.asList(primaryDesc)
+		);
+		given(tsDataService.get(eq("primaryTsId"), any(ExtremesRequestParameters.class), eq(ZoneOffset.UTC), eq(false), eq(false), eq(false), eq(null))).willReturn(
+			new TimeSeriesDataServiceResponse()
+				.setPoints(primaryPoints)
+				.setQualifiers(new ArrayList<>())
+		);
+		given(locDescService.getByLocationIdentifier(any(String.class))).willReturn(
+			new LocationDescription()
+				.setIdentifier("loc1")
+				.setUniqueId("loc1")
+				.setName("loc1")
+		);
+		requestParameters.setTopCount(2);
+		requestParameters.setTopSeparationMinutes(60L * 24);
+
+		ExtremesReport result = service.buildReport(requestParameters, "test-user");
+
+		// Verify Primary Data
+		assertEquals(result.getPrimary().getMax().get(ExtremesMinMax.MIN_MAX_POINTS_KEY).size(), 3);
+		// The later points of 2.0 are within a day of the first, and the last point within a day of them
+		assertEquals(result.getPrimary().getMax().get(ExtremesMinMax.TOP_POINTS_KEY).size(), 1);
+		assertEquals(result.getPrimary().getMax().get(ExtremesMinMax.TOP_POINTS_KEY).get(0).getValue(), BigDecimal.valueOf(2.0D));
+		assertEquals(result.getPrimary().getMax().get(ExtremesMinMax.TOP_POINTS_KEY).get(0).getTime(), Instant.parse("2018-01-02T00:00:00Z"));
+		assertEquals(result.getPrimary().getMin().get(ExtremesMinMax.TOP_POINTS_KEY).size(), 2);
+		assertEquals(result.getPrimary().getMin().get(ExtremesMinMax.TOP_POINTS_KEY).get(0).getValue(), BigDecimal.valueOf(0.5D));
+		assertEquals(result.getPrimary().getMin().get(ExtremesMinMax.TOP_POINTS_KEY).get(1).getValue(), BigDecimal.valueOf(1.0D));
+
+		// Verify Upchain and Derived Data
+		assertNull(result.getUpchain().getMax());
+		assertNull(result.getDv().getMax());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void buildReportConcurrentRetrievalTest() {
+		given(tsDescService.getTimeSeriesDescriptionList(any(List.class))).willReturn(
+			Arrays.asList(primaryDesc, upchainDesc, derivedDesc)
+		);
+		given(tsDataService.get(eq("primaryTsId"), any(ExtremesRequestParameters.class), eq(ZoneOffset.UTC), eq(false), eq(false), eq(false), eq(null))).willReturn(
+			new TimeSeriesDataServiceResponse()
+				.setPoints(primaryPoints)
+				.setQualifiers(quals1)
+		);
+		given(tsDataService.get(eq("upchainTsId"), any(ExtremesRequestParameters.class), eq(ZoneOffset.UTC), eq(false), eq(false), eq(false), eq(null))).willReturn(
+			new TimeSeriesDataServiceResponse()
+				.setPoints(upchainPoints)
+				.setQualifiers(quals2)
+		);
+		given(tsDataService.get(eq("derivedTsId"), any(ExtremesRequestParameters.class), eq(ZoneOffset.UTC), eq(true), eq(false), eq(false), eq(null))).willReturn(
+			new TimeSeriesDataServiceResponse()
+				.setPoints(derivedPoints)
+				.setQualifiers(quals3)
+		);
+		given(qualLookupService.getByQualifierList(any(List.class))).willReturn(
+			qualMetadata
+		);
+		given(locDescService.getByLocationIdentifier(any(String.class))).willReturn(
+			new LocationDescription()
+				.setIdentifier("loc1")
+				.setUniqueId("loc1")
+				.setName("loc1")
+		);
+		requestParameters.setUpchainTimeseriesIdentifier("upchainTsId");
+		requestParameters.setDerivedTimeseriesIdentifier("derivedTsId");
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		service = new ReportBuilderService(locDescCache, minMaxBuilderService, tsDescCache, tsDataService, qualCache, executor, new SimpleMeterRegistry());
+
+		ExtremesReport result = service.buildReport(requestParameters, "test-user");
+		executor.shutdown();
+
+		assertEquals(result.getPrimary().getMax().get(ExtremesMinMax.MIN_MAX_POINTS_KEY).size(), 3);
+		assertEquals(result.getPrimary().getMax().get(ReportBuilderService.UPCHAIN_RELATED_KEY).size(), 2);
+		assertEquals(result.getUpchain().getMax().get(ExtremesMinMax.MIN_MAX_POINTS_KEY).get(0).getValue(), BigDecimal.valueOf(3.0D));
+		assertEquals(result.getUpchain().getMin().get(ReportBuilderService.PRIMARY_RELATED_KEY).get(0).getValue(), BigDecimal.valueOf(1.0D));
+		assertEquals(result.getDv().getMax().get(ExtremesMinMax.MIN_MAX_POINTS_KEY).get(0).getValue(), BigDecimal.valueOf(2.0D));
+		assertEquals(result.getReportMetadata().getStationName(), "loc1");
+		assertEquals(result.getReportMetadata().getQualifierMetadata().size(), 3);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void buildReportMissingPrimaryTest() {
+		given(tsDescService.getTimeSeriesDescriptionList(any(List.class))).willReturn(
+			Arrays.asList(upchainDesc)
+		);
+		requestParameters.setUpchainTimeseriesIdentifier("upchainTsId");
+
+		try {
+			service.buildReport(requestParameters, "test-user");
+			fail("Expected a missing primary time series description to be rejected");
+		} catch (IllegalArgumentException e) {
+			assertTrue(e.getMessage().contains("primaryTsId"));
+		}
+		verify(locDescService, never()).getByLocationIdentifier(any(String.class));
+		verify(tsDataService, never()).get(any(), any(ExtremesRequestParameters.class), any(), any(), any(), any(), any());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	@SuppressWarnings("unchecked")
+	public void buildReportRetrievalErrorTest() {
+		given(tsDescService.getTimeSeriesDescriptionList(any(List.class))).willReturn(
+			Arrays.asList(primaryDesc, upchainDesc)
+		);
+		given(tsDataService.get(eq("primaryTsId"), any(ExtremesRequestParameters.class), eq(ZoneOffset.UTC), eq(false), eq(false), eq(false), eq(null))).willReturn(
+			new TimeSeriesDataServiceResponse()
+				.setPoints(primaryPoints)
+				.setQualifiers(quals1)
+		);
+		given(tsDataService.get(eq("upchainTsId"), any(ExtremesRequestParameters.class), eq(ZoneOffset.UTC), eq(false), eq(false), eq(false), eq(null)))
+			.willThrow(new IllegalStateException("upchain failed"));
+		requestParameters.setUpchainTimeseriesIdentifier("upchainTsId");
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		service = new ReportBuilderService(locDescCache, minMaxBuilderService, tsDescCache, tsDataService, qualCache, executor, new SimpleMeterRegistry());
+
+		try {
+			service.buildReport(requestParameters, "test-user");
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void buildReportStreamedTest() {
+		given(tsDescService.getTimeSeriesDescriptionList(any(List.class))).willReturn(
+			Arrays.asList(primaryDesc, upchainDesc, derivedDesc)
+		);
+		given(streamingTsDataService.isEnabled()).willReturn(true);
+		given(streamingTsDataService.get(eq("primaryTsId"), any(ExtremesRequestParameters.class), eq(ZoneOffset.UTC), eq(false), any(Consumer.class))).willAnswer(
+			invocation -> streamPoints(invocation.getArgument(4), primaryPoints, quals1)
+		);
+		given(streamingTsDataService.get(eq("upchainTsId"), any(ExtremesRequestParameters.class), eq(ZoneOffset.UTC), eq(false), any(Consumer.class))).willAnswer(
+			invocation -> streamPoints(invocation.getArgument(4), upchainPoints, quals2)
+		);
+		given(streamingTsDataService.get(eq("derivedTsId"), any(ExtremesRequestParameters.class), eq(ZoneOffset.UTC), eq(true), any(Consumer.class))).willAnswer(
+			invocation -> streamPoints(invocation.getArgument(4), derivedPoints, quals3)
+		);
+		given(qualLookupService.getByQualifierList(any(List.class))).willReturn(
+			qualMetadata
+		);
+		given(locDescService.getByLocationIdentifier(any(String.class))).willReturn(
+			new LocationDescription()
+				.setIdentifier("loc1")
+				.setUniqueId("loc1")
+				.setName("loc1")
+		);
+		requestParameters.setUpchainTimeseriesIdentifier("upchainTsId");
+		requestParameters.setDerivedTimeseriesIdentifier("derivedTsId");
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		service = new ReportBuilderService(locDescCache, minMaxBuilderService, tsDescCache, tsDataService, streamingTsDataService, null, null, qualCache, executor, new SimpleMeterRegistry());
+
+		ExtremesReport result = service.buildReport(requestParameters, "test-user");
+		executor.shutdown();
+
+		assertEquals(result.getPrimary().getMax().get(ExtremesMinMax.MIN_MAX_POINTS_KEY).size(), 3);
+		assertEquals(result.getPrimary().getMax().get(ReportBuilderService.UPCHAIN_RELATED_KEY).size(), 2);
+		assertNull(result.getPrimary().getMin().get(ReportBuilderService.UPCHAIN_RELATED_KEY));
+		assertEquals(result.getPrimary().getQualifiers().size(), 2);
+		assertEquals(result.getUpchain().getMax().get(ExtremesMinMax.MIN_MAX_POINTS_KEY).get(0).getValue(), BigDecimal.valueOf(3.0D));
+		assertEquals(result.getUpchain().getMin().get(ReportBuilderService.PRIMARY_RELATED_KEY).get(0).getValue(), BigDecimal.valueOf(1.0D));
+		assertEquals(result.getDv().getMax().get(ExtremesMinMax.MIN_MAX_POINTS_KEY).get(0).getValue(), BigDecimal.valueOf(2.0D));
+		assertEquals(result.getDv().getMax().get(ExtremesMinMax.MIN_MAX_POINTS_KEY).size(), 1);
+		assertEquals(result.getReportMetadata().getStationName(), "loc1");
+		assertEquals(result.getReportMetadata().getQualifierMetadata().size(), 3);
+		verify(streamingTsDataService, times(2)).get(eq("primaryTsId"), any(ExtremesRequestParameters.class), eq(ZoneOffset.UTC), eq(false), any(Consumer.class));
+		verify(streamingTsDataService, times(1)).get(eq("derivedTsId"), any(ExtremesRequestParameters.class), eq(ZoneOffset.UTC), eq(true), any(Consumer.class));
+		verify(tsDataService, never()).get(any(String.class), any(ExtremesRequestParameters.class), any(ZoneOffset.class), any(Boolean.class), any(Boolean.class), any(Boolean.class), any(String.class));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void buildReportAggregatedTest() {
+		given(tsDescService.getTimeSeriesDescriptionList(any(List.class))).willReturn(
+			Arrays.asList(primaryDesc, upchainDesc, derivedDesc)
+		);
+		given(tsDataService.get(eq("primaryTsId"), any(ExtremesRequestParameters.class), eq(ZoneOffset.UTC), eq(false), eq(false), eq(false), eq(null))).willReturn(
+			new TimeSeriesDataServiceResponse()
+				.setPoints(primaryPoints)
+				.setQualifiers(quals1)
+		);
+		given(tsDataService.get(eq("upchainTsId"), any(ExtremesRequestParameters.class), eq(ZoneOffset.UTC), eq(false), eq(false), eq(false), eq(null))).willReturn(
+			new TimeSeriesDataServiceResponse()
+				.setPoints(upchainPoints)
+				.setQualifiers(quals2)
+		);
+		given(tsDataService.get(eq("derivedTsId"), any(ExtremesRequestParameters.class), eq(ZoneOffset.UTC), eq(true), eq(false), eq(false), eq(null))).willReturn(
+			new TimeSeriesDataServiceResponse()
+				.setPoints(derivedPoints)
+				.setQualifiers(quals3)
+		);
+		given(qualLookupService.getByQualifierList(any(List.class))).willReturn(
+			qualMetadata
+		);
+		given(locDescService.getByLocationIdentifier(any(String.class))).willReturn(
+			new LocationDescription()
+				.setIdentifier("loc1")
+				.setUniqueId("loc1")
+				.setName("loc1")
+		);
+		requestParameters.setUpchainTimeseriesIdentifier("upchainTsId");
+		requestParameters.setDerivedTimeseriesIdentifier("derivedTsId");
+		DailyAggregateService dailyAggregateService = new DailyAggregateService(
+			new DailyAggregateStore(folder.getRoot().getPath(), new SimpleMeterRegistry()), tsDataService, -1);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		service = new ReportBuilderService(locDescCache, minMaxBuilderService, tsDescCache, tsDataService, null, null, dailyAggregateService, qualCache, executor, new SimpleMeterRegistry());
+
+		ExtremesReport result = service.buildReport(requestParameters, "test-user");
+
+		assertEquals(result.getPrimary().getMax().get(ExtremesMinMax.MIN_MAX_POINTS_KEY).size(), 3);
+		assertEquals(result.getPrimary().getMin().get(ExtremesMinMax.MIN_MAX_POINTS_KEY).get(0).getValue(), BigDecimal.valueOf(0.5D));
+		assertEquals(result.getPrimary().getMax().get(ReportBuilderService.UPCHAIN_RELATED_KEY).size(), 2);
+		assertNull(result.getPrimary().getMin().get(ReportBuilderService.UPCHAIN_RELATED_KEY));
+		assertEquals(result.getPrimary().getQualifiers().size(), 2);
+		assertTrue(result.getPrimary().getMultipleMaxFlag());
+		assertEquals(result.getUpchain().getMax().get(ExtremesMinMax.MIN_MAX_POINTS_KEY).get(0).getValue(), BigDecimal.valueOf(3.0D));
+		assertEquals(result.getUpchain().getMin().get(ReportBuilderService.PRIMARY_RELATED_KEY).get(0).getValue(), BigDecimal.valueOf(1.0D));
+		assertEquals(result.getDv().getMax().get(ExtremesMinMax.MIN_MAX_POINTS_KEY).get(0).getValue(), BigDecimal.valueOf(2.0D));
+		assertEquals(result.getReportMetadata().getQualifierMetadata().size(), 3);
+		// The primary days of the upchain min and max are not adjacent, so they are retrieved separately
+		verify(tsDataService, times(3)).get(eq("primaryTsId"), any(ExtremesRequestParameters.class), eq(ZoneOffset.UTC), eq(false), eq(false), eq(false), eq(null));
+		verify(tsDataService, times(1)).get(eq("derivedTsId"), any(ExtremesRequestParameters.class), eq(ZoneOffset.UTC), eq(true), eq(false), eq(false), eq(null));
+
+		// The days are now stored, so only the days of the related points are retrieved again
+		service.buildReport(requestParameters, "test-user");
+		executor.shutdown();
+		verify(tsDataService, times(5)).get(eq("primaryTsId"), any(ExtremesRequestParameters.class), eq(ZoneOffset.UTC), eq(false), eq(false), eq(false), eq(null));
+		verify(tsDataService, times(1)).get(eq("derivedTsId"), any(ExtremesRequestParameters.class), eq(ZoneOffset.UTC), eq(true), eq(false), eq(false), eq(null));
+	}
+
+	private List<Qualifier> streamPoints(Consumer<TimeSeriesPoint> pointConsumer, List<TimeSeriesPoint> points, List<Qualifier> qualifiers) {
+		points.forEach(pointConsumer);
+		return qualifiers;
+	}
+
 	@Test
 	public void getExtremesPointsTest() {
 		List<ExtremesPoint> result = service.getExtremesPoints(primaryPoints, false, ZoneOffset.UTC);
@@ -0,0 +1,93 @@
+package gov.usgs.aqcu.builder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class RequestCoalescerTest {
+	private RequestCoalescer<Object> coalescer;
+
+	@Before
+	public void setup() {
+		coalescer = new RequestCoalescer<>(new SimpleMeterRegistry(), "test.requests");
+	}
+
+	@Test
+	public void executeCoalescesConcurrentRequestsTest() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger computations = new AtomicInteger();
+		Object shared = new Object();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+
+		Future<Object> leader = executor.submit(() -> coalescer.execute("key", () -> {
+			computations.incrementAndGet();
+			started.countDown();
+			try {
+				release.await(10, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return shared;
+		}));
+		started.await(10, TimeUnit.SECONDS);
+
+		List<Future<Object>> followers = new ArrayList<>();
+		for(int i = 0; i < 3; i++) {
+			followers.add(executor.submit(() -> coalescer.execute("key", () -> {
+				computations.incrementAndGet();
+				return new Object();
+			})));
+		}
+		while(coalescer.getCoalescedCount() < 3) {
+			Thread.sleep(10);
+		}
+		release.countDown();
+
+		assertSame(leader.get(10, TimeUnit.SECONDS), shared);
+		for(Future<Object> follower : followers) {
+			assertSame(follower.get(10, TimeUnit.SECONDS), shared);
+		}
+		executor.shutdown();
+		assertEquals(computations.get(), 1);
+		assertEquals(coalescer.getExecutedCount(), 1.0D, 0.0D);
+		assertEquals(coalescer.getCoalescedCount(), 3.0D, 0.0D);
+	}
+
+	@Test
+	public void executeSequentialRequestsTest() {
+		Object first = coalescer.execute("key", () -> new Object());
+		Object second = coalescer.execute("key", () -> new Object());
+		assertEquals(coalescer.getExecutedCount(), 2.0D, 0.0D);
+		assertEquals(coalescer.getCoalescedCount(), 0.0D, 0.0D);
+		assertNotSame(first, second);
+	}
+
+	@Test
+	public void executeExceptionTest() {
+		try {
+			coalescer.execute("key", () -> {
+				throw new IllegalStateException("failed");
+			});
+			fail("Expected exception");
+		} catch (IllegalStateException e) {
+			assertEquals(e.getMessage(), "failed");
+		}
+		assertEquals(coalescer.execute("key", () -> "ok"), "ok");
+	}
+}
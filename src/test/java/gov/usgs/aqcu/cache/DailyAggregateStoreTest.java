@@ -0,0 +1,120 @@
+package gov.usgs.aqcu.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.Arrays;
+
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.DoubleWithDisplay;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.Qualifier;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.StatisticalDateTimeOffset;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesPoint;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import gov.usgs.aqcu.model.DailyAggregate;
+import gov.usgs.aqcu.model.DailyAggregate.AggregatePoint;
+import gov.usgs.aqcu.model.SeriesAggregates;
+import gov.usgs.aqcu.model.SeriesAggregates.AggregateQualifier;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class DailyAggregateStoreTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private DailyAggregateStore store;
+	private SimpleMeterRegistry meterRegistry;
+
+	@Before
+	public void setup() {
+		meterRegistry = new SimpleMeterRegistry();
+		store = new DailyAggregateStore(folder.getRoot().getPath(), meterRegistry);
+	}
+
+	@Test
+	public void saveLoadTest() {
+		TimeSeriesPoint point = new TimeSeriesPoint()
+			.setTimestamp(new StatisticalDateTimeOffset()
+				.setDateTimeOffset(Instant.parse("2018-01-01T06:00:00.0000001Z"))
+				.setRepresentsEndOfTimePeriod(false)
+			)
+			.setValue(new DoubleWithDisplay()
+				.setDisplay("1.50")
+				.setNumeric(1.5D)
+			);
+		SeriesAggregates aggregates = new SeriesAggregates()
+			.setUniqueId("tsId")
+			.setLastModified("2018-03-01T00:00:00Z")
+			.setQualifiers(Arrays.asList(new AggregateQualifier(new Qualifier()
+				.setIdentifier("ICE")
+				.setStartTime(Instant.parse("2018-01-01T00:00:00Z"))
+			)));
+		aggregates.getDays().put("2018-01-01", new DailyAggregate()
+			.setDate("2018-01-01")
+			.setPointCount(1)
+			.setMaxValue(1.5D)
+			.setMaxPoints(Arrays.asList(new AggregatePoint(point)))
+			.setMaxDisplayPoint(new AggregatePoint(point))
+			.setMultipleMaxFlag(true)
+		);
+		aggregates.getDays().put("2018-01-02", new DailyAggregate().setDate("2018-01-02"));
+
+		store.save("tsId|Z|false", aggregates);
+		SeriesAggregates result = store.load("tsId|Z|false");
+
+		assertEquals(result.getLastModified(), "2018-03-01T00:00:00Z");
+		assertEquals(result.getQualifiers().get(0).toQualifier().getIdentifier(), "ICE");
+		assertNull(result.getQualifiers().get(0).toQualifier().getEndTime());
+		assertEquals(result.getDays().size(), 2);
+		assertTrue(result.getDays().get("2018-01-02").isEmpty());
+		DailyAggregate day = result.getDays().get("2018-01-01");
+		assertFalse(day.isEmpty());
+		assertTrue(day.isMultipleMaxFlag());
+		TimeSeriesPoint maxPoint = day.getMaxPoints().get(0).toPoint();
+		assertEquals(maxPoint.getTimestamp().getDateTimeOffset(), point.getTimestamp().getDateTimeOffset());
+		assertEquals(maxPoint.getValue().getDisplay(), "1.50");
+		assertEquals(maxPoint.getValue().getNumeric(), 1.5D, 0.0D);
+	}
+
+	@Test
+	public void loadMissingTest() {
+		assertNull(store.load("tsId|Z|false"));
+	}
+
+	@Test
+	public void loadUnreadableTest() throws Exception {
+		store.save("tsId|Z|false", new SeriesAggregates());
+		Files.write(store.getPath("tsId|Z|false"), "{".getBytes());
+		assertNull(store.load("tsId|Z|false"));
+	}
+
+	@Test
+	public void saveFailureTest() throws Exception {
+		// A non-empty directory in place of the file fails the move
+		Files.createDirectories(store.getPath("tsId|Z|false").resolve("day"));
+		store.save("tsId|Z|false", new SeriesAggregates());
+		assertTrue(Files.isDirectory(store.getPath("tsId|Z|false")));
+		assertEquals(store.getPath("tsId|Z|false").getParent().toFile().list().length, 1);
+	}
+
+	@Test
+	public void disabledTest() {
+		assertTrue(store.isEnabled());
+		assertFalse(new DailyAggregateStore("", meterRegistry).isEnabled());
+	}
+
+	@Test
+	public void recordDaysTest() {
+		store.recordDays(3, 2);
+		store.recordDays(1, 0);
+		assertEquals(meterRegistry.counter(DailyAggregateStore.DAYS_METRIC_NAME, "source", "store").count(), 4.0D, 0.0D);
+		assertEquals(meterRegistry.counter(DailyAggregateStore.DAYS_METRIC_NAME, "source", "aquarius").count(), 2.0D, 0.0D);
+	}
+}
@@ -0,0 +1,58 @@
+package gov.usgs.aqcu.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.LocationDescription;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import gov.usgs.aqcu.retrieval.LocationDescriptionListService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@RunWith(SpringRunner.class)
+public class LocationDescriptionCacheTest {
+	@MockBean
+	LocationDescriptionListService locDescService;
+
+	private LocationDescription loc1 = new LocationDescription().setIdentifier("loc1").setName("Station 1");
+	private LocationDescription loc2 = new LocationDescription().setIdentifier("loc2").setName("Station 2");
+
+	@Before
+	public void setup() {
+		given(locDescService.getByLocationIdentifier("loc1")).willReturn(loc1);
+		given(locDescService.getByLocationIdentifier("loc2")).willReturn(loc2);
+	}
+
+	@Test
+	public void getByLocationIdentifierTest() {
+		LocationDescriptionCache cache = new LocationDescriptionCache(locDescService, 3600, 100, new String[0], new SimpleMeterRegistry());
+		assertEquals(cache.getByLocationIdentifier("loc1").getName(), "Station 1");
+		assertEquals(cache.getByLocationIdentifier("loc1").getName(), "Station 1");
+		assertEquals(cache.getByLocationIdentifier("loc2").getName(), "Station 2");
+		verify(locDescService, times(1)).getByLocationIdentifier("loc1");
+		verify(locDescService, times(1)).getByLocationIdentifier("loc2");
+	}
+
+	@Test
+	public void preloadTest() {
+		given(locDescService.getByLocationIdentifier("bad")).willThrow(new RuntimeException("not found"));
+		LocationDescriptionCache cache = new LocationDescriptionCache(locDescService, 3600, 100, new String[] {"loc1", " loc2 ", "bad", ""}, new SimpleMeterRegistry());
+		cache.preload();
+		verify(locDescService, times(1)).getByLocationIdentifier("loc1");
+		verify(locDescService, times(1)).getByLocationIdentifier("loc2");
+		verify(locDescService, never()).getByLocationIdentifier("");
+
+		assertEquals(cache.getByLocationIdentifier("loc1").getName(), "Station 1");
+		assertEquals(cache.getByLocationIdentifier("loc2").getName(), "Station 2");
+		verify(locDescService, times(1)).getByLocationIdentifier("loc1");
+		verify(locDescService, times(1)).getByLocationIdentifier("loc2");
+	}
+}
@@ -0,0 +1,84 @@
+package gov.usgs.aqcu.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.Qualifier;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.QualifierMetadata;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import gov.usgs.aqcu.retrieval.QualifierLookupService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@RunWith(SpringRunner.class)
+public class QualifierMetadataCacheTest {
+	@MockBean
+	QualifierLookupService qualLookupService;
+
+	private QualifierMetadataCache cache;
+	private Qualifier qual1 = new Qualifier().setIdentifier("qual1");
+	private Qualifier qual2 = new Qualifier().setIdentifier("qual2");
+	private HashMap<String, QualifierMetadata> qualMetadata;
+
+	@Before
+	public void setup() {
+		cache = new QualifierMetadataCache(qualLookupService, 3600, 86400, 100, new SimpleMeterRegistry());
+		qualMetadata = new HashMap<>();
+		qualMetadata.put("qual1", new QualifierMetadata().setIdentifier("qual1"));
+		qualMetadata.put("qual2", new QualifierMetadata().setIdentifier("qual2"));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void getByQualifierListTest() {
+		given(qualLookupService.getByQualifierList(any(List.class))).willReturn(
+			qualMetadata
+		);
+		Map<String, QualifierMetadata> result = cache.getByQualifierList(Arrays.asList(qual1, qual2, qual1, qual1, qual2));
+		assertEquals(result, qualMetadata);
+
+		ArgumentCaptor<List> captor = ArgumentCaptor.forClass(List.class);
+		verify(qualLookupService, times(1)).getByQualifierList(captor.capture());
+		assertEquals(captor.getValue(), Arrays.asList(qual1, qual2));
+
+		result = cache.getByQualifierList(Arrays.asList(qual2, qual1));
+		assertEquals(result, qualMetadata);
+		verify(qualLookupService, times(1)).getByQualifierList(any(List.class));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void getByQualifierListPartialTest() {
+		HashMap<String, QualifierMetadata> qual1Metadata = new HashMap<>();
+		qual1Metadata.put("qual1", qualMetadata.get("qual1"));
+		HashMap<String, QualifierMetadata> qual2Metadata = new HashMap<>();
+		qual2Metadata.put("qual2", qualMetadata.get("qual2"));
+		given(qualLookupService.getByQualifierList(Arrays.asList(qual1))).willReturn(qual1Metadata);
+		given(qualLookupService.getByQualifierList(Arrays.asList(qual2))).willReturn(qual2Metadata);
+
+		assertEquals(cache.getByQualifierList(Arrays.asList(qual1)), qual1Metadata);
+		assertEquals(cache.getByQualifierList(Arrays.asList(qual1, qual2)), qualMetadata);
+		verify(qualLookupService, times(1)).getByQualifierList(Arrays.asList(qual1));
+		verify(qualLookupService, times(1)).getByQualifierList(Arrays.asList(qual2));
+	}
+
+	@Test
+	public void getByQualifierListEmptyTest() {
+		assertEquals(cache.getByQualifierList(null).size(), 0);
+		assertEquals(cache.getByQualifierList(Arrays.asList()).size(), 0);
+	}
+}
@@ -0,0 +1,85 @@
+package gov.usgs.aqcu.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import gov.usgs.aqcu.client.JavaToRClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@RunWith(SpringRunner.class)
+public class RenderedReportCacheTest {
+	@MockBean
+	JavaToRClient client;
+
+	private RenderedReportCache cache;
+	private byte[] html = "<html></html>".getBytes();
+
+	@Before
+	public void setup() {
+		cache = new RenderedReportCache(client, 3600, 1000000, new SimpleMeterRegistry());
+		given(client.render(any(String.class), any(String.class), any(String.class))).willReturn(html);
+	}
+
+	@Test
+	public void renderSamePayloadOnceTest() {
+		assertEquals(cache.render("user", "extremes", "{\"a\":1}"), html);
+		assertEquals(cache.render("user", "extremes", "{\"a\":1}"), html);
+		verify(client, times(1)).render("user", "extremes", "{\"a\":1}");
+	}
+
+	@Test
+	public void renderChangedPayloadTest() {
+		cache.render("user", "extremes", "{\"a\":1}");
+		cache.render("user", "extremes", "{\"a\":2}");
+		verify(client, times(1)).render("user", "extremes", "{\"a\":1}");
+		verify(client, times(1)).render("user", "extremes", "{\"a\":2}");
+	}
+
+	@Test
+	public void renderPerUserTest() {
+		cache.render("user1", "extremes", "{\"reportMetadata\":{\"requestingUser\":\"user1\"}}");
+		cache.render("user2", "extremes", "{\"reportMetadata\":{\"requestingUser\":\"user2\"}}");
+		verify(client, times(1)).render("user1", "extremes", "{\"reportMetadata\":{\"requestingUser\":\"user1\"}}");
+		verify(client, times(1)).render("user2", "extremes", "{\"reportMetadata\":{\"requestingUser\":\"user2\"}}");
+	}
+
+	@Test
+	public void renderFailureNotCachedTest() {
+		given(client.render("user", "extremes", "{\"a\":1}")).willThrow(new RuntimeException("render failed"));
+		try {
+			cache.render("user", "extremes", "{\"a\":1}");
+			fail("Expected the render failure to be thrown");
+		} catch (RuntimeException e) {
+			assertEquals("render failed", e.getMessage());
+		}
+		given(client.render("user", "extremes", "{\"a\":1}")).willReturn(html);
+		assertEquals(cache.render("user", "extremes", "{\"a\":1}"), html);
+		verify(client, times(2)).render("user", "extremes", "{\"a\":1}");
+	}
+
+	@Test
+	public void renderAfterInvalidateTest() {
+		cache.render("user", "extremes", "{\"a\":1}");
+		cache.invalidateAll();
+		cache.render("user", "extremes", "{\"a\":1}");
+		verify(client, times(2)).render("user", "extremes", "{\"a\":1}");
+	}
+
+	@Test
+	public void getKeyTest() {
+		assertEquals(RenderedReportCache.getKey("extremes", "{}"), RenderedReportCache.getKey("extremes", "{}"));
+		assertNotEquals(RenderedReportCache.getKey("extremes", "{}"), RenderedReportCache.getKey("extremes", "{ }"));
+		assertNotEquals(RenderedReportCache.getKey("extremes", "{}"), RenderedReportCache.getKey("other", "{}"));
+	}
+}
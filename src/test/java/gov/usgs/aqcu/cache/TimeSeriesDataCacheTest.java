@@ -0,0 +1,142 @@
+package gov.usgs.aqcu.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Matchers.any;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.DoubleWithDisplay;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.StatisticalDateTimeOffset;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesDescription;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesPoint;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import gov.usgs.aqcu.builder.ColumnarTimeSeries;
+import gov.usgs.aqcu.retrieval.TimeSeriesDescriptionListService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@RunWith(SpringRunner.class)
+public class TimeSeriesDataCacheTest {
+	@MockBean
+	TimeSeriesDescriptionListService tsDescService;
+
+	private TimeSeriesDataCache cache;
+	private TimeSeriesDescription description;
+	private TimeSeriesDescription currentDescription;
+	private ColumnarTimeSeries series;
+	private AtomicInteger retrievals;
+
+	@Before
+	@SuppressWarnings("unchecked")
+	public void setup() {
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		cache = new TimeSeriesDataCache(new TimeSeriesDescriptionCache(tsDescService, 3600, 100, false, meterRegistry),
+			3600, 1000, meterRegistry);
+		description = new TimeSeriesDescription()
+			.setUniqueId("tsId")
+			.setLastModified(Instant.parse("2018-06-01T00:00:00Z"));
+		currentDescription = description;
+		given(tsDescService.getTimeSeriesDescriptionList(any(List.class))).willAnswer(invocation -> Arrays.asList(currentDescription));
+		List<TimeSeriesPoint> points = new ArrayList<>();
+		for(int day = 1; day <= 31; day++) {
+			points.add(new TimeSeriesPoint()
+				.setTimestamp(new StatisticalDateTimeOffset()
+					.setDateTimeOffset(Instant.parse("2018-01-01T00:00:00Z").plusSeconds((day - 1) * 86400L))
+					.setRepresentsEndOfTimePeriod(false)
+				)
+				.setValue(new DoubleWithDisplay()
+					.setDisplay(day + ".0")
+					.setNumeric((double) day)
+				)
+			);
+		}
+		series = ColumnarTimeSeries.fromPoints(points);
+		retrievals = new AtomicInteger();
+	}
+
+	@Test
+	public void getSubPeriodTest() {
+		ColumnarTimeSeries result = get(Instant.parse("2018-01-01T00:00:00Z"), Instant.parse("2018-01-31T23:59:59Z"));
+		assertEquals(result.size(), 31);
+		assertTrue(result.isIndexed());
+
+		result = get(Instant.parse("2018-01-10T00:00:00Z"), Instant.parse("2018-01-19T23:59:59Z"));
+		assertEquals(result.size(), 10);
+		assertEquals(result.getTime(0), Instant.parse("2018-01-10T00:00:00Z"));
+		assertEquals(result.getDisplay(9), "19.0");
+		assertTrue(result.isIndexed());
+		assertEquals(retrievals.get(), 1);
+		assertEquals(cache.getHitCount(), 1.0D, 0.0D);
+	}
+
+	@Test
+	public void getUncoveredPeriodTest() {
+		get(Instant.parse("2018-01-10T00:00:00Z"), Instant.parse("2018-01-19T23:59:59Z"));
+		get(Instant.parse("2018-01-01T00:00:00Z"), Instant.parse("2018-01-19T23:59:59Z"));
+		assertEquals(retrievals.get(), 2);
+
+		// The wider period replaces the cached period
+		get(Instant.parse("2018-01-05T00:00:00Z"), Instant.parse("2018-01-15T23:59:59Z"));
+		assertEquals(retrievals.get(), 2);
+	}
+
+	@Test
+	public void getModifiedTest() {
+		get(Instant.parse("2018-01-01T00:00:00Z"), Instant.parse("2018-01-31T23:59:59Z"));
+
+		// The series changed in Aquarius while the description passed in is still the cached one
+		currentDescription = new TimeSeriesDescription()
+			.setUniqueId("tsId")
+			.setLastModified(Instant.parse("2018-07-01T00:00:00Z"));
+		get(Instant.parse("2018-01-01T00:00:00Z"), Instant.parse("2018-01-31T23:59:59Z"));
+		assertEquals(retrievals.get(), 2);
+		get(Instant.parse("2018-01-01T00:00:00Z"), Instant.parse("2018-01-31T23:59:59Z"));
+		assertEquals(retrievals.get(), 2);
+		get(Instant.parse("2018-01-01T00:00:00Z"), Instant.parse("2018-01-31T23:59:59Z"), ZoneOffset.ofHours(-5));
+		assertEquals(retrievals.get(), 3);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void getDescriptionFailureTest() {
+		get(Instant.parse("2018-01-01T00:00:00Z"), Instant.parse("2018-01-31T23:59:59Z"));
+		given(tsDescService.getTimeSeriesDescriptionList(any(List.class))).willThrow(new RuntimeException("unavailable"));
+
+		// Without the current description the cached period is not served
+		ColumnarTimeSeries result = get(Instant.parse("2018-01-10T00:00:00Z"), Instant.parse("2018-01-19T23:59:59Z"));
+		assertEquals(result.size(), 10);
+		assertTrue(result.isIndexed());
+		assertEquals(retrievals.get(), 2);
+	}
+
+	@Test
+	public void getNullTest() {
+		assertNull(cache.get(description, ZoneOffset.UTC, false, Instant.parse("2018-01-01T00:00:00Z"), Instant.parse("2018-01-31T23:59:59Z"), () -> null));
+		get(Instant.parse("2018-01-01T00:00:00Z"), Instant.parse("2018-01-31T23:59:59Z"));
+		assertEquals(retrievals.get(), 1);
+	}
+
+	private ColumnarTimeSeries get(Instant startTime, Instant endTime) {
+		return get(startTime, endTime, ZoneOffset.UTC);
+	}
+
+	private ColumnarTimeSeries get(Instant startTime, Instant endTime, ZoneOffset zoneOffset) {
+		return cache.get(description, zoneOffset, false, startTime, endTime, () -> {
+			retrievals.incrementAndGet();
+			return series.subSeries(startTime, endTime);
+		});
+	}
+}
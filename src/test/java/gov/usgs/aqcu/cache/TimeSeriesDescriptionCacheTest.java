@@ -0,0 +1,88 @@
+package gov.usgs.aqcu.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesDescription;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import gov.usgs.aqcu.retrieval.TimeSeriesDescriptionListService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@RunWith(SpringRunner.class)
+public class TimeSeriesDescriptionCacheTest {
+	@MockBean
+	TimeSeriesDescriptionListService tsDescService;
+
+	private TimeSeriesDescriptionCache cache;
+	private TimeSeriesDescription primaryDesc = new TimeSeriesDescription().setUniqueId("primaryTsId");
+	private TimeSeriesDescription upchainDesc = new TimeSeriesDescription().setUniqueId("upchainTsId");
+
+	@Before
+	public void setup() {
+		cache = new TimeSeriesDescriptionCache(tsDescService, 3600, 100, false, new SimpleMeterRegistry());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void getTimeSeriesDescriptionsOnlyRequestsMissingTest() {
+		given(tsDescService.getTimeSeriesDescriptionList(any(List.class))).willReturn(
+			Arrays.asList(primaryDesc)
+		);
+		Map<String, TimeSeriesDescription> result = cache.getTimeSeriesDescriptions(Arrays.asList("primaryTsId"));
+		assertEquals(result.size(), 1);
+		assertEquals(result.get("primaryTsId"), primaryDesc);
+
+		given(tsDescService.getTimeSeriesDescriptionList(any(List.class))).willReturn(
+			Arrays.asList(upchainDesc)
+		);
+		result = cache.getTimeSeriesDescriptions(Arrays.asList("primaryTsId", "upchainTsId"));
+		assertEquals(result.size(), 2);
+		assertEquals(result.get("primaryTsId"), primaryDesc);
+		assertEquals(result.get("upchainTsId"), upchainDesc);
+
+		result = cache.getTimeSeriesDescriptions(Arrays.asList("primaryTsId", "upchainTsId"));
+		assertEquals(result.size(), 2);
+		verify(tsDescService, times(1)).getTimeSeriesDescriptionList(Arrays.asList("primaryTsId"));
+		verify(tsDescService, times(1)).getTimeSeriesDescriptionList(Arrays.asList("upchainTsId"));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void getTimeSeriesDescriptionsNotFoundTest() {
+		given(tsDescService.getTimeSeriesDescriptionList(any(List.class))).willReturn(
+			Arrays.asList(primaryDesc)
+		);
+		Map<String, TimeSeriesDescription> result = cache.getTimeSeriesDescriptions(Arrays.asList("primaryTsId", "missingTsId"));
+		assertEquals(result.size(), 1);
+		assertTrue(result.containsKey("primaryTsId"));
+
+		cache.getTimeSeriesDescriptions(Arrays.asList("missingTsId"));
+		verify(tsDescService, times(1)).getTimeSeriesDescriptionList(Arrays.asList("missingTsId"));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void invalidateTest() {
+		given(tsDescService.getTimeSeriesDescriptionList(any(List.class))).willReturn(
+			Arrays.asList(primaryDesc)
+		);
+		cache.getTimeSeriesDescriptions(Arrays.asList("primaryTsId"));
+		cache.invalidate("primaryTsId");
+		cache.getTimeSeriesDescriptions(Arrays.asList("primaryTsId"));
+		verify(tsDescService, times(2)).getTimeSeriesDescriptionList(Arrays.asList("primaryTsId"));
+	}
+}
@@ -0,0 +1,268 @@
+package gov.usgs.aqcu.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Matchers.any;
+
+import java.nio.file.Files;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.DoubleWithDisplay;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.StatisticalDateTimeOffset;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesDescription;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesPoint;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import gov.usgs.aqcu.builder.ColumnarTimeSeries;
+import gov.usgs.aqcu.cache.TimeSeriesDiskCache.EvictionPolicy;
+import gov.usgs.aqcu.retrieval.TimeSeriesDescriptionListService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@RunWith(SpringRunner.class)
+public class TimeSeriesDiskCacheTest {
+	@MockBean
+	TimeSeriesDescriptionListService tsDescService;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private TimeSeriesDiskCache cache;
+	private TimeSeriesDescriptionCache descriptionCache;
+	private SimpleMeterRegistry meterRegistry;
+	private TimeSeriesDescription description;
+	private ColumnarTimeSeries series;
+	private TimeSeriesDescription currentDescription;
+
+	@Before
+	@SuppressWarnings("unchecked")
+	public void setup() {
+		meterRegistry = new SimpleMeterRegistry();
+		cache = new TimeSeriesDiskCache(folder.getRoot().getPath(), 1000000, 0, EvictionPolicy.LRU, meterRegistry);
+		descriptionCache = new TimeSeriesDescriptionCache(tsDescService, 3600, 100, false, meterRegistry);
+		description = new TimeSeriesDescription()
+			.setUniqueId("tsId")
+			.setLastModified(Instant.parse("2018-06-01T00:00:00Z"));
+		series = createSeries(31);
+		currentDescription = description;
+		given(tsDescService.getTimeSeriesDescriptionList(any(List.class))).willAnswer(invocation -> Arrays.asList(currentDescription));
+	}
+
+	@Test
+	public void getSubPeriodTest() {
+		assertNull(get(description, "2018-01-01T00:00:00Z", "2018-01-31T23:59:59Z"));
+		put(description, "2018-01-01T00:00:00Z", "2018-01-31T23:59:59Z", series);
+
+		ColumnarTimeSeries result = get(description, "2018-01-10T00:00:00Z", "2018-01-19T23:59:59Z");
+		assertEquals(result.size(), 10);
+		assertEquals(result.getTime(0), Instant.parse("2018-01-10T00:00:00Z"));
+		assertEquals(result.getDisplay(0), "10.0");
+		assertNull(get(description, "2017-12-31T00:00:00Z", "2018-01-19T23:59:59Z"));
+		assertNull(get(description, "2018-01-10T00:00:00Z", "2018-02-01T00:00:00Z"));
+
+		assertEquals(cache.getHitCount(), 1.0D, 0.0D);
+		assertEquals(meterRegistry.counter(TimeSeriesDiskCache.REQUESTS_METRIC_NAME, "result", "miss").count(), 3.0D, 0.0D);
+	}
+
+	@Test
+	public void getModifiedTest() {
+		put(description, "2018-01-01T00:00:00Z", "2018-01-31T23:59:59Z", series);
+		TimeSeriesDescription modified = new TimeSeriesDescription()
+			.setUniqueId("tsId")
+			.setLastModified(Instant.parse("2018-06-02T00:00:00Z"));
+
+		assertNull(get(modified, "2018-01-10T00:00:00Z", "2018-01-19T23:59:59Z"));
+		// The segment retrieved before the series was modified is deleted
+		assertEquals(cache.getTotalBytes(), 0);
+		assertEquals(folder.getRoot().list().length, 0);
+		assertNull(get(description, "2018-01-10T00:00:00Z", "2018-01-19T23:59:59Z"));
+		assertEquals(meterRegistry.counter(TimeSeriesDiskCache.EVICTIONS_METRIC_NAME, "cause", "modified").count(), 1.0D, 0.0D);
+	}
+
+	@Test
+	public void putReplacesCoveredSegmentsTest() {
+		put(description, "2018-01-10T00:00:00Z", "2018-01-19T23:59:59Z", series.subSeries(9, 19));
+		put(description, "2018-01-01T00:00:00Z", "2018-01-31T23:59:59Z", series);
+
+		assertEquals(folder.getRoot().list().length, 1);
+		assertEquals(get(description, "2018-01-10T00:00:00Z", "2018-01-19T23:59:59Z").size(), 10);
+		assertEquals(get(description, "2018-01-01T00:00:00Z", "2018-01-31T23:59:59Z").size(), 31);
+	}
+
+	@Test
+	public void evictLeastRecentlyUsedTest() throws Exception {
+		put(description, "2018-01-01T00:00:00Z", "2018-01-31T23:59:59Z", series);
+		long segmentBytes = cache.getTotalBytes();
+		cache = new TimeSeriesDiskCache(folder.getRoot().getPath(), segmentBytes * 2, 0, EvictionPolicy.LRU, meterRegistry);
+		cache.loadSegments();
+		assertEquals(cache.getTotalBytes(), segmentBytes);
+
+		TimeSeriesDescription other = new TimeSeriesDescription()
+			.setUniqueId("ts02")
+			.setLastModified(Instant.parse("2018-06-01T00:00:00Z"));
+		put(other, "2018-01-01T00:00:00Z", "2018-01-31T23:59:59Z", series);
+		Thread.sleep(5);
+		assertEquals(get(description, "2018-01-01T00:00:00Z", "2018-01-31T23:59:59Z").size(), 31);
+
+		// The other series was used least recently, so it is evicted to make room
+		TimeSeriesDescription third = new TimeSeriesDescription()
+			.setUniqueId("ts03")
+			.setLastModified(Instant.parse("2018-06-01T00:00:00Z"));
+		put(third, "2018-01-01T00:00:00Z", "2018-01-31T23:59:59Z", series);
+		assertNull(get(other, "2018-01-01T00:00:00Z", "2018-01-31T23:59:59Z"));
+		assertEquals(get(description, "2018-01-01T00:00:00Z", "2018-01-31T23:59:59Z").size(), 31);
+		assertEquals(get(third, "2018-01-01T00:00:00Z", "2018-01-31T23:59:59Z").size(), 31);
+		assertEquals(cache.getTotalBytes(), segmentBytes * 2);
+		assertEquals(meterRegistry.counter(TimeSeriesDiskCache.EVICTIONS_METRIC_NAME, "cause", "size").count(), 1.0D, 0.0D);
+	}
+
+	@Test
+	public void evictFirstInTest() throws Exception {
+		put(description, "2018-01-01T00:00:00Z", "2018-01-31T23:59:59Z", series);
+		long segmentBytes = cache.getTotalBytes();
+		cache.invalidateAll();
+		cache = new TimeSeriesDiskCache(folder.getRoot().getPath(), segmentBytes * 2, 0, EvictionPolicy.FIFO, meterRegistry);
+
+		TimeSeriesDescription other = new TimeSeriesDescription()
+			.setUniqueId("ts02")
+			.setLastModified(Instant.parse("2018-06-01T00:00:00Z"));
+		put(description, "2018-01-01T00:00:00Z", "2018-01-31T23:59:59Z", series);
+		Thread.sleep(5);
+		put(other, "2018-01-01T00:00:00Z", "2018-01-31T23:59:59Z", series);
+		assertEquals(get(description, "2018-01-01T00:00:00Z", "2018-01-31T23:59:59Z").size(), 31);
+
+		// The first stored series is evicted even though it was used most recently
+		TimeSeriesDescription third = new TimeSeriesDescription()
+			.setUniqueId("ts03")
+			.setLastModified(Instant.parse("2018-06-01T00:00:00Z"));
+		put(third, "2018-01-01T00:00:00Z", "2018-01-31T23:59:59Z", series);
+		assertNull(get(description, "2018-01-01T00:00:00Z", "2018-01-31T23:59:59Z"));
+		assertEquals(get(other, "2018-01-01T00:00:00Z", "2018-01-31T23:59:59Z").size(), 31);
+	}
+
+	@Test
+	public void putLargerThanCacheTest() {
+		cache = new TimeSeriesDiskCache(folder.getRoot().getPath(), 100, 0, EvictionPolicy.LRU, meterRegistry);
+		put(description, "2018-01-01T00:00:00Z", "2018-01-31T23:59:59Z", series);
+		assertEquals(cache.getTotalBytes(), 0);
+		assertEquals(folder.getRoot().list().length, 0);
+	}
+
+	@Test
+	public void loadSegmentsTest() throws Exception {
+		put(description, "2018-01-01T00:00:00Z", "2018-01-31T23:59:59Z", series);
+		Files.write(folder.getRoot().toPath().resolve("unreadable" + TimeSeriesDiskCache.SEGMENT_SUFFIX), "bytes".getBytes());
+		Files.write(folder.getRoot().toPath().resolve("partial.tmp"), "bytes".getBytes());
+
+		cache = new TimeSeriesDiskCache(folder.getRoot().getPath(), 1000000, 0, EvictionPolicy.LRU, meterRegistry);
+		cache.loadSegments();
+		assertEquals(folder.getRoot().list().length, 1);
+		assertEquals(get(description, "2018-01-10T00:00:00Z", "2018-01-19T23:59:59Z").size(), 10);
+	}
+
+	@Test
+	public void disabledTest() {
+		assertTrue(cache.isEnabled());
+		assertFalse(new TimeSeriesDiskCache("", 1000000, 0, EvictionPolicy.LRU, meterRegistry).isEnabled());
+	}
+
+	@Test
+	public void dataCacheUsesDiskCacheTest() {
+		AtomicInteger retrievals = new AtomicInteger();
+		TimeSeriesDataCache dataCache = new TimeSeriesDataCache(descriptionCache, 3600, 1000, cache, meterRegistry);
+		dataCache.get(description, ZoneOffset.UTC, false, Instant.parse("2018-01-01T00:00:00Z"), Instant.parse("2018-01-31T23:59:59Z"), () -> {
+			retrievals.incrementAndGet();
+			return series;
+		});
+
+		// A new process cache, as after a restart, is filled from the disk cache
+		dataCache = new TimeSeriesDataCache(descriptionCache, 3600, 1000, cache, meterRegistry);
+		ColumnarTimeSeries result = dataCache.get(description, ZoneOffset.UTC, false,
+			Instant.parse("2018-01-10T00:00:00Z"), Instant.parse("2018-01-19T23:59:59Z"), () -> {
+				retrievals.incrementAndGet();
+				return series;
+			});
+		assertEquals(result.size(), 10);
+		assertTrue(result.isIndexed());
+		assertEquals(retrievals.get(), 1);
+	}
+
+	@Test
+	public void dataCacheChecksCurrentDescriptionTest() {
+		AtomicInteger retrievals = new AtomicInteger();
+		getFromDataCache(retrievals);
+		assertEquals(retrievals.get(), 1);
+
+		// The series changed in Aquarius while the description passed in is still the cached one
+		currentDescription = new TimeSeriesDescription()
+			.setUniqueId("tsId")
+			.setLastModified(Instant.parse("2018-06-02T00:00:00Z"));
+		getFromDataCache(retrievals);
+		assertEquals(retrievals.get(), 2);
+		assertEquals(meterRegistry.counter(TimeSeriesDiskCache.EVICTIONS_METRIC_NAME, "cause", "modified").count(), 1.0D, 0.0D);
+
+		// The segment retrieved after the change is stored at the current last modified time
+		getFromDataCache(retrievals);
+		assertEquals(retrievals.get(), 2);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void dataCacheBypassesDiskCacheTest() {
+		given(tsDescService.getTimeSeriesDescriptionList(any(List.class))).willThrow(new RuntimeException("unavailable"));
+		AtomicInteger retrievals = new AtomicInteger();
+		ColumnarTimeSeries result = getFromDataCache(retrievals);
+		assertEquals(result.size(), 10);
+		assertEquals(retrievals.get(), 1);
+		assertEquals(folder.getRoot().list().length, 0);
+	}
+
+	private ColumnarTimeSeries getFromDataCache(AtomicInteger retrievals) {
+		// A new process cache each time, as after a restart, so only the disk cache can answer
+		TimeSeriesDataCache dataCache = new TimeSeriesDataCache(descriptionCache, 3600, 1000, cache, meterRegistry);
+		return dataCache.get(description, ZoneOffset.UTC, false,
+			Instant.parse("2018-01-10T00:00:00Z"), Instant.parse("2018-01-19T23:59:59Z"), () -> {
+				retrievals.incrementAndGet();
+				return series.subSeries(Instant.parse("2018-01-10T00:00:00Z"), Instant.parse("2018-01-19T23:59:59Z"));
+			});
+	}
+
+	private ColumnarTimeSeries get(TimeSeriesDescription description, String startTime, String endTime) {
+		return cache.get(description, ZoneOffset.UTC, false, Instant.parse(startTime), Instant.parse(endTime));
+	}
+
+	private void put(TimeSeriesDescription description, String startTime, String endTime, ColumnarTimeSeries series) {
+		cache.put(description, ZoneOffset.UTC, false, Instant.parse(startTime), Instant.parse(endTime), series);
+	}
+
+	private ColumnarTimeSeries createSeries(int days) {
+		List<TimeSeriesPoint> points = new ArrayList<>();
+		for(int day = 1; day <= days; day++) {
+			points.add(new TimeSeriesPoint()
+				.setTimestamp(new StatisticalDateTimeOffset()
+					.setDateTimeOffset(Instant.parse("2018-01-01T00:00:00Z").plusSeconds((day - 1) * 86400L))
+					.setRepresentsEndOfTimePeriod(false)
+				)
+				.setValue(new DoubleWithDisplay()
+					.setDisplay(day + ".0")
+					.setNumeric((double) day)
+				)
+			);
+		}
+		return ColumnarTimeSeries.fromPoints(points);
+	}
+}
@@ -0,0 +1,481 @@
+package gov.usgs.aqcu.loadtest;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.security.GeneralSecurityException;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509TrustManager;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.HdrHistogram.Recorder;
+
+import gov.usgs.aqcu.standin.StandInServer;
+
+/**
+ * A closed-loop load generator for the /extremes and /extremes/rawData endpoints. Each of the
+ * concurrent clients sends its next request as soon as the previous one completes, choosing the
+ * endpoint by the configured mix and the primary time series from a fixed set, so the number of
+ * reports one instance sustains is found by raising the concurrency until latency collapses.
+ *
+ * Latency is recorded in microseconds per endpoint with HdrHistogram. After the warmup, interval
+ * throughput and p99 are printed every report interval, and at the end the throughput, p50, p99,
+ * p999 and the percentile distribution of each endpoint, in milliseconds. The interval histograms
+ * can also be written to a histogram log for HistogramLogAnalyzer or HdrHistogram plotting.
+ *
+ * Being closed-loop, a slow response delays the requests that client would have sent meanwhile,
+ * so the percentiles are those of the requests sent, not of a fixed arrival rate.
+ *
+ * Run from the test classpath, against the service configured with the stand-in Aquarius and
+ * JavaToR, with options as --name=value, for example:
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=gov.usgs.aqcu.loadtest.LoadGenerator -Dexec.args="--concurrency=32 --durationSeconds=120"
+ */
+public class LoadGenerator {
+	public static final String REPORT_PATH = "/extremes";
+	public static final String RAW_DATA_PATH = "/extremes/rawData";
+	// Latencies above an hour are recorded as an hour
+	public static final long HIGHEST_LATENCY_MICROS = TimeUnit.HOURS.toMicros(1);
+	public static final int SIGNIFICANT_DIGITS = 3;
+
+	private String endpoint = "https://localhost:8443";
+	private int concurrency = 16;
+	private Duration warmup = Duration.ofSeconds(30);
+	private Duration duration = Duration.ofSeconds(120);
+	private Duration reportInterval = Duration.ofSeconds(10);
+	private Duration timeout = Duration.ofSeconds(300);
+	private int rawDataPercent = 50;
+	private int series = 10;
+	private boolean upchain = true;
+	private boolean derived = true;
+	private LocalDate startDate = LocalDate.parse("2000-01-01");
+	private LocalDate endDate = LocalDate.parse("2000-12-31");
+	private String token;
+	private boolean insecure = true;
+	private File histogramLog;
+	private PrintStream out = System.out;
+	private volatile boolean stopped;
+
+	public static void main(String[] args) throws Exception {
+		LoadGenerator generator = fromOptions(StandInServer.parseOptions(args));
+		generator.printSummary(generator.run());
+	}
+
+	public static LoadGenerator fromOptions(Map<String, String> options) {
+		LoadGenerator result = new LoadGenerator();
+		if(options.containsKey("endpoint")) {
+			result.setEndpoint(options.get("endpoint"));
+		}
+		if(options.containsKey("concurrency")) {
+			result.setConcurrency(Integer.parseInt(options.get("concurrency")));
+		}
+		if(options.containsKey("warmupSeconds")) {
+			result.setWarmup(Duration.ofSeconds(Long.parseLong(options.get("warmupSeconds"))));
+		}
+		if(options.containsKey("durationSeconds")) {
+			result.setDuration(Duration.ofSeconds(Long.parseLong(options.get("durationSeconds"))));
+		}
+		if(options.containsKey("reportSeconds")) {
+			result.setReportInterval(Duration.ofSeconds(Long.parseLong(options.get("reportSeconds"))));
+		}
+		if(options.containsKey("timeoutSeconds")) {
+			result.setTimeout(Duration.ofSeconds(Long.parseLong(options.get("timeoutSeconds"))));
+		}
+		if(options.containsKey("rawDataPercent")) {
+			result.setRawDataPercent(Integer.parseInt(options.get("rawDataPercent")));
+		}
+		if(options.containsKey("series")) {
+			result.setSeries(Integer.parseInt(options.get("series")));
+		}
+		if(options.containsKey("upchain")) {
+			result.setUpchain(Boolean.parseBoolean(options.get("upchain")));
+		}
+		if(options.containsKey("derived")) {
+			result.setDerived(Boolean.parseBoolean(options.get("derived")));
+		}
+		if(options.containsKey("startDate")) {
+			result.setStartDate(LocalDate.parse(options.get("startDate")));
+		}
+		if(options.containsKey("endDate")) {
+			result.setEndDate(LocalDate.parse(options.get("endDate")));
+		}
+		if(options.containsKey("token")) {
+			result.setToken(options.get("token"));
+		}
+		if(options.containsKey("insecure")) {
+			result.setInsecure(Boolean.parseBoolean(options.get("insecure")));
+		}
+		if(options.containsKey("histogramLog")) {
+			result.setHistogramLog(new File(options.get("histogramLog")));
+		}
+		return result;
+	}
+
+	/**
+	 * Runs the clients through the warmup and the measured duration, and returns the latency
+	 * recorded for each endpoint over the measured duration.
+	 */
+	public List<EndpointResult> run() throws IOException, InterruptedException {
+		List<EndpointResult> results = Arrays.asList(new EndpointResult(REPORT_PATH), new EndpointResult(RAW_DATA_PATH));
+		SSLSocketFactory socketFactory = insecure ? getTrustAllSocketFactory() : null;
+		stopped = false;
+		ExecutorService clients = Executors.newFixedThreadPool(concurrency);
+		for(int client = 0; client < concurrency; client++) {
+			clients.execute(() -> {
+				while(!stopped) {
+					EndpointResult target = ThreadLocalRandom.current().nextInt(100) < rawDataPercent ? results.get(1) : results.get(0);
+					send(target, getQuery(ThreadLocalRandom.current().nextInt(series)), socketFactory);
+				}
+			});
+		}
+
+		HistogramLogWriter logWriter = null;
+		try {
+			if(!warmup.isZero()) {
+				out.println(String.format(Locale.US, "Warming up %d clients for %ds", concurrency, warmup.getSeconds()));
+				Thread.sleep(warmup.toMillis());
+			}
+			// Discard the warmup
+			for(EndpointResult result : results) {
+				result.startMeasuring();
+			}
+			long measureStart = System.currentTimeMillis();
+			if(histogramLog != null) {
+				logWriter = new HistogramLogWriter(histogramLog);
+				logWriter.outputLogFormatVersion();
+				logWriter.outputStartTime(measureStart);
+				logWriter.setBaseTime(measureStart);
+				logWriter.outputLegend();
+			}
+			long measureEnd = measureStart + duration.toMillis();
+			for(long now = measureStart; now < measureEnd; now = System.currentTimeMillis()) {
+				Thread.sleep(Math.min(reportInterval.toMillis(), measureEnd - now));
+				printInterval(results, System.currentTimeMillis() - measureStart, logWriter);
+			}
+			for(EndpointResult result : results) {
+				result.measuredMillis = System.currentTimeMillis() - measureStart;
+			}
+		} finally {
+			stopped = true;
+			clients.shutdown();
+			clients.awaitTermination(timeout.toMillis(), TimeUnit.MILLISECONDS);
+			clients.shutdownNow();
+			if(logWriter != null) {
+				logWriter.close();
+			}
+		}
+		return results;
+	}
+
+	public void printSummary(List<EndpointResult> results) {
+		for(EndpointResult result : results) {
+			Histogram histogram = result.getHistogram();
+			out.println(String.format(Locale.US, "%s: %d requests, %d errors, %.2f requests/s, p50 %.1f ms, p99 %.1f ms, p999 %.1f ms, max %.1f ms",
+				result.getPath(), histogram.getTotalCount(), result.getErrors(), result.getThroughput(),
+				histogram.getValueAtPercentile(50.0D) / 1000.0D, histogram.getValueAtPercentile(99.0D) / 1000.0D,
+				histogram.getValueAtPercentile(99.9D) / 1000.0D, histogram.getMaxValue() / 1000.0D));
+			if(histogram.getTotalCount() > 0) {
+				histogram.outputPercentileDistribution(out, 1000.0D);
+			}
+		}
+	}
+
+	protected void printInterval(List<EndpointResult> results, long elapsedMillis, HistogramLogWriter logWriter) {
+		StringBuilder line = new StringBuilder(String.format(Locale.US, "[%5ds]", elapsedMillis / 1000));
+		for(EndpointResult result : results) {
+			Histogram interval = result.collectInterval();
+			double seconds = (interval.getEndTimeStamp() - interval.getStartTimeStamp()) / 1000.0D;
+			line.append(String.format(Locale.US, " %s %.2f requests/s, p99 %.1f ms, %d errors.", result.getPath(),
+				seconds > 0 ? interval.getTotalCount() / seconds : 0.0D, interval.getValueAtPercentile(99.0D) / 1000.0D, result.getErrors()));
+			if(logWriter != null) {
+				logWriter.outputIntervalHistogram(interval);
+			}
+		}
+		out.println(line);
+	}
+
+	/**
+	 * The report request for one of the series. Unique ids containing daily are served as daily
+	 * series by the stand-in Aquarius.
+	 */
+	protected String getQuery(int seriesIndex) {
+		StringBuilder query = new StringBuilder()
+			.append("?startDate=").append(startDate)
+			.append("&endDate=").append(endDate)
+			.append("&primaryTimeseriesIdentifier=loadPrimary").append(seriesIndex);
+		if(upchain) {
+			query.append("&upchainTimeseriesIdentifier=loadUpchain").append(seriesIndex);
+		}
+		if(derived) {
+			query.append("&derivedTimeseriesIdentifier=loadDerivedDaily").append(seriesIndex);
+		}
+		return query.toString();
+	}
+
+	protected void send(EndpointResult target, String query, SSLSocketFactory socketFactory) {
+		long start = System.nanoTime();
+		HttpURLConnection connection = null;
+		try {
+			connection = (HttpURLConnection) new URL(endpoint + target.getPath() + query).openConnection();
+			if(socketFactory != null && connection instanceof HttpsURLConnection) {
+				((HttpsURLConnection) connection).setSSLSocketFactory(socketFactory);
+				((HttpsURLConnection) connection).setHostnameVerifier((hostname, session) -> true);
+			}
+			connection.setConnectTimeout((int) timeout.toMillis());
+			connection.setReadTimeout((int) timeout.toMillis());
+			if(token != null) {
+				connection.setRequestProperty("Authorization", "Bearer " + token);
+			}
+			int status = connection.getResponseCode();
+			InputStream body = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+			if(body != null) {
+				try (InputStream in = body) {
+					byte[] buffer = new byte[8192];
+					while(in.read(buffer) >= 0) {
+						// The response is read fully, as a client would
+					}
+				}
+			}
+			if(status == 200) {
+				target.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+			} else {
+				target.errors.increment();
+			}
+		} catch (IOException e) {
+			target.errors.increment();
+		}
+	}
+
+	/**
+	 * Local instances serve self-signed certificates, which are trusted when insecure.
+	 */
+	protected static SSLSocketFactory getTrustAllSocketFactory() {
+		try {
+			SSLContext context = SSLContext.getInstance("TLS");
+			context.init(null, new TrustManager[] { new X509TrustManager() {
+				@Override
+				public void checkClientTrusted(X509Certificate[] chain, String authType) {}
+
+				@Override
+				public void checkServerTrusted(X509Certificate[] chain, String authType) {}
+
+				@Override
+				public X509Certificate[] getAcceptedIssuers() {
+					return new X509Certificate[0];
+				}
+			}}, null);
+			return context.getSocketFactory();
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException("Unable to create trust all socket factory", e);
+		}
+	}
+
+	public String getEndpoint() {
+		return endpoint;
+	}
+
+	public LoadGenerator setEndpoint(String endpoint) {
+		this.endpoint = endpoint;
+		return this;
+	}
+
+	public int getConcurrency() {
+		return concurrency;
+	}
+
+	public LoadGenerator setConcurrency(int concurrency) {
+		this.concurrency = concurrency;
+		return this;
+	}
+
+	public Duration getWarmup() {
+		return warmup;
+	}
+
+	public LoadGenerator setWarmup(Duration warmup) {
+		this.warmup = warmup;
+		return this;
+	}
+
+	public Duration getDuration() {
+		return duration;
+	}
+
+	public LoadGenerator setDuration(Duration duration) {
+		this.duration = duration;
+		return this;
+	}
+
+	public Duration getReportInterval() {
+		return reportInterval;
+	}
+
+	public LoadGenerator setReportInterval(Duration reportInterval) {
+		this.reportInterval = reportInterval;
+		return this;
+	}
+
+	public Duration getTimeout() {
+		return timeout;
+	}
+
+	public LoadGenerator setTimeout(Duration timeout) {
+		this.timeout = timeout;
+		return this;
+	}
+
+	public int getRawDataPercent() {
+		return rawDataPercent;
+	}
+
+	public LoadGenerator setRawDataPercent(int rawDataPercent) {
+		this.rawDataPercent = rawDataPercent;
+		return this;
+	}
+
+	public int getSeries() {
+		return series;
+	}
+
+	public LoadGenerator setSeries(int series) {
+		this.series = series;
+		return this;
+	}
+
+	public boolean isUpchain() {
+		return upchain;
+	}
+
+	public LoadGenerator setUpchain(boolean upchain) {
+		this.upchain = upchain;
+		return this;
+	}
+
+	public boolean isDerived() {
+		return derived;
+	}
+
+	public LoadGenerator setDerived(boolean derived) {
+		this.derived = derived;
+		return this;
+	}
+
+	public LocalDate getStartDate() {
+		return startDate;
+	}
+
+	public LoadGenerator setStartDate(LocalDate startDate) {
+		this.startDate = startDate;
+		return this;
+	}
+
+	public LocalDate getEndDate() {
+		return endDate;
+	}
+
+	public LoadGenerator setEndDate(LocalDate endDate) {
+		this.endDate = endDate;
+		return this;
+	}
+
+	public String getToken() {
+		return token;
+	}
+
+	public LoadGenerator setToken(String token) {
+		this.token = token;
+		return this;
+	}
+
+	public boolean isInsecure() {
+		return insecure;
+	}
+
+	public LoadGenerator setInsecure(boolean insecure) {
+		this.insecure = insecure;
+		return this;
+	}
+
+	public File getHistogramLog() {
+		return histogramLog;
+	}
+
+	public LoadGenerator setHistogramLog(File histogramLog) {
+		this.histogramLog = histogramLog;
+		return this;
+	}
+
+	public LoadGenerator setOut(PrintStream out) {
+		this.out = out;
+		return this;
+	}
+
+	/**
+	 * The latency and errors of one endpoint. Clients record into the recorder, and each report
+	 * interval is collected into the histogram of the measured duration.
+	 */
+	public static class EndpointResult {
+		private final String path;
+		private final Recorder recorder = new Recorder(HIGHEST_LATENCY_MICROS, SIGNIFICANT_DIGITS);
+		private final Histogram histogram = new Histogram(HIGHEST_LATENCY_MICROS, SIGNIFICANT_DIGITS);
+		private final LongAdder errors = new LongAdder();
+		private Histogram interval;
+		private long measuredMillis;
+
+		public EndpointResult(String path) {
+			this.path = path;
+			this.histogram.setTag(path);
+		}
+
+		public String getPath() {
+			return path;
+		}
+
+		public Histogram getHistogram() {
+			return histogram;
+		}
+
+		public long getErrors() {
+			return errors.sum();
+		}
+
+		public double getThroughput() {
+			return measuredMillis > 0 ? histogram.getTotalCount() * 1000.0D / measuredMillis : 0.0D;
+		}
+
+		protected void record(long latencyMicros) {
+			recorder.recordValue(Math.min(latencyMicros, HIGHEST_LATENCY_MICROS));
+		}
+
+		protected void startMeasuring() {
+			interval = recorder.getIntervalHistogram();
+			errors.reset();
+		}
+
+		protected Histogram collectInterval() {
+			interval = recorder.getIntervalHistogram(interval);
+			interval.setTag(path);
+			histogram.add(interval);
+			return interval;
+		}
+	}
+}
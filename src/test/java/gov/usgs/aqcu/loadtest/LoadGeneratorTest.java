@@ -0,0 +1,104 @@
+package gov.usgs.aqcu.loadtest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import gov.usgs.aqcu.standin.StandInSeries;
+import gov.usgs.aqcu.standin.StandInServer;
+
+public class LoadGeneratorTest {
+	private StandInServer server;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Before
+	public void setup() throws IOException {
+		server = new StandInServer(new StandInSeries(), 20, 8);
+		server.start(0);
+	}
+
+	@After
+	public void tearDown() {
+		server.stop();
+	}
+
+	@Test
+	public void fromOptionsTest() {
+		Map<String, String> options = new HashMap<>();
+		options.put("concurrency", "64");
+		options.put("durationSeconds", "300");
+		options.put("rawDataPercent", "20");
+		options.put("upchain", "false");
+		options.put("token", "abc");
+		LoadGenerator result = LoadGenerator.fromOptions(options);
+		assertEquals(result.getConcurrency(), 64);
+		assertEquals(result.getDuration(), Duration.ofSeconds(300));
+		assertEquals(result.getRawDataPercent(), 20);
+		assertFalse(result.isUpchain());
+		assertTrue(result.isDerived());
+		assertEquals(result.getToken(), "abc");
+		assertEquals(result.getEndpoint(), "https://localhost:8443");
+	}
+
+	@Test
+	public void getQueryTest() {
+		LoadGenerator generator = new LoadGenerator().setDerived(false);
+		assertEquals(generator.getQuery(3), "?startDate=2000-01-01&endDate=2000-12-31"
+			+ "&primaryTimeseriesIdentifier=loadPrimary3&upchainTimeseriesIdentifier=loadUpchain3");
+	}
+
+	@Test
+	public void runTest() throws Exception {
+		File histogramLog = folder.newFile("latency.hlog");
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		LoadGenerator generator = new LoadGenerator()
+			.setEndpoint(server.getEndpoint())
+			.setConcurrency(4)
+			.setWarmup(Duration.ZERO)
+			.setDuration(Duration.ofMillis(1000))
+			.setReportInterval(Duration.ofMillis(500))
+			.setRawDataPercent(50)
+			.setHistogramLog(histogramLog)
+			.setOut(new PrintStream(out, true, StandardCharsets.UTF_8.name()));
+		List<LoadGenerator.EndpointResult> results = generator.run();
+		generator.printSummary(results);
+
+		assertEquals(results.size(), 2);
+		long total = 0;
+		for(LoadGenerator.EndpointResult result : results) {
+			assertTrue(result.getHistogram().getTotalCount() > 0);
+			assertEquals(result.getErrors(), 0);
+			// Each request waits at least the render latency
+			assertTrue(result.getHistogram().getMinValue() >= 20000);
+			assertTrue(result.getThroughput() > 0.0D);
+			total += result.getHistogram().getTotalCount();
+		}
+		// Closed-loop, so 4 clients complete at most 4 requests per render latency
+		assertTrue(total <= 4 * 1500 / 20);
+		assertTrue(server.getRenderRequests() >= total);
+
+		String output = new String(out.toByteArray(), StandardCharsets.UTF_8);
+		assertTrue(output.contains(LoadGenerator.RAW_DATA_PATH + ": "));
+		assertTrue(output.contains("Percentile"));
+		assertTrue(Files.size(histogramLog.toPath()) > 0);
+	}
+}
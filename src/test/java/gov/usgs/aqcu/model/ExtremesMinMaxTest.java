@@ -105,4 +105,19 @@ public class ExtremesMinMaxTest {
 		test.setMaxRelatedPoints(null, "related");
 		assertNull(test.getMax());
 	}
+
+	@Test
+	public void setTopPointsTest() {
+		ExtremesMinMax test = new ExtremesMinMax();
+		test.setMaxPoints(maxPoints.get("points"));
+		test.setMaxTopPoints(maxPoints.get("points"));
+		test.setMinTopPoints(minPoints.get("points"));
+		assertEquals(test.getMax().get(ExtremesMinMax.MIN_MAX_POINTS_KEY).size(), 2);
+		assertEquals(test.getMax().get(ExtremesMinMax.TOP_POINTS_KEY).size(), 2);
+		assertEquals(test.getMin().get(ExtremesMinMax.TOP_POINTS_KEY).size(), 2);
+		assertNull(test.getMin().get(ExtremesMinMax.MIN_MAX_POINTS_KEY));
+		test = new ExtremesMinMax();
+		test.setMaxTopPoints(new ArrayList<>());
+		assertNull(test.getMax());
+	}
 }
@@ -0,0 +1,81 @@
+package gov.usgs.aqcu.retrieval;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.Qualifier;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesPoint;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class CorrectedDataStreamParserTest {
+	private CorrectedDataStreamParser parser;
+
+	@Before
+	public void setup() {
+		parser = new CorrectedDataStreamParser();
+	}
+
+	@Test
+	public void parseTest() throws IOException {
+		String json = "{"
+			+ "\"UniqueId\":\"primaryTsId\","
+			+ "\"Parameter\":\"Discharge\","
+			+ "\"TimeRange\":{\"StartTime\":\"2018-01-01T00:00:00.0000000-06:00\",\"EndTime\":\"2018-01-03T00:00:00.0000000-06:00\"},"
+			+ "\"Points\":["
+			+ "{\"Timestamp\":\"2018-01-01T00:00:00.0000000-06:00\",\"Value\":{\"Display\":\"1.0\",\"Numeric\":1.0}},"
+			+ "{\"Timestamp\":\"2018-01-01T12:30:00.1234567Z\",\"Value\":{\"Numeric\":-2.5,\"Display\":\"-2.50\"}},"
+			+ "{\"Timestamp\":\"2018-01-01T24:00:00.0000000-06:00\",\"Value\":{\"Display\":\"EQP\"}},"
+			+ "{\"Timestamp\":\"2018-01-02T00:00:00.0000000Z\",\"Value\":null,\"Extra\":[1,{\"a\":2}]}"
+			+ "],"
+			+ "\"Qualifiers\":["
+			+ "{\"Identifier\":\"ESTIMATED\",\"StartTime\":\"2018-01-01T00:00:00.0000000-06:00\",\"EndTime\":\"MaxConcreteValue\",\"User\":\"admin\",\"DateApplied\":\"2018-02-01T00:00:00Z\",\"Code\":\"E\"}"
+			+ "],"
+			+ "\"Approvals\":[{\"ApprovalLevel\":1200}],"
+			+ "\"NumPoints\":4"
+			+ "}";
+		List<TimeSeriesPoint> points = new ArrayList<>();
+
+		List<Qualifier> qualifiers = parser.parse(new StringReader(json), points::add);
+
+		assertEquals(points.size(), 4);
+		assertEquals(points.get(0).getTimestamp().getDateTimeOffset(), Instant.parse("2018-01-01T06:00:00Z"));
+		assertFalse(points.get(0).getTimestamp().isRepresentsEndOfTimePeriod());
+		assertEquals(points.get(0).getValue().getDisplay(), "1.0");
+		assertEquals(points.get(0).getValue().getNumeric(), 1.0D, 0.0D);
+		assertEquals(points.get(1).getTimestamp().getDateTimeOffset(), Instant.parse("2018-01-01T12:30:00.1234567Z"));
+		assertEquals(points.get(1).getValue().getDisplay(), "-2.50");
+		assertEquals(points.get(1).getValue().getNumeric(), -2.5D, 0.0D);
+		assertEquals(points.get(2).getTimestamp().getDateTimeOffset(), Instant.parse("2018-01-02T06:00:00Z"));
+		assertTrue(points.get(2).getTimestamp().isRepresentsEndOfTimePeriod());
+		assertEquals(points.get(2).getValue().getDisplay(), "EQP");
+		assertNull(points.get(2).getValue().getNumeric());
+		assertEquals(points.get(3).getTimestamp().getDateTimeOffset(), Instant.parse("2018-01-02T00:00:00Z"));
+		assertNull(points.get(3).getValue());
+
+		assertEquals(qualifiers.size(), 1);
+		assertEquals(qualifiers.get(0).getIdentifier(), "ESTIMATED");
+		assertEquals(qualifiers.get(0).getStartTime(), Instant.parse("2018-01-01T06:00:00Z"));
+		assertEquals(qualifiers.get(0).getEndTime(), Instant.MAX);
+		assertEquals(qualifiers.get(0).getUser(), "admin");
+		assertEquals(qualifiers.get(0).getDateApplied(), Instant.parse("2018-02-01T00:00:00Z"));
+	}
+
+	@Test
+	public void parseEmptyTest() throws IOException {
+		List<TimeSeriesPoint> points = new ArrayList<>();
+
+		assertTrue(parser.parse(new StringReader("{\"Points\":[],\"Qualifiers\":null}"), points::add).isEmpty());
+		assertTrue(parser.parse(new StringReader("{}"), points::add).isEmpty());
+		assertTrue(points.isEmpty());
+	}
+}
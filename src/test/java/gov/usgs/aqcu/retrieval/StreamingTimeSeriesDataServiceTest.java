@@ -0,0 +1,174 @@
+package gov.usgs.aqcu.retrieval;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.aquaticinformatics.aquarius.sdk.timeseries.AquariusClient;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.Qualifier;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesDataCorrectedServiceRequest;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesDataServiceResponse;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesPoint;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import gov.usgs.aqcu.parameter.ExtremesRequestParameters;
+
+@RunWith(SpringRunner.class)
+public class StreamingTimeSeriesDataServiceTest {
+	private static final String CORRECTED_DATA = "{\"UniqueId\":\"tsId\",\"Points\":[{\"Timestamp\":\"2018-01-01T00:00:00.0000000-06:00\","
+		+ "\"Value\":{\"Display\":\"1.0\",\"Numeric\":1.0}}],\"Qualifiers\":[]}";
+
+	@MockBean
+	AquariusRetrievalService aquariusRetrievalService;
+
+	private TestStreamingTimeSeriesDataService service;
+
+	@Before
+	public void setup() {
+		service = new TestStreamingTimeSeriesDataService();
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void buildRequestMatchesTimeSeriesDataServiceTest() throws Exception {
+		given(aquariusRetrievalService.executePublishApiRequest(any(TimeSeriesDataCorrectedServiceRequest.class))).willReturn(
+			new TimeSeriesDataServiceResponse()
+				.setPoints(new ArrayList<>())
+				.setQualifiers(new ArrayList<>())
+		);
+		TimeSeriesDataService tsDataService = new TimeSeriesDataService(aquariusRetrievalService);
+		ExtremesRequestParameters dates = new ExtremesRequestParameters();
+		dates.setStartDate(LocalDate.parse("2018-01-01"));
+		dates.setEndDate(LocalDate.parse("2018-02-01"));
+		ExtremesRequestParameters waterYear = new ExtremesRequestParameters();
+		waterYear.setWaterYear(2017);
+		ExtremesRequestParameters lastMonths = new ExtremesRequestParameters();
+		lastMonths.setLastMonths(6);
+
+		for(ExtremesRequestParameters requestParameters : Arrays.asList(dates, waterYear, lastMonths)) {
+			for(Boolean isDaily : Arrays.asList(false, true)) {
+				tsDataService.get("tsId", requestParameters, ZoneOffset.ofHours(-6), isDaily, false, false, null);
+				ArgumentCaptor<TimeSeriesDataCorrectedServiceRequest> captor = ArgumentCaptor.forClass(TimeSeriesDataCorrectedServiceRequest.class);
+				verify(aquariusRetrievalService, atLeastOnce()).executePublishApiRequest(captor.capture());
+				TimeSeriesDataCorrectedServiceRequest expected = captor.getValue();
+
+				TimeSeriesDataCorrectedServiceRequest result = service.buildRequest("tsId", requestParameters, ZoneOffset.ofHours(-6), isDaily);
+				assertEquals(result.getTimeSeriesUniqueId(), expected.getTimeSeriesUniqueId());
+				assertEquals(result.getQueryFrom(), expected.getQueryFrom());
+				assertEquals(result.getQueryTo(), expected.getQueryTo());
+				assertEquals(result.isApplyRounding(), expected.isApplyRounding());
+				assertEquals(result.isIncludeGapMarkers(), expected.isIncludeGapMarkers());
+			}
+		}
+	}
+
+	@Test
+	public void getReusesSessionTest() {
+		service.statuses.addAll(Arrays.asList(200, 200));
+		List<TimeSeriesPoint> points = new ArrayList<>();
+		service.get("tsId", dates(), ZoneOffset.UTC, false, points::add);
+		List<Qualifier> qualifiers = service.get("tsId", dates(), ZoneOffset.UTC, false, points::add);
+		assertEquals(points.size(), 2);
+		assertEquals(qualifiers.size(), 0);
+		assertEquals(service.connects, 1);
+	}
+
+	@Test
+	public void getReconnectsUnauthorizedTest() {
+		service.statuses.addAll(Arrays.asList(401, 200));
+		List<TimeSeriesPoint> points = new ArrayList<>();
+		service.get("tsId", dates(), ZoneOffset.UTC, false, points::add);
+		assertEquals(points.size(), 1);
+		assertEquals(service.connects, 2);
+	}
+
+	@Test
+	public void getUnauthorizedRetriesTest() {
+		service.statuses.addAll(Arrays.asList(401, 401, 401));
+		try {
+			service.get("tsId", dates(), ZoneOffset.UTC, false, p -> {});
+			fail("Expected UncheckedIOException");
+		} catch (UncheckedIOException e) {
+			assertEquals(service.connects, 3);
+		}
+	}
+
+	private ExtremesRequestParameters dates() {
+		ExtremesRequestParameters result = new ExtremesRequestParameters();
+		result.setStartDate(LocalDate.parse("2018-01-01"));
+		result.setEndDate(LocalDate.parse("2018-01-31"));
+		return result;
+	}
+
+	/**
+	 * Answers each request with the next status, and counts the sessions connected.
+	 */
+	private static class TestStreamingTimeSeriesDataService extends StreamingTimeSeriesDataService {
+		private List<Integer> statuses = new ArrayList<>();
+		private int connects = 0;
+
+		TestStreamingTimeSeriesDataService() {
+			super(true, "http://localhost", "user", "password", 2, 1000);
+		}
+
+		@Override
+		protected AquariusClient connect() {
+			connects++;
+			return mock(AquariusClient.class);
+		}
+
+		@Override
+		protected HttpURLConnection openConnection(AquariusClient client, TimeSeriesDataCorrectedServiceRequest request) {
+			int status = statuses.remove(0);
+			try {
+				return new HttpURLConnection(new URL("http://localhost/AQUARIUS/Publish/v2/GetTimeSeriesCorrectedData")) {
+					@Override
+					public int getResponseCode() {
+						return status;
+					}
+
+					@Override
+					public InputStream getInputStream() {
+						return new ByteArrayInputStream(CORRECTED_DATA.getBytes(StandardCharsets.UTF_8));
+					}
+
+					@Override
+					public void connect() {}
+
+					@Override
+					public void disconnect() {}
+
+					@Override
+					public boolean usingProxy() {
+						return false;
+					}
+				};
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+}
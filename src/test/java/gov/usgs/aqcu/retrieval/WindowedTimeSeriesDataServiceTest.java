@@ -0,0 +1,177 @@
+package gov.usgs.aqcu.retrieval;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesDataServiceResponse;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import gov.usgs.aqcu.parameter.ExtremesRequestParameters;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@RunWith(SpringRunner.class)
+public class WindowedTimeSeriesDataServiceTest {
+	@MockBean
+	TimeSeriesDataService tsDataService;
+
+	private ExecutorService executor;
+	private WindowedTimeSeriesDataService service;
+	private SimpleMeterRegistry meterRegistry;
+	private ExtremesRequestParameters requestParameters;
+
+	@Before
+	public void setup() {
+		meterRegistry = new SimpleMeterRegistry();
+		executor = Executors.newFixedThreadPool(3);
+		service = new WindowedTimeSeriesDataService(tsDataService, executor, 10, 2, meterRegistry);
+		requestParameters = new ExtremesRequestParameters();
+		requestParameters.setPrimaryTimeseriesIdentifier("tsId");
+		requestParameters.setStartDate(LocalDate.parse("2018-01-01"));
+		requestParameters.setEndDate(LocalDate.parse("2018-01-25"));
+		given(tsDataService.get(any(), any(ExtremesRequestParameters.class), any(), any(), any(), any(), any()))
+			.willAnswer(invocation -> new TimeSeriesDataServiceResponse()
+				.setUniqueId(((ExtremesRequestParameters) invocation.getArgument(1)).getStartDate().toString()));
+	}
+
+	@After
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void isWindowedTest() {
+		assertTrue(service.isWindowed(requestParameters, ZoneOffset.UTC));
+		requestParameters.setEndDate(LocalDate.parse("2018-01-10"));
+		assertFalse(service.isWindowed(requestParameters, ZoneOffset.UTC));
+		assertFalse(new WindowedTimeSeriesDataService(tsDataService, Runnable::run, 0, 2, meterRegistry)
+			.isWindowed(requestParameters, ZoneOffset.UTC));
+	}
+
+	@Test
+	public void isWindowedWaterYearTest() {
+		ExtremesRequestParameters waterYearParameters = new ExtremesRequestParameters();
+		waterYearParameters.setPrimaryTimeseriesIdentifier("tsId");
+		waterYearParameters.setWaterYear(2016);
+		assertTrue(service.isWindowed(waterYearParameters, ZoneOffset.ofHours(-5)));
+
+		// Water year 2016 runs from 2015-10-01 through 2016-09-30, 366 days
+		assertFalse(new WindowedTimeSeriesDataService(tsDataService, Runnable::run, 366, 2, meterRegistry)
+			.isWindowed(waterYearParameters, ZoneOffset.ofHours(-5)));
+		assertTrue(new WindowedTimeSeriesDataService(tsDataService, Runnable::run, 365, 2, meterRegistry)
+			.isWindowed(waterYearParameters, ZoneOffset.ofHours(-5)));
+	}
+
+	@Test
+	public void isWindowedLastMonthsTest() {
+		ExtremesRequestParameters lastMonthsParameters = new ExtremesRequestParameters();
+		lastMonthsParameters.setPrimaryTimeseriesIdentifier("tsId");
+		lastMonthsParameters.setLastMonths(1);
+		assertTrue(service.isWindowed(lastMonthsParameters, ZoneOffset.UTC));
+		assertFalse(new WindowedTimeSeriesDataService(tsDataService, Runnable::run, 40, 2, meterRegistry)
+			.isWindowed(lastMonthsParameters, ZoneOffset.UTC));
+	}
+
+	@Test
+	public void getWindowsTest() {
+		List<LocalDate[]> windows = service.getWindows(Arrays.asList(
+			new LocalDate[] { LocalDate.parse("2018-01-01"), LocalDate.parse("2018-01-25") },
+			new LocalDate[] { LocalDate.parse("2018-02-01"), LocalDate.parse("2018-02-10") }
+		));
+		assertEquals(windows.size(), 4);
+		assertEquals(windows.get(0)[0], LocalDate.parse("2018-01-01"));
+		assertEquals(windows.get(0)[1], LocalDate.parse("2018-01-10"));
+		assertEquals(windows.get(2)[0], LocalDate.parse("2018-01-21"));
+		assertEquals(windows.get(2)[1], LocalDate.parse("2018-01-25"));
+		assertEquals(windows.get(3)[0], LocalDate.parse("2018-02-01"));
+		assertEquals(windows.get(3)[1], LocalDate.parse("2018-02-10"));
+	}
+
+	@Test
+	public void getTest() {
+		List<String> result = service.get("tsId", requestParameters, getPeriod(), ZoneOffset.UTC, false,
+			(startDay, endDay, response) -> startDay + "/" + endDay + "/" + response.getUniqueId());
+		assertEquals(result, Arrays.asList(
+			"2018-01-01/2018-01-10/2018-01-01",
+			"2018-01-11/2018-01-20/2018-01-11",
+			"2018-01-21/2018-01-25/2018-01-21"
+		));
+		verify(tsDataService, times(3)).get(any(), any(ExtremesRequestParameters.class), any(), any(), any(), any(), any());
+		assertEquals(meterRegistry.counter(WindowedTimeSeriesDataService.WINDOWS_METRIC_NAME, "result", "retrieved").count(), 3.0D, 0.0D);
+	}
+
+	@Test
+	public void getRetriesFailedWindowTest() {
+		AtomicInteger failures = new AtomicInteger();
+		given(tsDataService.get(any(), any(ExtremesRequestParameters.class), any(), any(), any(), any(), any())).willAnswer(invocation -> {
+			ExtremesRequestParameters window = invocation.getArgument(1);
+			if(window.getStartDate().equals(LocalDate.parse("2018-01-11")) && failures.getAndIncrement() < 2) {
+				throw new RuntimeException("Read timed out");
+			}
+			return new TimeSeriesDataServiceResponse().setUniqueId(window.getStartDate().toString());
+		});
+
+		// Only the failed window is retrieved again
+		List<String> result = service.get("tsId", requestParameters, getPeriod(), ZoneOffset.UTC, false,
+			(startDay, endDay, response) -> response.getUniqueId());
+		assertEquals(result, Arrays.asList("2018-01-01", "2018-01-11", "2018-01-21"));
+		verify(tsDataService, times(5)).get(any(), any(ExtremesRequestParameters.class), any(), any(), any(), any(), any());
+		assertEquals(meterRegistry.counter(WindowedTimeSeriesDataService.WINDOWS_METRIC_NAME, "result", "retried").count(), 2.0D, 0.0D);
+	}
+
+	@Test
+	public void getRetriesExhaustedTest() {
+		given(tsDataService.get(any(), any(ExtremesRequestParameters.class), any(), any(), any(), any(), any()))
+			.willThrow(new IllegalStateException("Read timed out"));
+		try {
+			service.get("tsId", requestParameters, Collections.singletonList(
+				new LocalDate[] { LocalDate.parse("2018-01-01"), LocalDate.parse("2018-01-05") }), ZoneOffset.UTC, false,
+				(startDay, endDay, response) -> response);
+			fail("Expected IllegalStateException");
+		} catch (IllegalStateException e) {
+			assertEquals(e.getMessage(), "Read timed out");
+		}
+		verify(tsDataService, times(3)).get(any(), any(ExtremesRequestParameters.class), any(), any(), any(), any(), any());
+	}
+
+	@Test
+	public void getSkipsWindowsAfterFailureTest() {
+		// One window at a time, so the later windows are still queued when the first one fails
+		executor.shutdownNow();
+		executor = Executors.newSingleThreadExecutor();
+		service = new WindowedTimeSeriesDataService(tsDataService, executor, 10, 2, meterRegistry);
+		given(tsDataService.get(any(), any(ExtremesRequestParameters.class), any(), any(), any(), any(), any()))
+			.willThrow(new IllegalStateException("Read timed out"));
+		try {
+			service.get("tsId", requestParameters, getPeriod(), ZoneOffset.UTC, false, (startDay, endDay, response) -> response);
+			fail("Expected IllegalStateException");
+		} catch (IllegalStateException e) {
+			assertEquals(e.getMessage(), "Read timed out");
+		}
+		verify(tsDataService, times(3)).get(any(), any(ExtremesRequestParameters.class), any(), any(), any(), any(), any());
+	}
+
+	private List<LocalDate[]> getPeriod() {
+		return Collections.singletonList(new LocalDate[] { requestParameters.getStartDate(), requestParameters.getEndDate() });
+	}
+}
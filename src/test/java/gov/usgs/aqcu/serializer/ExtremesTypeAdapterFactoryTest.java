@@ -0,0 +1,143 @@
+package gov.usgs.aqcu.serializer;
+
+import static org.junit.Assert.assertEquals;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import gov.usgs.aqcu.model.ExtremesMinMax;
+import gov.usgs.aqcu.model.ExtremesPoint;
+import gov.usgs.aqcu.model.ExtremesQualifier;
+import gov.usgs.aqcu.model.ExtremesReport;
+import gov.usgs.aqcu.model.ExtremesReportMetadata;
+import gov.usgs.aqcu.util.AqcuGsonBuilderFactory;
+
+public class ExtremesTypeAdapterFactoryTest {
+	private Instant time1 = Instant.parse("2018-01-01T09:32:00Z");
+	private Instant time2 = Instant.parse("2018-01-02T09:32:00.123Z");
+	private LocalDate date1 = LocalDate.parse("2018-01-01");
+	private LocalDate date2 = LocalDate.parse("2018-01-02");
+
+	@Test
+	public void goldenTest() throws Exception {
+		Gson gson = new GsonBuilder().registerTypeAdapterFactory(new ExtremesTypeAdapterFactory()).create();
+		assertEquals(readGolden("golden/extremes-report.json"), gson.toJson(buildUntimedReport()));
+	}
+
+	@Test
+	public void goldenSerializeNullsTest() throws Exception {
+		Gson gson = new GsonBuilder().registerTypeAdapterFactory(new ExtremesTypeAdapterFactory())
+			.serializeNulls().setPrettyPrinting().create();
+		assertEquals(readGolden("golden/extremes-report-nulls.json"), gson.toJson(buildUntimedReport()));
+	}
+
+	@Test
+	public void matchesReflectiveTest() {
+		Gson reflective = AqcuGsonBuilderFactory.getConfiguredGsonBuilder().create();
+		Gson adapted = AqcuGsonBuilderFactory.getConfiguredGsonBuilder()
+			.registerTypeAdapterFactory(new ExtremesTypeAdapterFactory()).create();
+		ExtremesReport report = buildTimedReport();
+		assertEquals(reflective.toJson(report), adapted.toJson(report));
+		assertEquals(reflective.toJson(report, ExtremesReport.class), adapted.toJson(report, ExtremesReport.class));
+		assertEquals(reflective.toJson(new ExtremesReport()), adapted.toJson(new ExtremesReport()));
+	}
+
+	@Test
+	public void matchesReflectiveSerializeNullsTest() {
+		Gson reflective = AqcuGsonBuilderFactory.getConfiguredGsonBuilder().serializeNulls().create();
+		Gson adapted = AqcuGsonBuilderFactory.getConfiguredGsonBuilder().serializeNulls()
+			.registerTypeAdapterFactory(new ExtremesTypeAdapterFactory()).create();
+		ExtremesReport report = buildTimedReport();
+		assertEquals(reflective.toJson(report), adapted.toJson(report));
+		assertEquals(reflective.toJson(new ExtremesReport()), adapted.toJson(new ExtremesReport()));
+	}
+
+	@Test
+	public void readTest() {
+		Gson gson = AqcuGsonBuilderFactory.getConfiguredGsonBuilder()
+			.registerTypeAdapterFactory(new ExtremesTypeAdapterFactory()).create();
+		ExtremesQualifier qualifier = gson.fromJson("{\"identifier\":\"ESTIMATED\"}", ExtremesQualifier.class);
+		assertEquals(qualifier.getIdentifier(), "ESTIMATED");
+		ExtremesPoint point = gson.fromJson("{\"value\":1.20}", ExtremesPoint.class);
+		assertEquals(point.getValue(), new BigDecimal("1.20"));
+		ExtremesMinMax minMax = gson.fromJson("{\"min\":{\"points\":[{\"value\":1.2}]},\"multipleMinFlag\":true}", ExtremesMinMax.class);
+		assertEquals(minMax.getMin().get(ExtremesMinMax.MIN_MAX_POINTS_KEY).get(0).getValue(), new BigDecimal("1.2"));
+		assertEquals(minMax.getMultipleMinFlag(), true);
+	}
+
+	private String readGolden(String name) throws Exception {
+		return new String(Files.readAllBytes(Paths.get(getClass().getClassLoader().getResource(name).toURI())), StandardCharsets.UTF_8).trim();
+	}
+
+	private ExtremesReport buildUntimedReport() {
+		ExtremesMinMax primary = new ExtremesMinMax();
+		primary.setMinPoints(Arrays.asList(new ExtremesPoint().setValue(new BigDecimal("1.20")), new ExtremesPoint().setValue(new BigDecimal("1.20"))));
+		primary.setMinRelatedPoints(Arrays.asList(new ExtremesPoint().setValue(new BigDecimal("-3E+2")), null), "relatedUpchain");
+		primary.setMaxPoints(Arrays.asList(new ExtremesPoint().setValue(new BigDecimal("2343.212"))));
+		primary.setMaxRelatedPoints(Arrays.asList(new ExtremesPoint()), "relatedDerived");
+		primary.setMultipleMinFlag(true);
+		primary.setMultipleMaxFlag(false);
+		primary.setQualifiers(Arrays.asList(new ExtremesQualifier().setIdentifier("EST\"<&>é"), new ExtremesQualifier()));
+
+		ExtremesMinMax upchain = new ExtremesMinMax();
+		upchain.setQualifiers(new ArrayList<>());
+
+		ExtremesReport report = new ExtremesReport();
+		report.setPrimary(primary);
+		report.setUpchain(upchain);
+		return report;
+	}
+
+	private ExtremesReport buildTimedReport() {
+		ExtremesMinMax primary = new ExtremesMinMax();
+		primary.setMinPoints(Arrays.asList(new ExtremesPoint().setTime(time1).setValue(new BigDecimal("1.20")), new ExtremesPoint().setTime(time2).setValue(new BigDecimal("1.20"))));
+		primary.setMinRelatedPoints(Arrays.asList(new ExtremesPoint().setTime(time1).setValue(new BigDecimal("5.5"))), "relatedUpchain");
+		primary.setMaxPoints(Arrays.asList(new ExtremesPoint().setTime(time2).setValue(new BigDecimal("2343.212"))));
+		primary.setMultipleMinFlag(true);
+		primary.setMultipleMaxFlag(false);
+		primary.setQualifiers(Arrays.asList(
+			new ExtremesQualifier().setIdentifier("ESTIMATED").setStartTime(time1).setEndTime(time2),
+			new ExtremesQualifier().setIdentifier("EQUIPMENT").setStartTime(time1)));
+
+		ExtremesMinMax dv = new ExtremesMinMax();
+		dv.setMinPoints(Arrays.asList(new ExtremesPoint().setTime(date1).setValue(new BigDecimal("3.4"))));
+		dv.setMaxPoints(Arrays.asList(new ExtremesPoint().setTime(date2).setValue(new BigDecimal("10"))));
+		dv.setMultipleMinFlag(false);
+		dv.setMultipleMaxFlag(false);
+		dv.setQualifiers(Arrays.asList(new ExtremesQualifier().setIdentifier("ESTIMATED").setStartTime(date1).setEndTime(date2)));
+		ExtremesMinMax dvMonth = new ExtremesMinMax();
+		dvMonth.setMinPoints(Arrays.asList(new ExtremesPoint().setTime(date1).setValue(new BigDecimal("3.4"))));
+		dvMonth.setMaxPoints(Arrays.asList(new ExtremesPoint().setTime(date2).setValue(new BigDecimal("10"))));
+		dvMonth.setMultipleMinFlag(false);
+		dvMonth.setMultipleMaxFlag(false);
+		Map<String, ExtremesMinMax> dvIntervals = new LinkedHashMap<>();
+		dvIntervals.put("2018-01", dvMonth);
+		dvIntervals.put("2018-02", new ExtremesMinMax());
+		dv.setIntervals(dvIntervals);
+
+		ExtremesReportMetadata metadata = new ExtremesReportMetadata();
+		metadata.setPrimaryParameter("Discharge");
+		metadata.setPrimaryUnit("ft^3/s");
+		metadata.setRequestingUser("user");
+		metadata.setInverted(false);
+
+		ExtremesReport report = new ExtremesReport();
+		report.setReportMetadata(metadata);
+		report.setPrimary(primary);
+		report.setDv(dv);
+		return report;
+	}
+}
@@ -0,0 +1,372 @@
+package gov.usgs.aqcu.standin;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Deterministically generates the descriptions, points and qualifiers the stand-in Aquarius serves
+ * for any time series unique id. The same settings and unique id always give the same series, so
+ * benchmark and load test runs are repeatable.
+ *
+ * Every series starts at the configured start time and has the configured number of points, one per
+ * interval. Unique ids containing "daily" describe daily mean series with one point per day. The
+ * max and min values are each repeated at the configured number of tie points spread over the series,
+ * runs of points are left out as gaps, and qualifiers are applied to evenly spaced runs of points.
+ */
+public class StandInSeries {
+	public static final double MAX_VALUE = 250.0D;
+	public static final double MIN_VALUE = 0.5D;
+	public static final List<String> QUALIFIER_IDENTIFIERS = Arrays.asList("ESTIMATED", "ICE", "EQUIPMENT_MALFUNCTION");
+	private static final DateTimeFormatter AQUARIUS_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSSSSSXXX", Locale.US);
+	private static final Duration DAY = Duration.ofDays(1);
+
+	private Instant start = Instant.parse("2000-01-01T06:00:00Z");
+	private int points = 35040;
+	private Duration interval = Duration.ofMinutes(15);
+	private int dailyPoints = 365;
+	private int ties = 2;
+	private int gapEvery = 0;
+	private int gapLength = 0;
+	private int qualifiers = 4;
+	private int qualifierPoints = 96;
+	private ZoneOffset zoneOffset = ZoneOffset.ofHours(-6);
+
+	/**
+	 * Reads the settings named like the fields from the given options, keeping the defaults of those not given.
+	 */
+	public static StandInSeries fromOptions(Map<String, String> options) {
+		StandInSeries result = new StandInSeries();
+		if(options.containsKey("start")) {
+			result.setStart(Instant.parse(options.get("start")));
+		}
+		if(options.containsKey("points")) {
+			result.setPoints(Integer.parseInt(options.get("points")));
+		}
+		if(options.containsKey("intervalMinutes")) {
+			result.setInterval(Duration.ofMinutes(Long.parseLong(options.get("intervalMinutes"))));
+		}
+		if(options.containsKey("dailyPoints")) {
+			result.setDailyPoints(Integer.parseInt(options.get("dailyPoints")));
+		}
+		if(options.containsKey("ties")) {
+			result.setTies(Integer.parseInt(options.get("ties")));
+		}
+		if(options.containsKey("gapEvery")) {
+			result.setGapEvery(Integer.parseInt(options.get("gapEvery")));
+		}
+		if(options.containsKey("gapLength")) {
+			result.setGapLength(Integer.parseInt(options.get("gapLength")));
+		}
+		if(options.containsKey("qualifiers")) {
+			result.setQualifiers(Integer.parseInt(options.get("qualifiers")));
+		}
+		if(options.containsKey("qualifierPoints")) {
+			result.setQualifierPoints(Integer.parseInt(options.get("qualifierPoints")));
+		}
+		if(options.containsKey("utcOffset")) {
+			result.setZoneOffset(ZoneOffset.ofHours(Integer.parseInt(options.get("utcOffset"))));
+		}
+		return result;
+	}
+
+	public static boolean isDaily(String uniqueId) {
+		return uniqueId != null && uniqueId.toLowerCase(Locale.US).contains("daily");
+	}
+
+	public int getPointCount(String uniqueId) {
+		return isDaily(uniqueId) ? dailyPoints : points;
+	}
+
+	public Duration getInterval(String uniqueId) {
+		return isDaily(uniqueId) ? DAY : interval;
+	}
+
+	public Instant getTime(String uniqueId, int index) {
+		return start.plus(getInterval(uniqueId).multipliedBy(index));
+	}
+
+	public Instant getLastModified(String uniqueId) {
+		return getTime(uniqueId, getPointCount(uniqueId));
+	}
+
+	public String getLocationIdentifier(String uniqueId) {
+		return "0" + String.format(Locale.US, "%07d", Math.abs(uniqueId.hashCode() % 10000000));
+	}
+
+	/**
+	 * Whether the point at the index falls in a gap and is left out of the series.
+	 */
+	public boolean isGap(int index) {
+		return gapEvery > 0 && gapLength > 0 && index % gapEvery >= gapEvery - gapLength;
+	}
+
+	/**
+	 * The value of the point at the index. The max and min values are only found at the tie points.
+	 */
+	public double getValue(String uniqueId, int index) {
+		int count = getPointCount(uniqueId);
+		for(int tie = 0; tie < ties; tie++) {
+			if(index == getTieIndex(count, tie, 1)) {
+				return MAX_VALUE;
+			} else if(index == getTieIndex(count, tie, 2)) {
+				return MIN_VALUE;
+			}
+		}
+		// A seasonal cycle with deterministic noise, strictly between the min and max values
+		long seed = uniqueId.hashCode() * 31L + index;
+		double noise = (mix(seed) >>> 11) / (double) (1L << 53);
+		double season = Math.sin(2 * Math.PI * index / (double) Math.max(1, count));
+		return Math.round((125.0D + 100.0D * season + 20.0D * (noise - 0.5D)) * 100.0D) / 100.0D;
+	}
+
+	/**
+	 * The index of the first point at or after the time.
+	 */
+	public int getStartIndex(String uniqueId, Instant time) {
+		if(time == null || !time.isAfter(start)) {
+			return 0;
+		}
+		long intervalMillis = getInterval(uniqueId).toMillis();
+		long index = (Duration.between(start, time).toMillis() + intervalMillis - 1) / intervalMillis;
+		return (int) Math.min(index, getPointCount(uniqueId));
+	}
+
+	/**
+	 * The index after the last point at or before the time.
+	 */
+	public int getEndIndex(String uniqueId, Instant time) {
+		if(time == null) {
+			return getPointCount(uniqueId);
+		} else if(time.isBefore(start)) {
+			return 0;
+		}
+		long index = Duration.between(start, time).toMillis() / getInterval(uniqueId).toMillis() + 1;
+		return (int) Math.min(index, getPointCount(uniqueId));
+	}
+
+	/**
+	 * The qualifiers applied to the series, each the first and last index of the qualified points and the identifier.
+	 */
+	public List<Object[]> getQualifierRanges(String uniqueId) {
+		List<Object[]> result = new ArrayList<>();
+		int count = getPointCount(uniqueId);
+		for(int qualifier = 0; qualifier < qualifiers && count > 0; qualifier++) {
+			int from = (int) ((long) count * qualifier / qualifiers);
+			int to = Math.min(count, from + Math.max(1, qualifierPoints)) - 1;
+			result.add(new Object[] { from, to, QUALIFIER_IDENTIFIERS.get(qualifier % QUALIFIER_IDENTIFIERS.size()) });
+		}
+		return result;
+	}
+
+	public void writeDescription(JsonWriter writer, String uniqueId) throws IOException {
+		boolean daily = isDaily(uniqueId);
+		String parameter = daily ? "Discharge" : "Gage height";
+		String unit = daily ? "ft^3/s" : "ft";
+		String computation = daily ? "Mean" : "Instantaneous";
+		writer.beginObject();
+		writer.name("Identifier").value(parameter + "." + unit + "." + computation + "@" + getLocationIdentifier(uniqueId));
+		writer.name("UniqueId").value(uniqueId);
+		writer.name("LocationIdentifier").value(getLocationIdentifier(uniqueId));
+		writer.name("Parameter").value(parameter);
+		writer.name("Unit").value(unit);
+		writer.name("UtcOffset").value(zoneOffset.getTotalSeconds() / 3600.0D);
+		writer.name("UtcOffsetIsoDuration").value(Duration.ofSeconds(zoneOffset.getTotalSeconds()).toString());
+		writer.name("Label").value(parameter);
+		writer.name("Description").value("Stand-in " + parameter);
+		writer.name("Publish").value(true);
+		writer.name("ComputationIdentifier").value(computation);
+		writer.name("ComputationPeriodIdentifier").value(daily ? "Daily" : "Unknown");
+		writer.name("SubLocationIdentifier").value("");
+		writer.name("TimeSeriesType").value("ProcessorDerived");
+		writer.name("LastModified").value(format(getLastModified(uniqueId)));
+		writer.name("RawStartTime").value(format(getTime(uniqueId, 0)));
+		writer.name("RawEndTime").value(format(getTime(uniqueId, Math.max(0, getPointCount(uniqueId) - 1))));
+		writer.name("CorrectedStartTime").value(format(getTime(uniqueId, 0)));
+		writer.name("CorrectedEndTime").value(format(getTime(uniqueId, Math.max(0, getPointCount(uniqueId) - 1))));
+		writer.name("ExtendedAttributes").beginArray().endArray();
+		writer.name("Thresholds").beginArray().endArray();
+		writer.endObject();
+	}
+
+	/**
+	 * Writes the corrected data response of the series between the query times, streaming the points.
+	 */
+	public void writeCorrectedData(JsonWriter writer, String uniqueId, Instant queryFrom, Instant queryTo) throws IOException {
+		int from = getStartIndex(uniqueId, queryFrom);
+		int to = Math.max(from, getEndIndex(uniqueId, queryTo));
+		boolean daily = isDaily(uniqueId);
+		writer.beginObject();
+		writer.name("UniqueId").value(uniqueId);
+		writer.name("Parameter").value(daily ? "Discharge" : "Gage height");
+		writer.name("Unit").value(daily ? "ft^3/s" : "ft");
+		writer.name("LocationIdentifier").value(getLocationIdentifier(uniqueId));
+		writer.name("TimeRange").beginObject()
+			.name("StartTime").value(format(queryFrom != null ? queryFrom : getTime(uniqueId, 0)))
+			.name("EndTime").value(format(queryTo != null ? queryTo : getLastModified(uniqueId)))
+			.endObject();
+
+		int pointCount = 0;
+		writer.name("Points").beginArray();
+		for(int index = from; index < to; index++) {
+			if(isGap(index)) {
+				continue;
+			}
+			double value = getValue(uniqueId, index);
+			writer.beginObject();
+			writer.name("Timestamp").value(format(getTime(uniqueId, index)));
+			writer.name("Value").beginObject()
+				.name("Display").value(String.format(Locale.US, "%.2f", value))
+				.name("Numeric").value(value)
+				.endObject();
+			writer.endObject();
+			pointCount++;
+		}
+		writer.endArray();
+		writer.name("NumPoints").value(pointCount);
+
+		writer.name("Qualifiers").beginArray();
+		for(Object[] range : getQualifierRanges(uniqueId)) {
+			if((int) range[1] < from || (int) range[0] >= to) {
+				continue;
+			}
+			writer.beginObject();
+			writer.name("Identifier").value((String) range[2]);
+			writer.name("StartTime").value(format(getTime(uniqueId, (int) range[0])));
+			writer.name("EndTime").value(format(getTime(uniqueId, (int) range[1])));
+			writer.name("User").value("standin");
+			writer.name("DateApplied").value(format(getLastModified(uniqueId)));
+			writer.endObject();
+		}
+		writer.endArray();
+		writer.name("Approvals").beginArray().endArray();
+		writer.name("Grades").beginArray().endArray();
+		writer.name("Methods").beginArray().endArray();
+		writer.name("GapTolerances").beginArray().endArray();
+		writer.name("InterpolationTypes").beginArray().endArray();
+		writer.name("Notes").beginArray().endArray();
+		writer.endObject();
+	}
+
+	public String format(Instant time) {
+		return AQUARIUS_TIME_FORMAT.format(time.atOffset(zoneOffset));
+	}
+
+	public Instant getStart() {
+		return start;
+	}
+
+	public StandInSeries setStart(Instant start) {
+		this.start = start;
+		return this;
+	}
+
+	public int getPoints() {
+		return points;
+	}
+
+	public StandInSeries setPoints(int points) {
+		this.points = points;
+		return this;
+	}
+
+	public Duration getInterval() {
+		return interval;
+	}
+
+	public StandInSeries setInterval(Duration interval) {
+		this.interval = interval;
+		return this;
+	}
+
+	public int getDailyPoints() {
+		return dailyPoints;
+	}
+
+	public StandInSeries setDailyPoints(int dailyPoints) {
+		this.dailyPoints = dailyPoints;
+		return this;
+	}
+
+	public int getTies() {
+		return ties;
+	}
+
+	public StandInSeries setTies(int ties) {
+		this.ties = ties;
+		return this;
+	}
+
+	public int getGapEvery() {
+		return gapEvery;
+	}
+
+	public StandInSeries setGapEvery(int gapEvery) {
+		this.gapEvery = gapEvery;
+		return this;
+	}
+
+	public int getGapLength() {
+		return gapLength;
+	}
+
+	public StandInSeries setGapLength(int gapLength) {
+		this.gapLength = gapLength;
+		return this;
+	}
+
+	public int getQualifiers() {
+		return qualifiers;
+	}
+
+	public StandInSeries setQualifiers(int qualifiers) {
+		this.qualifiers = qualifiers;
+		return this;
+	}
+
+	public int getQualifierPoints() {
+		return qualifierPoints;
+	}
+
+	public StandInSeries setQualifierPoints(int qualifierPoints) {
+		this.qualifierPoints = qualifierPoints;
+		return this;
+	}
+
+	public ZoneOffset getZoneOffset() {
+		return zoneOffset;
+	}
+
+	public StandInSeries setZoneOffset(ZoneOffset zoneOffset) {
+		this.zoneOffset = zoneOffset;
+		return this;
+	}
+
+	/**
+	 * Spreads the max (part 1) and min (part 2) tie points evenly over the series, moving any that fall
+	 * in a gap back to the last point before it.
+	 */
+	private int getTieIndex(int count, int tie, int part) {
+		int index = (int) ((long) count * (2 * tie + part) / (2 * ties + 1));
+		while(index > 0 && isGap(index)) {
+			index--;
+		}
+		return index;
+	}
+
+	private static long mix(long seed) {
+		long z = seed + 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+}
@@ -0,0 +1,123 @@
+package gov.usgs.aqcu.standin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonWriter;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class StandInSeriesTest {
+	private StandInSeries series;
+
+	@Before
+	public void setup() {
+		series = new StandInSeries()
+			.setStart(Instant.parse("2018-01-01T06:00:00Z"))
+			.setPoints(1000)
+			.setInterval(Duration.ofMinutes(15))
+			.setTies(3)
+			.setGapEvery(100)
+			.setGapLength(10)
+			.setQualifiers(2)
+			.setQualifierPoints(20);
+	}
+
+	@Test
+	public void fromOptionsTest() {
+		Map<String, String> options = new HashMap<>();
+		options.put("points", "500");
+		options.put("intervalMinutes", "5");
+		options.put("ties", "4");
+		options.put("utcOffset", "-5");
+		StandInSeries result = StandInSeries.fromOptions(options);
+		assertEquals(result.getPoints(), 500);
+		assertEquals(result.getInterval(), Duration.ofMinutes(5));
+		assertEquals(result.getTies(), 4);
+		assertEquals(result.getZoneOffset().getTotalSeconds(), -5 * 3600);
+		assertEquals(result.getQualifiers(), 4);
+	}
+
+	@Test
+	public void getValueTest() {
+		int maxCount = 0;
+		int minCount = 0;
+		for(int index = 0; index < series.getPoints(); index++) {
+			double value = series.getValue("tsId", index);
+			assertEquals(value, series.getValue("tsId", index), 0.0D);
+			if(value == StandInSeries.MAX_VALUE) {
+				maxCount++;
+				assertFalse(series.isGap(index));
+			} else if(value == StandInSeries.MIN_VALUE) {
+				minCount++;
+				assertFalse(series.isGap(index));
+			} else {
+				assertTrue(value > StandInSeries.MIN_VALUE && value < StandInSeries.MAX_VALUE);
+			}
+		}
+		assertEquals(maxCount, 3);
+		assertEquals(minCount, 3);
+	}
+
+	@Test
+	public void getIndexTest() {
+		assertEquals(series.getStartIndex("tsId", Instant.parse("2018-01-01T06:00:00Z")), 0);
+		assertEquals(series.getStartIndex("tsId", Instant.parse("2018-01-01T06:00:01Z")), 1);
+		assertEquals(series.getEndIndex("tsId", Instant.parse("2018-01-01T06:29:59Z")), 2);
+		assertEquals(series.getEndIndex("tsId", Instant.parse("2018-01-01T06:30:00Z")), 3);
+		assertEquals(series.getEndIndex("tsId", Instant.parse("2017-12-31T00:00:00Z")), 0);
+		assertEquals(series.getEndIndex("tsId", Instant.parse("2019-01-01T00:00:00Z")), 1000);
+		assertEquals(series.getInterval("dailyTsId"), Duration.ofDays(1));
+		assertEquals(series.getPointCount("dailyTsId"), 365);
+	}
+
+	@Test
+	public void writeCorrectedDataTest() throws IOException {
+		JsonObject response = writeCorrectedData("tsId", Instant.parse("2018-01-01T06:00:00Z"), Instant.parse("2018-01-02T06:00:00Z"));
+		JsonArray points = response.getAsJsonArray("Points");
+
+		// The 97 points of the day through its end, less the 7 points in the first gap
+		assertEquals(points.size(), 97 - 7);
+		assertEquals(response.get("NumPoints").getAsInt(), 90);
+		JsonObject first = points.get(0).getAsJsonObject();
+		assertEquals(first.get("Timestamp").getAsString(), "2018-01-01T00:00:00.0000000-06:00");
+		assertEquals(first.getAsJsonObject("Value").get("Numeric").getAsDouble(), series.getValue("tsId", 0), 0.0D);
+		assertEquals(points.get(89).getAsJsonObject().get("Timestamp").getAsString(), "2018-01-01T22:15:00.0000000-06:00");
+
+		// Only the first qualifier overlaps the day
+		JsonArray qualifiers = response.getAsJsonArray("Qualifiers");
+		assertEquals(qualifiers.size(), 1);
+		assertEquals(qualifiers.get(0).getAsJsonObject().get("Identifier").getAsString(), "ESTIMATED");
+		assertEquals(qualifiers.get(0).getAsJsonObject().get("EndTime").getAsString(), "2018-01-01T04:45:00.0000000-06:00");
+	}
+
+	@Test
+	public void getQualifierRangesTest() {
+		List<Object[]> ranges = series.getQualifierRanges("tsId");
+		assertEquals(ranges.size(), 2);
+		assertEquals(ranges.get(1)[0], 500);
+		assertEquals(ranges.get(1)[1], 519);
+		assertEquals(ranges.get(1)[2], "ICE");
+	}
+
+	private JsonObject writeCorrectedData(String uniqueId, Instant queryFrom, Instant queryTo) throws IOException {
+		StringWriter out = new StringWriter();
+		try (JsonWriter writer = new JsonWriter(out)) {
+			series.writeCorrectedData(writer, uniqueId, queryFrom, queryTo);
+		}
+		return new JsonParser().parse(out.toString()).getAsJsonObject();
+	}
+}
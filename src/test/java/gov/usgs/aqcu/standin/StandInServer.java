@@ -0,0 +1,341 @@
+package gov.usgs.aqcu.standin;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonWriter;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A local stand-in for Aquarius and the JavaToR renderer, so the service can be measured without
+ * either. Point aquariusServiceEndpoint and javaToRServiceEndpoint at the printed address and use
+ * any Aquarius user and password.
+ *
+ * Requests under /AQUARIUS/ are answered like the Aquarius Publish API: sessions, the server version,
+ * time series descriptions by unique id, location descriptions, qualifier metadata and corrected data,
+ * all generated by StandInSeries. Every other POST is rendered as a fixed HTML page after the
+ * configured render latency.
+ *
+ * Run from the test classpath with options as --name=value, for example:
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=gov.usgs.aqcu.standin.StandInServer -Dexec.args="--points=350400 --ties=3"
+ */
+public class StandInServer {
+	public static final int DEFAULT_PORT = 18080;
+	public static final String SESSION_TOKEN = "stand-in-session";
+	public static final String AQUARIUS_VERSION = "18.8.1";
+
+	private StandInSeries series;
+	private long renderLatencyMillis;
+	private int threads;
+	private HttpServer server;
+	private ExecutorService executor;
+	private String publicKeyXml;
+	private AtomicLong dataRequests = new AtomicLong();
+	private AtomicLong renderRequests = new AtomicLong();
+
+	public StandInServer(StandInSeries series, long renderLatencyMillis, int threads) {
+		this.series = series;
+		this.renderLatencyMillis = renderLatencyMillis;
+		this.threads = threads;
+	}
+
+	public static void main(String[] args) throws IOException {
+		Map<String, String> options = parseOptions(args);
+		StandInServer server = new StandInServer(StandInSeries.fromOptions(options),
+			Long.parseLong(options.getOrDefault("renderLatencyMillis", "250")),
+			Integer.parseInt(options.getOrDefault("threads", "32")));
+		server.start(Integer.parseInt(options.getOrDefault("port", String.valueOf(DEFAULT_PORT))));
+		System.out.println("Stand-in Aquarius and JavaToR listening, configure the service with:");
+		System.out.println("  aquariusServiceEndpoint=" + server.getEndpoint());
+		System.out.println("  javaToRServiceEndpoint=" + server.getEndpoint() + "/");
+		System.out.println("  aquariusServiceUser=standin aquariusServicePassword=standin");
+		Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+	}
+
+	public static Map<String, String> parseOptions(String[] args) {
+		Map<String, String> options = new HashMap<>();
+		for(String arg : args) {
+			String option = arg.startsWith("--") ? arg.substring(2) : arg;
+			int separator = option.indexOf('=');
+			if(separator > 0) {
+				options.put(option.substring(0, separator), option.substring(separator + 1));
+			}
+		}
+		return options;
+	}
+
+	/**
+	 * Starts serving on the port, or on any free port when it is 0.
+	 */
+	public void start(int port) throws IOException {
+		server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+		executor = Executors.newFixedThreadPool(threads);
+		server.setExecutor(executor);
+		server.createContext("/", this::handle);
+		server.start();
+	}
+
+	public void stop() {
+		if(server != null) {
+			server.stop(0);
+			executor.shutdownNow();
+			server = null;
+		}
+	}
+
+	public String getEndpoint() {
+		return "http://localhost:" + server.getAddress().getPort();
+	}
+
+	public long getDataRequests() {
+		return dataRequests.get();
+	}
+
+	public long getRenderRequests() {
+		return renderRequests.get();
+	}
+
+	protected void handle(HttpExchange exchange) throws IOException {
+		try {
+			String path = exchange.getRequestURI().getPath();
+			Map<String, List<String>> parameters = getParameters(exchange);
+			if(!path.startsWith("/AQUARIUS/")) {
+				render(exchange);
+			} else if(path.endsWith("/version")) {
+				sendJson(exchange, writer -> writer.beginObject().name("ApiVersion").value(AQUARIUS_VERSION).endObject());
+			} else if(path.endsWith("/session/publickey")) {
+				sendJson(exchange, writer -> writer.beginObject().name("KeySize").value(1024).name("Xml").value(getPublicKeyXml()).endObject());
+			} else if(path.endsWith("/session")) {
+				send(exchange, 200, "text/plain", SESSION_TOKEN.getBytes(StandardCharsets.UTF_8));
+			} else if(path.endsWith("/GetTimeSeriesDescriptionListByUniqueId")) {
+				sendJson(exchange, writer -> {
+					writer.beginObject().name("TimeSeriesDescriptions").beginArray();
+					for(String uniqueId : getValues(parameters, "TimeSeriesUniqueIds")) {
+						series.writeDescription(writer, uniqueId);
+					}
+					writer.endArray().endObject();
+				});
+			} else if(path.endsWith("/GetLocationDescriptionList")) {
+				sendJson(exchange, writer -> {
+					writer.beginObject().name("LocationDescriptions").beginArray();
+					for(String identifier : getValues(parameters, "LocationIdentifier")) {
+						writer.beginObject()
+							.name("Name").value("Stand-in station " + identifier)
+							.name("Identifier").value(identifier)
+							.name("UniqueId").value("location-" + identifier)
+							.name("IsExternalLocation").value(false)
+							.name("PrimaryFolder").value("All Locations")
+							.name("SecondaryFolders").beginArray().endArray()
+							.name("Tags").beginArray().endArray()
+							.endObject();
+					}
+					writer.endArray().endObject();
+				});
+			} else if(path.endsWith("/GetQualifierList")) {
+				sendJson(exchange, writer -> {
+					writer.beginObject().name("Qualifiers").beginArray();
+					for(String identifier : StandInSeries.QUALIFIER_IDENTIFIERS) {
+						writer.beginObject()
+							.name("Identifier").value(identifier)
+							.name("UniqueId").value("qualifier-" + identifier)
+							.name("Code").value(identifier.substring(0, 1))
+							.name("DisplayName").value(identifier.charAt(0) + identifier.substring(1).toLowerCase(Locale.US).replace('_', ' '))
+							.name("GroupIdentifier").value("Stand-in")
+							.endObject();
+					}
+					writer.endArray().endObject();
+				});
+			} else if(path.endsWith("/GetTimeSeriesCorrectedData")) {
+				dataRequests.incrementAndGet();
+				String uniqueId = getValue(parameters, "TimeSeriesUniqueId");
+				Instant queryFrom = parseTime(getValue(parameters, "QueryFrom"));
+				Instant queryTo = parseTime(getValue(parameters, "QueryTo"));
+				sendJson(exchange, writer -> series.writeCorrectedData(writer, uniqueId, queryFrom, queryTo));
+			} else {
+				send(exchange, 404, "text/plain", ("No stand-in for " + path).getBytes(StandardCharsets.UTF_8));
+			}
+		} catch (Exception e) {
+			send(exchange, 500, "text/plain", String.valueOf(e.getMessage()).getBytes(StandardCharsets.UTF_8));
+		} finally {
+			exchange.close();
+		}
+	}
+
+	protected void render(HttpExchange exchange) throws IOException {
+		renderRequests.incrementAndGet();
+		long bytes = 0;
+		try (InputStream body = exchange.getRequestBody()) {
+			byte[] buffer = new byte[8192];
+			for(int read = body.read(buffer); read >= 0; read = body.read(buffer)) {
+				bytes += read;
+			}
+		}
+		if(renderLatencyMillis > 0) {
+			try {
+				Thread.sleep(renderLatencyMillis);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		String html = "<html><body><h1>Stand-in report</h1><p>" + exchange.getRequestURI().getPath() + " rendered from "
+			+ bytes + " bytes</p></body></html>";
+		send(exchange, 200, "text/html", html.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * The query parameters of the request, and for a POST the top level fields of its JSON body. List
+	 * values are split whether given as JSON arrays, bracketed or comma separated.
+	 */
+	protected Map<String, List<String>> getParameters(HttpExchange exchange) throws IOException {
+		Map<String, List<String>> result = new HashMap<>();
+		String query = exchange.getRequestURI().getRawQuery();
+		if(query != null) {
+			for(String pair : query.split("&")) {
+				int separator = pair.indexOf('=');
+				if(separator > 0) {
+					String value = URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8.name());
+					result.put(URLDecoder.decode(pair.substring(0, separator), StandardCharsets.UTF_8.name()), splitValues(value));
+				}
+			}
+		}
+		if("POST".equalsIgnoreCase(exchange.getRequestMethod()) && exchange.getRequestURI().getPath().startsWith("/AQUARIUS/")) {
+			try (Reader reader = new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8)) {
+				JsonElement body = new JsonParser().parse(reader);
+				if(body != null && body.isJsonObject()) {
+					for(Map.Entry<String, JsonElement> field : ((JsonObject) body).entrySet()) {
+						result.put(field.getKey(), getValues(field.getValue()));
+					}
+				}
+			} catch (RuntimeException e) {
+				// Not a JSON body, such as session credentials sent as a form
+			}
+		}
+		return result;
+	}
+
+	private List<String> getValues(JsonElement element) {
+		List<String> values = new ArrayList<>();
+		if(element.isJsonArray()) {
+			for(JsonElement item : (JsonArray) element) {
+				values.add(item.getAsString());
+			}
+		} else if(element.isJsonPrimitive()) {
+			values.addAll(splitValues(element.getAsString()));
+		}
+		return values;
+	}
+
+	private List<String> splitValues(String value) {
+		String values = value.trim();
+		if(values.startsWith("[") && values.endsWith("]")) {
+			values = values.substring(1, values.length() - 1);
+		}
+		Set<String> result = new LinkedHashSet<>();
+		for(String item : values.split(",")) {
+			if(!item.trim().isEmpty()) {
+				result.add(item.trim());
+			}
+		}
+		return new ArrayList<>(result);
+	}
+
+	private List<String> getValues(Map<String, List<String>> parameters, String name) {
+		for(Map.Entry<String, List<String>> parameter : parameters.entrySet()) {
+			if(parameter.getKey().equalsIgnoreCase(name)) {
+				return parameter.getValue();
+			}
+		}
+		return new ArrayList<>();
+	}
+
+	private String getValue(Map<String, List<String>> parameters, String name) {
+		List<String> values = getValues(parameters, name);
+		return values.isEmpty() ? null : String.join(",", values);
+	}
+
+	/**
+	 * Parses an Aquarius query time, restoring a '+' offset that was decoded as a space.
+	 */
+	private Instant parseTime(String value) {
+		if(value == null || value.isEmpty()) {
+			return null;
+		}
+		return OffsetDateTime.parse(value.replace(' ', '+')).toInstant();
+	}
+
+	/**
+	 * A public key for clients that encrypt the session password. Any password is accepted, so the
+	 * private key is never needed.
+	 */
+	private synchronized String getPublicKeyXml() {
+		if(publicKeyXml == null) {
+			try {
+				KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+				generator.initialize(1024);
+				RSAPublicKey key = (RSAPublicKey) generator.generateKeyPair().getPublic();
+				publicKeyXml = "<RSAKeyValue><Modulus>" + toBase64(key.getModulus().toByteArray()) + "</Modulus><Exponent>"
+					+ toBase64(key.getPublicExponent().toByteArray()) + "</Exponent></RSAKeyValue>";
+			} catch (NoSuchAlgorithmException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+		return publicKeyXml;
+	}
+
+	private static String toBase64(byte[] bytes) {
+		// Unsigned, as the .NET XML key format expects
+		int offset = bytes.length > 1 && bytes[0] == 0 ? 1 : 0;
+		return Base64.getEncoder().encodeToString(Arrays.copyOfRange(bytes, offset, bytes.length));
+	}
+
+	private void sendJson(HttpExchange exchange, JsonBody body) throws IOException {
+		exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+		exchange.sendResponseHeaders(200, 0);
+		try (JsonWriter writer = new JsonWriter(new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8)))) {
+			body.write(writer);
+		}
+	}
+
+	private void send(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+		exchange.getResponseHeaders().set("Content-Type", contentType + "; charset=utf-8");
+		exchange.sendResponseHeaders(status, body.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(body);
+		}
+	}
+
+	@FunctionalInterface
+	private interface JsonBody {
+		void write(JsonWriter writer) throws IOException;
+	}
+}
@@ -0,0 +1,111 @@
+package gov.usgs.aqcu.standin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Scanner;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class StandInServerTest {
+	private StandInServer server;
+
+	@Before
+	public void setup() throws IOException {
+		server = new StandInServer(new StandInSeries()
+			.setStart(Instant.parse("2018-01-01T06:00:00Z"))
+			.setPoints(2000)
+			.setInterval(Duration.ofMinutes(15)), 50, 4);
+		server.start(0);
+	}
+
+	@After
+	public void tearDown() {
+		server.stop();
+	}
+
+	@Test
+	public void sessionTest() throws IOException {
+		assertEquals(request("POST", "/AQUARIUS/Publish/v2/session", "{\"Username\":\"standin\",\"Password\":\"standin\"}"),
+			StandInServer.SESSION_TOKEN);
+		JsonObject version = parse(request("GET", "/AQUARIUS/apps/v1/version", null));
+		assertEquals(version.get("ApiVersion").getAsString(), StandInServer.AQUARIUS_VERSION);
+		JsonObject publicKey = parse(request("GET", "/AQUARIUS/Publish/v2/session/publickey", null));
+		assertTrue(publicKey.get("Xml").getAsString().startsWith("<RSAKeyValue><Modulus>"));
+	}
+
+	@Test
+	public void getDescriptionsTest() throws IOException {
+		JsonArray descriptions = parse(request("GET", "/AQUARIUS/Publish/v2/GetTimeSeriesDescriptionListByUniqueId?TimeSeriesUniqueIds=tsId,dailyTsId", null))
+			.getAsJsonArray("TimeSeriesDescriptions");
+		assertEquals(descriptions.size(), 2);
+		assertEquals(descriptions.get(0).getAsJsonObject().get("UniqueId").getAsString(), "tsId");
+		assertEquals(descriptions.get(0).getAsJsonObject().get("UtcOffset").getAsDouble(), -6.0D, 0.0D);
+		assertEquals(descriptions.get(1).getAsJsonObject().get("ComputationPeriodIdentifier").getAsString(), "Daily");
+
+		// The same descriptions when the unique ids are posted
+		descriptions = parse(request("POST", "/AQUARIUS/Publish/v2/GetTimeSeriesDescriptionListByUniqueId", "{\"TimeSeriesUniqueIds\":[\"tsId\"]}"))
+			.getAsJsonArray("TimeSeriesDescriptions");
+		assertEquals(descriptions.size(), 1);
+		String locationIdentifier = descriptions.get(0).getAsJsonObject().get("LocationIdentifier").getAsString();
+
+		JsonArray locations = parse(request("GET", "/AQUARIUS/Publish/v2/GetLocationDescriptionList?LocationIdentifier=" + locationIdentifier, null))
+			.getAsJsonArray("LocationDescriptions");
+		assertEquals(locations.get(0).getAsJsonObject().get("Identifier").getAsString(), locationIdentifier);
+		JsonArray qualifiers = parse(request("GET", "/AQUARIUS/Publish/v2/GetQualifierList", null)).getAsJsonArray("Qualifiers");
+		assertEquals(qualifiers.size(), StandInSeries.QUALIFIER_IDENTIFIERS.size());
+	}
+
+	@Test
+	public void getCorrectedDataTest() throws IOException {
+		JsonObject response = parse(request("GET", "/AQUARIUS/Publish/v2/GetTimeSeriesCorrectedData?TimeSeriesUniqueId=tsId"
+			+ "&QueryFrom=2018-01-01T00%3A00%3A00.0000000-06%3A00&QueryTo=2018-01-01T10:44:59.9999999+00:00", null));
+		JsonArray points = response.getAsJsonArray("Points");
+		assertEquals(points.size(), 19);
+		assertEquals(points.get(0).getAsJsonObject().get("Timestamp").getAsString(), "2018-01-01T00:00:00.0000000-06:00");
+		assertEquals(server.getDataRequests(), 1);
+	}
+
+	@Test
+	public void renderTest() throws IOException {
+		long start = System.nanoTime();
+		String html = request("POST", "/report/extremes?requestingUser=test", "{\"reportMetadata\":{}}");
+		assertTrue(html.contains("rendered from 21 bytes"));
+		assertTrue(System.nanoTime() - start >= 50000000L);
+		assertEquals(server.getRenderRequests(), 1);
+	}
+
+	private String request(String method, String path, String body) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL(server.getEndpoint() + path).openConnection();
+		connection.setRequestMethod(method);
+		if(body != null) {
+			connection.setDoOutput(true);
+			connection.setRequestProperty("Content-Type", "application/json");
+			try (OutputStream out = connection.getOutputStream()) {
+				out.write(body.getBytes(StandardCharsets.UTF_8));
+			}
+		}
+		assertEquals(connection.getResponseCode(), 200);
+		try (InputStream in = connection.getInputStream(); Scanner scanner = new Scanner(in, StandardCharsets.UTF_8.name())) {
+			return scanner.useDelimiter("\\A").hasNext() ? scanner.next() : "";
+		}
+	}
+
+	private JsonObject parse(String json) {
+		return new JsonParser().parse(json).getAsJsonObject();
+	}
+}